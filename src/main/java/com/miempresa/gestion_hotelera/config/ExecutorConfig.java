@@ -0,0 +1,68 @@
+package com.miempresa.gestion_hotelera.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Pool acotado para consultas de disponibilidad en paralelo (varios hoteles por request).
+     * Si se llena, la tarea corre en el hilo que la pidió en lugar de encolarse sin límite.
+     */
+    @Bean(name = "disponibilidadExecutor")
+    public ThreadPoolTaskExecutor disponibilidadExecutor(
+            @Value("${app.disponibilidad.executor.hilos:4}") int hilos,
+            @Value("${app.disponibilidad.executor.cola:100}") int cola) {
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(hilos);
+        executor.setQueueCapacity(cola);
+        executor.setThreadNamePrefix("disponibilidad-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool para cálculos de reportes partidos en tramos (reconstrucción de proyecciones, etc.).
+     * Separado del de disponibilidad para que un reporte largo no frene las búsquedas.
+     */
+    @Bean(name = "reportesExecutor")
+    public ThreadPoolTaskExecutor reportesExecutor(
+            @Value("${app.reportes.executor.hilos:4}") int hilos,
+            @Value("${app.reportes.executor.cola:100}") int cola) {
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(hilos);
+        executor.setQueueCapacity(cola);
+        executor.setThreadNamePrefix("reportes-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool chico para llamadas a AFIP que no bloquean al usuario (renovación anticipada del ticket WSAA, etc.).
+     */
+    @Bean(name = "afipExecutor")
+    public ThreadPoolTaskExecutor afipExecutor(
+            @Value("${afip.executor.hilos:2}") int hilos,
+            @Value("${afip.executor.cola:50}") int cola) {
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(hilos);
+        executor.setQueueCapacity(cola);
+        executor.setThreadNamePrefix("afip-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,36 @@
+package com.miempresa.gestion_hotelera.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    /**
+     * Scheduler de los @Scheduled (cola de facturas, CAEA, jobs nocturnos).
+     * Se declara acá porque al haber otro TaskScheduler (el del dashboard) Spring
+     * Boot ya no crea el suyo; toma igual las propiedades spring.task.scheduling.*.
+     */
+    @Bean(name = "taskScheduler")
+    public ThreadPoolTaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return builder.build();
+    }
+
+    /**
+     * Scheduler propio de los push del dashboard (SSE): una ráfaga de recálculos o
+     * un cliente lento no demora a los jobs, y un job largo no frena los push.
+     */
+    @Bean(name = "dashboardScheduler")
+    public ThreadPoolTaskScheduler dashboardScheduler(@Value("${app.dashboard.sse.scheduler.hilos:2}") int hilos) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(hilos);
+        scheduler.setThreadNamePrefix("dashboard-sse-");
+        scheduler.initialize();
+        return scheduler;
+    }
+}
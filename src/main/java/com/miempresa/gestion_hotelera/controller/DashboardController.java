@@ -1,13 +1,26 @@
 package com.miempresa.gestion_hotelera.controller;
 
 import com.miempresa.gestion_hotelera.dto.DashboardDiaResponse;
+import com.miempresa.gestion_hotelera.dto.DashboardPortfolioResponse;
+import com.miempresa.gestion_hotelera.dto.KpiHotelResponse;
+import com.miempresa.gestion_hotelera.dto.OcupacionDiaResponse;
+import com.miempresa.gestion_hotelera.dto.OcupacionReconstruccionResponse;
+import com.miempresa.gestion_hotelera.dto.OcupacionVerificacionResponse;
+import com.miempresa.gestion_hotelera.dto.PickupReporteResponse;
 import com.miempresa.gestion_hotelera.service.DashboardService;
+import com.miempresa.gestion_hotelera.service.DashboardStreamService;
+import com.miempresa.gestion_hotelera.service.OcupacionDiariaService;
+import com.miempresa.gestion_hotelera.service.PickupSnapshotService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/dashboard")
@@ -15,6 +28,9 @@ import java.time.LocalDate;
 public class DashboardController {
 
     private final DashboardService dashboardService;
+    private final OcupacionDiariaService ocupacionDiariaService;
+    private final DashboardStreamService dashboardStreamService;
+    private final PickupSnapshotService pickupSnapshotService;
 
     @GetMapping("/dia")
     public ResponseEntity<DashboardDiaResponse> resumenDia(
@@ -24,4 +40,68 @@ public class DashboardController {
     ) {
         return ResponseEntity.ok(dashboardService.resumenDia(hotelId, fecha));
     }
+
+    // Resumen del día de todos los hoteles del cliente, en una sola consulta
+    @GetMapping("/portfolio")
+    public ResponseEntity<DashboardPortfolioResponse> resumenPortfolio(
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha
+    ) {
+        return ResponseEntity.ok(dashboardService.resumenPortfolio(fecha));
+    }
+
+    // Resumen del día por SSE: se envía al conectar y cada vez que cambian reservas del hotel
+    @GetMapping(value = "/dia/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter resumenDiaStream(@RequestParam Long hotelId) {
+        return dashboardStreamService.suscribir(hotelId);
+    }
+
+    // Ocupación, ADR y RevPAR diarios del rango [desde, hasta), por hotel y por tipo
+    @GetMapping("/kpi")
+    public ResponseEntity<KpiHotelResponse> kpis(
+            @RequestParam Long hotelId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta
+    ) {
+        return ResponseEntity.ok(dashboardService.kpis(hotelId, desde, hasta));
+    }
+
+    // Serie diaria leída de la proyección ocupacion_diaria
+    @GetMapping("/ocupacion")
+    public ResponseEntity<List<OcupacionDiaResponse>> ocupacion(
+            @RequestParam Long hotelId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta
+    ) {
+        return ResponseEntity.ok(ocupacionDiariaService.listar(hotelId, desde, hasta));
+    }
+
+    @PostMapping("/ocupacion/reconstruir")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<OcupacionReconstruccionResponse> reconstruirOcupacion(@RequestParam Long hotelId) {
+        return ResponseEntity.ok(ocupacionDiariaService.reconstruir(hotelId));
+    }
+
+    @GetMapping("/ocupacion/verificar")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<OcupacionVerificacionResponse> verificarOcupacion(
+            @RequestParam Long hotelId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta
+    ) {
+        return ResponseEntity.ok(ocupacionDiariaService.verificar(hotelId, desde, hasta));
+    }
+
+    // Ritmo de reservas: lo reservado por noche, pickup de los últimos diasPickup y el año anterior
+    @GetMapping("/pickup")
+    public ResponseEntity<PickupReporteResponse> pickup(
+            @RequestParam Long hotelId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaSnapshot,
+            @RequestParam(required = false) Integer diasPickup
+    ) {
+        return ResponseEntity.ok(pickupSnapshotService.reporte(hotelId, desde, hasta, fechaSnapshot, diasPickup));
+    }
 }
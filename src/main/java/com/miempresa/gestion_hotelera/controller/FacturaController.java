@@ -1,5 +1,9 @@
 package com.miempresa.gestion_hotelera.controller;
 
+import com.miempresa.gestion_hotelera.dto.AfipEstadisticasResponse;
+import com.miempresa.gestion_hotelera.dto.FacturaEstadoResponse;
+import com.miempresa.gestion_hotelera.dto.FacturaLoteRequest;
+import com.miempresa.gestion_hotelera.dto.FacturaLoteResponse;
 import com.miempresa.gestion_hotelera.dto.FacturaRequest;
 import com.miempresa.gestion_hotelera.dto.FacturaResponse;
 import com.miempresa.gestion_hotelera.entity.Factura;
@@ -12,6 +16,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -24,6 +29,7 @@ public class FacturaController {
     private final FacturaMapper facturaMapper;
 
     // POST /api/facturas/emitir - SOLO ADMIN
+    // 202: la factura queda PENDIENTE y se emite en AFIP en segundo plano (ver /{id}/estado)
     @PostMapping("/emitir")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<FacturaResponse> emitirFactura(
@@ -32,7 +38,39 @@ public class FacturaController {
     ) {
         String username = authentication.getName();
         Factura factura = facturaService.emitirFacturaDesdeReserva(request, username);
-        return ResponseEntity.ok(facturaMapper.toResponse(factura));
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/facturas/" + factura.getId() + "/estado"))
+                .body(facturaMapper.toResponse(factura));
+    }
+
+    // GET /api/facturas/{id}/estado - SOLO ADMIN
+    @GetMapping("/{id}/estado")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<FacturaEstadoResponse> obtenerEstado(
+            @PathVariable Long id,
+            Authentication authentication
+    ) {
+        String username = authentication.getName();
+        return ResponseEntity.ok(facturaService.obtenerEstado(id, username));
+    }
+
+    // POST /api/facturas/lote - SOLO ADMIN
+    @PostMapping("/lote")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<FacturaLoteResponse> emitirLote(
+            @RequestBody FacturaLoteRequest request,
+            Authentication authentication
+    ) {
+        String username = authentication.getName();
+        return ResponseEntity.ok(toResponse(facturaService.emitirLote(request.getFacturas(), username)));
+    }
+
+    // POST /api/facturas/lote/pendientes - SOLO ADMIN
+    @PostMapping("/lote/pendientes")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<FacturaLoteResponse> emitirPendientes(Authentication authentication) {
+        String username = authentication.getName();
+        return ResponseEntity.ok(toResponse(facturaService.emitirPendientes(username)));
     }
 
     // GET /api/facturas?hotelId=&desde=&hasta= - SOLO ADMIN
@@ -54,6 +92,14 @@ public class FacturaController {
         return ResponseEntity.ok(dtos);
     }
 
+    // GET /api/facturas/afip/estadisticas - SOLO ADMIN
+    // Estado del circuito hacia AFIP y latencia por operación
+    @GetMapping("/afip/estadisticas")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<AfipEstadisticasResponse> estadisticasAfip() {
+        return ResponseEntity.ok(facturaService.estadisticasAfip());
+    }
+
     // GET /api/facturas/reserva/{reservaId} - SOLO ADMIN
     @GetMapping("/reserva/{reservaId}")
     @PreAuthorize("hasRole('ADMIN')")
@@ -77,4 +123,19 @@ public class FacturaController {
         Factura factura = facturaService.obtenerFacturaPorId(id, username);
         return ResponseEntity.ok(facturaMapper.toResponse(factura));
     }
+
+    private FacturaLoteResponse toResponse(FacturaService.ResultadoLote resultado) {
+        List<Factura> facturas = resultado.facturas();
+        return FacturaLoteResponse.builder()
+                .aprobadas(contar(facturas, FacturaService.ESTADO_APROBADA))
+                .rechazadas(contar(facturas, FacturaService.ESTADO_RECHAZADA))
+                .pendientes(contar(facturas, FacturaService.ESTADO_PENDIENTE))
+                .facturas(facturas.stream().map(facturaMapper::toResponse).toList())
+                .errores(resultado.errores())
+                .build();
+    }
+
+    private static int contar(List<Factura> facturas, String estado) {
+        return (int) facturas.stream().filter(f -> estado.equals(f.getEstado())).count();
+    }
 }
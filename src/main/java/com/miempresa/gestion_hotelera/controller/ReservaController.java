@@ -1,13 +1,19 @@
 package com.miempresa.gestion_hotelera.controller;
 
 import com.miempresa.gestion_hotelera.dto.*;
+import com.miempresa.gestion_hotelera.service.AsignacionHabitacionService;
+import com.miempresa.gestion_hotelera.service.DisponibilidadPortfolioService;
 import com.miempresa.gestion_hotelera.service.ReservaService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import com.miempresa.gestion_hotelera.dto.PagosReservaResponse;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -16,21 +22,64 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ReservaController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final ReservaService reservaService;
+    private final DisponibilidadPortfolioService disponibilidadPortfolioService;
+    private final AsignacionHabitacionService asignacionHabitacionService;
 
     @PostMapping
     public ResponseEntity<ReservaResponse> crear(@RequestBody ReservaCreateRequest request) {
         return ResponseEntity.ok(reservaService.crear(request));
     }
 
+    // Alta de un grupo (todo o nada). Si alguna fila no es válida devuelve 422 con los errores por índice
+    @PostMapping("/grupo")
+    public ResponseEntity<ReservaGrupoResponse> crearGrupo(@RequestBody ReservaGrupoRequest request) {
+        ReservaGrupoResponse response = reservaService.crearGrupo(request);
+        if (!response.isCreado()) {
+            return ResponseEntity.unprocessableEntity().body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    // Las pantallas de recepción hacen polling: con If-None-Match vigente se responde 304 sin armar el listado
     @GetMapping
-    public ResponseEntity<List<ReservaResponse>> listar() {
-        return ResponseEntity.ok(reservaService.listar());
+    public ResponseEntity<List<ReservaResponse>> listar(WebRequest request) {
+        String etag = reservaService.etagListado();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(reservaService.listar());
+    }
+
+    // GET /api/reservas?limite=50&cursor=...&hotelId=&estado=&desde=&hasta=
+    @GetMapping(params = "limite")
+    public ResponseEntity<ReservaPaginaResponse> listarPagina(ReservaFiltroRequest filtro) {
+        return ResponseEntity.ok(reservaService.listarPagina(filtro));
+    }
+
+    // GET /api/reservas con Accept: application/x-ndjson -> una reserva por línea, sin armar la lista en memoria
+    @GetMapping(produces = NDJSON)
+    public void listarStream(ReservaFiltroRequest filtro, HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        reservaService.streamNdjson(filtro, response.getOutputStream());
+    }
+
+    // Búsqueda con filtros (fechas, estado, canal, estado de pago, huésped), orden y cursor
+    @GetMapping("/buscar")
+    public ResponseEntity<ReservaPaginaResponse> buscar(ReservaBusquedaRequest filtro) {
+        return ResponseEntity.ok(reservaService.buscar(filtro));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ReservaResponse> obtener(@PathVariable Long id) {
-        return ResponseEntity.ok(reservaService.obtener(id));
+    public ResponseEntity<ReservaResponse> obtener(@PathVariable Long id, WebRequest request) {
+        String etag = reservaService.etagReserva(id);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(reservaService.obtener(id));
     }
 
     @PutMapping("/{id}/cancelar")
@@ -75,6 +124,43 @@ public class ReservaController {
         return ResponseEntity.ok(reservaService.disponibilidadHotelResumen(hotelId, checkIn, checkOut));
     }
 
+    // Contadores de la caché de /disponibilidad/hotel/resumen
+    @GetMapping("/disponibilidad/cache/estadisticas")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CacheEstadisticasResponse> estadisticasCacheDisponibilidad() {
+        return ResponseEntity.ok(reservaService.estadisticasCacheDisponibilidad());
+    }
+
+    // Todos los hoteles del cliente, agrupado por hotel y tipo de habitación
+    @GetMapping("/disponibilidad/portfolio")
+    public ResponseEntity<DisponibilidadPortfolioResponse> disponibilidadPortfolio(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkIn,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkOut,
+            @RequestParam(required = false) Integer huespedes
+    ) {
+        return ResponseEntity.ok(disponibilidadPortfolioService.disponibilidad(checkIn, checkOut, huespedes));
+    }
+
+    // Libres por tipo de habitación y noche, para la grilla del motor de reservas
+    @GetMapping("/disponibilidad/hotel/inventario")
+    public ResponseEntity<InventarioHotelResponse> inventarioPorTipo(
+            @RequestParam Long hotelId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta
+    ) {
+        return ResponseEntity.ok(reservaService.inventarioPorTipo(hotelId, desde, hasta));
+    }
+
+    // Asigna habitación a las reservas tomadas solo por tipo dentro de la ventana
+    @PostMapping("/asignacion")
+    public ResponseEntity<AsignacionHabitacionesResponse> asignarHabitaciones(
+            @RequestParam Long hotelId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta
+    ) {
+        return ResponseEntity.ok(asignacionHabitacionService.asignar(hotelId, desde, hasta));
+    }
+
     @PostMapping("/{id}/senia")
     public ResponseEntity<ReservaResponse> registrarSenia(
             @PathVariable Long id,
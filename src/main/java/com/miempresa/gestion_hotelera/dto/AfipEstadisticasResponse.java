@@ -0,0 +1,31 @@
+package com.miempresa.gestion_hotelera.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class AfipEstadisticasResponse {
+
+    private String circuito;             // CERRADO, ABIERTO, SEMIABIERTO
+    private int fallasSeguidas;
+    private int llamadasEnCurso;
+    private int maxConcurrentes;
+    private List<Operacion> operaciones;
+
+    @Data
+    @Builder
+    public static class Operacion {
+        private String operacion;        // AUTH, FECAESolicitar, FECompUltimoAutorizado, FECompConsultar
+        private long llamadas;
+        private long errores;            // red, timeout o 5xx
+        private long rechazadas;         // no se hicieron: circuito abierto o bulkhead lleno
+        private long reintentos;
+        private long promedioMs;
+        private long p50Ms;              // aproximados por tramos de histograma
+        private long p95Ms;
+        private long maxMs;
+    }
+}
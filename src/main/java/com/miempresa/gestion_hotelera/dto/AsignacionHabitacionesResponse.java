@@ -0,0 +1,21 @@
+package com.miempresa.gestion_hotelera.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+public class AsignacionHabitacionesResponse {
+
+    private Long hotelId;
+    private LocalDate desde;
+    private LocalDate hasta;
+    private int pendientes;                          // reservas sin habitación encontradas en la ventana
+    private int asignadas;
+    private int nochesHuerfanas;                     // huecos cortos que quedaron entre reservas tras asignar
+    private List<AsignacionReservaResponse> asignaciones;
+    private List<Long> sinAsignar;                   // no entran en ninguna habitación de su tipo
+}
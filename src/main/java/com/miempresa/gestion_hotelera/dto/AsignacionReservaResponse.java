@@ -0,0 +1,13 @@
+package com.miempresa.gestion_hotelera.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class AsignacionReservaResponse {
+
+    private Long reservaId;
+    private Long habitacionId;
+    private String codigo;
+}
@@ -0,0 +1,19 @@
+package com.miempresa.gestion_hotelera.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class CacheEstadisticasResponse {
+
+    private boolean habilitada;
+    private int entradas;
+    private int maxEntradas;
+    private long aciertos;
+    private long fallos;
+    private long colapsados;             // esperaron el cálculo de otro request con la misma clave
+    private long desalojosPorTamanio;
+    private long desalojosPorTiempo;
+    private long invalidaciones;
+}
@@ -8,6 +8,7 @@ import lombok.Data;
 public class DashboardDiaResponse {
 
     private Long hotelId;
+    private String hotelNombre;
     private String fecha;
 
     private int habitacionesTotales;
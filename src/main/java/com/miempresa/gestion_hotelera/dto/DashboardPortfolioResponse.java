@@ -0,0 +1,24 @@
+package com.miempresa.gestion_hotelera.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class DashboardPortfolioResponse {
+
+    private String fecha;
+
+    // Totales de todos los hoteles del cliente
+    private int habitacionesTotales;
+    private int habitacionesOcupadas;
+    private double ocupacionPorcentaje;
+
+    private long checkinsHoy;
+    private long checkoutsHoy;
+    private long reservasNuevasHoy;
+
+    private List<DashboardDiaResponse> hoteles;
+}
@@ -0,0 +1,17 @@
+package com.miempresa.gestion_hotelera.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class DisponibilidadHotelTiposResponse {
+
+    private Long hotelId;
+    private String nombre;
+    private String ciudad;
+    private int cantidadDisponibles;
+    private List<DisponibilidadTipoResponse> tipos;
+}
@@ -0,0 +1,17 @@
+package com.miempresa.gestion_hotelera.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+public class DisponibilidadPortfolioResponse {
+
+    private LocalDate checkIn;
+    private LocalDate checkOut;
+    private int cantidadDisponibles;     // total entre todos los hoteles
+    private List<DisponibilidadHotelTiposResponse> hoteles;
+}
@@ -0,0 +1,17 @@
+package com.miempresa.gestion_hotelera.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+public class DisponibilidadTipoResponse {
+
+    private Long tipoHabitacionId;
+    private String nombre;
+    private Integer capacidadMax;
+    private BigDecimal precioNoche;
+    private int disponibles;
+}
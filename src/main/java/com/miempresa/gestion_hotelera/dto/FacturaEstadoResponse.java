@@ -0,0 +1,24 @@
+package com.miempresa.gestion_hotelera.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class FacturaEstadoResponse {
+
+    private Long facturaId;
+    private String estado;               // PENDIENTE, APROBADA, RECHAZADA
+    private Long numeroComprobante;      // 0 mientras está pendiente
+    private String cae;
+    private String caeVencimiento;
+    private String detalle;
+
+    // Cola de emisión (null si la factura no pasó por la cola)
+    private String estadoEmision;        // PENDIENTE, PROCESANDO, COMPLETADA, FALLIDA
+    private int intentos;
+    private LocalDateTime proximoIntento; // solo si espera un reintento
+    private String ultimoError;
+}
@@ -0,0 +1,12 @@
+package com.miempresa.gestion_hotelera.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class FacturaLoteRequest {
+    private List<FacturaRequest> facturas;
+}
@@ -0,0 +1,18 @@
+package com.miempresa.gestion_hotelera.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class FacturaLoteResponse {
+
+    private int aprobadas;
+    private int rechazadas;
+    private int pendientes;               // AFIP no respondió: se reintentan con /lote/pendientes
+
+    private List<FacturaResponse> facturas;
+    private List<String> errores;         // facturas que no se pudieron generar (reserva inexistente, ya facturada...)
+}
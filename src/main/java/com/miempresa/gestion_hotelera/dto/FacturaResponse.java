@@ -35,6 +35,7 @@ public class FacturaResponse {
     // AFIP
     private String cae;
     private String caeVencimiento;
+    private String modoAutorizacion;     // CAE o CAEA
 
     private String estado;               // APROBADA_AFIP / INTERNA / etc.
     private String detalle;
@@ -1,5 +1,6 @@
 package com.miempresa.gestion_hotelera.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
@@ -7,6 +8,7 @@ import java.math.BigDecimal;
 
 @Data
 @Builder
+@AllArgsConstructor
 public class HabitacionResponse {
 
     private Long id;
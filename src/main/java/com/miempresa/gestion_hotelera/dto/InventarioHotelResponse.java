@@ -0,0 +1,17 @@
+package com.miempresa.gestion_hotelera.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+public class InventarioHotelResponse {
+
+    private Long hotelId;
+    private LocalDate desde;             // primera noche de la grilla
+    private int noches;                  // largo de cada arreglo "libres"
+    private List<InventarioTipoResponse> tipos;
+}
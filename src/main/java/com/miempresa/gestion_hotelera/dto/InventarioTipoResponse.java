@@ -0,0 +1,14 @@
+package com.miempresa.gestion_hotelera.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class InventarioTipoResponse {
+
+    private Long tipoHabitacionId;
+    private String nombre;
+    private int habitacionesTotales;
+    private int[] libres;                // libres[i] = habitaciones libres la noche desde + i (negativo = sobreventa)
+}
@@ -0,0 +1,18 @@
+package com.miempresa.gestion_hotelera.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+public class KpiHotelResponse {
+
+    private Long hotelId;
+    private LocalDate desde;              // primer día de las series
+    private int dias;                    // largo de cada arreglo
+    private KpiSerieResponse total;      // todo el hotel
+    private List<KpiSerieResponse> tipos;
+}
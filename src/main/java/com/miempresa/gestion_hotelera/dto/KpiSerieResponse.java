@@ -0,0 +1,31 @@
+package com.miempresa.gestion_hotelera.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * Series diarias de un hotel o de un tipo de habitación. La posición i de cada
+ * arreglo corresponde al día desde + i.
+ */
+@Data
+@Builder
+public class KpiSerieResponse {
+
+    private Long tipoHabitacionId;       // null en la serie total del hotel
+    private String nombre;
+    private int habitaciones;            // habitaciones activas (oferta diaria)
+
+    private int[] ocupadas;
+    private double[] ocupacionPorcentaje;
+    private BigDecimal[] ingresos;       // precioTotal prorrateado por noche
+    private BigDecimal[] adr;            // ingresos / habitaciones ocupadas
+    private BigDecimal[] revpar;         // ingresos / habitaciones disponibles
+
+    // Acumulado del período
+    private double ocupacionPeriodo;
+    private BigDecimal ingresosPeriodo;
+    private BigDecimal adrPeriodo;
+    private BigDecimal revparPeriodo;
+}
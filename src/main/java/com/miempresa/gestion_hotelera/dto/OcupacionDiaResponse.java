@@ -0,0 +1,18 @@
+package com.miempresa.gestion_hotelera.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+public class OcupacionDiaResponse {
+
+    private LocalDate fecha;
+    private int habitacionesOcupadas;
+    private int llegadas;
+    private int salidas;
+    private BigDecimal ingresos;         // pagos registrados ese día
+}
@@ -0,0 +1,16 @@
+package com.miempresa.gestion_hotelera.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+public class OcupacionDiferenciaResponse {
+
+    private LocalDate fecha;
+    private String campo;
+    private String esperado;             // calculado desde reserva y pago
+    private String actual;               // lo que tiene ocupacion_diaria
+}
@@ -0,0 +1,17 @@
+package com.miempresa.gestion_hotelera.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+public class OcupacionReconstruccionResponse {
+
+    private Long hotelId;
+    private LocalDate desde;             // null si el hotel no tiene reservas ni pagos
+    private LocalDate hasta;
+    private int dias;                    // filas escritas
+    private long milisegundos;
+}
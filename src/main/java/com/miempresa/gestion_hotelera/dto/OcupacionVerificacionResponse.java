@@ -0,0 +1,18 @@
+package com.miempresa.gestion_hotelera.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+public class OcupacionVerificacionResponse {
+
+    private Long hotelId;
+    private LocalDate desde;
+    private LocalDate hasta;
+    private boolean consistente;
+    private List<OcupacionDiferenciaResponse> diferencias;
+}
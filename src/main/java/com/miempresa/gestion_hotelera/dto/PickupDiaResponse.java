@@ -0,0 +1,27 @@
+package com.miempresa.gestion_hotelera.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+public class PickupDiaResponse {
+
+    private LocalDate fechaEstadia;
+    private long diasAnticipacion;                 // fechaEstadia - fecha de la foto
+
+    // Lo reservado según la foto y lo que se sumó en los últimos diasPickup
+    private int habitaciones;
+    private BigDecimal ingresos;
+    private int pickupHabitaciones;
+    private BigDecimal pickupIngresos;
+
+    // Misma noche un año antes (52 semanas, mismo día de la semana) con la misma anticipación
+    private int habitacionesAnioAnterior;
+    private BigDecimal ingresosAnioAnterior;
+    private int pickupHabitacionesAnioAnterior;
+    private BigDecimal pickupIngresosAnioAnterior;
+}
@@ -0,0 +1,24 @@
+package com.miempresa.gestion_hotelera.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+public class PickupReporteResponse {
+
+    private Long hotelId;
+    private LocalDate fechaSnapshot;
+    private LocalDate fechaSnapshotAnioAnterior;
+    private int diasPickup;
+
+    // false si el job no corrió alguno de esos días: los valores salen en cero
+    private boolean snapshotDisponible;
+    private boolean pickupDisponible;
+    private boolean anioAnteriorDisponible;
+
+    private List<PickupDiaResponse> dias;
+}
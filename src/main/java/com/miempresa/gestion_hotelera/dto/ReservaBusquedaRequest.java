@@ -0,0 +1,30 @@
+package com.miempresa.gestion_hotelera.dto;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+@Data
+public class ReservaBusquedaRequest {
+
+    private Long hotelId;                // opcional, todos los hoteles del cliente si es null
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate desde;             // estadías que tocan [desde, hasta)
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate hasta;
+
+    private String estado;               // EstadoReserva
+    private String canal;
+    private String estadoPago;           // EstadoPago
+    private Long huespedId;              // titular o acompañante
+    private String huesped;              // prefijo de apellido o número de documento exacto
+
+    private String orden;                // checkIn (default) / checkOut / creadoEn
+    private String direccion;            // asc (default) / desc
+
+    private String cursor;               // siguienteCursor de la página anterior
+    private Integer limite;              // tamaño de página
+}
@@ -0,0 +1,22 @@
+package com.miempresa.gestion_hotelera.dto;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+@Data
+public class ReservaFiltroRequest {
+
+    private Long hotelId;                // opcional, todos los hoteles del cliente si es null
+    private String estado;               // PENDIENTE / CONFIRMADA / etc.
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate desde;             // check-in >= desde
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate hasta;             // check-in < hasta
+
+    private String cursor;               // siguienteCursor de la página anterior
+    private Integer limite;              // tamaño de página
+}
@@ -0,0 +1,12 @@
+package com.miempresa.gestion_hotelera.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ReservaGrupoErrorResponse {
+
+    private int indice;                          // posición en la lista "reservas" del request
+    private String mensaje;
+}
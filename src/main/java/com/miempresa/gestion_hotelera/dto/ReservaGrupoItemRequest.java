@@ -0,0 +1,34 @@
+package com.miempresa.gestion_hotelera.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class ReservaGrupoItemRequest {
+
+    private Long tipoHabitacionId;
+    private Long habitacionId;                   // opcional
+
+    // Titular: un huésped existente o los datos de uno nuevo
+    private Long huespedTitularId;
+    private HuespedRequest titular;
+
+    // Acompañantes existentes y/o nuevos
+    private List<Long> acompanianteIds;
+    private List<HuespedRequest> acompaniantes;
+
+    private LocalDate checkIn;
+    private LocalDate checkOut;
+
+    private Integer adultos;
+    private Integer ninos;
+
+    private String canal;
+    private BigDecimal precioTotal;
+    private String moneda;
+
+    private String comentariosCliente;
+}
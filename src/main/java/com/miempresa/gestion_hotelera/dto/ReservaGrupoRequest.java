@@ -0,0 +1,12 @@
+package com.miempresa.gestion_hotelera.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ReservaGrupoRequest {
+
+    private Long hotelId;
+    private List<ReservaGrupoItemRequest> reservas;
+}
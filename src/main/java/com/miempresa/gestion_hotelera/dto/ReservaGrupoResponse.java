@@ -0,0 +1,16 @@
+package com.miempresa.gestion_hotelera.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class ReservaGrupoResponse {
+
+    private boolean creado;                      // false = no se guardó ninguna reserva
+    private int cantidad;
+    private List<ReservaResponse> reservas;
+    private List<ReservaGrupoErrorResponse> errores;
+}
@@ -0,0 +1,14 @@
+package com.miempresa.gestion_hotelera.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class ReservaPaginaResponse {
+
+    private List<ReservaResponse> items;
+    private String siguienteCursor;      // null cuando no hay más páginas
+}
@@ -0,0 +1,42 @@
+package com.miempresa.gestion_hotelera.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * CAEA de una quincena. Lo pide y lo usa CaeaService (ver V20__create_caea.sql).
+ */
+@Entity
+@Table(name = "caea")
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+@IdClass(CaeaId.class)
+public class Caea {
+
+    @Id
+    private String cuit;
+
+    @Id
+    private Integer periodo;   // yyyyMM
+
+    @Id
+    private Integer orden;     // 1 = primera quincena, 2 = segunda
+
+    @Column(nullable = false)
+    private String caea;
+
+    @Column(name = "fch_vig_desde", nullable = false)
+    private LocalDate fchVigDesde;
+
+    @Column(name = "fch_vig_hasta", nullable = false)
+    private LocalDate fchVigHasta;
+
+    @Column(name = "fch_tope_inf", nullable = false)
+    private LocalDate fchTopeInf;
+
+    @Column(name = "obtenido_en", nullable = false)
+    private LocalDateTime obtenidoEn;
+}
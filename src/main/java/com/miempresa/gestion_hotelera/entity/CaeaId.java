@@ -0,0 +1,14 @@
+package com.miempresa.gestion_hotelera.entity;
+
+import lombok.*;
+
+import java.io.Serializable;
+
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@EqualsAndHashCode
+public class CaeaId implements Serializable {
+    private String cuit;
+    private Integer periodo;
+    private Integer orden;
+}
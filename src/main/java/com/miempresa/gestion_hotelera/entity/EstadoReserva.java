@@ -1,9 +1,18 @@
 package com.miempresa.gestion_hotelera.entity;
 
+import java.util.List;
+
 public enum EstadoReserva {
     PENDIENTE,
     CONFIRMADA,
     CANCELADA,
     CHECKIN,
-    CHECKOUT
+    CHECKOUT;
+
+    // Estados que bloquean la habitación (ocupan noches)
+    public static final List<EstadoReserva> ACTIVOS = List.of(PENDIENTE, CONFIRMADA, CHECKIN);
+
+    public boolean esActivo() {
+        return ACTIVOS.contains(this);
+    }
 }
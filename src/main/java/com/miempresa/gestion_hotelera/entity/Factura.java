@@ -5,6 +5,7 @@ import jakarta.persistence.*;
 import lombok.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
@@ -67,8 +68,28 @@ public class Factura {
     private String caeVencimiento; // yyyy-MM-dd
 
     @Column(nullable = false)
-    private String estado; // PENDIENTE, APROBADA, RECHAZADA
+    private String estado; // PENDIENTE, PROCESANDO, APROBADA, RECHAZADA
 
     @Column
     private String detalle; // Observaciones, descripción
+
+    // CAE (AFIP en el momento) o CAEA (autorizada localmente, ver CaeaService)
+    @Column(name = "modo_autorizacion", nullable = false)
+    @Builder.Default
+    private String modoAutorizacion = "CAE";
+
+    // Solo CAEA: cuándo se informó a AFIP con FECAEARegInformativo
+    @Column(name = "caea_informada_en")
+    private LocalDateTime caeaInformadaEn;
+
+    // Número y fecha con que se mandó a AFIP, mientras no se conozca el resultado
+    @Column(name = "numero_intentado")
+    private Long numeroIntentado;
+
+    @Column(name = "fecha_intentada")
+    private LocalDate fechaIntentada;
+
+    // PROCESANDO: cuándo la tomó una emisión de pendientes o por lote
+    @Column(name = "procesando_desde")
+    private LocalDateTime procesandoDesde;
 }
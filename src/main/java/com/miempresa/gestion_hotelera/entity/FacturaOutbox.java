@@ -0,0 +1,50 @@
+package com.miempresa.gestion_hotelera.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pedido de emisión en AFIP de una factura. Lo procesa FacturaOutboxService
+ * (ver V19__create_factura_outbox.sql).
+ */
+@Entity
+@Table(name = "factura_outbox")
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+public class FacturaOutbox {
+
+    public static final String PENDIENTE = "PENDIENTE";
+    public static final String PROCESANDO = "PROCESANDO";
+    public static final String COMPLETADA = "COMPLETADA";
+    public static final String FALLIDA = "FALLIDA";
+    // AFIP pudo haber autorizado el comprobante y no se pudo confirmar: se resuelve a mano
+    public static final String REVISION = "REVISION";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "factura_id", nullable = false)
+    private Factura factura;
+
+    @Column(nullable = false)
+    private String estado;
+
+    @Column(nullable = false)
+    private Integer intentos;
+
+    @Column(name = "proximo_intento", nullable = false)
+    private LocalDateTime proximoIntento;
+
+    @Column(name = "ultimo_error")
+    private String ultimoError;
+
+    @Column(name = "creado_en", nullable = false)
+    private LocalDateTime creadoEn;
+
+    @Column(name = "actualizado_en", nullable = false)
+    private LocalDateTime actualizadoEn;
+}
@@ -12,7 +12,8 @@ import java.time.LocalDateTime;
 public class Huesped {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "huesped_seq")
+    @SequenceGenerator(name = "huesped_seq", sequenceName = "huesped_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,33 @@
+package com.miempresa.gestion_hotelera.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Fila de la proyección diaria por hotel. No se escribe con save(): la mantiene
+ * OcupacionDiariaService con upserts incrementales (ver V16__create_ocupacion_diaria.sql).
+ */
+@Entity
+@Table(name = "ocupacion_diaria")
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+@IdClass(OcupacionDiariaId.class)
+public class OcupacionDiaria {
+
+    @Id
+    @Column(name = "hotel_id")
+    private Long hotelId;
+
+    @Id
+    private LocalDate fecha;
+
+    @Column(name = "habitaciones_ocupadas")
+    private int habitacionesOcupadas;
+
+    private int llegadas;
+    private int salidas;
+    private BigDecimal ingresos;
+}
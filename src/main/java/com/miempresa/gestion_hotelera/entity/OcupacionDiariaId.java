@@ -0,0 +1,14 @@
+package com.miempresa.gestion_hotelera.entity;
+
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@EqualsAndHashCode
+public class OcupacionDiariaId implements Serializable {
+    private Long hotelId;
+    private LocalDate fecha;
+}
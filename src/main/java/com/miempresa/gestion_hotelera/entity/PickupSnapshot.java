@@ -0,0 +1,34 @@
+package com.miempresa.gestion_hotelera.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Lo reservado para una noche según la foto de un día. Las filas las escribe
+ * PickupSnapshotService con un INSERT ... SELECT (ver V17__create_pickup_snapshot.sql).
+ */
+@Entity
+@Table(name = "pickup_snapshot")
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+@IdClass(PickupSnapshotId.class)
+public class PickupSnapshot {
+
+    @Id
+    @Column(name = "hotel_id")
+    private Long hotelId;
+
+    @Id
+    @Column(name = "fecha_snapshot")
+    private LocalDate fechaSnapshot;
+
+    @Id
+    @Column(name = "fecha_estadia")
+    private LocalDate fechaEstadia;
+
+    private int habitaciones;
+    private BigDecimal ingresos;
+}
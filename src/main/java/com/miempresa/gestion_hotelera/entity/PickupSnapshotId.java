@@ -0,0 +1,15 @@
+package com.miempresa.gestion_hotelera.entity;
+
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@EqualsAndHashCode
+public class PickupSnapshotId implements Serializable {
+    private Long hotelId;
+    private LocalDate fechaSnapshot;
+    private LocalDate fechaEstadia;
+}
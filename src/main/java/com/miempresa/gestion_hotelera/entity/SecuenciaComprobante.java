@@ -0,0 +1,50 @@
+package com.miempresa.gestion_hotelera.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Numeración local de comprobantes por (CUIT, punto de venta, tipo AFIP).
+ * La maneja SecuenciaComprobanteService (ver V18__create_secuencia_comprobante.sql).
+ */
+@Entity
+@Table(name = "secuencia_comprobante")
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+@IdClass(SecuenciaComprobanteId.class)
+public class SecuenciaComprobante {
+
+    @Id
+    private String cuit;
+
+    @Id
+    @Column(name = "punto_venta")
+    private Integer puntoVenta;
+
+    @Id
+    @Column(name = "cbte_tipo")
+    private Integer cbteTipo;
+
+    @Column(name = "ultimo_numero", nullable = false)
+    private Long ultimoNumero;
+
+    @Column(name = "sincronizado_en", nullable = false)
+    private LocalDateTime sincronizadoEn;
+
+    @Column(name = "actualizado_en", nullable = false)
+    private LocalDateTime actualizadoEn;
+
+    // Emisión en curso (ver SecuenciaComprobanteService.reservar): quién y hasta cuándo
+    @Column(name = "reservada_por")
+    private String reservadaPor;
+
+    @Column(name = "reservada_hasta")
+    private LocalDateTime reservadaHasta;
+
+    // Una emisión terminó sin saber qué autorizó AFIP: releer el último antes de numerar
+    @Column(name = "requiere_sincronizar", nullable = false)
+    @Builder.Default
+    private Boolean requiereSincronizar = false;
+}
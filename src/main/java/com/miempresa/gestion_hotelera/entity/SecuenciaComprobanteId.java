@@ -0,0 +1,14 @@
+package com.miempresa.gestion_hotelera.entity;
+
+import lombok.*;
+
+import java.io.Serializable;
+
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@EqualsAndHashCode
+public class SecuenciaComprobanteId implements Serializable {
+    private String cuit;
+    private Integer puntoVenta;
+    private Integer cbteTipo;
+}
@@ -0,0 +1,30 @@
+package com.miempresa.gestion_hotelera.event;
+
+import com.miempresa.gestion_hotelera.entity.EstadoReserva;
+import com.miempresa.gestion_hotelera.entity.Reserva;
+
+import java.time.LocalDate;
+
+/**
+ * Se publica cada vez que ReservaService crea una reserva o cambia su estado.
+ * Lleva solo los datos que necesitan los listeners (índices, cachés, etc.)
+ * para no depender de entidades lazy fuera de la transacción.
+ */
+public record ReservaModificadaEvent(Long hotelId,
+                                     Long reservaId,
+                                     Long habitacionId,
+                                     LocalDate checkIn,
+                                     LocalDate checkOut,
+                                     EstadoReserva estado) {
+
+    public static ReservaModificadaEvent de(Reserva reserva) {
+        return new ReservaModificadaEvent(
+                reserva.getHotel().getId(),
+                reserva.getId(),
+                reserva.getHabitacion() != null ? reserva.getHabitacion().getId() : null,
+                reserva.getCheckIn(),
+                reserva.getCheckOut(),
+                reserva.getEstado()
+        );
+    }
+}
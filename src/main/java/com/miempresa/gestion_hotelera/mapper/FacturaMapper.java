@@ -44,6 +44,7 @@ public class FacturaMapper {
                 .moneda(entity.getMoneda())
                 .cae(entity.getCae())
                 .caeVencimiento(entity.getCaeVencimiento())
+                .modoAutorizacion(entity.getModoAutorizacion())
                 .estado(entity.getEstado())
                 .detalle(entity.getDetalle())
                 .esFiscal(esFiscal)
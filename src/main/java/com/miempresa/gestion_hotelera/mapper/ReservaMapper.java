@@ -3,6 +3,7 @@ package com.miempresa.gestion_hotelera.mapper;
 import com.miempresa.gestion_hotelera.dto.ReservaCreateRequest;
 import com.miempresa.gestion_hotelera.dto.ReservaResponse;
 import com.miempresa.gestion_hotelera.entity.*;
+import com.miempresa.gestion_hotelera.repository.ReservaRepository;
 import org.springframework.stereotype.Component;
 import com.miempresa.gestion_hotelera.entity.EstadoReserva;
 import com.miempresa.gestion_hotelera.entity.EstadoPago;
@@ -65,5 +66,31 @@ public class ReservaMapper {
                 .build();
     }
 
+    // Misma respuesta a partir de la proyección que usa el listado en streaming
+    public ReservaResponse toResponse(ReservaRepository.ReservaFilaView fila,
+                                      Long huespedTitularId,
+                                      List<Long> acompanianteIds) {
 
+        return ReservaResponse.builder()
+                .id(fila.getId())
+                .hotelId(fila.getHotelId())
+                .tipoHabitacionId(fila.getTipoHabitacionId())
+                .habitacionId(fila.getHabitacionId())
+                .huespedTitularId(huespedTitularId)
+                .acompanianteIds(acompanianteIds)
+                .checkIn(fila.getCheckIn())
+                .checkOut(fila.getCheckOut())
+                .adultos(fila.getAdultos())
+                .ninos(fila.getNinos())
+                .canal(fila.getCanal())
+                .estado(fila.getEstado() != null ? fila.getEstado().name() : null)
+                .estadoPago(fila.getEstadoPago() != null ? fila.getEstadoPago().name() : null)
+                .precioTotal(fila.getPrecioTotal())
+                .moneda(fila.getMoneda())
+                .comentariosCliente(fila.getComentariosCliente())
+                .comentariosInternos(fila.getComentariosInternos())
+                .creadoEn(fila.getCreadoEn())
+                .actualizadoEn(fila.getActualizadoEn())
+                .build();
+    }
 }
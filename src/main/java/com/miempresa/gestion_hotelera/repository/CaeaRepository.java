@@ -0,0 +1,8 @@
+package com.miempresa.gestion_hotelera.repository;
+
+import com.miempresa.gestion_hotelera.entity.Caea;
+import com.miempresa.gestion_hotelera.entity.CaeaId;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface CaeaRepository extends JpaRepository<Caea, CaeaId> {
+}
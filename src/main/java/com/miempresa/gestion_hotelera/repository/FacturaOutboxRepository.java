@@ -0,0 +1,47 @@
+package com.miempresa.gestion_hotelera.repository;
+
+import com.miempresa.gestion_hotelera.entity.FacturaOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface FacturaOutboxRepository extends JpaRepository<FacturaOutbox, Long> {
+
+    // Filas listas para mandar; SKIP LOCKED: otra instancia reclamando a la vez se saltea estas
+    @Query(value = """
+           SELECT id FROM factura_outbox
+           WHERE estado = 'PENDIENTE' AND proximo_intento <= :ahora
+           ORDER BY proximo_intento
+           LIMIT :max
+           FOR UPDATE SKIP LOCKED
+           """, nativeQuery = true)
+    List<Long> findIdsListos(@Param("ahora") LocalDateTime ahora, @Param("max") int max);
+
+    @Modifying
+    @Query("""
+           UPDATE FacturaOutbox o SET o.estado = 'PROCESANDO', o.actualizadoEn = :ahora
+           WHERE o.id IN :ids
+           """)
+    int marcarProcesando(@Param("ids") List<Long> ids, @Param("ahora") LocalDateTime ahora);
+
+    // PROCESANDO desde antes del límite: la instancia que la tenía se cayó a mitad de la llamada
+    @Modifying
+    @Query("""
+           UPDATE FacturaOutbox o SET o.estado = 'PENDIENTE', o.intentos = o.intentos + 1,
+                  o.proximoIntento = :ahora, o.ultimoError = :error, o.actualizadoEn = :ahora
+           WHERE o.estado = 'PROCESANDO' AND o.actualizadoEn < :limite
+           """)
+    int reencolarInterrumpidas(@Param("limite") LocalDateTime limite,
+                               @Param("error") String error,
+                               @Param("ahora") LocalDateTime ahora);
+
+    @Query("SELECT o FROM FacturaOutbox o JOIN FETCH o.factura WHERE o.id = :id")
+    Optional<FacturaOutbox> findByIdWithFactura(@Param("id") Long id);
+
+    Optional<FacturaOutbox> findFirstByFacturaIdOrderByIdDesc(Long facturaId);
+}
@@ -1,10 +1,14 @@
 package com.miempresa.gestion_hotelera.repository;
 
 import com.miempresa.gestion_hotelera.entity.Factura;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -58,4 +62,51 @@ public interface FacturaRepository extends JpaRepository<Factura, Long> {
            "LEFT JOIN FETCH r.hotel hotel " +
            "WHERE f.id = :id")
     Optional<Factura> findByIdWithFetch(@Param("id") Long id);
+
+    // Facturas PENDIENTE de un cliente para reenviar a AFIP: ni en la cola de emisión, ni para revisar,
+    // ni con un envío cuyo resultado no se conoce (numero_intentado: lo verifica la cola).
+    // SKIP LOCKED: otra emisión de pendientes tomando a la vez se saltea estas
+    @Query(value = """
+           SELECT f.id FROM factura f
+           WHERE f.cliente_id = :clienteId AND f.estado = 'PENDIENTE'
+           AND f.numero_intentado IS NULL
+           AND NOT EXISTS (SELECT 1 FROM factura_outbox o WHERE o.factura_id = f.id
+                           AND o.estado IN ('PENDIENTE', 'PROCESANDO', 'REVISION'))
+           ORDER BY f.id
+           FOR UPDATE SKIP LOCKED
+           """, nativeQuery = true)
+    List<Long> findIdsPendientesSinEncolar(@Param("clienteId") Long clienteId);
+
+    @Modifying
+    @Query("""
+           UPDATE Factura f SET f.estado = 'PROCESANDO', f.procesandoDesde = :ahora
+           WHERE f.id IN :ids
+           """)
+    int marcarProcesando(@Param("ids") List<Long> ids, @Param("ahora") LocalDateTime ahora);
+
+    // PROCESANDO desde antes del límite: la emisión que las tomó se cortó a mitad
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM Factura f WHERE f.estado = 'PROCESANDO' AND f.procesandoDesde < :limite")
+    List<Factura> findProcesandoInterrumpidas(@Param("limite") LocalDateTime limite);
+
+    // Facturas por ID con JOIN FETCH (resultado de la emisión por lote)
+    @Query("SELECT f FROM Factura f " +
+           "LEFT JOIN FETCH f.cliente c " +
+           "LEFT JOIN FETCH f.reserva r " +
+           "LEFT JOIN FETCH r.huespedTitular h " +
+           "LEFT JOIN FETCH r.hotel hotel " +
+           "WHERE f.id IN :ids " +
+           "ORDER BY f.id")
+    List<Factura> findByIdInWithFetch(@Param("ids") List<Long> ids);
+
+    // Facturas autorizadas con CAEA que todavía no se informaron a AFIP, en orden de numeración
+    @Query("SELECT f FROM Factura f " +
+           "WHERE f.modoAutorizacion = 'CAEA' AND f.caeaInformadaEn IS NULL AND f.estado = 'APROBADA' " +
+           "ORDER BY f.puntoVenta, f.tipoComprobante, f.numeroComprobante")
+    List<Factura> findCaeaSinInformar();
+
+    // Número y fecha con que se va a mandar a AFIP; se guarda antes del envío
+    @Modifying
+    @Query("UPDATE Factura f SET f.numeroIntentado = :numero, f.fechaIntentada = :fecha WHERE f.id = :id")
+    int registrarIntento(@Param("id") Long id, @Param("numero") long numero, @Param("fecha") LocalDate fecha);
 }
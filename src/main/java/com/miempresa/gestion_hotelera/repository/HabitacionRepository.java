@@ -2,6 +2,8 @@ package com.miempresa.gestion_hotelera.repository;
 
 import com.miempresa.gestion_hotelera.entity.Habitacion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
@@ -9,6 +11,15 @@ public interface HabitacionRepository extends JpaRepository<Habitacion, Long> {
 
     List<Habitacion> findByHotel_Id(Long hotelId);
 
+    long countByHotel_Id(Long hotelId);
+
     // NUEVO: todas las habitaciones de todos los hoteles de un cliente
     List<Habitacion> findByHotel_Cliente_Id(Long clienteId);
+
+    // Habitaciones del hotel con su tipo ya cargado (evita N+1 al mapear precioNoche)
+    @Query("SELECT h FROM Habitacion h " +
+           "JOIN FETCH h.tipoHabitacion " +
+           "WHERE h.hotel.id = :hotelId " +
+           "ORDER BY h.id")
+    List<Habitacion> findByHotelIdWithFetch(@Param("hotelId") Long hotelId);
 }
\ No newline at end of file
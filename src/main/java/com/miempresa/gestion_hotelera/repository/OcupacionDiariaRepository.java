@@ -0,0 +1,140 @@
+package com.miempresa.gestion_hotelera.repository;
+
+import com.miempresa.gestion_hotelera.entity.OcupacionDiaria;
+import com.miempresa.gestion_hotelera.entity.OcupacionDiariaId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface OcupacionDiariaRepository extends JpaRepository<OcupacionDiaria, OcupacionDiariaId> {
+
+    List<OcupacionDiaria> findByHotelIdAndFechaGreaterThanEqualAndFechaLessThanOrderByFecha(Long hotelId,
+                                                                                           LocalDate desde,
+                                                                                           LocalDate hasta);
+
+    // Suma delta a cada noche de [checkIn, checkOut), a la llegada y a la salida, en un solo upsert.
+    // Las filas se tocan en orden de fecha, así dos transacciones sobre el mismo hotel no se bloquean cruzadas.
+    @Modifying
+    @Query(value = """
+           INSERT INTO ocupacion_diaria AS o (hotel_id, fecha, habitaciones_ocupadas, llegadas, salidas, ingresos)
+           SELECT :hotelId, CAST(g AS date),
+                  CASE WHEN CAST(g AS date) < :checkOut THEN :delta ELSE 0 END,
+                  CASE WHEN CAST(g AS date) = :checkIn THEN :delta ELSE 0 END,
+                  CASE WHEN CAST(g AS date) = :checkOut THEN :delta ELSE 0 END,
+                  0
+           FROM generate_series(CAST(:checkIn AS timestamp), CAST(:checkOut AS timestamp), interval '1 day') g
+           ON CONFLICT (hotel_id, fecha) DO UPDATE SET
+               habitaciones_ocupadas = o.habitaciones_ocupadas + EXCLUDED.habitaciones_ocupadas,
+               llegadas = o.llegadas + EXCLUDED.llegadas,
+               salidas = o.salidas + EXCLUDED.salidas
+           """, nativeQuery = true)
+    void sumarEstadia(@Param("hotelId") Long hotelId,
+                      @Param("checkIn") LocalDate checkIn,
+                      @Param("checkOut") LocalDate checkOut,
+                      @Param("delta") int delta);
+
+    @Modifying
+    @Query(value = """
+           INSERT INTO ocupacion_diaria AS o (hotel_id, fecha, ingresos)
+           VALUES (:hotelId, :fecha, :monto)
+           ON CONFLICT (hotel_id, fecha) DO UPDATE SET ingresos = o.ingresos + EXCLUDED.ingresos
+           """, nativeQuery = true)
+    void sumarIngresos(@Param("hotelId") Long hotelId,
+                       @Param("fecha") LocalDate fecha,
+                       @Param("monto") BigDecimal monto);
+
+    /*
+     * Bloqueo por hotel contra la reconstrucción: los upserts incrementales toman el
+     * lock compartido (no se bloquean entre sí) y la reconstrucción el exclusivo.
+     * Es de transacción, se libera solo en commit/rollback.
+     */
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock_shared(:clave, CAST(:hotelId AS int))) l",
+            nativeQuery = true)
+    Integer bloquearCompartido(@Param("clave") int clave, @Param("hotelId") Long hotelId);
+
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(:clave, CAST(:hotelId AS int))) l",
+            nativeQuery = true)
+    Integer bloquearExclusivo(@Param("clave") int clave, @Param("hotelId") Long hotelId);
+
+    @Modifying
+    @Query(value = "DELETE FROM ocupacion_diaria WHERE hotel_id = :hotelId", nativeQuery = true)
+    int deleteByHotel(@Param("hotelId") Long hotelId);
+
+    // Fechas extremas con datos para un hotel (reservas no canceladas y pagos)
+    @Query(value = """
+           SELECT MIN(d) AS desde, MAX(d) AS hasta
+           FROM (
+               SELECT MIN(check_in) AS d FROM reserva WHERE hotel_id = :hotelId AND estado IS DISTINCT FROM 'CANCELADA'
+               UNION ALL
+               SELECT MAX(check_out) FROM reserva WHERE hotel_id = :hotelId AND estado IS DISTINCT FROM 'CANCELADA'
+               UNION ALL
+               SELECT CAST(MIN(p.fecha_pago) AS date) FROM pago p JOIN reserva r ON r.id = p.reserva_id WHERE r.hotel_id = :hotelId
+               UNION ALL
+               SELECT CAST(MAX(p.fecha_pago) AS date) FROM pago p JOIN reserva r ON r.id = p.reserva_id WHERE r.hotel_id = :hotelId
+           ) t
+           """, nativeQuery = true)
+    RangoView findRangoByHotel(@Param("hotelId") Long hotelId);
+
+    /*
+     * Valores esperados de [desde, hasta) calculados desde reserva y pago.
+     * Solo devuelve días con algún valor distinto de cero.
+     */
+    @Query(value = """
+           SELECT fecha AS fecha,
+                  CAST(SUM(ocupadas) AS int) AS habitacionesOcupadas,
+                  CAST(SUM(llegadas) AS int) AS llegadas,
+                  CAST(SUM(salidas) AS int) AS salidas,
+                  SUM(ingresos) AS ingresos
+           FROM (
+               SELECT CAST(g AS date) AS fecha, 1 AS ocupadas, 0 AS llegadas, 0 AS salidas, 0 AS ingresos
+               FROM reserva r,
+                    generate_series(CAST(GREATEST(r.check_in, :desde) AS timestamp),
+                                    CAST(LEAST(r.check_out, :hasta) AS timestamp) - interval '1 day',
+                                    interval '1 day') g
+               WHERE r.hotel_id = :hotelId
+                 AND r.estado IS DISTINCT FROM 'CANCELADA'
+                 AND r.check_out > :desde AND r.check_in < :hasta
+               UNION ALL
+               SELECT r.check_in, 0, 1, 0, 0
+               FROM reserva r
+               WHERE r.hotel_id = :hotelId
+                 AND r.estado IS DISTINCT FROM 'CANCELADA'
+                 AND r.check_in >= :desde AND r.check_in < :hasta
+               UNION ALL
+               SELECT r.check_out, 0, 0, 1, 0
+               FROM reserva r
+               WHERE r.hotel_id = :hotelId
+                 AND r.estado IS DISTINCT FROM 'CANCELADA'
+                 AND r.check_out >= :desde AND r.check_out < :hasta
+               UNION ALL
+               SELECT CAST(p.fecha_pago AS date), 0, 0, 0, p.monto
+               FROM pago p
+               JOIN reserva r ON r.id = p.reserva_id
+               WHERE r.hotel_id = :hotelId
+                 AND p.fecha_pago >= :desde AND p.fecha_pago < :hasta
+           ) t
+           GROUP BY fecha
+           ORDER BY fecha
+           """, nativeQuery = true)
+    List<OcupacionCalculadaView> calcular(@Param("hotelId") Long hotelId,
+                                          @Param("desde") LocalDate desde,
+                                          @Param("hasta") LocalDate hasta);
+
+    interface RangoView {
+        LocalDate getDesde();
+        LocalDate getHasta();
+    }
+
+    interface OcupacionCalculadaView {
+        LocalDate getFecha();
+        Integer getHabitacionesOcupadas();
+        Integer getLlegadas();
+        Integer getSalidas();
+        BigDecimal getIngresos();
+    }
+}
@@ -0,0 +1,61 @@
+package com.miempresa.gestion_hotelera.repository;
+
+import com.miempresa.gestion_hotelera.entity.PickupSnapshot;
+import com.miempresa.gestion_hotelera.entity.PickupSnapshotId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface PickupSnapshotRepository extends JpaRepository<PickupSnapshot, PickupSnapshotId> {
+
+    @Modifying
+    @Query(value = "DELETE FROM pickup_snapshot WHERE fecha_snapshot = :fecha", nativeQuery = true)
+    int deleteBySnapshot(@Param("fecha") LocalDate fecha);
+
+    // Foto de todos los hoteles en una sentencia: noches de [fecha, fin) de las reservas no canceladas
+    @Modifying
+    @Query(value = """
+           INSERT INTO pickup_snapshot (hotel_id, fecha_snapshot, fecha_estadia, habitaciones, ingresos)
+           SELECT r.hotel_id, :fecha, CAST(g AS date), COUNT(*),
+                  ROUND(COALESCE(SUM(r.precio_total / (r.check_out - r.check_in)), 0), 2)
+           FROM reserva r,
+                generate_series(CAST(GREATEST(r.check_in, :fecha) AS timestamp),
+                                CAST(LEAST(r.check_out, :fin) AS timestamp) - interval '1 day',
+                                interval '1 day') g
+           WHERE r.estado IS DISTINCT FROM 'CANCELADA'
+             AND r.check_out > :fecha AND r.check_in < :fin
+             AND r.check_out > r.check_in
+           GROUP BY r.hotel_id, CAST(g AS date)
+           """, nativeQuery = true)
+    int insertarSnapshot(@Param("fecha") LocalDate fecha, @Param("fin") LocalDate fin);
+
+    /*
+     * Las cuatro fotos que usa el reporte: la actual y la de hace N días para
+     * [desde, hasta), y las mismas dos corridas un año para [desdeAnterior, hastaAnterior).
+     * Lee como mucho 4 filas por día pedido, sin importar cuántas reservas haya.
+     */
+    @Query("""
+           SELECT p FROM PickupSnapshot p
+           WHERE p.hotelId = :hotelId
+             AND ((p.fechaSnapshot IN (:snapshot, :snapshotPickup)
+                   AND p.fechaEstadia >= :desde AND p.fechaEstadia < :hasta)
+               OR (p.fechaSnapshot IN (:snapshotAnterior, :snapshotPickupAnterior)
+                   AND p.fechaEstadia >= :desdeAnterior AND p.fechaEstadia < :hastaAnterior))
+           """)
+    List<PickupSnapshot> findParaReporte(@Param("hotelId") Long hotelId,
+                                         @Param("snapshot") LocalDate snapshot,
+                                         @Param("snapshotPickup") LocalDate snapshotPickup,
+                                         @Param("desde") LocalDate desde,
+                                         @Param("hasta") LocalDate hasta,
+                                         @Param("snapshotAnterior") LocalDate snapshotAnterior,
+                                         @Param("snapshotPickupAnterior") LocalDate snapshotPickupAnterior,
+                                         @Param("desdeAnterior") LocalDate desdeAnterior,
+                                         @Param("hastaAnterior") LocalDate hastaAnterior);
+
+    // Si el job corrió ese día (para distinguir "sin reservas" de "sin foto")
+    boolean existsByFechaSnapshot(LocalDate fechaSnapshot);
+}
@@ -3,11 +3,29 @@ package com.miempresa.gestion_hotelera.repository;
 import com.miempresa.gestion_hotelera.entity.ReservaHuesped;
 import com.miempresa.gestion_hotelera.entity.ReservaHuespedId;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ReservaHuespedRepository extends JpaRepository<ReservaHuesped, ReservaHuespedId> {
 
     // Para obtener todos los huéspedes (titular + acompañantes) de una reserva
     List<ReservaHuesped> findByReserva_Id(Long reservaId);
+
+    // Solo los ids de los vínculos de un lote de reservas (sin cargar Reserva ni Huesped)
+    @Query("""
+           SELECT rh.reserva.id AS reservaId, rh.huesped.id AS huespedId, rh.esTitular AS esTitular
+           FROM ReservaHuesped rh
+           WHERE rh.reserva.id IN :reservaIds
+           ORDER BY rh.reserva.id, rh.huesped.id
+           """)
+    List<VinculoView> findVinculosByReservaIds(@Param("reservaIds") Collection<Long> reservaIds);
+
+    interface VinculoView {
+        Long getReservaId();
+        Long getHuespedId();
+        Boolean getEsTitular();
+    }
 }
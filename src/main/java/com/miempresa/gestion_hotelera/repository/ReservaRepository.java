@@ -1,14 +1,28 @@
 package com.miempresa.gestion_hotelera.repository;
 
+import com.miempresa.gestion_hotelera.dto.HabitacionResponse;
+import com.miempresa.gestion_hotelera.entity.EstadoReserva;
+import com.miempresa.gestion_hotelera.entity.EstadoPago;
 import com.miempresa.gestion_hotelera.entity.Reserva;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface ReservaRepository extends JpaRepository<Reserva, Long> {
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+public interface ReservaRepository extends JpaRepository<Reserva, Long>, JpaSpecificationExecutor<Reserva> {
 
     @Query("""
            SELECT CASE WHEN COUNT(r) > 0 THEN true ELSE false END
@@ -23,7 +37,315 @@ public interface ReservaRepository extends JpaRepository<Reserva, Long> {
                                        @Param("checkIn") LocalDate checkIn,
                                        @Param("checkOut") LocalDate checkOut);
 
+    // Habitaciones libres de un hotel en un rango, en una sola consulta (anti-join contra reservas activas)
+    @Query("""
+           SELECT new com.miempresa.gestion_hotelera.dto.HabitacionResponse(
+                  h.id, h.hotel.id, t.id, h.codigo, h.piso, h.estado, h.activo, t.precioNoche)
+           FROM Habitacion h
+           JOIN h.tipoHabitacion t
+           WHERE h.hotel.id = :hotelId
+             AND (h.activo IS NULL OR h.activo = TRUE)
+             AND NOT EXISTS (
+                 SELECT 1 FROM Reserva r
+                 WHERE r.habitacion = h
+                   AND r.estado IN :estados
+                   AND r.checkOut > :checkIn
+                   AND r.checkIn < :checkOut)
+           ORDER BY h.id
+           """)
+    List<HabitacionResponse> findHabitacionesLibres(@Param("hotelId") Long hotelId,
+                                                    @Param("estados") List<EstadoReserva> estados,
+                                                    @Param("checkIn") LocalDate checkIn,
+                                                    @Param("checkOut") LocalDate checkOut);
+
+    // Habitaciones libres por hotel y tipo para todos los hoteles de un cliente, en una sola consulta
+    @Query("""
+           SELECT h.hotel.id AS hotelId, t.id AS tipoHabitacionId, COUNT(h.id) AS disponibles
+           FROM Habitacion h
+           JOIN h.tipoHabitacion t
+           WHERE h.hotel.cliente.id = :clienteId
+             AND (h.activo IS NULL OR h.activo = TRUE)
+             AND NOT EXISTS (
+                 SELECT 1 FROM Reserva r
+                 WHERE r.habitacion = h
+                   AND r.estado IN :estados
+                   AND r.checkOut > :checkIn
+                   AND r.checkIn < :checkOut)
+           GROUP BY h.hotel.id, t.id
+           """)
+    List<LibresPorTipoView> countLibresPorHotelYTipo(@Param("clienteId") Long clienteId,
+                                                     @Param("estados") List<EstadoReserva> estados,
+                                                     @Param("checkIn") LocalDate checkIn,
+                                                     @Param("checkOut") LocalDate checkOut);
+
+    interface LibresPorTipoView {
+        Long getHotelId();
+        Long getTipoHabitacionId();
+        Long getDisponibles();
+    }
+
+    // Versión de una reserva para ETag: fecha de actualización más una huella del set de huéspedes vinculados
+    @Query("""
+           SELECT r.id AS id,
+                  r.hotel.cliente.id AS clienteId,
+                  r.actualizadoEn AS actualizadoEn,
+                  COUNT(rh.huesped.id) AS vinculos,
+                  COALESCE(SUM(rh.huesped.id), 0) AS sumaHuespedes,
+                  COALESCE(SUM(CASE WHEN rh.esTitular = true THEN rh.huesped.id ELSE 0 END), 0) AS titular
+           FROM Reserva r
+           LEFT JOIN ReservaHuesped rh ON rh.reserva = r
+           WHERE r.id = :id
+           GROUP BY r.id, r.hotel.cliente.id, r.actualizadoEn
+           """)
+    Optional<VersionReservaView> findVersion(@Param("id") Long id);
+
+    // Marca de agua del listado de un cliente: cambia con cada alta o modificación
+    @Query("""
+           SELECT MAX(r.actualizadoEn) AS actualizadoEn, COUNT(r.id) AS cantidad
+           FROM Reserva r
+           WHERE r.hotel.cliente.id = :clienteId
+           """)
+    MarcaAguaView findMarcaAguaByCliente(@Param("clienteId") Long clienteId);
+
+    interface VersionReservaView {
+        Long getId();
+        Long getClienteId();
+        LocalDateTime getActualizadoEn();
+        Long getVinculos();
+        Long getSumaHuespedes();
+        Long getTitular();
+    }
+
+    interface MarcaAguaView {
+        LocalDateTime getActualizadoEn();
+        Long getCantidad();
+    }
+
+    /*
+     * Resumen del día de un hotel en una sola pasada. El WHERE limita las filas a las
+     * que pueden contar para alguna métrica: las que todavía no salieron (entran, salen
+     * o están en casa ese día) y las creadas ese día. Con los índices (hotel_id, check_out)
+     * y (hotel_id, creado_en) el costo depende de la cartera futura, no de la historia.
+     */
+    @Query(value = """
+           SELECT COUNT(*) FILTER (WHERE r.check_in = :fecha
+                                     AND r.estado IS DISTINCT FROM 'CANCELADA') AS checkins,
+                  COUNT(*) FILTER (WHERE r.check_out = :fecha
+                                     AND r.estado IS DISTINCT FROM 'CANCELADA') AS checkouts,
+                  COUNT(*) FILTER (WHERE r.creado_en >= :fecha
+                                     AND r.creado_en < CAST(:fecha AS date) + 1) AS nuevas,
+                  COUNT(DISTINCT r.habitacion_id) FILTER (WHERE r.check_in <= :fecha
+                                                            AND r.check_out > :fecha
+                                                            AND r.estado IN ('PENDIENTE', 'CONFIRMADA', 'CHECKIN')) AS ocupadas
+           FROM reserva r
+           WHERE r.hotel_id = :hotelId
+             AND (r.check_out >= :fecha
+                  OR (r.creado_en >= :fecha AND r.creado_en < CAST(:fecha AS date) + 1))
+           """, nativeQuery = true)
+    ResumenDiaView resumenDia(@Param("hotelId") Long hotelId, @Param("fecha") LocalDate fecha);
+
+    interface ResumenDiaView {
+        Long getCheckins();
+        Long getCheckouts();
+        Long getNuevas();
+        Long getOcupadas();
+    }
+
+    /*
+     * El mismo resumen para todos los hoteles activos de un cliente, agrupado por hotel.
+     * La pertenencia al cliente está en el WHERE: un hotel de otro cliente no aparece.
+     * LEFT JOIN para que un hotel sin movimiento salga igual, con todo en cero.
+     */
+    @Query(value = """
+           SELECT h.id AS hotelId,
+                  h.nombre AS hotelNombre,
+                  (SELECT COUNT(*) FROM habitacion hab WHERE hab.hotel_id = h.id) AS habitacionesTotales,
+                  COUNT(*) FILTER (WHERE r.check_in = :fecha
+                                     AND r.estado IS DISTINCT FROM 'CANCELADA') AS checkins,
+                  COUNT(*) FILTER (WHERE r.check_out = :fecha
+                                     AND r.estado IS DISTINCT FROM 'CANCELADA') AS checkouts,
+                  COUNT(*) FILTER (WHERE r.creado_en >= :fecha
+                                     AND r.creado_en < CAST(:fecha AS date) + 1) AS nuevas,
+                  COUNT(DISTINCT r.habitacion_id) FILTER (WHERE r.check_in <= :fecha
+                                                            AND r.check_out > :fecha
+                                                            AND r.estado IN ('PENDIENTE', 'CONFIRMADA', 'CHECKIN')) AS ocupadas
+           FROM hotel h
+           LEFT JOIN reserva r
+                  ON r.hotel_id = h.id
+                 AND (r.check_out >= :fecha
+                      OR (r.creado_en >= :fecha AND r.creado_en < CAST(:fecha AS date) + 1))
+           WHERE h.cliente_id = :clienteId
+             AND h.activo IS DISTINCT FROM false
+           GROUP BY h.id, h.nombre
+           ORDER BY h.nombre, h.id
+           """, nativeQuery = true)
+    List<ResumenDiaHotelView> resumenDiaPorCliente(@Param("clienteId") Long clienteId,
+                                                   @Param("fecha") LocalDate fecha);
+
+    interface ResumenDiaHotelView extends ResumenDiaView {
+        Long getHotelId();
+        String getHotelNombre();
+        Long getHabitacionesTotales();
+    }
+
     List<Reserva> findByHotel_Id(Long hotelId);
     List<Reserva> findByHotel_Cliente_Id(Long clienteId);
 
+    // Página siguiente ordenada por (checkIn, id): arranca después del cursor, sin OFFSET
+    @Query("""
+           SELECT r FROM Reserva r
+           WHERE r.hotel.cliente.id = :clienteId
+             AND (:hotelId IS NULL OR r.hotel.id = :hotelId)
+             AND (:estado IS NULL OR r.estado = :estado)
+             AND (:desde IS NULL OR r.checkIn >= :desde)
+             AND (:hasta IS NULL OR r.checkIn < :hasta)
+             AND (:cursorCheckIn IS NULL
+                  OR r.checkIn > :cursorCheckIn
+                  OR (r.checkIn = :cursorCheckIn AND r.id > :cursorId))
+           ORDER BY r.checkIn, r.id
+           """)
+    List<Reserva> findPaginaByCliente(@Param("clienteId") Long clienteId,
+                                      @Param("hotelId") Long hotelId,
+                                      @Param("estado") EstadoReserva estado,
+                                      @Param("desde") LocalDate desde,
+                                      @Param("hasta") LocalDate hasta,
+                                      @Param("cursorCheckIn") LocalDate cursorCheckIn,
+                                      @Param("cursorId") Long cursorId,
+                                      Pageable pageable);
+
+    // Mismos filtros pero como cursor de solo avance, con proyecciones (no entra nada al contexto de persistencia)
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+           SELECT r.id AS id, r.hotel.id AS hotelId, r.tipoHabitacion.id AS tipoHabitacionId,
+                  hab.id AS habitacionId, r.checkIn AS checkIn, r.checkOut AS checkOut,
+                  r.adultos AS adultos, r.ninos AS ninos, r.estadoPago AS estadoPago, r.canal AS canal,
+                  r.estado AS estado, r.precioTotal AS precioTotal, r.moneda AS moneda,
+                  r.comentariosCliente AS comentariosCliente, r.comentariosInternos AS comentariosInternos,
+                  r.creadoEn AS creadoEn, r.actualizadoEn AS actualizadoEn
+           FROM Reserva r
+           LEFT JOIN r.habitacion hab
+           WHERE r.hotel.cliente.id = :clienteId
+             AND (:hotelId IS NULL OR r.hotel.id = :hotelId)
+             AND (:estado IS NULL OR r.estado = :estado)
+             AND (:desde IS NULL OR r.checkIn >= :desde)
+             AND (:hasta IS NULL OR r.checkIn < :hasta)
+           ORDER BY r.checkIn, r.id
+           """)
+    Stream<ReservaFilaView> streamByCliente(@Param("clienteId") Long clienteId,
+                                            @Param("hotelId") Long hotelId,
+                                            @Param("estado") EstadoReserva estado,
+                                            @Param("desde") LocalDate desde,
+                                            @Param("hasta") LocalDate hasta);
+
+    // Noches ocupadas de un hotel (solo reservas con habitación asignada), para el índice de disponibilidad
+    @Query("""
+           SELECT r.id AS id, r.habitacion.id AS habitacionId, r.checkIn AS checkIn, r.checkOut AS checkOut
+           FROM Reserva r
+           WHERE r.hotel.id = :hotelId
+             AND r.habitacion IS NOT NULL
+             AND r.estado IN :estados
+           """)
+    List<OcupacionView> findOcupacionByHotel(@Param("hotelId") Long hotelId,
+                                             @Param("estados") List<EstadoReserva> estados);
+
+    // Reservas activas que pisan una ventana, por tipo (asignadas o no), para la grilla de inventario
+    @Query("""
+           SELECT r.tipoHabitacion.id AS tipoHabitacionId, r.checkIn AS checkIn, r.checkOut AS checkOut
+           FROM Reserva r
+           WHERE r.hotel.id = :hotelId
+             AND r.estado IN :estados
+             AND r.checkOut > :desde
+             AND r.checkIn < :hasta
+           """)
+    List<EstadiaTipoView> findEstadiasPorTipo(@Param("hotelId") Long hotelId,
+                                              @Param("estados") List<EstadoReserva> estados,
+                                              @Param("desde") LocalDate desde,
+                                              @Param("hasta") LocalDate hasta);
+
+    // Estadías no canceladas con tarifa que tocan [desde, hasta), para las series de KPIs
+    @Query("""
+           SELECT r.tipoHabitacion.id AS tipoHabitacionId, r.checkIn AS checkIn, r.checkOut AS checkOut,
+                  r.precioTotal AS precioTotal
+           FROM Reserva r
+           WHERE r.hotel.id = :hotelId
+             AND (r.estado IS NULL OR r.estado <> com.miempresa.gestion_hotelera.entity.EstadoReserva.CANCELADA)
+             AND r.checkOut > :desde
+             AND r.checkIn < :hasta
+           """)
+    List<EstadiaTarifaView> findEstadiasConTarifa(@Param("hotelId") Long hotelId,
+                                                  @Param("desde") LocalDate desde,
+                                                  @Param("hasta") LocalDate hasta);
+
+    interface EstadiaTarifaView {
+        Long getTipoHabitacionId();
+        LocalDate getCheckIn();
+        LocalDate getCheckOut();
+        BigDecimal getPrecioTotal();
+    }
+
+    // Reservas activas todavía sin habitación que tocan la ventana (motor de asignación)
+    @Query("""
+           SELECT r FROM Reserva r
+           WHERE r.hotel.id = :hotelId
+             AND r.habitacion IS NULL
+             AND r.estado IN :estados
+             AND r.checkOut > :desde
+             AND r.checkIn < :hasta
+           ORDER BY r.checkIn, r.checkOut DESC, r.id
+           """)
+    List<Reserva> findSinHabitacionEnRango(@Param("hotelId") Long hotelId,
+                                           @Param("estados") List<EstadoReserva> estados,
+                                           @Param("desde") LocalDate desde,
+                                           @Param("hasta") LocalDate hasta);
+
+    // Ocupación activa de un hotel dentro de una ventana (validación de reservas en lote)
+    @Query("""
+           SELECT r.id AS id, r.habitacion.id AS habitacionId, r.checkIn AS checkIn, r.checkOut AS checkOut
+           FROM Reserva r
+           WHERE r.hotel.id = :hotelId
+             AND r.habitacion IS NOT NULL
+             AND r.estado IN :estados
+             AND r.checkOut > :desde
+             AND r.checkIn < :hasta
+           """)
+    List<OcupacionView> findOcupacionByHotelEnRango(@Param("hotelId") Long hotelId,
+                                                    @Param("estados") List<EstadoReserva> estados,
+                                                    @Param("desde") LocalDate desde,
+                                                    @Param("hasta") LocalDate hasta);
+
+    interface EstadiaTipoView {
+        Long getTipoHabitacionId();
+        LocalDate getCheckIn();
+        LocalDate getCheckOut();
+    }
+
+    interface OcupacionView {
+        Long getId();
+        Long getHabitacionId();
+        LocalDate getCheckIn();
+        LocalDate getCheckOut();
+    }
+
+    interface ReservaFilaView {
+        Long getId();
+        Long getHotelId();
+        Long getTipoHabitacionId();
+        Long getHabitacionId();
+        LocalDate getCheckIn();
+        LocalDate getCheckOut();
+        Integer getAdultos();
+        Integer getNinos();
+        EstadoPago getEstadoPago();
+        String getCanal();
+        EstadoReserva getEstado();
+        BigDecimal getPrecioTotal();
+        String getMoneda();
+        String getComentariosCliente();
+        String getComentariosInternos();
+        LocalDateTime getCreadoEn();
+        LocalDateTime getActualizadoEn();
+    }
 }
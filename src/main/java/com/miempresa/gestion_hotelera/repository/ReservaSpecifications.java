@@ -0,0 +1,98 @@
+package com.miempresa.gestion_hotelera.repository;
+
+import com.miempresa.gestion_hotelera.entity.EstadoPago;
+import com.miempresa.gestion_hotelera.entity.EstadoReserva;
+import com.miempresa.gestion_hotelera.entity.Huesped;
+import com.miempresa.gestion_hotelera.entity.Reserva;
+import com.miempresa.gestion_hotelera.entity.ReservaHuesped;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+
+/**
+ * Filtros de la búsqueda de reservas. Cada uno es null-safe: con valor null
+ * no agrega condición, así se pueden combinar libremente con Specification.allOf.
+ */
+public final class ReservaSpecifications {
+
+    private ReservaSpecifications() {
+    }
+
+    public static Specification<Reserva> delCliente(Long clienteId) {
+        return (r, q, cb) -> cb.equal(r.get("hotel").get("cliente").get("id"), clienteId);
+    }
+
+    public static Specification<Reserva> delHotel(Long hotelId) {
+        return hotelId == null ? null : (r, q, cb) -> cb.equal(r.get("hotel").get("id"), hotelId);
+    }
+
+    // Estadías que tocan [desde, hasta): mismo criterio que la disponibilidad
+    public static Specification<Reserva> enRango(LocalDate desde, LocalDate hasta) {
+        return (r, q, cb) -> cb.and(
+                desde == null ? cb.conjunction() : cb.greaterThan(r.get("checkOut"), desde),
+                hasta == null ? cb.conjunction() : cb.lessThan(r.get("checkIn"), hasta));
+    }
+
+    public static Specification<Reserva> conEstado(EstadoReserva estado) {
+        return estado == null ? null : (r, q, cb) -> cb.equal(r.get("estado"), estado);
+    }
+
+    public static Specification<Reserva> conCanal(String canal) {
+        return canal == null || canal.isBlank() ? null : (r, q, cb) -> cb.equal(r.get("canal"), canal);
+    }
+
+    public static Specification<Reserva> conEstadoPago(EstadoPago estadoPago) {
+        return estadoPago == null ? null : (r, q, cb) -> cb.equal(r.get("estadoPago"), estadoPago);
+    }
+
+    public static Specification<Reserva> conHuesped(Long huespedId) {
+        if (huespedId == null) return null;
+        return (r, q, cb) -> {
+            Subquery<Integer> vinculo = q.subquery(Integer.class);
+            Root<ReservaHuesped> rh = vinculo.from(ReservaHuesped.class);
+            vinculo.select(cb.literal(1)).where(
+                    cb.equal(rh.get("reserva"), r),
+                    cb.equal(rh.get("huesped").get("id"), huespedId));
+            return cb.or(cb.equal(r.get("huespedTitular").get("id"), huespedId), cb.exists(vinculo));
+        };
+    }
+
+    // Prefijo de apellido (sin distinguir mayúsculas) o documento exacto de cualquier huésped de la reserva
+    public static Specification<Reserva> conHuespedTexto(String texto) {
+        if (texto == null || texto.isBlank()) return null;
+        String valor = texto.trim();
+        String patron = valor.toLowerCase().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return (r, q, cb) -> {
+            Subquery<Integer> vinculo = q.subquery(Integer.class);
+            Root<ReservaHuesped> rh = vinculo.from(ReservaHuesped.class);
+            Join<ReservaHuesped, Huesped> h = rh.join("huesped");
+            vinculo.select(cb.literal(1)).where(
+                    cb.equal(rh.get("reserva"), r),
+                    cb.or(
+                            cb.like(cb.lower(h.get("apellido")), patron, '\\'),
+                            cb.equal(h.get("numeroDocumento"), valor)));
+            return cb.exists(vinculo);
+        };
+    }
+
+    /**
+     * Keyset: filas estrictamente posteriores a (valor, id) en el orden pedido.
+     */
+    public static <T extends Comparable<? super T>> Specification<Reserva> despuesDe(String campo,
+                                                                                  T valor,
+                                                                                  Long id,
+                                                                                  boolean descendente) {
+        if (valor == null || id == null) return null;
+        return (r, q, cb) -> {
+            Path<T> columna = r.get(campo);
+            Path<Long> rid = r.get("id");
+            return descendente
+                    ? cb.or(cb.lessThan(columna, valor), cb.and(cb.equal(columna, valor), cb.lessThan(rid, id)))
+                    : cb.or(cb.greaterThan(columna, valor), cb.and(cb.equal(columna, valor), cb.greaterThan(rid, id)));
+        };
+    }
+}
@@ -0,0 +1,37 @@
+package com.miempresa.gestion_hotelera.repository;
+
+import com.miempresa.gestion_hotelera.entity.SecuenciaComprobante;
+import com.miempresa.gestion_hotelera.entity.SecuenciaComprobanteId;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface SecuenciaComprobanteRepository extends JpaRepository<SecuenciaComprobante, SecuenciaComprobanteId> {
+
+    // SELECT ... FOR UPDATE: solo en transacciones cortas (reservar/liberar, numeración CAEA), nunca durante la llamada a AFIP
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+           SELECT s FROM SecuenciaComprobante s
+           WHERE s.cuit = :cuit AND s.puntoVenta = :puntoVenta AND s.cbteTipo = :cbteTipo
+           """)
+    Optional<SecuenciaComprobante> findParaEmitir(@Param("cuit") String cuit,
+                                                  @Param("puntoVenta") int puntoVenta,
+                                                  @Param("cbteTipo") int cbteTipo);
+
+    // Alta de una secuencia nueva; si otra emisión la creó a la vez, gana la primera
+    @Modifying
+    @Query(value = """
+           INSERT INTO secuencia_comprobante (cuit, punto_venta, cbte_tipo, ultimo_numero, sincronizado_en, actualizado_en)
+           VALUES (:cuit, :puntoVenta, :cbteTipo, :ultimoNumero, now(), now())
+           ON CONFLICT (cuit, punto_venta, cbte_tipo) DO NOTHING
+           """, nativeQuery = true)
+    int crearSiNoExiste(@Param("cuit") String cuit,
+                        @Param("puntoVenta") int puntoVenta,
+                        @Param("cbteTipo") int cbteTipo,
+                        @Param("ultimoNumero") long ultimoNumero);
+}
@@ -10,6 +10,8 @@ public interface TipoHabitacionRepository extends JpaRepository<TipoHabitacion,
 
     List<TipoHabitacion> findByHotel_Cliente_Id(Long clienteId);
 
+    List<TipoHabitacion> findByHotel_Id(Long hotelId);
+
     // un tipo específico, asegurando que sea del cliente
     Optional<TipoHabitacion> findByIdAndHotel_Cliente_Id(Long id, Long clienteId);
 }
@@ -2,6 +2,7 @@ package com.miempresa.gestion_hotelera.security.config;
 
 import com.miempresa.gestion_hotelera.security.CustomUserDetailsService;
 import com.miempresa.gestion_hotelera.security.jwt.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -37,6 +38,8 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(sess -> sess.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // Los re-dispatch asíncronos (SSE) ya se autorizaron en el request original
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(
 
                                 "/auth/**",
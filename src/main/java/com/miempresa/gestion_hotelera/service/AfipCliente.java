@@ -0,0 +1,305 @@
+package com.miempresa.gestion_hotelera.service;
+
+import com.miempresa.gestion_hotelera.dto.AfipEstadisticasResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cliente HTTP de AfipSDK, asíncrono (HttpClient.sendAsync): ningún hilo queda
+ * bloqueado esperando a AFIP salvo el que decide hacer join.
+ *
+ * - Bulkhead: como mucho max-concurrentes llamadas en curso; la siguiente falla
+ *   enseguida con AfipNoDisponibleException en lugar de encolarse.
+ * - Circuito: después de fallas-para-abrir errores seguidos (red, timeout o 5xx)
+ *   toda llamada falla enseguida durante abierto-segundos; después pasa una sola
+ *   de prueba y, según cómo le vaya, se cierra o vuelve a abrir.
+ * - Reintentos según la operación: las de lectura (auth, consultas) se reintentan
+ *   ante cualquier falla; FECAESolicitar solo si el pedido no llegó a salir
+ *   (error de conexión). Si salió y no hubo respuesta, el resultado es incierto
+ *   y se avisa con AfipResultadoInciertoException para que no se repita a ciegas.
+ * - Latencia por operación en estadisticas().
+ */
+@Slf4j
+@Component
+public class AfipCliente {
+
+    public enum Reintento {
+        /** Operación de lectura: se puede repetir sin efectos. */
+        SIEMPRE,
+        /** Operación que autoriza comprobantes: solo se repite si el pedido no salió. */
+        SOLO_SIN_ENVIAR
+    }
+
+    public enum EstadoCircuito { CERRADO, ABIERTO, SEMIABIERTO }
+
+    /** La llamada no se hizo: circuito abierto o bulkhead lleno. Es seguro reintentar más tarde. */
+    public static class AfipNoDisponibleException extends RuntimeException {
+        public AfipNoDisponibleException(String message) {
+            super(message);
+        }
+    }
+
+    /** El pedido salió pero no hubo respuesta: AFIP pudo haberlo procesado. */
+    public static class AfipResultadoInciertoException extends RuntimeException {
+        public AfipResultadoInciertoException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    // Límites superiores (ms) de los tramos del histograma de latencia; el último tramo es "más que eso"
+    private static final long[] TRAMOS_MS = {50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 20_000};
+
+    @Value("${afip.api.base-url}")
+    private String baseUrl;
+
+    @Value("${afip.api.access-token}")
+    private String accessToken;
+
+    private final int maxConcurrentes;
+    private final int fallasParaAbrir;
+    private final long abiertoNanos;
+    private final int reintentos;
+    private final long esperaReintentoMs;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final Semaphore enCurso;
+
+    private final AtomicInteger fallasSeguidas = new AtomicInteger();
+    private final AtomicLong abiertoHasta = new AtomicLong();
+    private final AtomicBoolean pruebaEnCurso = new AtomicBoolean();
+
+    private final Map<String, Medicion> mediciones = new ConcurrentHashMap<>();
+
+    public AfipCliente(@Value("${afip.cliente.max-concurrentes:4}") int maxConcurrentes,
+                       @Value("${afip.cliente.fallas-para-abrir:5}") int fallasParaAbrir,
+                       @Value("${afip.cliente.abierto-segundos:30}") long abiertoSegundos,
+                       @Value("${afip.cliente.reintentos:2}") int reintentos,
+                       @Value("${afip.cliente.espera-reintento-ms:500}") long esperaReintentoMs) {
+        this.maxConcurrentes = maxConcurrentes;
+        this.fallasParaAbrir = fallasParaAbrir;
+        this.abiertoNanos = TimeUnit.SECONDS.toNanos(abiertoSegundos);
+        this.reintentos = reintentos;
+        this.esperaReintentoMs = esperaReintentoMs;
+        this.enCurso = new Semaphore(maxConcurrentes);
+    }
+
+    /**
+     * POST a AfipSDK. Completa con el body si el status es menor a 400; si no,
+     * con una RuntimeException "Error AFIP operacion: body".
+     */
+    public CompletableFuture<String> post(String operacion, String path, String json,
+                                          Duration timeout, Reintento reintento) {
+        return intentar(operacion, path, json, timeout, reintento, 0);
+    }
+
+    /** false mientras el circuito está abierto: no tiene sentido mandar nada. */
+    public boolean disponible() {
+        return estadoCircuito() != EstadoCircuito.ABIERTO;
+    }
+
+    public EstadoCircuito estadoCircuito() {
+        if (fallasSeguidas.get() < fallasParaAbrir) return EstadoCircuito.CERRADO;
+        return System.nanoTime() - abiertoHasta.get() < 0 ? EstadoCircuito.ABIERTO : EstadoCircuito.SEMIABIERTO;
+    }
+
+    public AfipEstadisticasResponse estadisticas() {
+        List<AfipEstadisticasResponse.Operacion> operaciones = new ArrayList<>();
+        mediciones.forEach((nombre, m) -> operaciones.add(m.resumen(nombre)));
+        operaciones.sort((a, b) -> a.getOperacion().compareTo(b.getOperacion()));
+
+        return AfipEstadisticasResponse.builder()
+                .circuito(estadoCircuito().name())
+                .fallasSeguidas(fallasSeguidas.get())
+                .llamadasEnCurso(maxConcurrentes - enCurso.availablePermits())
+                .maxConcurrentes(maxConcurrentes)
+                .operaciones(operaciones)
+                .build();
+    }
+
+    // ========= INTERNOS =========
+
+    private CompletableFuture<String> intentar(String operacion, String path, String json,
+                                               Duration timeout, Reintento reintento, int intento) {
+        Medicion medicion = mediciones.computeIfAbsent(operacion, k -> new Medicion());
+
+        // Se arma antes de tomar lugar en el bulkhead: si la URL es inválida no queda un permiso tomado
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder()
+                    .uri(URI.create(baseUrl + path))
+                    .timeout(timeout)
+                    .header("Content-Type", "application/json")
+                    .header("Authorization", "Bearer " + accessToken)
+                    .POST(HttpRequest.BodyPublishers.ofString(json))
+                    .build();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        if (!permitirPorCircuito()) {
+            medicion.rechazadas.increment();
+            return CompletableFuture.failedFuture(
+                    new AfipNoDisponibleException("AFIP no disponible (circuito abierto): " + operacion));
+        }
+        if (!enCurso.tryAcquire()) {
+            pruebaEnCurso.set(false);
+            medicion.rechazadas.increment();
+            return CompletableFuture.failedFuture(
+                    new AfipNoDisponibleException("Demasiadas llamadas a AFIP en curso: " + operacion));
+        }
+
+        long inicio = System.nanoTime();
+        CompletableFuture<HttpResponse<String>> envio;
+        try {
+            envio = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        } catch (RuntimeException e) {
+            // No salió nada: se devuelve el lugar y, si era la llamada de prueba, se libera
+            enCurso.release();
+            pruebaEnCurso.set(false);
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return envio
+                .handle((response, error) -> {
+                    enCurso.release();
+                    long nanos = System.nanoTime() - inicio;
+                    Throwable causa = error instanceof CompletionException ? error.getCause() : error;
+                    boolean falla = causa != null || response.statusCode() >= 500;
+
+                    medicion.registrar(nanos, falla);
+                    if (falla) registrarFalla(); else registrarExito();
+                    log.debug("AFIP {} {} en {} ms", operacion,
+                            causa != null ? causa.getClass().getSimpleName() : response.statusCode(),
+                            TimeUnit.NANOSECONDS.toMillis(nanos));
+
+                    if (!falla) {
+                        return response.statusCode() < 400
+                                ? CompletableFuture.completedFuture(response.body())
+                                : CompletableFuture.<String>failedFuture(
+                                        new RuntimeException("Error AFIP " + operacion + ": " + response.body()));
+                    }
+
+                    boolean sinEnviar = causa instanceof ConnectException || causa instanceof HttpConnectTimeoutException;
+                    boolean repetible = reintento == Reintento.SIEMPRE || sinEnviar;
+                    if (repetible && intento < reintentos) {
+                        medicion.reintentos.increment();
+                        return CompletableFuture.supplyAsync(() -> null,
+                                        CompletableFuture.delayedExecutor(esperaReintentoMs * (1L << intento), TimeUnit.MILLISECONDS))
+                                .thenCompose(x -> intentar(operacion, path, json, timeout, reintento, intento + 1));
+                    }
+
+                    RuntimeException excepcion;
+                    if (causa == null) {
+                        excepcion = new RuntimeException("Error AFIP " + operacion + ": " + response.body());
+                    } else if (!sinEnviar && reintento == Reintento.SOLO_SIN_ENVIAR) {
+                        excepcion = new AfipResultadoInciertoException(
+                                "Sin respuesta de AFIP en " + operacion + "; el pedido pudo haberse procesado", causa);
+                    } else {
+                        excepcion = new RuntimeException("Error AFIP " + operacion + ": " + causa.getMessage(), causa);
+                    }
+                    return CompletableFuture.<String>failedFuture(excepcion);
+                })
+                .thenCompose(f -> f);
+    }
+
+    private boolean permitirPorCircuito() {
+        return switch (estadoCircuito()) {
+            case CERRADO -> true;
+            case ABIERTO -> false;
+            // Pasada la espera, una sola llamada de prueba
+            case SEMIABIERTO -> pruebaEnCurso.compareAndSet(false, true);
+        };
+    }
+
+    private void registrarExito() {
+        if (fallasSeguidas.getAndSet(0) >= fallasParaAbrir) {
+            log.info("AFIP respondió de nuevo: circuito cerrado");
+        }
+        pruebaEnCurso.set(false);
+    }
+
+    private void registrarFalla() {
+        int fallas = fallasSeguidas.incrementAndGet();
+        if (fallas >= fallasParaAbrir) {
+            abiertoHasta.set(System.nanoTime() + abiertoNanos);
+            if (fallas == fallasParaAbrir || pruebaEnCurso.get()) {
+                log.warn("AFIP falló {} veces seguidas: circuito abierto por {} s",
+                        fallas, TimeUnit.NANOSECONDS.toSeconds(abiertoNanos));
+            }
+        }
+        pruebaEnCurso.set(false);
+    }
+
+    private static final class Medicion {
+        final LongAdder llamadas = new LongAdder();
+        final LongAdder errores = new LongAdder();
+        final LongAdder rechazadas = new LongAdder();
+        final LongAdder reintentos = new LongAdder();
+        final LongAdder nanosTotales = new LongAdder();
+        final AtomicLong nanosMax = new AtomicLong();
+        final AtomicLongArray tramos = new AtomicLongArray(TRAMOS_MS.length + 1);
+
+        void registrar(long nanos, boolean falla) {
+            llamadas.increment();
+            if (falla) errores.increment();
+            nanosTotales.add(nanos);
+            nanosMax.accumulateAndGet(nanos, Math::max);
+
+            long ms = TimeUnit.NANOSECONDS.toMillis(nanos);
+            int tramo = 0;
+            while (tramo < TRAMOS_MS.length && ms > TRAMOS_MS[tramo]) tramo++;
+            tramos.incrementAndGet(tramo);
+        }
+
+        AfipEstadisticasResponse.Operacion resumen(String nombre) {
+            long n = llamadas.sum();
+            return AfipEstadisticasResponse.Operacion.builder()
+                    .operacion(nombre)
+                    .llamadas(n)
+                    .errores(errores.sum())
+                    .rechazadas(rechazadas.sum())
+                    .reintentos(reintentos.sum())
+                    .promedioMs(n > 0 ? TimeUnit.NANOSECONDS.toMillis(nanosTotales.sum() / n) : 0)
+                    .maxMs(TimeUnit.NANOSECONDS.toMillis(nanosMax.get()))
+                    .p50Ms(percentil(n, 0.50))
+                    .p95Ms(percentil(n, 0.95))
+                    .build();
+        }
+
+        // Límite superior del tramo donde cae el percentil (el máximo si cae en el último tramo)
+        private long percentil(long total, double p) {
+            if (total == 0) return 0;
+            long acumulado = 0;
+            for (int i = 0; i < TRAMOS_MS.length; i++) {
+                acumulado += tramos.get(i);
+                if (acumulado >= Math.ceil(total * p)) return TRAMOS_MS[i];
+            }
+            return TimeUnit.NANOSECONDS.toMillis(nanosMax.get());
+        }
+    }
+}
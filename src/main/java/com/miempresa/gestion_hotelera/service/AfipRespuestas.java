@@ -0,0 +1,303 @@
+package com.miempresa.gestion_hotelera.service;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lectura de las respuestas JSON de AfipSDK.
+ *
+ * Se recorre el texto una sola vez con JsonReader y se guardan solo los campos
+ * que usa AfipService; lo demás (FeCabResp, Events, importes del detalle...) se
+ * saltea sin armar objetos. Donde el SDK manda un objeto si hay un elemento y
+ * una lista si hay varios (FECAEDetResponse, Err, Obs) se aceptan las dos formas.
+ * Los números se leen también si vienen como texto.
+ *
+ * Un JSON mal formado termina en JsonSyntaxException, igual que con Gson.fromJson.
+ */
+public final class AfipRespuestas {
+
+    private AfipRespuestas() {}
+
+    /** Un FECAEDetResponse / FECAEADetResponse. */
+    public record Detalle(String resultado, String cae, String caeFchVto, Long cbteDesde, List<Integer> observaciones) {}
+
+    /** FECAESolicitarResult / FECAEARegInformativoResult: errores de cabecera y detalles. */
+    public record Solicitud(List<Integer> errores, List<Detalle> detalles) {}
+
+    /** ResultGet de FECAEASolicitar / FECAEAConsultar (campos null si AFIP no lo mandó). */
+    public record Caea(String caea, String fchVigDesde, String fchVigHasta, String fchTopeInf, List<Integer> errores) {}
+
+    /** ResultGet de FECompConsultar. */
+    public record Comprobante(String resultado, String codAutorizacion, String fchVto,
+                              String docNro, String impTotal, String cbteFch) {}
+
+    /** Respuesta de POST /auth. */
+    public record Auth(String token, String sign, String expiration) {}
+
+    @FunctionalInterface
+    private interface Campo {
+        /** Lee el valor del campo nombre; false si no interesa (se saltea). */
+        boolean leer(String nombre, JsonReader in) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Elemento {
+        void leer(JsonReader in) throws IOException;
+    }
+
+    // ========= RESPUESTAS =========
+
+    /** Resultado de FECAESolicitar o FECAEARegInformativo; null si falta nodoResultado. */
+    public static Solicitud solicitud(String json, String nodoResultado) {
+        Solicitud[] resultado = new Solicitud[1];
+        leer(json, (nombre, in) -> {
+            if (!nodoResultado.equals(nombre)) return false;
+
+            List<Integer> errores = new ArrayList<>();
+            List<Detalle> detalles = new ArrayList<>();
+            objeto(in, (campo, r) -> switch (campo) {
+                case "Errors" -> {
+                    codigos(r, errores);
+                    yield true;
+                }
+                // Un solo hijo: FECAEDetResponse (CAE) o FECAEADetResponse (CAEA)
+                case "FeDetResp" -> {
+                    objeto(r, (hijo, rr) -> {
+                        unoOVarios(rr, e -> detalles.add(detalle(e)));
+                        return true;
+                    });
+                    yield true;
+                }
+                default -> false;
+            });
+            resultado[0] = new Solicitud(errores, detalles);
+            return true;
+        });
+        return resultado[0];
+    }
+
+    /** CbteNro de FECompUltimoAutorizadoResult (0 si no hay); null si falta el resultado. */
+    public static Long ultimoAutorizado(String json) {
+        Long[] resultado = new Long[1];
+        leer(json, (nombre, in) -> {
+            if (!"FECompUltimoAutorizadoResult".equals(nombre)) return false;
+
+            resultado[0] = 0L;
+            objeto(in, (campo, r) -> {
+                if (!"CbteNro".equals(campo)) return false;
+                Long numero = numero(texto(r));
+                if (numero != null) resultado[0] = numero;
+                return true;
+            });
+            return true;
+        });
+        return resultado[0];
+    }
+
+    /** ResultGet y errores de FECAEASolicitar / FECAEAConsultar; null si falta el resultado. */
+    public static Caea caea(String json, String nodoResultado) {
+        Caea[] resultado = new Caea[1];
+        leer(json, (nombre, in) -> {
+            if (!nodoResultado.equals(nombre)) return false;
+
+            String[] get = new String[4];
+            List<Integer> errores = new ArrayList<>();
+            objeto(in, (campo, r) -> switch (campo) {
+                case "Errors" -> {
+                    codigos(r, errores);
+                    yield true;
+                }
+                case "ResultGet" -> {
+                    objeto(r, (c, rr) -> {
+                        int i = switch (c) {
+                            case "CAEA" -> 0;
+                            case "FchVigDesde" -> 1;
+                            case "FchVigHasta" -> 2;
+                            case "FchTopeInf" -> 3;
+                            default -> -1;
+                        };
+                        if (i < 0) return false;
+                        get[i] = texto(rr);
+                        return true;
+                    });
+                    yield true;
+                }
+                default -> false;
+            });
+            resultado[0] = new Caea(get[0], get[1], get[2], get[3], errores);
+            return true;
+        });
+        return resultado[0];
+    }
+
+    /** ResultGet de FECompConsultar; null si AFIP no tiene el comprobante. */
+    public static Comprobante comprobante(String json) {
+        Comprobante[] resultado = new Comprobante[1];
+        leer(json, (nombre, in) -> {
+            if (!"FECompConsultarResult".equals(nombre)) return false;
+
+            objeto(in, (campo, r) -> {
+                if (!"ResultGet".equals(campo)) return false;
+
+                String[] get = new String[6];
+                objeto(r, (c, rr) -> {
+                    int i = switch (c) {
+                        case "Resultado" -> 0;
+                        case "CodAutorizacion" -> 1;
+                        case "FchVto" -> 2;
+                        case "DocNro" -> 3;
+                        case "ImpTotal" -> 4;
+                        case "CbteFch" -> 5;
+                        default -> -1;
+                    };
+                    if (i < 0) return false;
+                    get[i] = texto(rr);
+                    return true;
+                });
+                resultado[0] = new Comprobante(get[0], get[1], get[2], get[3], get[4], get[5]);
+                return true;
+            });
+            return true;
+        });
+        return resultado[0];
+    }
+
+    /** Códigos de Errors de un resultado (vacío si no hubo); null si falta nodoResultado. */
+    public static List<Integer> errores(String json, String nodoResultado) {
+        List<Integer> errores = new ArrayList<>();
+        boolean[] encontrado = new boolean[1];
+        leer(json, (nombre, in) -> {
+            if (!nodoResultado.equals(nombre)) return false;
+
+            encontrado[0] = true;
+            objeto(in, (campo, r) -> {
+                if (!"Errors".equals(campo)) return false;
+                codigos(r, errores);
+                return true;
+            });
+            return true;
+        });
+        return encontrado[0] ? errores : null;
+    }
+
+    public static Auth auth(String json) {
+        String[] campos = new String[3];
+        leer(json, (nombre, in) -> {
+            int i = switch (nombre) {
+                case "token" -> 0;
+                case "sign" -> 1;
+                case "expiration" -> 2;
+                default -> -1;
+            };
+            if (i < 0) return false;
+            campos[i] = texto(in);
+            return true;
+        });
+        return new Auth(campos[0], campos[1], campos[2]);
+    }
+
+    // ========= LECTURA =========
+
+    private static void leer(String json, Campo raiz) {
+        try (JsonReader in = new JsonReader(new StringReader(json))) {
+            objeto(in, raiz);
+        } catch (IOException | IllegalStateException e) {
+            throw new JsonSyntaxException("Respuesta AFIP inválida", e);
+        }
+    }
+
+    private static Detalle detalle(JsonReader in) throws IOException {
+        String[] campos = new String[4];
+        List<Integer> observaciones = new ArrayList<>();
+        objeto(in, (nombre, r) -> {
+            int i = switch (nombre) {
+                case "Resultado" -> 0;
+                case "CAE" -> 1;
+                case "CAEFchVto" -> 2;
+                case "CbteDesde" -> 3;
+                case "Observaciones" -> {
+                    codigos(r, observaciones);
+                    yield 4;
+                }
+                default -> -1;
+            };
+            if (i < 0) return false;
+            if (i < 4) campos[i] = texto(r);
+            return true;
+        });
+        return new Detalle(campos[0], campos[1], campos[2], numero(campos[3]), observaciones);
+    }
+
+    /** Códigos de un nodo Errors / Observaciones: { "Err": {...} | [...] } con Code en cada uno. */
+    private static void codigos(JsonReader in, List<Integer> destino) throws IOException {
+        objeto(in, (hijo, r) -> {
+            unoOVarios(r, e -> objeto(e, (campo, rr) -> {
+                if (!"Code".equals(campo)) return false;
+                Long code = numero(texto(rr));
+                if (code != null) destino.add(code.intValue());
+                return true;
+            }));
+            return true;
+        });
+    }
+
+    private static void objeto(JsonReader in, Campo campo) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_OBJECT) {
+            in.skipValue();
+            return;
+        }
+        in.beginObject();
+        while (in.hasNext()) {
+            String nombre = in.nextName();
+            if (!campo.leer(nombre, in)) {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+    }
+
+    private static void unoOVarios(JsonReader in, Elemento elemento) throws IOException {
+        switch (in.peek()) {
+            case BEGIN_ARRAY -> {
+                in.beginArray();
+                while (in.hasNext()) {
+                    elemento.leer(in);
+                }
+                in.endArray();
+            }
+            case BEGIN_OBJECT -> elemento.leer(in);
+            default -> in.skipValue();
+        }
+    }
+
+    private static String texto(JsonReader in) throws IOException {
+        return switch (in.peek()) {
+            case STRING, NUMBER -> in.nextString();
+            case BOOLEAN -> String.valueOf(in.nextBoolean());
+            case NULL -> {
+                in.nextNull();
+                yield null;
+            }
+            default -> {
+                in.skipValue();
+                yield null;
+            }
+        };
+    }
+
+    private static Long numero(String texto) {
+        if (texto == null || texto.isBlank()) return null;
+        try {
+            return new BigDecimal(texto.trim()).longValue();
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -1,24 +1,35 @@
 package com.miempresa.gestion_hotelera.service;
 
 import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+import com.miempresa.gestion_hotelera.dto.AfipEstadisticasResponse;
+import com.miempresa.gestion_hotelera.entity.SecuenciaComprobante;
 import lombok.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
-import java.lang.reflect.Type;
 import java.math.BigDecimal;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
+@Slf4j
 @Service
+@RequiredArgsConstructor
 public class AfipService {
 
     @Getter
@@ -47,15 +58,31 @@ public class AfipService {
         private String cae;
         private String caeVencimiento;    // yyyy-MM-dd
         private long numeroComprobante;
+
+        // Códigos de Errors y Observaciones de AFIP (vacío si no hubo)
+        @Builder.Default
+        private List<Integer> codigosError = List.of();
+    }
+
+    /** CAEA de una quincena tal como lo devuelve FECAEASolicitar / FECAEAConsultar. */
+    public record CaeaAutorizado(String caea, LocalDate vigDesde, LocalDate vigHasta, LocalDate topeInforme) {}
+
+    /** Comprobante ya emitido con CAEA, para FECAEARegInformativo. */
+    public record ComprobanteCaea(AfipFacturaRequest req, long numero, String caea) {}
+
+    /** Qué tiene AFIP en un número, comparado con el comprobante que se mandó con ese número. */
+    public enum EstadoComprobante {
+        AUTORIZADO,   // es el mismo comprobante: respuesta trae su CAE
+        INEXISTENTE,  // AFIP nunca autorizó ese número
+        OTRO          // el número existe con otros datos
     }
 
-    // 👇 Config desde application.properties
-    @Value("${afip.api.base-url}")
-    private String baseUrl;
+    public record Verificacion(EstadoComprobante estado, AfipFacturaResponse respuesta) {}
 
-    @Value("${afip.api.access-token}")
-    private String accessToken;
+    // FECompConsultar: "No existen datos en nuestros registros para los parámetros ingresados"
+    private static final int ERROR_COMPROBANTE_INEXISTENTE = 602;
 
+    // 👇 Config desde application.properties (base-url y access-token los usa AfipCliente)
     @Value("${afip.api.environment}")
     private String environment; // "dev" o "prod"
 
@@ -65,9 +92,23 @@ public class AfipService {
     @Value("${afip.api.wsid}")
     private String wsid; // "wsfe"
 
-    private final HttpClient httpClient = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(10))
-            .build();
+    // Si /auth no informa vencimiento, el ticket WSAA dura 12 h: se asume un poco menos
+    @Value("${afip.auth.vigencia-por-defecto-horas:11}")
+    private long vigenciaPorDefectoHoras;
+
+    // Tope de registros por FECAESolicitar (FECompTotXRequest de AFIP)
+    @Value("${afip.lote.max-registros:250}")
+    private int maxRegistrosPorLote;
+
+    @Value("${afip.secuencia.sincronizar-al-iniciar:true}")
+    private boolean sincronizarAlIniciar;
+
+    private final AfipCliente afipCliente;
+    private final AfipTicketCache ticketCache;
+    private final SecuenciaComprobanteService secuenciaComprobanteService;
+
+    @Qualifier("afipExecutor")
+    private final Executor afipExecutor;
 
     private final Gson gson = new Gson();
 
@@ -79,50 +120,292 @@ public class AfipService {
         return cuit.replaceAll("\\D", ""); // elimina todo lo que NO es dígito
     }
 
-    // -------- DEMO --------
+    /** yyyyMMdd de AFIP a yyyy-MM-dd */
+    private static String fechaIso(String fechaAfip) {
+        return (fechaAfip != null && fechaAfip.length() == 8)
+                ? LocalDate.parse(fechaAfip, DateTimeFormatter.BASIC_ISO_DATE).format(DateTimeFormatter.ISO_LOCAL_DATE)
+                : fechaAfip;
+    }
+
+    /** join de una llamada de AfipCliente, devolviendo la excepción original */
+    private static <T> T esperar(CompletableFuture<T> llamada) throws Exception {
+        try {
+            return llamada.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof Exception causa ? causa : e;
+        }
+    }
+
+    // -------- REAL AFIP / AfipSDK --------
 
     /**
-     * Demo: simula la respuesta de AFIP.
-     * La dejamos por si la API real falla, para no romper el flujo.
+     * Implementación real contra AfipSDK / ARCA. intento recibe el número con que
+     * va a salir el comprobante antes de mandarlo (ver SecuenciaComprobanteService).
      */
-    public AfipFacturaResponse emitirFacturaDemo(AfipFacturaRequest req) {
-        System.out.println("Emitiendo factura DEMO para CUIT " + req.getCuitEmisor()
-                + " por importe " + req.getImporte()
-                + " doc receptor " + req.getTipoDocReceptor() + "-" + req.getNroDocReceptor());
+    public AfipFacturaResponse emitirFacturaAfip(AfipFacturaRequest req,
+                                                 SecuenciaComprobanteService.Intento intento) throws Exception {
+        // 1) Obtener Token/Sign para WSFE (cacheado hasta que esté por vencer)
+        AfipTicketCache.Ticket ticket = ticketCache.obtener(claveTicket(), this::obtenerAuth);
+
+        String token = ticket.token();
+        String sign = ticket.sign();
+
+        // 2) Próximo número desde la secuencia local (reservada) y 3) FECAESolicitar
+        String cuit = limpiarCuit(taxId);
+        int cbteTipo = mapTipoComprobanteToCbteTipo(req.getTipoComprobante());
+        return secuenciaComprobanteService.emitir(cuit, req.getPuntoVenta(), cbteTipo,
+                () -> obtenerUltimoAutorizado(token, sign, req.getPuntoVenta(), cbteTipo),
+                intento,
+                numero -> crearFacturaAfip(token, sign, req, numero));
+    }
 
-        return AfipFacturaResponse.builder()
-                .cae("00000000000001")
-                .caeVencimiento(
-                        LocalDate.now().plusDays(10)
-                                .format(DateTimeFormatter.ISO_LOCAL_DATE)
-                )
-                .numeroComprobante(1L)
-                .build();
+    /**
+     * Emite varios comprobantes del mismo punto de venta y tipo con FECAESolicitar
+     * multi-registro, en pedidos de hasta afip.lote.max-registros. Devuelve una
+     * respuesta por comprobante, en el mismo orden que reqs; los rechazados
+     * vuelven sin CAE y con sus códigos de error. Las posiciones que recibe intento
+     * son índices de reqs.
+     */
+    public List<AfipFacturaResponse> emitirLoteAfip(List<AfipFacturaRequest> reqs,
+                                                    SecuenciaComprobanteService.Intento intento) throws Exception {
+        if (reqs.isEmpty()) return List.of();
+
+        int puntoVenta = reqs.get(0).getPuntoVenta();
+        int cbteTipo = mapTipoComprobanteToCbteTipo(reqs.get(0).getTipoComprobante());
+        for (AfipFacturaRequest req : reqs) {
+            if (req.getPuntoVenta() != puntoVenta || mapTipoComprobanteToCbteTipo(req.getTipoComprobante()) != cbteTipo) {
+                throw new IllegalArgumentException("Un lote AFIP debe ser de un solo punto de venta y tipo de comprobante");
+            }
+        }
+
+        AfipTicketCache.Ticket ticket = ticketCache.obtener(claveTicket(), this::obtenerAuth);
+        String cuit = limpiarCuit(taxId);
+
+        List<AfipFacturaResponse> respuestas = new ArrayList<>(reqs.size());
+        for (int desde = 0; desde < reqs.size(); desde += maxRegistrosPorLote) {
+            List<AfipFacturaRequest> tramo = reqs.subList(desde, Math.min(desde + maxRegistrosPorLote, reqs.size()));
+            int inicio = desde;
+            respuestas.addAll(secuenciaComprobanteService.emitirLote(cuit, puntoVenta, cbteTipo, tramo.size(),
+                    () -> obtenerUltimoAutorizado(ticket.token(), ticket.sign(), puntoVenta, cbteTipo),
+                    (primerNumero, posiciones) -> intento.registrar(primerNumero,
+                            posiciones.stream().map(p -> inicio + p).toList()),
+                    (primerNumero, posiciones) -> crearLoteAfip(ticket.token(), ticket.sign(),
+                            posiciones.stream().map(tramo::get).toList(), primerNumero)));
+        }
+        return respuestas;
     }
 
-    // -------- REAL AFIP / AfipSDK --------
+    /**
+     * Al arrancar, relee de AFIP el último número de cada secuencia conocida
+     * (puede haberse facturado desde otro lado mientras la app estaba abajo).
+     * Corre en segundo plano para no demorar el arranque.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void sincronizarSecuencias() {
+        if (!sincronizarAlIniciar) return;
+
+        afipExecutor.execute(() -> {
+            for (SecuenciaComprobante s : secuenciaComprobanteService.listar()) {
+                try {
+                    AfipTicketCache.Ticket ticket = ticketCache.obtener(claveTicket(), this::obtenerAuth);
+                    secuenciaComprobanteService.sincronizar(s.getCuit(), s.getPuntoVenta(), s.getCbteTipo(),
+                            () -> obtenerUltimoAutorizado(ticket.token(), ticket.sign(),
+                                    s.getPuntoVenta(), s.getCbteTipo()));
+                } catch (Exception e) {
+                    log.warn("No se pudo sincronizar la secuencia {}-{} con AFIP: {}",
+                            s.getPuntoVenta(), s.getCbteTipo(), e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * FECompConsultar del número con que se mandó req, para saber qué pasó con un
+     * FECAESolicitar que no tuvo respuesta. Cualquier otra respuesta de AFIP que no
+     * sea el comprobante o "no existe" termina en excepción: sin saberlo no se
+     * puede decidir si volver a numerar.
+     */
+    public Verificacion verificarComprobante(AfipFacturaRequest req, long numero) throws Exception {
+        AfipTicketCache.Ticket ticket = ticketCache.obtener(claveTicket(), this::obtenerAuth);
+        return esperar(consultarComprobante(ticket.token(), ticket.sign(), req, numero));
+    }
+
+    // -------- CAEA --------
+
+    /** CUIT emisor (el de AfipSDK), solo dígitos. */
+    public String cuitEmisor() {
+        return limpiarCuit(taxId);
+    }
+
+    /** FECompUltimoAutorizado con el ticket cacheado. */
+    public long ultimoAutorizado(int puntoVenta, int cbteTipo) throws Exception {
+        AfipTicketCache.Ticket ticket = ticketCache.obtener(claveTicket(), this::obtenerAuth);
+        return obtenerUltimoAutorizado(ticket.token(), ticket.sign(), puntoVenta, cbteTipo);
+    }
 
     /**
-     * Implementación real contra AfipSDK / ARCA.
+     * FECAEASolicitar para la quincena (periodo yyyyMM, orden 1 o 2). Si ya se
+     * había pedido, AFIP responde con error y se recupera con FECAEAConsultar.
      */
-    public AfipFacturaResponse emitirFacturaAfip(AfipFacturaRequest req) throws Exception {
-        // 1) Obtener Token/Sign para WSFE
-        Map<String, Object> auth = obtenerAuth();
+    public CaeaAutorizado obtenerCaea(int periodo, int orden) throws Exception {
+        AfipTicketCache.Ticket ticket = ticketCache.obtener(claveTicket(), this::obtenerAuth);
+
+        CaeaAutorizado caea = llamarCaea("FECAEASolicitar", ticket, periodo, orden);
+        return caea != null ? caea : llamarCaea("FECAEAConsultar", ticket, periodo, orden);
+    }
+
+    /**
+     * FECAEARegInformativo de comprobantes del mismo punto de venta y tipo, en
+     * pedidos de hasta afip.lote.max-registros. Devuelve una respuesta por
+     * comprobante en el mismo orden: con cae = CAEA si AFIP lo aceptó, sin cae y
+     * con los códigos si no.
+     */
+    public List<AfipFacturaResponse> informarCaea(List<ComprobanteCaea> comprobantes) throws Exception {
+        if (comprobantes.isEmpty()) return List.of();
+
+        AfipTicketCache.Ticket ticket = ticketCache.obtener(claveTicket(), this::obtenerAuth);
+        List<AfipFacturaResponse> respuestas = new ArrayList<>(comprobantes.size());
+        for (int desde = 0; desde < comprobantes.size(); desde += maxRegistrosPorLote) {
+            respuestas.addAll(informarTramoCaea(ticket,
+                    comprobantes.subList(desde, Math.min(desde + maxRegistrosPorLote, comprobantes.size()))));
+        }
+        return respuestas;
+    }
+
+    private CaeaAutorizado llamarCaea(String metodo, AfipTicketCache.Ticket ticket, int periodo, int orden)
+            throws Exception {
+
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("environment", environment);
+        payload.put("wsid", wsid);
+        payload.put("method", metodo);
+
+        Map<String, Object> params = new LinkedHashMap<>();
+        payload.put("params", params);
+
+        Map<String, Object> auth = new LinkedHashMap<>();
+        auth.put("Token", ticket.token());
+        auth.put("Sign", ticket.sign());
+        auth.put("Cuit", Long.parseLong(limpiarCuit(taxId)));
+        params.put("Auth", auth);
+        params.put("Periodo", periodo);
+        params.put("Orden", orden);
+
+        String respuesta = esperar(afipCliente.post(metodo, "/requests", gson.toJson(payload),
+                Duration.ofSeconds(20), AfipCliente.Reintento.SIEMPRE));
+
+        AfipRespuestas.Caea result = AfipRespuestas.caea(respuesta, metodo + "Result");
+        if (result == null || result.caea() == null) {
+            log.warn("AFIP {} sin CAEA para {}/{}. Códigos: {}", metodo, periodo, orden,
+                    result != null ? result.errores() : List.of());
+            return null;
+        }
+
+        return new CaeaAutorizado(
+                result.caea(),
+                fechaAfip(result.fchVigDesde()),
+                fechaAfip(result.fchVigHasta()),
+                fechaAfip(result.fchTopeInf()));
+    }
+
+    private List<AfipFacturaResponse> informarTramoCaea(AfipTicketCache.Ticket ticket,
+                                                        List<ComprobanteCaea> comprobantes) throws Exception {
+
+        AfipFacturaRequest cabecera = comprobantes.get(0).req();
+
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("environment", environment);
+        payload.put("wsid", wsid);
+        payload.put("method", "FECAEARegInformativo");
+
+        Map<String, Object> params = new LinkedHashMap<>();
+        payload.put("params", params);
+
+        Map<String, Object> auth = new LinkedHashMap<>();
+        auth.put("Token", ticket.token());
+        auth.put("Sign", ticket.sign());
+        auth.put("Cuit", Long.parseLong(limpiarCuit(taxId)));
+        params.put("Auth", auth);
+
+        Map<String, Object> feCAEARegInfReq = new LinkedHashMap<>();
+        params.put("FeCAEARegInfReq", feCAEARegInfReq);
+
+        Map<String, Object> feCabReq = new LinkedHashMap<>();
+        feCAEARegInfReq.put("FeCabReq", feCabReq);
+        feCabReq.put("CantReg", comprobantes.size());
+        feCabReq.put("PtoVta", cabecera.getPuntoVenta());
+        feCabReq.put("CbteTipo", mapTipoComprobanteToCbteTipo(cabecera.getTipoComprobante()));
+
+        List<Map<String, Object>> detalles = new ArrayList<>();
+        Map<Long, Integer> posiciones = new LinkedHashMap<>();
+        for (int i = 0; i < comprobantes.size(); i++) {
+            ComprobanteCaea c = comprobantes.get(i);
+            Map<String, Object> det = detalleComprobante(c.req(), c.numero());
+            det.put("CAEA", c.caea());
+            detalles.add(det);
+            posiciones.put(c.numero(), i);
+        }
+
+        Map<String, Object> feDetReq = new LinkedHashMap<>();
+        feCAEARegInfReq.put("FeDetReq", feDetReq);
+        feDetReq.put("FECAEADetRequest", detalles.size() == 1 ? detalles.get(0) : detalles);
+
+        // Informar dos veces lo mismo no autoriza nada nuevo, pero AFIP lo rechaza: solo se repite si no salió
+        String respuesta = esperar(afipCliente.post("FECAEARegInformativo", "/requests", gson.toJson(payload),
+                Duration.ofSeconds(20 + 2L * comprobantes.size()), AfipCliente.Reintento.SOLO_SIN_ENVIAR));
 
-        String token = (String) auth.get("Token");
-        String sign = (String) auth.get("Sign");
+        AfipRespuestas.Solicitud result = AfipRespuestas.solicitud(respuesta, "FECAEARegInformativoResult");
+        if (result == null) {
+            throw new RuntimeException("Respuesta inválida de FECAEARegInformativo: " + respuesta);
+        }
+
+        List<Integer> erroresCabecera = result.errores();
+        AfipFacturaResponse[] respuestas = new AfipFacturaResponse[comprobantes.size()];
+
+        for (AfipRespuestas.Detalle det : result.detalles()) {
+            Integer posicion = det.cbteDesde() != null ? posiciones.get(det.cbteDesde()) : null;
+            if (posicion == null) continue;
+
+            ComprobanteCaea c = comprobantes.get(posicion);
+            List<Integer> codigosError = new ArrayList<>(erroresCabecera);
+            codigosError.addAll(det.observaciones());
+            boolean aceptado = "A".equalsIgnoreCase(det.resultado());
+
+            respuestas[posicion] = AfipFacturaResponse.builder()
+                    .cae(aceptado ? c.caea() : null)
+                    .numeroComprobante(c.numero())
+                    .codigosError(codigosError)
+                    .build();
+        }
+
+        for (int i = 0; i < respuestas.length; i++) {
+            if (respuestas[i] == null) {
+                respuestas[i] = AfipFacturaResponse.builder()
+                        .numeroComprobante(comprobantes.get(i).numero())
+                        .codigosError(erroresCabecera)
+                        .build();
+            }
+        }
+        return Arrays.asList(respuestas);
+    }
 
-        // 2) Obtener próximo número de comprobante
-        int nextNumber = obtenerProximoNumeroComprobante(token, sign, req);
+    private static LocalDate fechaAfip(String valor) {
+        return LocalDate.parse(valor, DateTimeFormatter.BASIC_ISO_DATE);
+    }
 
-        // 3) Crear factura FECAESolicitar
-        return crearFacturaAfip(token, sign, req, nextNumber);
+    public AfipEstadisticasResponse estadisticas() {
+        return afipCliente.estadisticas();
+    }
+
+    private AfipTicketCache.Clave claveTicket() {
+        return new AfipTicketCache.Clave(environment, limpiarCuit(taxId), wsid);
     }
 
     /**
-     * POST /auth para obtener Token y Sign (AfipSDK).
+     * POST /auth para obtener Token y Sign (AfipSDK). Lo llama AfipTicketCache
+     * solo cuando no hay ticket vigente o está por vencer.
      */
-    private Map<String, Object> obtenerAuth() throws Exception {
+    private AfipTicketCache.Ticket obtenerAuth() throws Exception {
         Map<String, Object> body = new LinkedHashMap<>();
         body.put("environment", environment); // "dev" o "prod"
 
@@ -131,41 +414,30 @@ public class AfipService {
 
         body.put("wsid", wsid); // "wsfe"
 
-        String json = gson.toJson(body);
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(new URI(baseUrl + "/auth"))
-                .timeout(Duration.ofSeconds(20))
-                .header("Content-Type", "application/json")
-                .header("Authorization", "Bearer " + accessToken)
-                .POST(HttpRequest.BodyPublishers.ofString(json))
-                .build();
-
-        HttpResponse<String> response =
-                httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        String respuesta = esperar(afipCliente.post("AUTH", "/auth", gson.toJson(body),
+                Duration.ofSeconds(20), AfipCliente.Reintento.SIEMPRE));
 
-        System.out.println("AFIP AUTH status: " + response.statusCode());
-        System.out.println("AFIP AUTH body: " + response.body());
+        // AfipSDK suele devolver { "token": "...", "sign": "...", "expiration": "..." }
+        AfipRespuestas.Auth data = AfipRespuestas.auth(respuesta);
+        return new AfipTicketCache.Ticket(data.token(), data.sign(), vencimientoTicket(data.expiration()));
+    }
 
-        if (response.statusCode() >= 400) {
-            throw new RuntimeException("Error AFIP AUTH: " + response.body());
+    private Instant vencimientoTicket(String expiration) {
+        if (expiration != null && !expiration.isBlank()) {
+            try {
+                return OffsetDateTime.parse(expiration).toInstant();
+            } catch (DateTimeParseException e) {
+                log.warn("Vencimiento de ticket AFIP no reconocido: {}", expiration);
+            }
         }
-
-        Type type = new TypeToken<Map<String, Object>>() {}.getType();
-        Map<String, Object> data = gson.fromJson(response.body(), type);
-
-        // AfipSDK suele devolver { "token": "...", "sign": "...", ... }
-        return Map.of(
-                "Token", data.get("token"),
-                "Sign", data.get("sign")
-        );
+        return Instant.now().plus(Duration.ofHours(vigenciaPorDefectoHoras));
     }
 
     /**
-     * FECompUltimoAutorizado - obtener el último número de comprobante autorizado,
-     * para saber cuál es el próximo.
+     * FECompUltimoAutorizado - obtener el último número de comprobante autorizado.
+     * Solo lo usa SecuenciaComprobanteService para crear o resincronizar una secuencia.
      */
-    private int obtenerProximoNumeroComprobante(String token, String sign, AfipFacturaRequest req)
+    private long obtenerUltimoAutorizado(String token, String sign, int puntoVenta, int cbteTipo)
             throws Exception {
 
         Map<String, Object> payload = new LinkedHashMap<>();
@@ -182,41 +454,17 @@ public class AfipService {
         auth.put("Cuit", Long.parseLong(limpiarCuit(taxId))); // o req.getCuitEmisor()
 
         params.put("Auth", auth);
-        params.put("PtoVta", req.getPuntoVenta());
-        params.put("CbteTipo", mapTipoComprobanteToCbteTipo(req.getTipoComprobante()));
+        params.put("PtoVta", puntoVenta);
+        params.put("CbteTipo", cbteTipo);
 
-        String json = gson.toJson(payload);
+        String respuesta = esperar(afipCliente.post("FECompUltimoAutorizado", "/requests", gson.toJson(payload),
+                Duration.ofSeconds(20), AfipCliente.Reintento.SIEMPRE));
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(new URI(baseUrl + "/requests"))
-                .timeout(Duration.ofSeconds(20))
-                .header("Content-Type", "application/json")
-                .header("Authorization", "Bearer " + accessToken)
-                .POST(HttpRequest.BodyPublishers.ofString(json))
-                .build();
-
-        HttpResponse<String> response =
-                httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-        System.out.println("AFIP UltimoComp status: " + response.statusCode());
-        System.out.println("AFIP UltimoComp body: " + response.body());
-
-        if (response.statusCode() >= 400) {
-            throw new RuntimeException("Error AFIP FECompUltimoAutorizado: " + response.body());
-        }
-
-        Type type = new TypeToken<Map<String, Object>>() {}.getType();
-        Map<String, Object> data = gson.fromJson(response.body(), type);
-
-        Map<String, Object> result =
-                (Map<String, Object>) data.get("FECompUltimoAutorizadoResult");
-        if (result == null) {
-            throw new RuntimeException("Respuesta inválida de FECompUltimoAutorizado: " + response.body());
+        Long cbteNro = AfipRespuestas.ultimoAutorizado(respuesta);
+        if (cbteNro == null) {
+            throw new RuntimeException("Respuesta inválida de FECompUltimoAutorizado: " + respuesta);
         }
-
-        Number cbteNro = (Number) result.get("CbteNro");
-        int lastNumber = cbteNro != null ? cbteNro.intValue() : 0;
-        return lastNumber + 1;
+        return cbteNro;
     }
 
     /**
@@ -225,7 +473,23 @@ public class AfipService {
     private AfipFacturaResponse crearFacturaAfip(String token,
                                                  String sign,
                                                  AfipFacturaRequest req,
-                                                 int nextVoucherNumber) throws Exception {
+                                                 long nextVoucherNumber) throws Exception {
+        return crearLoteAfip(token, sign, List.of(req), nextVoucherNumber).get(0);
+    }
+
+    /**
+     * FECAESolicitar con CantReg = reqs.size(). Todos los comprobantes son del mismo
+     * punto de venta y tipo; el i-ésimo lleva el número primerNumero + i.
+     * Devuelve una respuesta por comprobante, en el orden de reqs: cada
+     * FECAEDetResponse se asocia por su CbteDesde, así un rechazo parcial no
+     * corre las respuestas de los demás.
+     */
+    private List<AfipFacturaResponse> crearLoteAfip(String token,
+                                                    String sign,
+                                                    List<AfipFacturaRequest> reqs,
+                                                    long primerNumero) throws Exception {
+
+        AfipFacturaRequest cabecera = reqs.get(0);
 
         Map<String, Object> payload = new LinkedHashMap<>();
         payload.put("environment", environment);
@@ -247,21 +511,156 @@ public class AfipService {
 
         Map<String, Object> feCabReq = new LinkedHashMap<>();
         feCAEReq.put("FeCabReq", feCabReq);
-        feCabReq.put("CantReg", 1);
-        feCabReq.put("PtoVta", req.getPuntoVenta());
-        feCabReq.put("CbteTipo", mapTipoComprobanteToCbteTipo(req.getTipoComprobante()));
+        feCabReq.put("CantReg", reqs.size());
+        feCabReq.put("PtoVta", cabecera.getPuntoVenta());
+        feCabReq.put("CbteTipo", mapTipoComprobanteToCbteTipo(cabecera.getTipoComprobante()));
+
+        List<Map<String, Object>> detalles = new ArrayList<>();
+        for (int i = 0; i < reqs.size(); i++) {
+            detalles.add(detalleComprobante(reqs.get(i), primerNumero + i));
+        }
 
+        // Con un solo registro se manda el objeto, como espera el SDK para CantReg = 1
         Map<String, Object> feDetReq = new LinkedHashMap<>();
         feCAEReq.put("FeDetReq", feDetReq);
+        feDetReq.put("FECAEDetRequest", detalles.size() == 1 ? detalles.get(0) : detalles);
+
+        String respuesta = esperar(afipCliente.post("FECAESolicitar", "/requests", gson.toJson(payload),
+                Duration.ofSeconds(20 + 2L * reqs.size()), AfipCliente.Reintento.SOLO_SIN_ENVIAR));
+
+        AfipRespuestas.Solicitud feCAESolicitarResult = AfipRespuestas.solicitud(respuesta, "FECAESolicitarResult");
+        if (feCAESolicitarResult == null) {
+            throw new RuntimeException("Respuesta inválida de FECAESolicitar: " + respuesta);
+        }
+
+        // Errores de cabecera: valen para todos los registros del pedido
+        List<Integer> erroresCabecera = feCAESolicitarResult.errores();
 
+        AfipFacturaResponse[] respuestas = new AfipFacturaResponse[reqs.size()];
+        List<AfipRespuestas.Detalle> detResp = feCAESolicitarResult.detalles();
+
+        for (int i = 0; i < detResp.size(); i++) {
+            AfipRespuestas.Detalle det = detResp.get(i);
+            int posicion = det.cbteDesde() != null ? (int) (det.cbteDesde() - primerNumero) : i;
+            if (posicion < 0 || posicion >= respuestas.length) continue;
+
+            respuestas[posicion] = respuestaDetalle(det, primerNumero + posicion, erroresCabecera);
+        }
+
+        for (int i = 0; i < respuestas.length; i++) {
+            if (respuestas[i] == null) {
+                // AFIP no devolvió detalle para este registro: rechazado con los errores de cabecera
+                respuestas[i] = AfipFacturaResponse.builder()
+                        .numeroComprobante(primerNumero + i)
+                        .codigosError(erroresCabecera)
+                        .build();
+            }
+        }
+        return adoptarAutorizados(token, sign, reqs, primerNumero, Arrays.asList(respuestas));
+    }
+
+    /**
+     * Un 10016 puede significar que el número ya lo autorizó AFIP en un pedido
+     * anterior del que no llegó la respuesta (timeout). Antes de que la secuencia
+     * lo reenvíe con otro número, se consulta cada número rechazado con
+     * FECompConsultar (en paralelo): si el comprobante existe y es el mismo
+     * (documento, importe y fecha), se toma su CAE en lugar de duplicarlo.
+     */
+    private List<AfipFacturaResponse> adoptarAutorizados(String token,
+                                                         String sign,
+                                                         List<AfipFacturaRequest> reqs,
+                                                         long primerNumero,
+                                                         List<AfipFacturaResponse> respuestas) throws Exception {
+        List<CompletableFuture<AfipFacturaResponse>> consultas = new ArrayList<>();
+        for (int i = 0; i < respuestas.size(); i++) {
+            AfipFacturaResponse r = respuestas.get(i);
+            boolean desfasado = r.getCae() == null
+                    && r.getCodigosError().contains(SecuenciaComprobanteService.ERROR_NUMERO_DESFASADO);
+            consultas.add(desfasado
+                    ? consultarComprobante(token, sign, reqs.get(i), primerNumero + i)
+                            .thenApply(v -> v.estado() == EstadoComprobante.AUTORIZADO ? v.respuesta() : null)
+                            // Sin poder consultar no se adopta nada: el resto del pedido ya aprobado no se pierde
+                            .exceptionally(e -> null)
+                    : CompletableFuture.completedFuture(null));
+        }
+        esperar(CompletableFuture.allOf(consultas.toArray(CompletableFuture[]::new)));
+
+        List<AfipFacturaResponse> resultado = new ArrayList<>(respuestas.size());
+        for (int i = 0; i < respuestas.size(); i++) {
+            AfipFacturaResponse existente = consultas.get(i).join();
+            if (existente != null) {
+                log.info("Comprobante {} ya autorizado por AFIP en un pedido anterior, CAE={}",
+                        existente.getNumeroComprobante(), existente.getCae());
+            }
+            resultado.add(existente != null ? existente : respuestas.get(i));
+        }
+        return resultado;
+    }
+
+    /**
+     * FECompConsultar del número dado, comparado con req (documento, importe y
+     * fecha). Falla si AFIP responde con un error distinto de "no existe".
+     */
+    private CompletableFuture<Verificacion> consultarComprobante(String token,
+                                                                       String sign,
+                                                                       AfipFacturaRequest req,
+                                                                       long numero) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("environment", environment);
+        payload.put("wsid", wsid);
+        payload.put("method", "FECompConsultar");
+
+        Map<String, Object> params = new LinkedHashMap<>();
+        payload.put("params", params);
+
+        Map<String, Object> auth = new LinkedHashMap<>();
+        auth.put("Token", token);
+        auth.put("Sign", sign);
+        auth.put("Cuit", Long.parseLong(limpiarCuit(taxId)));
+        params.put("Auth", auth);
+
+        Map<String, Object> feCompConsReq = new LinkedHashMap<>();
+        feCompConsReq.put("CbteTipo", mapTipoComprobanteToCbteTipo(req.getTipoComprobante()));
+        feCompConsReq.put("CbteNro", numero);
+        feCompConsReq.put("PtoVta", req.getPuntoVenta());
+        params.put("FeCompConsReq", feCompConsReq);
+
+        return afipCliente.post("FECompConsultar", "/requests", gson.toJson(payload),
+                        Duration.ofSeconds(20), AfipCliente.Reintento.SIEMPRE)
+                .thenApply(respuesta -> {
+                    AfipRespuestas.Comprobante get = AfipRespuestas.comprobante(respuesta);
+                    if (get == null) {
+                        List<Integer> errores = AfipRespuestas.errores(respuesta, "FECompConsultarResult");
+                        if (errores != null && errores.contains(ERROR_COMPROBANTE_INEXISTENTE)) {
+                            return new Verificacion(EstadoComprobante.INEXISTENTE, null);
+                        }
+                        throw new IllegalStateException("FECompConsultar sin resultado para el comprobante "
+                                + numero + ". Errores: " + errores);
+                    }
+
+                    boolean mismo = "A".equalsIgnoreCase(get.resultado())
+                            && get.docNro() != null && get.impTotal() != null && get.cbteFch() != null
+                            && new BigDecimal(get.docNro()).longValue() == Long.parseLong(req.getNroDocReceptor())
+                            && new BigDecimal(get.impTotal()).compareTo(req.getImporte()) == 0
+                            && new BigDecimal(get.cbteFch()).longValue() == Long.parseLong(req.getFecha());
+                    if (!mismo) return new Verificacion(EstadoComprobante.OTRO, null);
+
+                    return new Verificacion(EstadoComprobante.AUTORIZADO, AfipFacturaResponse.builder()
+                            .cae(get.codAutorizacion())
+                            .caeVencimiento(fechaIso(get.fchVto()))
+                            .numeroComprobante(numero)
+                            .build());
+                });
+    }
+
+    private Map<String, Object> detalleComprobante(AfipFacturaRequest req, long numero) {
         Map<String, Object> feCAERequest = new LinkedHashMap<>();
-        feDetReq.put("FECAEDetRequest", feCAERequest);
 
         feCAERequest.put("Concepto", 1); // 1 = Productos
         feCAERequest.put("DocTipo", Integer.valueOf(req.getTipoDocReceptor()));
         feCAERequest.put("DocNro", Long.parseLong(req.getNroDocReceptor()));
-        feCAERequest.put("CbteDesde", nextVoucherNumber);
-        feCAERequest.put("CbteHasta", nextVoucherNumber);
+        feCAERequest.put("CbteDesde", numero);
+        feCAERequest.put("CbteHasta", numero);
         feCAERequest.put("CbteFch", Integer.parseInt(req.getFecha())); // yyyyMMdd
 
         // IVA simplificado: todo no gravado (para no mandar AlicIvas todavía)
@@ -277,71 +676,42 @@ public class AfipService {
 
         // Condición IVA receptor: 5 = Consumidor Final
         feCAERequest.put("CondicionIVAReceptorId", 5);
+        return feCAERequest;
+    }
 
-        String json = gson.toJson(payload);
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(new URI(baseUrl + "/requests"))
-                .timeout(Duration.ofSeconds(20))
-                .header("Content-Type", "application/json")
-                .header("Authorization", "Bearer " + accessToken)
-                .POST(HttpRequest.BodyPublishers.ofString(json))
-                .build();
-
-        HttpResponse<String> response =
-                httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-        System.out.println("AFIP FECAESolicitar status: " + response.statusCode());
-        System.out.println("AFIP FECAESolicitar body: " + response.body());
-
-        if (response.statusCode() >= 400) {
-            throw new RuntimeException("Error AFIP FECAESolicitar: " + response.body());
-        }
-
-        Type type = new TypeToken<Map<String, Object>>() {}.getType();
-        Map<String, Object> data = gson.fromJson(response.body(), type);
-
-        // ✅ Parsear donde realmente están los datos:
-        Map<String, Object> feCAESolicitarResult =
-                (Map<String, Object>) data.get("FECAESolicitarResult");
-        Map<String, Object> feDetResp =
-                (Map<String, Object>) feCAESolicitarResult.get("FeDetResp");
-        var detList = (java.util.List<Map<String, Object>>) feDetResp.get("FECAEDetResponse");
-        Map<String, Object> det0 = detList.get(0);
-
-        String resultado = (String) det0.get("Resultado");
-        String cae = (String) det0.get("CAE");
-        String caeFchVto = (String) det0.get("CAEFchVto");
+    private AfipFacturaResponse respuestaDetalle(AfipRespuestas.Detalle det,
+                                                 long numeroComprobante,
+                                                 List<Integer> erroresCabecera) {
+        String resultado = det.resultado();
+        String cae = det.cae();
+        String caeFchVto = det.caeFchVto();
 
-        Number cbteDesde = (Number) det0.get("CbteDesde");
-        long numeroComprobante = cbteDesde != null ? cbteDesde.longValue() : nextVoucherNumber;
+        List<Integer> codigosError = new ArrayList<>(erroresCabecera);
+        codigosError.addAll(det.observaciones());
 
-        System.out.println("Resultado detalle AFIP: " + resultado + ", CAE=" + cae);
+        log.debug("Resultado detalle AFIP {}: {}, CAE={}", numeroComprobante, resultado, cae);
 
         if (!"A".equalsIgnoreCase(resultado) || cae == null || cae.isEmpty()) {
-            // No tiramos excepción, solo logueamos; FacturaService puede hacer fallback a DEMO
-            System.err.println("Factura no aprobada por AFIP. Respuesta: " + response.body());
+            // No tiramos excepción, solo logueamos; FacturaService decide qué hacer
+            log.warn("Comprobante {} no aprobado por AFIP. Códigos: {}", numeroComprobante, codigosError);
 
             return AfipFacturaResponse.builder()
                     .cae(null)
                     .caeVencimiento(null)
                     .numeroComprobante(numeroComprobante)
+                    .codigosError(codigosError)
                     .build();
         }
 
         return AfipFacturaResponse.builder()
                 .cae(cae)
-                .caeVencimiento(
-                        (caeFchVto != null && caeFchVto.length() == 8)
-                                ? LocalDate.parse(caeFchVto, DateTimeFormatter.BASIC_ISO_DATE)
-                                .format(DateTimeFormatter.ISO_LOCAL_DATE)
-                                : caeFchVto
-                )
+                .caeVencimiento(fechaIso(caeFchVto))
                 .numeroComprobante(numeroComprobante)
+                .codigosError(codigosError)
                 .build();
     }
 
-    private int mapTipoComprobanteToCbteTipo(String tipo) {
+    public int mapTipoComprobanteToCbteTipo(String tipo) {
         if (tipo == null) return 6; // Factura B por defecto
 
         return switch (tipo.toUpperCase()) {
@@ -0,0 +1,102 @@
+package com.miempresa.gestion_hotelera.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tickets de acceso WSAA (Token/Sign) por (environment, tax_id, wsid).
+ *
+ * El ticket dura horas, así que no hace falta pedir uno por factura:
+ * - Vigente: se devuelve el guardado.
+ * - A menos de renovar-antes-minutos de vencer: se devuelve el guardado y se
+ *   pide uno nuevo en segundo plano.
+ * - Vencido o inexistente: se espera a que llegue uno nuevo.
+ * En los dos últimos casos hay un solo pedido en vuelo por clave: una ráfaga
+ * de facturas con el ticket vencido hace un único POST /auth.
+ */
+@Component
+public class AfipTicketCache {
+
+    public record Clave(String environment, String taxId, String wsid) {}
+
+    public record Ticket(String token, String sign, Instant vencimiento) {}
+
+    private final Duration renovarAntes;
+    private final Executor afipExecutor;
+
+    private final Map<Clave, Ticket> tickets = new ConcurrentHashMap<>();
+    private final Map<Clave, CompletableFuture<Ticket>> enVuelo = new ConcurrentHashMap<>();
+
+    private final AtomicLong pedidos = new AtomicLong();
+
+    public AfipTicketCache(@Value("${afip.auth.renovar-antes-minutos:30}") long renovarAntesMinutos,
+                           @Qualifier("afipExecutor") Executor afipExecutor) {
+        this.renovarAntes = Duration.ofMinutes(renovarAntesMinutos);
+        this.afipExecutor = afipExecutor;
+    }
+
+    public Ticket obtener(Clave clave, Callable<Ticket> pedir) throws Exception {
+        Ticket actual = tickets.get(clave);
+        Instant ahora = Instant.now();
+
+        if (actual != null && ahora.isBefore(actual.vencimiento())) {
+            if (!ahora.isBefore(actual.vencimiento().minus(renovarAntes))) {
+                // Todavía sirve: el pedido nuevo no frena esta factura
+                renovar(clave, pedir, afipExecutor);
+            }
+            return actual;
+        }
+
+        try {
+            return renovar(clave, pedir, Runnable::run).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof Exception causa ? causa : e;
+        }
+    }
+
+    /** Cantidad de POST /auth hechos desde que arrancó la aplicación. */
+    public long pedidos() {
+        return pedidos.get();
+    }
+
+    // ========= INTERNOS =========
+
+    private CompletableFuture<Ticket> renovar(Clave clave, Callable<Ticket> pedir, Executor executor) {
+        CompletableFuture<Ticket> propio = new CompletableFuture<>();
+        CompletableFuture<Ticket> existente = enVuelo.putIfAbsent(clave, propio);
+        if (existente != null) {
+            return existente;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    pedidos.incrementAndGet();
+                    Ticket nuevo = pedir.call();
+                    tickets.put(clave, nuevo);
+                    propio.complete(nuevo);
+                } catch (Exception e) {
+                    // Si falla una renovación anticipada queda el ticket anterior hasta que venza
+                    propio.completeExceptionally(e);
+                } finally {
+                    enVuelo.remove(clave, propio);
+                }
+            });
+        } catch (RuntimeException e) {
+            enVuelo.remove(clave, propio);
+            propio.completeExceptionally(e);
+        }
+        return propio;
+    }
+}
@@ -0,0 +1,241 @@
+package com.miempresa.gestion_hotelera.service;
+
+import com.miempresa.gestion_hotelera.dto.AsignacionHabitacionesResponse;
+import com.miempresa.gestion_hotelera.dto.AsignacionReservaResponse;
+import com.miempresa.gestion_hotelera.entity.Cliente;
+import com.miempresa.gestion_hotelera.entity.EstadoReserva;
+import com.miempresa.gestion_hotelera.entity.Habitacion;
+import com.miempresa.gestion_hotelera.entity.Reserva;
+import com.miempresa.gestion_hotelera.event.ReservaModificadaEvent;
+import com.miempresa.gestion_hotelera.repository.HabitacionRepository;
+import com.miempresa.gestion_hotelera.repository.HotelRepository;
+import com.miempresa.gestion_hotelera.repository.ReservaRepository;
+import com.miempresa.gestion_hotelera.security.TenantUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Asigna habitaciones concretas a las reservas que se tomaron solo por tipo.
+ *
+ * Las reservas pendientes se recorren por check-in (las más largas primero) y cada
+ * una va a la habitación de su tipo que menos noches huérfanas deja: huecos de
+ * hasta {@code app.asignacion.noches-huerfanas} noches entre dos estadías, que en
+ * la práctica no se pueden vender. A igual costo gana la habitación donde la
+ * reserva queda más pegada a la anterior (best-fit).
+ *
+ * Todo se resuelve en memoria con dos consultas por hotel; lo único que va a la
+ * base después son los UPDATE de las reservas asignadas.
+ */
+@Service
+@RequiredArgsConstructor
+public class AsignacionHabitacionService {
+
+    private static final int MAX_NOCHES_VENTANA = 366;
+
+    private final ReservaRepository reservaRepository;
+    private final HabitacionRepository habitacionRepository;
+    private final HotelRepository hotelRepository;
+    private final TenantUtil tenantUtil;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.asignacion.noches-huerfanas:2}")
+    private int umbralHuerfanas;
+
+    // ========= ASIGNACIÓN A PEDIDO =========
+    @Transactional
+    public AsignacionHabitacionesResponse asignar(Long hotelId, LocalDate desde, LocalDate hasta) {
+        Cliente cliente = tenantUtil.getClienteActual();
+        if (!hotelRepository.existsByIdAndCliente_Id(hotelId, cliente.getId())) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Hotel no encontrado");
+        }
+        return asignarHotel(hotelId, desde, hasta);
+    }
+
+    /**
+     * Sin chequeo de tenant: lo usa también el proceso nocturno, que recorre todos los hoteles.
+     */
+    @Transactional
+    public AsignacionHabitacionesResponse asignarHotel(Long hotelId, LocalDate desde, LocalDate hasta) {
+        if (desde == null || hasta == null || !desde.isBefore(hasta)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Rango de fechas inválido");
+        }
+        if (ChronoUnit.DAYS.between(desde, hasta) > MAX_NOCHES_VENTANA) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "La ventana no puede superar " + MAX_NOCHES_VENTANA + " noches");
+        }
+
+        List<Reserva> pendientes = reservaRepository.findSinHabitacionEnRango(
+                hotelId, EstadoReserva.ACTIVOS, desde, hasta);
+
+        AsignacionHabitacionesResponse.AsignacionHabitacionesResponseBuilder respuesta =
+                AsignacionHabitacionesResponse.builder()
+                        .hotelId(hotelId)
+                        .desde(desde)
+                        .hasta(hasta)
+                        .pendientes(pendientes.size());
+
+        if (pendientes.isEmpty()) {
+            return respuesta.asignaciones(List.of()).sinAsignar(List.of()).build();
+        }
+
+        // La ocupación fija se lee un poco más allá de las reservas pendientes
+        // para poder medir los huecos que quedan en los bordes.
+        LocalDate inicio = pendientes.get(0).getCheckIn();
+        LocalDate fin = pendientes.get(0).getCheckOut();
+        for (Reserva r : pendientes) {
+            if (r.getCheckIn().isBefore(inicio)) inicio = r.getCheckIn();
+            if (r.getCheckOut().isAfter(fin)) fin = r.getCheckOut();
+        }
+
+        Plan plan = new Plan(umbralHuerfanas);
+        Map<Long, Habitacion> habitaciones = new HashMap<>();
+        for (Habitacion h : habitacionRepository.findByHotelIdWithFetch(hotelId)) {
+            if (Boolean.FALSE.equals(h.getActivo())) continue;
+            habitaciones.put(h.getId(), h);
+            plan.agregarHabitacion(h.getTipoHabitacion().getId(), h.getId());
+        }
+        for (ReservaRepository.OcupacionView o : reservaRepository.findOcupacionByHotelEnRango(
+                hotelId, EstadoReserva.ACTIVOS,
+                inicio.minusDays(umbralHuerfanas), fin.plusDays(umbralHuerfanas))) {
+            plan.ocupar(o.getHabitacionId(), dia(o.getCheckIn()), dia(o.getCheckOut()));
+        }
+
+        List<Reserva> asignadas = new ArrayList<>();
+        List<Long> sinAsignar = new ArrayList<>();
+        for (Reserva r : pendientes) {
+            Long habitacionId = plan.asignar(r.getTipoHabitacion().getId(), dia(r.getCheckIn()), dia(r.getCheckOut()));
+            if (habitacionId == null) {
+                sinAsignar.add(r.getId());
+                continue;
+            }
+            r.setHabitacion(habitaciones.get(habitacionId));
+            asignadas.add(r);
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        asignadas.forEach(r -> r.setActualizadoEn(ahora));
+        try {
+            reservaRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            // Otra transacción tomó alguna de las habitaciones mientras se calculaba el plan
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Cambió la ocupación durante la asignación, volvé a intentar");
+        }
+        asignadas.forEach(r -> eventPublisher.publishEvent(ReservaModificadaEvent.de(r)));
+
+        return respuesta
+                .asignadas(asignadas.size())
+                .nochesHuerfanas(plan.nochesHuerfanas(dia(desde), dia(hasta)))
+                .asignaciones(asignadas.stream()
+                        .map(r -> new AsignacionReservaResponse(
+                                r.getId(), r.getHabitacion().getId(), r.getHabitacion().getCodigo()))
+                        .toList())
+                .sinAsignar(sinAsignar)
+                .build();
+    }
+
+    private static int dia(LocalDate fecha) {
+        return (int) fecha.toEpochDay();
+    }
+
+    // ========= PLAN EN MEMORIA =========
+
+    /**
+     * Ocupación por habitación como intervalos [checkIn, checkOut) en días epoch,
+     * ordenados por inicio. Los intervalos de una habitación nunca se superponen,
+     * así que alcanza con mirar el vecino anterior y el siguiente.
+     */
+    static final class Plan {
+
+        private static final int SIN_VECINO = Integer.MAX_VALUE;
+
+        private final int umbralHuerfanas;
+        private final Map<Long, List<Long>> habitacionesPorTipo = new HashMap<>();
+        private final Map<Long, TreeMap<Integer, Integer>> ocupacion = new HashMap<>();
+
+        Plan(int umbralHuerfanas) {
+            this.umbralHuerfanas = umbralHuerfanas;
+        }
+
+        void agregarHabitacion(Long tipoId, Long habitacionId) {
+            habitacionesPorTipo.computeIfAbsent(tipoId, k -> new ArrayList<>()).add(habitacionId);
+            ocupacion.put(habitacionId, new TreeMap<>());
+        }
+
+        void ocupar(Long habitacionId, int desde, int hasta) {
+            TreeMap<Integer, Integer> intervalos = ocupacion.get(habitacionId);
+            if (intervalos != null && desde < hasta) {
+                intervalos.put(desde, hasta);
+            }
+        }
+
+        /** Devuelve la habitación elegida (y la ocupa) o null si ninguna del tipo está libre. */
+        Long asignar(Long tipoId, int desde, int hasta) {
+            Long mejor = null;
+            long mejorCosto = Long.MAX_VALUE;
+            int mejorHuecoAntes = SIN_VECINO;
+
+            for (Long habitacionId : habitacionesPorTipo.getOrDefault(tipoId, List.of())) {
+                TreeMap<Integer, Integer> intervalos = ocupacion.get(habitacionId);
+
+                Map.Entry<Integer, Integer> anterior = intervalos.floorEntry(desde);
+                if (anterior != null && anterior.getValue() > desde) continue;
+                Map.Entry<Integer, Integer> siguiente = intervalos.ceilingEntry(desde);
+                if (siguiente != null && siguiente.getKey() < hasta) continue;
+
+                int huecoAntes = anterior == null ? SIN_VECINO : desde - anterior.getValue();
+                int huecoDespues = siguiente == null ? SIN_VECINO : siguiente.getKey() - hasta;
+                int huecoOriginal = anterior == null || siguiente == null
+                        ? SIN_VECINO
+                        : siguiente.getKey() - anterior.getValue();
+
+                long costo = huerfanas(huecoAntes) + huerfanas(huecoDespues) - huerfanas(huecoOriginal);
+
+                if (costo < mejorCosto || (costo == mejorCosto && huecoAntes < mejorHuecoAntes)) {
+                    mejor = habitacionId;
+                    mejorCosto = costo;
+                    mejorHuecoAntes = huecoAntes;
+                }
+            }
+
+            if (mejor != null) {
+                ocupacion.get(mejor).put(desde, hasta);
+            }
+            return mejor;
+        }
+
+        /** Noches huérfanas que empiezan dentro de [desde, hasta) en todas las habitaciones. */
+        int nochesHuerfanas(int desde, int hasta) {
+            int total = 0;
+            for (TreeMap<Integer, Integer> intervalos : ocupacion.values()) {
+                Integer finAnterior = null;
+                for (Map.Entry<Integer, Integer> e : intervalos.entrySet()) {
+                    if (finAnterior != null && finAnterior >= desde && finAnterior < hasta) {
+                        total += huerfanas(e.getKey() - finAnterior);
+                    }
+                    finAnterior = e.getValue();
+                }
+            }
+            return total;
+        }
+
+        private int huerfanas(int hueco) {
+            return hueco > 0 && hueco <= umbralHuerfanas ? hueco : 0;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.miempresa.gestion_hotelera.service;
+
+import com.miempresa.gestion_hotelera.entity.Hotel;
+import com.miempresa.gestion_hotelera.repository.HotelRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Corrida nocturna del motor de asignación sobre todos los hoteles activos.
+ * Cada hotel va en su propia transacción: si uno falla, los demás siguen.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.asignacion.nocturna.habilitada", havingValue = "true", matchIfMissing = true)
+public class AsignacionNocturnaJob {
+
+    private final HotelRepository hotelRepository;
+    private final AsignacionHabitacionService asignacionHabitacionService;
+
+    @Value("${app.asignacion.nocturna.dias:60}")
+    private int dias;
+
+    @Scheduled(cron = "${app.asignacion.nocturna.cron:0 30 3 * * *}")
+    public void ejecutar() {
+        LocalDate desde = LocalDate.now();
+        LocalDate hasta = desde.plusDays(dias);
+
+        for (Hotel hotel : hotelRepository.findAll()) {
+            if (Boolean.FALSE.equals(hotel.getActivo())) continue;
+            try {
+                var resultado = asignacionHabitacionService.asignarHotel(hotel.getId(), desde, hasta);
+                if (resultado.getPendientes() > 0) {
+                    log.info("Asignación nocturna hotel {}: {}/{} asignadas, {} noches huérfanas",
+                            hotel.getId(), resultado.getAsignadas(), resultado.getPendientes(),
+                            resultado.getNochesHuerfanas());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Asignación nocturna hotel {} falló: {}", hotel.getId(), e.getMessage());
+            }
+        }
+    }
+}
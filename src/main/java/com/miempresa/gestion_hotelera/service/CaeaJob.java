@@ -0,0 +1,46 @@
+package com.miempresa.gestion_hotelera.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Tareas del régimen CAEA: tener pedido el CAEA de la quincena (y de la
+ * siguiente cuando se acerca) e informar a AFIP los comprobantes emitidos con él.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "afip.caea.habilitado", havingValue = "true")
+public class CaeaJob {
+
+    private final CaeaService caeaService;
+    private final FacturaService facturaService;
+    private final AfipCliente afipCliente;
+
+    @Scheduled(initialDelay = 30_000, fixedDelayString = "${afip.caea.revisar-intervalo-ms:21600000}")
+    public void asegurarCaea() {
+        try {
+            caeaService.asegurarCaeas(LocalDate.now());
+        } catch (Exception e) {
+            log.warn("No se pudo obtener el CAEA: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelay = 60_000, fixedDelayString = "${afip.caea.informar-intervalo-ms:300000}")
+    public void informar() {
+        if (!afipCliente.disponible()) return;
+        try {
+            int informadas = facturaService.informarCaeaPendientes();
+            if (informadas > 0) {
+                log.info("CAEA: {} comprobantes informados a AFIP", informadas);
+            }
+        } catch (Exception e) {
+            log.warn("No se pudieron informar comprobantes CAEA: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.miempresa.gestion_hotelera.service;
+
+import com.miempresa.gestion_hotelera.entity.Caea;
+import com.miempresa.gestion_hotelera.entity.CaeaId;
+import com.miempresa.gestion_hotelera.entity.Factura;
+import com.miempresa.gestion_hotelera.repository.CaeaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * Régimen CAEA: autorización de facturas sin llamar a AFIP en el momento.
+ *
+ * El CAEA se pide por adelantado para cada quincena (CaeaJob) y queda en la
+ * tabla caea. Con él, una factura se aprueba localmente: número de la secuencia
+ * del punto de venta CAEA y el código CAEA como autorización, todo en la misma
+ * transacción que guarda la factura. Los comprobantes se informan después con
+ * FECAEARegInformativo (FacturaService.informarCaeaPendientes).
+ *
+ * Modos (afip.caea.modo):
+ * - CONTINGENCIA: se usa solo cuando AfipCliente no deja llamar (circuito
+ *   abierto o bulkhead lleno); el resto sigue por la cola con CAE.
+ * - SIEMPRE: toda factura se autoriza con CAEA.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CaeaService {
+
+    public static final String MODO_CAE = "CAE";
+    public static final String MODO_CAEA = "CAEA";
+
+    // AFIP acepta pedir el CAEA de una quincena desde 5 días corridos antes de que empiece
+    private static final int DIAS_ANTICIPO_SOLICITUD = 5;
+
+    public record Quincena(int periodo, int orden, LocalDate desde, LocalDate hasta) {}
+
+    private final CaeaRepository caeaRepository;
+    private final AfipService afipService;
+    private final AfipCliente afipCliente;
+    private final SecuenciaComprobanteService secuenciaComprobanteService;
+
+    @Value("${afip.caea.habilitado:false}")
+    private boolean habilitado;
+
+    @Value("${afip.caea.modo:CONTINGENCIA}")
+    private String modo;
+
+    // Punto de venta dado de alta en AFIP para CAEA (distinto de los de CAE)
+    @Value("${afip.caea.punto-venta:0}")
+    private int puntoVenta;
+
+    @Value("${afip.caea.tipos-comprobante:B}")
+    private List<String> tiposComprobante;
+
+    public boolean habilitado() {
+        return habilitado && puntoVenta > 0;
+    }
+
+    /** true si una factura nueva se tiene que autorizar con CAEA en lugar de ir a la cola. */
+    public boolean usarAhora() {
+        return habilitado() && ("SIEMPRE".equalsIgnoreCase(modo) || !afipCliente.disponible());
+    }
+
+    /**
+     * Aprueba la factura con el CAEA vigente y el próximo número local del punto
+     * de venta CAEA. Corre dentro de la transacción que guarda la factura.
+     * Devuelve false (sin tocar la factura) si no hay CAEA vigente o la secuencia
+     * todavía no se creó; en ese caso la factura sigue por la cola.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean autorizarLocal(Factura factura) {
+        if (!habilitado()) return false;
+
+        LocalDate hoy = LocalDate.now();
+        Quincena quincena = quincena(hoy);
+        Caea caea = caeaRepository.findById(new CaeaId(afipService.cuitEmisor(), quincena.periodo(), quincena.orden()))
+                .orElse(null);
+        if (caea == null || hoy.isBefore(caea.getFchVigDesde()) || hoy.isAfter(caea.getFchVigHasta())) {
+            log.warn("Sin CAEA vigente para {}/{}: la factura sigue por la cola", quincena.periodo(), quincena.orden());
+            return false;
+        }
+
+        int cbteTipo = afipService.mapTipoComprobanteToCbteTipo(factura.getTipoComprobante());
+        OptionalLong numero = secuenciaComprobanteService.siguienteLocal(afipService.cuitEmisor(), puntoVenta, cbteTipo);
+        if (numero.isEmpty()) {
+            log.warn("Sin secuencia CAEA para punto de venta {} tipo {}: la factura sigue por la cola",
+                    puntoVenta, cbteTipo);
+            return false;
+        }
+
+        factura.setPuntoVenta(puntoVenta);
+        factura.setNumeroComprobante(numero.getAsLong());
+        factura.setCae(caea.getCaea());
+        factura.setCaeVencimiento(caea.getFchVigHasta().format(DateTimeFormatter.ISO_LOCAL_DATE));
+        factura.setModoAutorizacion(MODO_CAEA);
+        factura.setEstado(FacturaService.ESTADO_APROBADA);
+        factura.setFechaEmision(LocalDateTime.now());
+        return true;
+    }
+
+    /**
+     * Se asegura de tener el CAEA de la quincena actual y, si ya se puede pedir,
+     * el de la siguiente; y de que existan las secuencias del punto de venta CAEA
+     * (se leen de AFIP una sola vez, así después se numera sin AFIP).
+     */
+    public void asegurarCaeas(LocalDate hoy) throws Exception {
+        if (!habilitado()) return;
+
+        Quincena actual = quincena(hoy);
+        asegurar(actual);
+
+        Quincena siguiente = quincena(actual.hasta().plusDays(1));
+        if (ChronoUnit.DAYS.between(hoy, siguiente.desde()) <= DIAS_ANTICIPO_SOLICITUD) {
+            asegurar(siguiente);
+        }
+
+        String cuit = afipService.cuitEmisor();
+        for (String tipo : tiposComprobante) {
+            int cbteTipo = afipService.mapTipoComprobanteToCbteTipo(tipo.trim());
+            secuenciaComprobanteService.asegurar(cuit, puntoVenta, cbteTipo,
+                    () -> afipService.ultimoAutorizado(puntoVenta, cbteTipo));
+        }
+    }
+
+    /** Quincena AFIP de una fecha: orden 1 del 1 al 15, orden 2 del 16 a fin de mes. */
+    public static Quincena quincena(LocalDate fecha) {
+        int periodo = fecha.getYear() * 100 + fecha.getMonthValue();
+        return fecha.getDayOfMonth() <= 15
+                ? new Quincena(periodo, 1, fecha.withDayOfMonth(1), fecha.withDayOfMonth(15))
+                : new Quincena(periodo, 2, fecha.withDayOfMonth(16), fecha.withDayOfMonth(fecha.lengthOfMonth()));
+    }
+
+    // ========= HELPERS =========
+
+    private void asegurar(Quincena quincena) throws Exception {
+        String cuit = afipService.cuitEmisor();
+        if (caeaRepository.existsById(new CaeaId(cuit, quincena.periodo(), quincena.orden()))) return;
+
+        AfipService.CaeaAutorizado autorizado = afipService.obtenerCaea(quincena.periodo(), quincena.orden());
+        if (autorizado == null) {
+            throw new IllegalStateException(
+                    "AFIP no entregó CAEA para " + quincena.periodo() + "/" + quincena.orden());
+        }
+
+        caeaRepository.save(Caea.builder()
+                .cuit(cuit)
+                .periodo(quincena.periodo())
+                .orden(quincena.orden())
+                .caea(autorizado.caea())
+                .fchVigDesde(autorizado.vigDesde())
+                .fchVigHasta(autorizado.vigHasta())
+                .fchTopeInf(autorizado.topeInforme())
+                .obtenidoEn(LocalDateTime.now())
+                .build());
+        log.info("CAEA {} obtenido para {}/{} (informar hasta {})",
+                autorizado.caea(), quincena.periodo(), quincena.orden(), autorizado.topeInforme());
+    }
+}
@@ -1,21 +1,33 @@
 package com.miempresa.gestion_hotelera.service;
 
 import com.miempresa.gestion_hotelera.dto.DashboardDiaResponse;
-import com.miempresa.gestion_hotelera.entity.EstadoReserva;
+import com.miempresa.gestion_hotelera.dto.DashboardPortfolioResponse;
+import com.miempresa.gestion_hotelera.dto.KpiHotelResponse;
+import com.miempresa.gestion_hotelera.dto.KpiSerieResponse;
+import com.miempresa.gestion_hotelera.entity.Cliente;
 import com.miempresa.gestion_hotelera.entity.Habitacion;
 import com.miempresa.gestion_hotelera.entity.Hotel;
-import com.miempresa.gestion_hotelera.entity.Reserva;
+import com.miempresa.gestion_hotelera.entity.TipoHabitacion;
 import com.miempresa.gestion_hotelera.repository.HabitacionRepository;
 import com.miempresa.gestion_hotelera.repository.HotelRepository;
 import com.miempresa.gestion_hotelera.repository.ReservaRepository;
+import com.miempresa.gestion_hotelera.repository.TipoHabitacionRepository;
+import com.miempresa.gestion_hotelera.security.TenantUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -24,75 +36,255 @@ public class DashboardService {
     private final HotelRepository hotelRepository;
     private final HabitacionRepository habitacionRepository;
     private final ReservaRepository reservaRepository;
+    private final TipoHabitacionRepository tipoHabitacionRepository;
+    private final TenantUtil tenantUtil;
 
-    @Transactional
+    private static final int MAX_DIAS_KPI = 366;
+    // Escala intermedia de la tarifa por noche; las series se redondean a centavos
+    private static final int ESCALA_TARIFA = 6;
+
+    @Transactional(readOnly = true)
     public DashboardDiaResponse resumenDia(Long hotelId, LocalDate fecha) {
 
+        // Validar que el hotel exista y sea del cliente actual
+        Cliente cliente = tenantUtil.getClienteActual();
+        Hotel hotel = hotelRepository.findByIdAndCliente_Id(hotelId, cliente.getId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Hotel no encontrado"));
+
+        return resumen(hotel, fecha);
+    }
+
+    /**
+     * Igual que resumenDia pero sin chequeo de tenant, para llamadores que ya
+     * validaron el hotel y corren sin usuario logueado (push SSE).
+     */
+    @Transactional(readOnly = true)
+    public DashboardDiaResponse calcularResumenDia(Long hotelId, LocalDate fecha) {
+        Hotel hotel = hotelRepository.findById(hotelId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Hotel no encontrado"));
+        return resumen(hotel, fecha);
+    }
+
+    private DashboardDiaResponse resumen(Hotel hotel, LocalDate fecha) {
+
         if (fecha == null) {
             fecha = LocalDate.now();
         }
 
-        // Validar que exista el hotel
-        Hotel hotel = hotelRepository.findById(hotelId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Hotel no encontrado"));
+        int habitacionesTotales = (int) habitacionRepository.countByHotel_Id(hotel.getId());
+
+        // Check-ins, check-outs, altas del día y habitaciones ocupadas (checkIn <= fecha < checkOut,
+        // estados que bloquean) en una sola consulta agregada, sin hidratar reservas
+        ReservaRepository.ResumenDiaView resumen = reservaRepository.resumenDia(hotel.getId(), fecha);
+
+        return armarResumen(hotel.getId(), hotel.getNombre(), fecha, habitacionesTotales, resumen);
+    }
+
+    // ========= PORTFOLIO =========
 
-        // Habitaciones del hotel
-        List<Habitacion> habitaciones = habitacionRepository.findByHotel_Id(hotelId);
-        int habitacionesTotales = habitaciones.size();
-
-        // Reservas del hotel
-        List<Reserva> reservasHotel = reservaRepository.findByHotel_Id(hotelId);
-
-        LocalDate finalFecha = fecha;
-
-        // Check-ins del día (ignora canceladas)
-        long checkinsHoy = reservasHotel.stream()
-                .filter(r -> finalFecha.equals(r.getCheckIn()))
-                .filter(r -> r.getEstado() != EstadoReserva.CANCELADA)
-                .count();
-
-        // Check-outs del día (ignora canceladas)
-        long checkoutsHoy = reservasHotel.stream()
-                .filter(r -> finalFecha.equals(r.getCheckOut()))
-                .filter(r -> r.getEstado() != EstadoReserva.CANCELADA)
-                .count();
-
-        // Reservas nuevas creadas ese día
-        long reservasNuevasHoy = reservasHotel.stream()
-                .filter(r -> r.getCreadoEn() != null &&
-                        r.getCreadoEn().toLocalDate().equals(finalFecha))
-                .count();
-
-        // Habitaciones ocupadas hoy:
-        // rango: checkIn <= fecha < checkOut
-        // estado: PENDIENTE, CONFIRMADA, CHECKIN (las que bloquean)
-        int habitacionesOcupadas = (int) reservasHotel.stream()
-                .filter(r -> r.getEstado() != EstadoReserva.CANCELADA)
-                .filter(r -> r.getCheckIn() != null && r.getCheckOut() != null)
-                .filter(r -> !finalFecha.isBefore(r.getCheckIn()) && finalFecha.isBefore(r.getCheckOut()))
-                .filter(r -> r.getEstado() == EstadoReserva.PENDIENTE
-                        || r.getEstado() == EstadoReserva.CONFIRMADA
-                        || r.getEstado() == EstadoReserva.CHECKIN)
-                .map(Reserva::getHabitacion)
-                .filter(h -> h != null && hotelId.equals(h.getHotel().getId()))
-                .map(Habitacion::getId)
-                .distinct()
-                .count();
-
-        double ocupacionPorcentaje = 0.0;
-        if (habitacionesTotales > 0) {
-            ocupacionPorcentaje = (habitacionesOcupadas * 100.0) / habitacionesTotales;
+    /**
+     * Resumen del día de todos los hoteles activos del cliente actual, con una
+     * sola consulta agrupada por hotel (la pertenencia se filtra en la consulta).
+     */
+    @Transactional(readOnly = true)
+    public DashboardPortfolioResponse resumenPortfolio(LocalDate fecha) {
+
+        if (fecha == null) {
+            fecha = LocalDate.now();
+        }
+        Cliente cliente = tenantUtil.getClienteActual();
+
+        List<DashboardDiaResponse> hoteles = new ArrayList<>();
+        int habitacionesTotales = 0;
+        int habitacionesOcupadas = 0;
+        long checkins = 0;
+        long checkouts = 0;
+        long nuevas = 0;
+
+        for (ReservaRepository.ResumenDiaHotelView fila : reservaRepository.resumenDiaPorCliente(cliente.getId(), fecha)) {
+            DashboardDiaResponse dia = armarResumen(fila.getHotelId(), fila.getHotelNombre(), fecha,
+                    fila.getHabitacionesTotales().intValue(), fila);
+            hoteles.add(dia);
+
+            habitacionesTotales += dia.getHabitacionesTotales();
+            habitacionesOcupadas += dia.getHabitacionesOcupadas();
+            checkins += dia.getCheckinsHoy();
+            checkouts += dia.getCheckoutsHoy();
+            nuevas += dia.getReservasNuevasHoy();
         }
 
+        return DashboardPortfolioResponse.builder()
+                .fecha(fecha.toString())
+                .habitacionesTotales(habitacionesTotales)
+                .habitacionesOcupadas(habitacionesOcupadas)
+                .ocupacionPorcentaje(porcentaje(habitacionesOcupadas, habitacionesTotales))
+                .checkinsHoy(checkins)
+                .checkoutsHoy(checkouts)
+                .reservasNuevasHoy(nuevas)
+                .hoteles(hoteles)
+                .build();
+    }
+
+    private static DashboardDiaResponse armarResumen(Long hotelId, String hotelNombre, LocalDate fecha,
+                                                     int habitacionesTotales,
+                                                     ReservaRepository.ResumenDiaView resumen) {
+        int habitacionesOcupadas = resumen.getOcupadas().intValue();
+
         return DashboardDiaResponse.builder()
-                .hotelId(hotel.getId())
-                .fecha(finalFecha.toString())
+                .hotelId(hotelId)
+                .hotelNombre(hotelNombre)
+                .fecha(fecha.toString())
                 .habitacionesTotales(habitacionesTotales)
                 .habitacionesOcupadas(habitacionesOcupadas)
-                .ocupacionPorcentaje(ocupacionPorcentaje)
-                .checkinsHoy(checkinsHoy)
-                .checkoutsHoy(checkoutsHoy)
-                .reservasNuevasHoy(reservasNuevasHoy)
+                .ocupacionPorcentaje(porcentaje(habitacionesOcupadas, habitacionesTotales))
+                .checkinsHoy(resumen.getCheckins())
+                .checkoutsHoy(resumen.getCheckouts())
+                .reservasNuevasHoy(resumen.getNuevas())
+                .build();
+    }
+
+    // ========= SERIES DE KPIs =========
+
+    /**
+     * Ocupación, ADR y RevPAR diarios de [desde, hasta), por tipo y para todo el hotel.
+     *
+     * Un solo recorrido por las estadías que pisan el rango: cada una suma en su
+     * noche de entrada y resta en la de salida (recortadas al rango) tanto la
+     * habitación como la tarifa por noche (precioTotal / noches de la estadía).
+     * Las sumas prefijas dan la serie completa, O(reservas + días).
+     */
+    @Transactional(readOnly = true)
+    public KpiHotelResponse kpis(Long hotelId, LocalDate desde, LocalDate hasta) {
+
+        if (desde == null || hasta == null || !desde.isBefore(hasta)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Rango de fechas inválido");
+        }
+        int dias = (int) ChronoUnit.DAYS.between(desde, hasta);
+        if (dias > MAX_DIAS_KPI) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, "El rango no puede superar " + MAX_DIAS_KPI + " días");
+        }
+
+        Cliente cliente = tenantUtil.getClienteActual();
+        if (!hotelRepository.existsByIdAndCliente_Id(hotelId, cliente.getId())) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Hotel no encontrado");
+        }
+
+        List<TipoHabitacion> tipos = tipoHabitacionRepository.findByHotel_Id(hotelId);
+        Map<Long, Integer> posicion = new HashMap<>();
+        for (int i = 0; i < tipos.size(); i++) {
+            posicion.put(tipos.get(i).getId(), i);
+        }
+
+        // Oferta diaria por tipo: habitaciones activas
+        int[] habitaciones = new int[tipos.size()];
+        for (Habitacion h : habitacionRepository.findByHotel_Id(hotelId)) {
+            Integer p = posicion.get(h.getTipoHabitacion().getId());
+            if (p != null && !Boolean.FALSE.equals(h.getActivo())) {
+                habitaciones[p]++;
+            }
+        }
+
+        // Arreglos de diferencias, con una posición extra para las salidas en "hasta"
+        int[][] deltaOcupadas = new int[tipos.size()][dias + 1];
+        BigDecimal[][] deltaIngresos = new BigDecimal[tipos.size()][dias + 1];
+        for (ReservaRepository.EstadiaTarifaView e : reservaRepository.findEstadiasConTarifa(hotelId, desde, hasta)) {
+            Integer p = posicion.get(e.getTipoHabitacionId());
+            if (p == null || !e.getCheckIn().isBefore(e.getCheckOut())) continue;
+
+            int entrada = (int) Math.max(0, ChronoUnit.DAYS.between(desde, e.getCheckIn()));
+            int salida = (int) Math.min(dias, ChronoUnit.DAYS.between(desde, e.getCheckOut()));
+            deltaOcupadas[p][entrada]++;
+            deltaOcupadas[p][salida]--;
+
+            if (e.getPrecioTotal() != null) {
+                long noches = ChronoUnit.DAYS.between(e.getCheckIn(), e.getCheckOut());
+                BigDecimal tarifa = e.getPrecioTotal()
+                        .divide(BigDecimal.valueOf(noches), ESCALA_TARIFA, RoundingMode.HALF_UP);
+                deltaIngresos[p][entrada] = sumar(deltaIngresos[p][entrada], tarifa);
+                deltaIngresos[p][salida] = sumar(deltaIngresos[p][salida], tarifa.negate());
+            }
+        }
+
+        int totalHabitaciones = 0;
+        int[] ocupadasHotel = new int[dias];
+        BigDecimal[] ingresosHotel = new BigDecimal[dias];
+        Arrays.fill(ingresosHotel, BigDecimal.ZERO);
+
+        List<KpiSerieResponse> series = new ArrayList<>(tipos.size());
+        for (int p = 0; p < tipos.size(); p++) {
+            int[] ocupadas = new int[dias];
+            BigDecimal[] ingresos = new BigDecimal[dias];
+            int acumOcupadas = 0;
+            BigDecimal acumIngresos = BigDecimal.ZERO;
+            for (int d = 0; d < dias; d++) {
+                acumOcupadas += deltaOcupadas[p][d];
+                acumIngresos = sumar(acumIngresos, deltaIngresos[p][d]);
+                ocupadas[d] = acumOcupadas;
+                ingresos[d] = acumIngresos;
+                ocupadasHotel[d] += acumOcupadas;
+                ingresosHotel[d] = ingresosHotel[d].add(acumIngresos);
+            }
+            totalHabitaciones += habitaciones[p];
+            series.add(serie(tipos.get(p).getId(), tipos.get(p).getNombre(), habitaciones[p], ocupadas, ingresos));
+        }
+
+        return KpiHotelResponse.builder()
+                .hotelId(hotelId)
+                .desde(desde)
+                .dias(dias)
+                .total(serie(null, null, totalHabitaciones, ocupadasHotel, ingresosHotel))
+                .tipos(series)
                 .build();
     }
+
+    private static KpiSerieResponse serie(Long tipoHabitacionId, String nombre, int habitaciones,
+                                          int[] ocupadas, BigDecimal[] ingresosSinRedondear) {
+        int dias = ocupadas.length;
+        double[] ocupacion = new double[dias];
+        BigDecimal[] ingresos = new BigDecimal[dias];
+        BigDecimal[] adr = new BigDecimal[dias];
+        BigDecimal[] revpar = new BigDecimal[dias];
+
+        long nochesOcupadas = 0;
+        BigDecimal ingresosPeriodo = BigDecimal.ZERO;
+        for (int d = 0; d < dias; d++) {
+            ocupacion[d] = porcentaje(ocupadas[d], habitaciones);
+            ingresos[d] = ingresosSinRedondear[d].setScale(2, RoundingMode.HALF_UP);
+            adr[d] = dividir(ingresosSinRedondear[d], ocupadas[d]);
+            revpar[d] = dividir(ingresosSinRedondear[d], habitaciones);
+            nochesOcupadas += ocupadas[d];
+            ingresosPeriodo = ingresosPeriodo.add(ingresosSinRedondear[d]);
+        }
+        long nochesDisponibles = (long) habitaciones * dias;
+
+        return KpiSerieResponse.builder()
+                .tipoHabitacionId(tipoHabitacionId)
+                .nombre(nombre)
+                .habitaciones(habitaciones)
+                .ocupadas(ocupadas)
+                .ocupacionPorcentaje(ocupacion)
+                .ingresos(ingresos)
+                .adr(adr)
+                .revpar(revpar)
+                .ocupacionPeriodo(porcentaje(nochesOcupadas, nochesDisponibles))
+                .ingresosPeriodo(ingresosPeriodo.setScale(2, RoundingMode.HALF_UP))
+                .adrPeriodo(dividir(ingresosPeriodo, nochesOcupadas))
+                .revparPeriodo(dividir(ingresosPeriodo, nochesDisponibles))
+                .build();
+    }
+
+    private static BigDecimal sumar(BigDecimal acumulado, BigDecimal valor) {
+        if (valor == null) return acumulado;
+        return acumulado == null ? valor : acumulado.add(valor);
+    }
+
+    private static double porcentaje(long parte, long total) {
+        return total > 0 ? (parte * 100.0) / total : 0.0;
+    }
+
+    private static BigDecimal dividir(BigDecimal monto, long divisor) {
+        if (divisor <= 0) return BigDecimal.ZERO.setScale(2);
+        return monto.divide(BigDecimal.valueOf(divisor), 2, RoundingMode.HALF_UP);
+    }
 }
@@ -0,0 +1,172 @@
+package com.miempresa.gestion_hotelera.service;
+
+import com.miempresa.gestion_hotelera.dto.DashboardDiaResponse;
+import com.miempresa.gestion_hotelera.entity.Cliente;
+import com.miempresa.gestion_hotelera.event.ReservaModificadaEvent;
+import com.miempresa.gestion_hotelera.repository.HotelRepository;
+import com.miempresa.gestion_hotelera.security.TenantUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Push del resumen diario por Server-Sent Events.
+ *
+ * Cada suscripción es un SseEmitter (request asíncrono del servlet): mientras
+ * está abierta no ocupa ningún hilo. Los cambios de reserva commiteados marcan
+ * al hotel como pendiente; el primero de una ráfaga agenda un recálculo al
+ * final de la ventana y los siguientes se suman a ese mismo, así que N
+ * check-ins seguidos son un solo resumenDia y un solo mensaje por suscriptor.
+ *
+ * Igual que DisponibilidadIndex, es local a la instancia: solo ve los cambios
+ * que se commitean en ella.
+ */
+@Service
+@RequiredArgsConstructor
+public class DashboardStreamService {
+
+    static final String EVENTO_RESUMEN = "resumen";
+
+    private final DashboardService dashboardService;
+    private final HotelRepository hotelRepository;
+    private final TenantUtil tenantUtil;
+
+    @Qualifier("dashboardScheduler")
+    private final TaskScheduler taskScheduler;
+
+    @Value("${app.dashboard.sse.ventana-ms:500}")
+    private long ventanaMs;
+
+    @Value("${app.dashboard.sse.timeout-minutos:30}")
+    private long timeoutMinutos;
+
+    @Value("${app.dashboard.sse.heartbeat-segundos:25}")
+    private long heartbeatSegundos;
+
+    private final Map<Long, Set<SseEmitter>> suscriptores = new ConcurrentHashMap<>();
+    private final Set<Long> pendientes = ConcurrentHashMap.newKeySet();
+
+    private ScheduledFuture<?> heartbeat;
+
+    @PostConstruct
+    void iniciarHeartbeat() {
+        // Un comentario SSE periódico detecta clientes caídos y mantiene viva la conexión en proxies
+        heartbeat = taskScheduler.scheduleAtFixedRate(this::enviarHeartbeat, Duration.ofSeconds(heartbeatSegundos));
+    }
+
+    @PreDestroy
+    void detener() {
+        if (heartbeat != null) {
+            heartbeat.cancel(false);
+        }
+        suscriptores.values().forEach(emisores -> emisores.forEach(SseEmitter::complete));
+        suscriptores.clear();
+    }
+
+    // ========= SUSCRIPCIÓN =========
+
+    public SseEmitter suscribir(Long hotelId) {
+        Cliente cliente = tenantUtil.getClienteActual();
+        if (!hotelRepository.existsByIdAndCliente_Id(hotelId, cliente.getId())) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Hotel no encontrado");
+        }
+
+        SseEmitter emisor = new SseEmitter(Duration.ofMinutes(timeoutMinutos).toMillis());
+        // compute y no computeIfAbsent + add: quitar() puede estar descartando el set vacío a la vez
+        suscriptores.compute(hotelId, (id, emisores) -> {
+            Set<SseEmitter> actuales = emisores != null ? emisores : new CopyOnWriteArraySet<>();
+            actuales.add(emisor);
+            return actuales;
+        });
+
+        Runnable quitar = () -> quitar(hotelId, emisor);
+        emisor.onCompletion(quitar);
+        emisor.onTimeout(quitar);
+        emisor.onError(e -> quitar.run());
+
+        // Estado actual apenas se conecta, para no esperar al próximo cambio
+        enviar(hotelId, emisor, dashboardService.calcularResumenDia(hotelId, null));
+        return emisor;
+    }
+
+    public int cantidadSuscriptores(Long hotelId) {
+        Set<SseEmitter> emisores = suscriptores.get(hotelId);
+        return emisores != null ? emisores.size() : 0;
+    }
+
+    // ========= CAMBIOS =========
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onReservaModificada(ReservaModificadaEvent event) {
+        Long hotelId = event.hotelId();
+        if (cantidadSuscriptores(hotelId) == 0) return;
+
+        // Solo el primer cambio de la ventana agenda; el resto ya queda cubierto
+        if (pendientes.add(hotelId)) {
+            taskScheduler.schedule(() -> publicar(hotelId), Instant.now().plusMillis(ventanaMs));
+        }
+    }
+
+    void publicar(Long hotelId) {
+        // Se libera antes de calcular: un cambio que llegue durante el cálculo agenda otra vuelta
+        pendientes.remove(hotelId);
+
+        Set<SseEmitter> emisores = suscriptores.get(hotelId);
+        if (emisores == null || emisores.isEmpty()) return;
+
+        DashboardDiaResponse resumen = dashboardService.calcularResumenDia(hotelId, null);
+        for (SseEmitter emisor : emisores) {
+            enviar(hotelId, emisor, resumen);
+        }
+    }
+
+    // ========= HELPERS =========
+
+    private void enviar(Long hotelId, SseEmitter emisor, DashboardDiaResponse resumen) {
+        try {
+            emisor.send(SseEmitter.event().name(EVENTO_RESUMEN).data(resumen));
+        } catch (IOException | IllegalStateException e) {
+            // Cliente desconectado o emisor ya cerrado
+            quitar(hotelId, emisor);
+            emisor.completeWithError(e);
+        }
+    }
+
+    private void enviarHeartbeat() {
+        suscriptores.forEach((hotelId, emisores) -> {
+            for (SseEmitter emisor : emisores) {
+                try {
+                    emisor.send(SseEmitter.event().comment("ping"));
+                } catch (IOException | IllegalStateException e) {
+                    quitar(hotelId, emisor);
+                    emisor.completeWithError(e);
+                }
+            }
+        });
+    }
+
+    private void quitar(Long hotelId, SseEmitter emisor) {
+        suscriptores.computeIfPresent(hotelId, (id, emisores) -> {
+            emisores.remove(emisor);
+            return emisores.isEmpty() ? null : emisores;
+        });
+    }
+}
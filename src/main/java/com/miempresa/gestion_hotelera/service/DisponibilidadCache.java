@@ -0,0 +1,211 @@
+package com.miempresa.gestion_hotelera.service;
+
+import com.miempresa.gestion_hotelera.dto.CacheEstadisticasResponse;
+import com.miempresa.gestion_hotelera.dto.DisponibilidadHotelResponse;
+import com.miempresa.gestion_hotelera.event.ReservaModificadaEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caché de resultados de disponibilidad por (hotel, checkIn, checkOut).
+ *
+ * - Acotada por tamaño (LRU) y por tiempo (TTL desde que se cargó la entrada).
+ * - Invalidación por hotel con un número de generación: cada cambio de reserva
+ *   del hotel incrementa la generación y las entradas viejas dejan de valer.
+ *   Un cálculo que arrancó antes del cambio guarda su resultado con la
+ *   generación vieja, así que nunca se sirve un resultado anterior al commit.
+ * - Single-flight: si varios requests piden la misma clave a la vez, solo el
+ *   primero calcula y el resto espera ese mismo resultado (por generación, para
+ *   no colgarse de un cálculo que arrancó antes de una invalidación).
+ */
+@Component
+public class DisponibilidadCache {
+
+    private record Clave(Long hotelId, LocalDate checkIn, LocalDate checkOut) {}
+
+    private record Vuelo(Clave clave, long generacion) {}
+
+    private record Entrada(DisponibilidadHotelResponse valor, long generacion, long cargadaEn) {}
+
+    private final boolean habilitada;
+    private final long ttlMillis;
+    private final int maxEntradas;
+
+    private final Map<Clave, Entrada> entradas;
+    private final Map<Vuelo, CompletableFuture<DisponibilidadHotelResponse>> enVuelo = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> generaciones = new ConcurrentHashMap<>();
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong colapsados = new AtomicLong();
+    private final AtomicLong desalojosTamanio = new AtomicLong();
+    private final AtomicLong desalojosTiempo = new AtomicLong();
+    private final AtomicLong invalidaciones = new AtomicLong();
+
+    public DisponibilidadCache(@Value("${app.disponibilidad.cache.habilitada:true}") boolean habilitada,
+                               @Value("${app.disponibilidad.cache.ttl-segundos:60}") long ttlSegundos,
+                               @Value("${app.disponibilidad.cache.max-entradas:10000}") int maxEntradas) {
+        this.habilitada = habilitada;
+        this.ttlMillis = ttlSegundos * 1000L;
+        this.maxEntradas = maxEntradas;
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Clave, Entrada> eldest) {
+                if (size() > DisponibilidadCache.this.maxEntradas) {
+                    desalojosTamanio.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // ========= LECTURA =========
+
+    public DisponibilidadHotelResponse obtener(Long hotelId,
+                                               LocalDate checkIn,
+                                               LocalDate checkOut,
+                                               Supplier<DisponibilidadHotelResponse> calcular) {
+        // Dentro de una transacción el cálculo puede ver escrituras sin commitear: no se cachea
+        if (!habilitada || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return calcular.get();
+        }
+
+        Clave clave = new Clave(hotelId, checkIn, checkOut);
+        long generacion = generacion(hotelId);
+
+        DisponibilidadHotelResponse cacheado = buscar(clave, generacion);
+        if (cacheado != null) {
+            aciertos.incrementAndGet();
+            return cacheado;
+        }
+
+        Vuelo vuelo = new Vuelo(clave, generacion);
+        CompletableFuture<DisponibilidadHotelResponse> propio = new CompletableFuture<>();
+        CompletableFuture<DisponibilidadHotelResponse> existente = enVuelo.putIfAbsent(vuelo, propio);
+        if (existente != null) {
+            colapsados.incrementAndGet();
+            try {
+                return existente.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+
+        fallos.incrementAndGet();
+        try {
+            DisponibilidadHotelResponse valor = calcular.get();
+            guardar(clave, new Entrada(valor, generacion, System.currentTimeMillis()));
+            propio.complete(valor);
+            return valor;
+        } catch (RuntimeException e) {
+            propio.completeExceptionally(e);
+            throw e;
+        } finally {
+            enVuelo.remove(vuelo, propio);
+        }
+    }
+
+    // ========= INVALIDACIÓN =========
+
+    // Después del índice: si se invalidara antes, una lectura concurrente guardaría
+    // el estado viejo del índice bajo la generación nueva hasta el TTL
+    @Order(DisponibilidadIndex.ORDEN_EVENTOS + 1)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onReservaModificada(ReservaModificadaEvent event) {
+        invalidarAhora(event.hotelId());
+    }
+
+    /**
+     * Para cambios de habitaciones o tipos. Igual que en DisponibilidadIndex,
+     * si hay transacción se vuelve a invalidar al commitear.
+     */
+    public void invalidar(Long hotelId) {
+        if (hotelId == null) return;
+        invalidarAhora(hotelId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidarAhora(hotelId);
+                }
+            });
+        }
+    }
+
+    private void invalidarAhora(Long hotelId) {
+        generaciones.computeIfAbsent(hotelId, id -> new AtomicLong()).incrementAndGet();
+        invalidaciones.incrementAndGet();
+    }
+
+    // ========= ESTADÍSTICAS =========
+
+    public CacheEstadisticasResponse estadisticas() {
+        int tamanio;
+        synchronized (entradas) {
+            tamanio = entradas.size();
+        }
+        return CacheEstadisticasResponse.builder()
+                .habilitada(habilitada)
+                .entradas(tamanio)
+                .maxEntradas(maxEntradas)
+                .aciertos(aciertos.get())
+                .fallos(fallos.get())
+                .colapsados(colapsados.get())
+                .desalojosPorTamanio(desalojosTamanio.get())
+                .desalojosPorTiempo(desalojosTiempo.get())
+                .invalidaciones(invalidaciones.get())
+                .build();
+    }
+
+    // ========= INTERNOS =========
+
+    private long generacion(Long hotelId) {
+        AtomicLong g = generaciones.get(hotelId);
+        return g == null ? 0 : g.get();
+    }
+
+    private DisponibilidadHotelResponse buscar(Clave clave, long generacion) {
+        synchronized (entradas) {
+            Entrada entrada = entradas.get(clave);
+            if (entrada == null) {
+                return null;
+            }
+            if (entrada.generacion() != generacion) {
+                entradas.remove(clave);
+                return null;
+            }
+            if (System.currentTimeMillis() - entrada.cargadaEn() > ttlMillis) {
+                entradas.remove(clave);
+                desalojosTiempo.incrementAndGet();
+                return null;
+            }
+            return entrada.valor();
+        }
+    }
+
+    private void guardar(Clave clave, Entrada entrada) {
+        // Si el hotel cambió mientras se calculaba, el resultado ya nació viejo
+        if (entrada.generacion() != generacion(clave.hotelId())) {
+            return;
+        }
+        synchronized (entradas) {
+            entradas.put(clave, entrada);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.miempresa.gestion_hotelera.service;
+
+import com.miempresa.gestion_hotelera.dto.HabitacionResponse;
+import com.miempresa.gestion_hotelera.entity.EstadoReserva;
+import com.miempresa.gestion_hotelera.event.ReservaModificadaEvent;
+import com.miempresa.gestion_hotelera.mapper.HabitacionMapper;
+import com.miempresa.gestion_hotelera.repository.HabitacionRepository;
+import com.miempresa.gestion_hotelera.repository.ReservaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice en memoria de ocupación por hotel: un bitset de noches por habitación.
+ *
+ * Se construye la primera vez que se consulta un hotel (dos queries: habitaciones
+ * y reservas activas) y después se mantiene con los eventos de ReservaService.
+ * Las consultas de disponibilidad son un AND entre la máscara del rango pedido
+ * y el bitset de cada habitación, sin ir a la base.
+ *
+ * La construcción lee la base fuera de cualquier lock del mapa y se publica
+ * solo si mientras tanto no llegó ningún cambio del hotel (contador de versión);
+ * si llegó, se usa para esa consulta y la próxima vuelve a construir.
+ *
+ * Es local a cada instancia: el TTL acota cuánto puede quedar desfasado si otra
+ * instancia modifica reservas del mismo hotel.
+ */
+@Component
+@RequiredArgsConstructor
+public class DisponibilidadIndex {
+
+    /** Orden del listener de reservas; los que leen del índice van después. */
+    public static final int ORDEN_EVENTOS = 0;
+
+    private final ReservaRepository reservaRepository;
+    private final HabitacionRepository habitacionRepository;
+    private final HabitacionMapper habitacionMapper;
+
+    @Value("${app.disponibilidad.index.ttl-minutos:30}")
+    private long ttlMinutos;
+
+    private final Map<Long, OcupacionHotel> hoteles = new ConcurrentHashMap<>();
+    private final Map<Long, Long> versiones = new ConcurrentHashMap<>();
+
+    // ========= CONSULTAS =========
+
+    public List<HabitacionResponse> habitacionesLibres(Long hotelId, LocalDate checkIn, LocalDate checkOut) {
+        return getOcupacion(hotelId).libres(checkIn, checkOut);
+    }
+
+    public boolean habitacionLibre(Long hotelId, Long habitacionId, LocalDate checkIn, LocalDate checkOut) {
+        OcupacionHotel ocupacion = getOcupacion(hotelId);
+        if (!ocupacion.contiene(habitacionId)) {
+            // Habitación creada después de armar el índice: reconstruir una vez
+            hoteles.remove(hotelId, ocupacion);
+            ocupacion = getOcupacion(hotelId);
+        }
+        return ocupacion.libre(habitacionId, checkIn, checkOut);
+    }
+
+    // ========= MANTENIMIENTO =========
+
+    // Antes que DisponibilidadCache: la caché se invalida recién con el índice ya actualizado
+    @Order(ORDEN_EVENTOS)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onReservaModificada(ReservaModificadaEvent event) {
+        // Si el hotel no está cargado no hay nada que actualizar: se construirá con datos ya commiteados
+        versiones.merge(event.hotelId(), 1L, Long::sum);
+        hoteles.computeIfPresent(event.hotelId(), (id, ocupacion) ->
+                ocupacion.aplicar(event) ? ocupacion : null);
+    }
+
+    /**
+     * Descarta el índice de un hotel (cambios en habitaciones o tipos).
+     * Si hay una transacción en curso, se vuelve a descartar al commitear
+     * para no quedarnos con una reconstrucción que leyó datos viejos.
+     */
+    public void invalidar(Long hotelId) {
+        if (hotelId == null) return;
+        versiones.merge(hotelId, 1L, Long::sum);
+        hoteles.remove(hotelId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    versiones.merge(hotelId, 1L, Long::sum);
+                    hoteles.remove(hotelId);
+                }
+            });
+        }
+    }
+
+    private OcupacionHotel getOcupacion(Long hotelId) {
+        OcupacionHotel actual = hoteles.get(hotelId);
+        if (actual != null && !actual.vencido(ttlMinutos)) {
+            return actual;
+        }
+
+        // Las queries corren fuera del mapa: no frenan a los demás hoteles
+        long version = versiones.getOrDefault(hotelId, 0L);
+        OcupacionHotel nueva = construir(hotelId);
+        if (versiones.getOrDefault(hotelId, 0L) != version) {
+            // Hubo cambios durante la lectura: sirve para esta consulta, pero no se guarda
+            return nueva;
+        }
+
+        boolean publicada = actual == null
+                ? hoteles.putIfAbsent(hotelId, nueva) == null
+                : hoteles.replace(hotelId, actual, nueva);
+        if (!publicada) {
+            // Otro hilo publicó antes (o se invalidó): se usa la vigente si la hay
+            OcupacionHotel vigente = hoteles.get(hotelId);
+            return vigente != null ? vigente : nueva;
+        }
+        if (versiones.getOrDefault(hotelId, 0L) != version) {
+            // Un cambio llegó entre el chequeo y la publicación y pudo no verla
+            hoteles.remove(hotelId, nueva);
+        }
+        return nueva;
+    }
+
+    private OcupacionHotel construir(Long hotelId) {
+        List<HabitacionResponse> habitaciones = habitacionRepository.findByHotelIdWithFetch(hotelId).stream()
+                .map(habitacionMapper::toResponse)
+                .toList();
+
+        List<ReservaRepository.OcupacionView> reservas =
+                reservaRepository.findOcupacionByHotel(hotelId, EstadoReserva.ACTIVOS);
+
+        LocalDate origen = LocalDate.now();
+        for (ReservaRepository.OcupacionView r : reservas) {
+            if (r.getCheckIn() != null && r.getCheckIn().isBefore(origen)) {
+                origen = r.getCheckIn();
+            }
+        }
+
+        OcupacionHotel ocupacion = new OcupacionHotel(origen, habitaciones);
+        for (ReservaRepository.OcupacionView r : reservas) {
+            ocupacion.ocupar(r.getId(), r.getHabitacionId(), r.getCheckIn(), r.getCheckOut());
+        }
+        return ocupacion;
+    }
+
+    // ========= ESTRUCTURA =========
+
+    /**
+     * Ocupación de un hotel. El bit i de cada habitación representa la noche origen + i.
+     * Además de los bits se guarda el intervalo de cada reserva para poder liberar
+     * noches sin pisar otras reservas de la misma habitación.
+     */
+    private static final class OcupacionHotel {
+
+        private final LocalDate origen;
+        private final long creadoEn = System.currentTimeMillis();
+        private final Map<Long, OcupacionHabitacion> habitaciones = new LinkedHashMap<>();
+        private final Map<Long, Long> habitacionPorReserva = new HashMap<>();
+
+        OcupacionHotel(LocalDate origen, List<HabitacionResponse> habitaciones) {
+            this.origen = origen;
+            for (HabitacionResponse h : habitaciones) {
+                this.habitaciones.put(h.getId(), new OcupacionHabitacion(h));
+            }
+        }
+
+        boolean vencido(long ttlMinutos) {
+            return System.currentTimeMillis() - creadoEn > ttlMinutos * 60_000L;
+        }
+
+        synchronized boolean contiene(Long habitacionId) {
+            return habitaciones.containsKey(habitacionId);
+        }
+
+        synchronized List<HabitacionResponse> libres(LocalDate checkIn, LocalDate checkOut) {
+            BitSet rango = mascara(checkIn, checkOut);
+            List<HabitacionResponse> libres = new ArrayList<>();
+            for (OcupacionHabitacion h : habitaciones.values()) {
+                // Las desactivadas no se ofrecen (igual que en la grilla de inventario)
+                if (!Boolean.FALSE.equals(h.habitacion.getActivo()) && !h.noches.intersects(rango)) {
+                    libres.add(copia(h.habitacion));
+                }
+            }
+            return libres;
+        }
+
+        // El llamador puede modificar el DTO: el del índice no se comparte
+        private static HabitacionResponse copia(HabitacionResponse h) {
+            return new HabitacionResponse(h.getId(), h.getHotelId(), h.getTipoHabitacionId(), h.getCodigo(),
+                    h.getPiso(), h.getEstado(), h.getActivo(), h.getPrecioNoche());
+        }
+
+        synchronized boolean libre(Long habitacionId, LocalDate checkIn, LocalDate checkOut) {
+            OcupacionHabitacion h = habitaciones.get(habitacionId);
+            return h == null || !h.noches.intersects(mascara(checkIn, checkOut));
+        }
+
+        /**
+         * Aplica el cambio de una reserva. Devuelve false si el índice ya no
+         * puede representarlo (habitación nueva o fechas anteriores al origen)
+         * y hay que reconstruirlo.
+         */
+        synchronized boolean aplicar(ReservaModificadaEvent event) {
+            liberar(event.reservaId());
+
+            if (event.estado() == null || !event.estado().esActivo() || event.habitacionId() == null) {
+                return true;
+            }
+            if (!habitaciones.containsKey(event.habitacionId()) || event.checkIn().isBefore(origen)) {
+                return false;
+            }
+            ocupar(event.reservaId(), event.habitacionId(), event.checkIn(), event.checkOut());
+            return true;
+        }
+
+        void ocupar(Long reservaId, Long habitacionId, LocalDate checkIn, LocalDate checkOut) {
+            OcupacionHabitacion h = habitaciones.get(habitacionId);
+            if (h == null || checkIn == null || checkOut == null || !checkIn.isBefore(checkOut)) {
+                return;
+            }
+            int desde = indice(checkIn);
+            int hasta = indice(checkOut);
+            h.reservas.put(reservaId, new int[]{desde, hasta});
+            h.noches.set(desde, hasta);
+            habitacionPorReserva.put(reservaId, habitacionId);
+        }
+
+        private void liberar(Long reservaId) {
+            Long habitacionId = habitacionPorReserva.remove(reservaId);
+            if (habitacionId == null) return;
+
+            OcupacionHabitacion h = habitaciones.get(habitacionId);
+            int[] rango = h.reservas.remove(reservaId);
+            h.noches.clear(rango[0], rango[1]);
+
+            // Volver a marcar lo que otras reservas de la habitación ocupaban en ese rango
+            for (int[] otro : h.reservas.values()) {
+                if (otro[0] < rango[1] && otro[1] > rango[0]) {
+                    h.noches.set(Math.max(otro[0], rango[0]), Math.min(otro[1], rango[1]));
+                }
+            }
+        }
+
+        private BitSet mascara(LocalDate checkIn, LocalDate checkOut) {
+            BitSet rango = new BitSet();
+            int desde = Math.max(indice(checkIn), 0);
+            int hasta = indice(checkOut);
+            if (desde < hasta) {
+                rango.set(desde, hasta);
+            }
+            return rango;
+        }
+
+        private int indice(LocalDate fecha) {
+            return (int) (fecha.toEpochDay() - origen.toEpochDay());
+        }
+    }
+
+    private static final class OcupacionHabitacion {
+        private final HabitacionResponse habitacion;
+        private final BitSet noches = new BitSet();
+        private final Map<Long, int[]> reservas = new HashMap<>();
+
+        OcupacionHabitacion(HabitacionResponse habitacion) {
+            this.habitacion = habitacion;
+        }
+    }
+}
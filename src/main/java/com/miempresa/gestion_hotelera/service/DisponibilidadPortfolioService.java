@@ -0,0 +1,157 @@
+package com.miempresa.gestion_hotelera.service;
+
+import com.miempresa.gestion_hotelera.dto.DisponibilidadHotelTiposResponse;
+import com.miempresa.gestion_hotelera.dto.DisponibilidadPortfolioResponse;
+import com.miempresa.gestion_hotelera.dto.DisponibilidadTipoResponse;
+import com.miempresa.gestion_hotelera.dto.HabitacionResponse;
+import com.miempresa.gestion_hotelera.entity.Cliente;
+import com.miempresa.gestion_hotelera.entity.EstadoReserva;
+import com.miempresa.gestion_hotelera.entity.Hotel;
+import com.miempresa.gestion_hotelera.entity.TipoHabitacion;
+import com.miempresa.gestion_hotelera.repository.HotelRepository;
+import com.miempresa.gestion_hotelera.repository.ReservaRepository;
+import com.miempresa.gestion_hotelera.repository.TipoHabitacionRepository;
+import com.miempresa.gestion_hotelera.security.TenantUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Disponibilidad de todos los hoteles del cliente actual en un solo request
+ * ("¿dónde puedo ubicar a este huésped el fin de semana?").
+ */
+@Service
+@RequiredArgsConstructor
+public class DisponibilidadPortfolioService {
+
+    private final HotelRepository hotelRepository;
+    private final TipoHabitacionRepository tipoHabitacionRepository;
+    private final ReservaRepository reservaRepository;
+    private final DisponibilidadIndex disponibilidadIndex;
+    private final TenantUtil tenantUtil;
+
+    @Qualifier("disponibilidadExecutor")
+    private final Executor disponibilidadExecutor;
+
+    @Value("${app.disponibilidad.index.habilitado:true}")
+    private boolean indiceHabilitado;
+
+    public DisponibilidadPortfolioResponse disponibilidad(LocalDate checkIn,
+                                                          LocalDate checkOut,
+                                                          Integer huespedes) {
+
+        if (checkIn == null || checkOut == null || !checkIn.isBefore(checkOut)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Fechas de check-in/out inválidas");
+        }
+
+        Cliente cliente = tenantUtil.getClienteActual();
+
+        List<Hotel> hoteles = hotelRepository.findByCliente_Id(cliente.getId()).stream()
+                .filter(h -> !Boolean.FALSE.equals(h.getActivo()))
+                .toList();
+        Map<Long, TipoHabitacion> tipos = tipoHabitacionRepository.findByHotel_Cliente_Id(cliente.getId()).stream()
+                .collect(Collectors.toMap(TipoHabitacion::getId, Function.identity()));
+
+        // hotelId -> (tipoHabitacionId -> libres)
+        Map<Long, Map<Long, Integer>> libres = indiceHabilitado
+                ? libresDesdeIndice(hoteles, checkIn, checkOut)
+                : libresDesdeBase(cliente.getId(), checkIn, checkOut);
+
+        List<DisponibilidadHotelTiposResponse> resultado = new ArrayList<>();
+        int total = 0;
+
+        for (Hotel hotel : hoteles) {
+            List<DisponibilidadTipoResponse> porTipo = new ArrayList<>();
+            int delHotel = 0;
+
+            for (Map.Entry<Long, Integer> e : libres.getOrDefault(hotel.getId(), Map.of()).entrySet()) {
+                TipoHabitacion tipo = tipos.get(e.getKey());
+                if (tipo == null || e.getValue() == 0) continue;
+                if (huespedes != null && tipo.getCapacidadMax() != null && tipo.getCapacidadMax() < huespedes) continue;
+
+                porTipo.add(DisponibilidadTipoResponse.builder()
+                        .tipoHabitacionId(tipo.getId())
+                        .nombre(tipo.getNombre())
+                        .capacidadMax(tipo.getCapacidadMax())
+                        .precioNoche(tipo.getPrecioNoche())
+                        .disponibles(e.getValue())
+                        .build());
+                delHotel += e.getValue();
+            }
+            porTipo.sort(Comparator.comparing(DisponibilidadTipoResponse::getTipoHabitacionId));
+
+            resultado.add(DisponibilidadHotelTiposResponse.builder()
+                    .hotelId(hotel.getId())
+                    .nombre(hotel.getNombre())
+                    .ciudad(hotel.getCiudad())
+                    .cantidadDisponibles(delHotel)
+                    .tipos(porTipo)
+                    .build());
+            total += delHotel;
+        }
+
+        return DisponibilidadPortfolioResponse.builder()
+                .checkIn(checkIn)
+                .checkOut(checkOut)
+                .cantidadDisponibles(total)
+                .hoteles(resultado)
+                .build();
+    }
+
+    /**
+     * Un hotel por tarea en el pool acotado. Con el índice caliente es trabajo en memoria;
+     * lo que se paraleliza de verdad son las construcciones en frío (dos consultas por hotel).
+     */
+    private Map<Long, Map<Long, Integer>> libresDesdeIndice(List<Hotel> hoteles,
+                                                            LocalDate checkIn,
+                                                            LocalDate checkOut) {
+        // Dentro de una transacción los hilos del pool no verían lo que todavía no se commiteó
+        Executor ejecutor = TransactionSynchronizationManager.isActualTransactionActive()
+                ? Runnable::run
+                : disponibilidadExecutor;
+
+        Map<Long, CompletableFuture<Map<Long, Integer>>> tareas = new HashMap<>();
+        for (Hotel hotel : hoteles) {
+            tareas.put(hotel.getId(), CompletableFuture.supplyAsync(() ->
+                    disponibilidadIndex.habitacionesLibres(hotel.getId(), checkIn, checkOut).stream()
+                            .collect(Collectors.groupingBy(
+                                    HabitacionResponse::getTipoHabitacionId,
+                                    Collectors.summingInt(h -> 1))),
+                    ejecutor));
+        }
+
+        Map<Long, Map<Long, Integer>> libres = new HashMap<>();
+        try {
+            tareas.forEach((hotelId, tarea) -> libres.put(hotelId, tarea.join()));
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : e;
+        }
+        return libres;
+    }
+
+    private Map<Long, Map<Long, Integer>> libresDesdeBase(Long clienteId, LocalDate checkIn, LocalDate checkOut) {
+        Map<Long, Map<Long, Integer>> libres = new HashMap<>();
+        for (ReservaRepository.LibresPorTipoView fila : reservaRepository.countLibresPorHotelYTipo(
+                clienteId, EstadoReserva.ACTIVOS, checkIn, checkOut)) {
+            libres.computeIfAbsent(fila.getHotelId(), k -> new HashMap<>())
+                    .put(fila.getTipoHabitacionId(), fila.getDisponibles().intValue());
+        }
+        return libres;
+    }
+}
@@ -0,0 +1,85 @@
+package com.miempresa.gestion_hotelera.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Toma pedidos de factura_outbox y los emite en el pool de AFIP. Solo reclama
+ * tantos como lugares libres tenga (max-en-vuelo), así una AFIP lenta no llena
+ * la cola del pool ni deja pedidos PROCESANDO esperando turno.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "afip.outbox.habilitado", havingValue = "true", matchIfMissing = true)
+public class FacturaOutboxJob {
+
+    private final FacturaOutboxService facturaOutboxService;
+    private final AfipCliente afipCliente;
+    private final CaeaService caeaService;
+    private final Executor afipExecutor;
+    private final Semaphore enVuelo;
+
+    public FacturaOutboxJob(FacturaOutboxService facturaOutboxService,
+                            AfipCliente afipCliente,
+                            CaeaService caeaService,
+                            @Qualifier("afipExecutor") Executor afipExecutor,
+                            @Value("${afip.outbox.max-en-vuelo:10}") int maxEnVuelo) {
+        this.facturaOutboxService = facturaOutboxService;
+        this.afipCliente = afipCliente;
+        this.caeaService = caeaService;
+        this.afipExecutor = afipExecutor;
+        this.enVuelo = new Semaphore(maxEnVuelo);
+    }
+
+    @Scheduled(fixedDelayString = "${afip.outbox.intervalo-ms:2000}")
+    public void ejecutar() {
+        try {
+            int interrumpidas = facturaOutboxService.cerrarInterrumpidas();
+            if (interrumpidas > 0) {
+                log.warn("Cola de facturas: {} pedidos interrumpidos vuelven a la cola para verificarse", interrumpidas);
+            }
+            int liberadas = facturaOutboxService.liberarFacturasInterrumpidas();
+            if (liberadas > 0) {
+                log.warn("Cola de facturas: {} facturas de una emisión interrumpida vuelven a PENDIENTE", liberadas);
+            }
+
+            // Con el circuito abierto cada pedido fallaría enseguida y gastaría un intento,
+            // salvo que haya CAEA: entonces se autorizan localmente
+            if (!afipCliente.disponible() && !caeaService.habilitado()) return;
+
+            int libres = enVuelo.availablePermits();
+            if (libres == 0) return;
+
+            List<Long> ids = facturaOutboxService.reclamar(libres);
+            for (Long id : ids) {
+                enVuelo.acquireUninterruptibly();
+                try {
+                    afipExecutor.execute(() -> {
+                        try {
+                            facturaOutboxService.procesar(id);
+                        } catch (RuntimeException e) {
+                            log.warn("Cola de facturas: pedido {} falló: {}", id, e.getMessage());
+                        } finally {
+                            enVuelo.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // Pool apagándose: queda PROCESANDO y lo reencola cerrarInterrumpidas
+                    enVuelo.release();
+                    log.warn("Cola de facturas: pool de AFIP lleno, pedido {} sin procesar", id);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Cola de facturas: pasada falló: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.miempresa.gestion_hotelera.service;
+
+import com.miempresa.gestion_hotelera.entity.Factura;
+import com.miempresa.gestion_hotelera.entity.FacturaOutbox;
+import com.miempresa.gestion_hotelera.repository.FacturaOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Procesa la cola de emisión de facturas (tabla factura_outbox).
+ *
+ * Cada pedido se procesa en tres pasos para no tener una conexión tomada
+ * mientras se espera a AFIP: leer la factura (transacción corta), llamar a AFIP
+ * (sin transacción) y guardar el resultado (transacción corta). Si AFIP falla,
+ * el pedido vuelve a PENDIENTE con backoff exponencial; después de max-intentos
+ * queda FALLIDA y la factura sigue PENDIENTE. Si la llamada ni siquiera se hizo
+ * (AFIP marcada como no disponible) y hay CAEA, la factura se autoriza con CAEA
+ * en lugar de esperar. Un pedido FALLIDA nunca llegó a AFIP o AFIP lo rechazó:
+ * la factura se puede reenviar con la emisión de pendientes.
+ *
+ * Si FECAESolicitar salió y no hubo respuesta, AFIP pudo haber autorizado el
+ * número (queda en factura.numero_intentado). El siguiente intento consulta ese
+ * número antes de nada y solo vuelve a numerar si AFIP confirma que no existe;
+ * si no se puede confirmar, el pedido queda REVISION.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FacturaOutboxService {
+
+    private record Envio(Factura factura, AfipService.AfipFacturaRequest req,
+                         Long numeroIntentado, LocalDate fechaIntentada) {}
+
+    private final FacturaOutboxRepository facturaOutboxRepository;
+    private final FacturaService facturaService;
+    private final AfipService afipService;
+    private final CaeaService caeaService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${afip.outbox.max-intentos:8}")
+    private int maxIntentos;
+
+    @Value("${afip.outbox.backoff-inicial-segundos:30}")
+    private long backoffInicialSegundos;
+
+    @Value("${afip.outbox.backoff-max-minutos:30}")
+    private long backoffMaxMinutos;
+
+    @Value("${afip.outbox.procesando-timeout-minutos:10}")
+    private long procesandoTimeoutMinutos;
+
+    // Facturas PROCESANDO de una emisión de pendientes o por lote (puede tener varios tramos)
+    @Value("${afip.lote.procesando-timeout-minutos:30}")
+    private long loteProcesandoTimeoutMinutos;
+
+    // Espera antes de consultar un FECAESolicitar sin respuesta (AFIP puede seguir procesándolo)
+    @Value("${afip.outbox.verificar-despues-segundos:60}")
+    private long verificarDespuesSegundos;
+
+    /** Marca como PROCESANDO hasta max pedidos listos y devuelve sus ids. */
+    @Transactional
+    public List<Long> reclamar(int max) {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Long> ids = facturaOutboxRepository.findIdsListos(ahora, max);
+        if (!ids.isEmpty()) {
+            facturaOutboxRepository.marcarProcesando(ids, ahora);
+        }
+        return ids;
+    }
+
+    /**
+     * Pedidos que quedaron PROCESANDO porque la instancia se cayó durante la
+     * llamada. Vuelven a la cola: el número se guarda en la factura antes de
+     * mandarlo, así que si llegó a salir el próximo intento lo consulta en AFIP
+     * (ver verificar) en lugar de emitir otro comprobante.
+     */
+    @Transactional
+    public int cerrarInterrumpidas() {
+        LocalDateTime ahora = LocalDateTime.now();
+        return facturaOutboxRepository.reencolarInterrumpidas(ahora.minusMinutes(procesandoTimeoutMinutos),
+                "Interrumpida durante la llamada a AFIP; se verifica el comprobante antes de reenviar", ahora);
+    }
+
+    /** Facturas de una emisión de pendientes o por lote que se cortó (ver FacturaService.liberarInterrumpidas). */
+    public int liberarFacturasInterrumpidas() {
+        return facturaService.liberarInterrumpidas(LocalDateTime.now().minusMinutes(loteProcesandoTimeoutMinutos));
+    }
+
+    public void procesar(Long outboxId) {
+        Envio envio = transactionTemplate.execute(status -> {
+            FacturaOutbox outbox = facturaOutboxRepository.findByIdWithFactura(outboxId).orElse(null);
+            if (outbox == null || !FacturaOutbox.PROCESANDO.equals(outbox.getEstado())) return null;
+
+            Factura factura = outbox.getFactura();
+            if (!FacturaService.ESTADO_PENDIENTE.equals(factura.getEstado())) {
+                // Ya se resolvió por otro camino (emisión de pendientes)
+                completar(outbox, null);
+                return null;
+            }
+            return new Envio(factura, facturaService.requestAfip(factura),
+                    factura.getNumeroIntentado(), factura.getFechaIntentada());
+        });
+        if (envio == null) return;
+
+        // Un envío anterior quedó sin respuesta: antes de numerar de nuevo se pregunta por ese número
+        if (envio.numeroIntentado() != null && !verificar(outboxId, envio)) return;
+
+        AfipService.AfipFacturaResponse respuesta;
+        try {
+            respuesta = afipService.emitirFacturaAfip(envio.req(),
+                    facturaService.registrarIntento(List.of(envio.factura()), List.of(envio.req())));
+        } catch (AfipCliente.AfipNoDisponibleException e) {
+            // El pedido no salió (circuito abierto o bulkhead lleno): se puede autorizar con CAEA sin duplicar
+            transactionTemplate.executeWithoutResult(status -> {
+                descartarIntento(outboxId);
+                if (!autorizarConCaea(outboxId)) reprogramar(outboxId, e.getMessage());
+            });
+            return;
+        } catch (AfipCliente.AfipResultadoInciertoException e) {
+            transactionTemplate.executeWithoutResult(status -> esperarVerificacion(outboxId, e));
+            return;
+        } catch (Exception e) {
+            transactionTemplate.executeWithoutResult(status -> reprogramar(outboxId, e.getMessage()));
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            FacturaOutbox outbox = facturaOutboxRepository.findByIdWithFactura(outboxId).orElseThrow();
+            facturaService.aplicarRespuesta(outbox.getFactura(), respuesta);
+            if (FacturaService.ESTADO_PENDIENTE.equals(outbox.getFactura().getEstado())) {
+                // Rechazo reintentable (numeración): sigue en la cola
+                reprogramar(outboxId, outbox.getFactura().getDetalle());
+                return;
+            }
+            outbox.setIntentos(outbox.getIntentos() + 1);
+            completar(outbox, respuesta.getCae() == null ? outbox.getFactura().getDetalle() : null);
+        });
+    }
+
+    // ========= HELPERS =========
+
+    /**
+     * FECompConsultar del número con que salió el envío anterior. Si AFIP lo
+     * autorizó se toma ese CAE; si el número no existe se puede volver a emitir
+     * (devuelve true); si lo tiene otro comprobante queda para revisar a mano.
+     */
+    private boolean verificar(Long outboxId, Envio envio) {
+        long numero = envio.numeroIntentado();
+        AfipService.AfipFacturaRequest req = envio.req();
+        String fechaEnvio = req.getFecha();
+        req.setFecha(envio.fechaIntentada().format(DateTimeFormatter.BASIC_ISO_DATE));
+
+        AfipService.Verificacion verificacion;
+        try {
+            verificacion = afipService.verificarComprobante(req, numero);
+        } catch (Exception e) {
+            transactionTemplate.executeWithoutResult(status -> reprogramar(outboxId, e.getMessage()));
+            return false;
+        } finally {
+            req.setFecha(fechaEnvio);
+        }
+
+        switch (verificacion.estado()) {
+            case AUTORIZADO -> {
+                log.info("Pedido {}: AFIP ya había autorizado el comprobante {}, CAE={}",
+                        outboxId, numero, verificacion.respuesta().getCae());
+                transactionTemplate.executeWithoutResult(status -> {
+                    FacturaOutbox outbox = facturaOutboxRepository.findByIdWithFactura(outboxId).orElseThrow();
+                    facturaService.aplicarRespuesta(outbox.getFactura(), verificacion.respuesta());
+                    completar(outbox, null);
+                });
+                return false;
+            }
+            case OTRO -> {
+                transactionTemplate.executeWithoutResult(status -> revisar(outboxId,
+                        "El comprobante " + numero + " figura en AFIP con otros datos; revisar antes de reenviar"));
+                return false;
+            }
+            default -> {
+                log.info("Pedido {}: AFIP no tiene el comprobante {}, se vuelve a emitir", outboxId, numero);
+                transactionTemplate.executeWithoutResult(status -> descartarIntento(outboxId));
+                return true;
+            }
+        }
+    }
+
+    // El número registrado no llegó a autorizarse: la factura vuelve a numerarse desde la secuencia
+    private void descartarIntento(Long outboxId) {
+        Factura factura = facturaOutboxRepository.findByIdWithFactura(outboxId).orElseThrow().getFactura();
+        factura.setNumeroIntentado(null);
+        factura.setFechaIntentada(null);
+    }
+
+    private boolean autorizarConCaea(Long outboxId) {
+        FacturaOutbox outbox = facturaOutboxRepository.findByIdWithFactura(outboxId).orElseThrow();
+        if (!caeaService.autorizarLocal(outbox.getFactura())) return false;
+
+        completar(outbox, null);
+        log.info("Pedido {}: AFIP no disponible, factura autorizada con CAEA", outboxId);
+        return true;
+    }
+
+    private void completar(FacturaOutbox outbox, String error) {
+        outbox.setEstado(FacturaOutbox.COMPLETADA);
+        outbox.setUltimoError(error);
+        outbox.setActualizadoEn(LocalDateTime.now());
+    }
+
+    /**
+     * FECAESolicitar sin respuesta: AFIP pudo haber autorizado el número. No se
+     * reenvía con backoff; el próximo intento, en verificar-despues-segundos,
+     * empieza por consultar ese número (ver verificar).
+     */
+    private void esperarVerificacion(Long outboxId, Exception e) {
+        FacturaOutbox outbox = facturaOutboxRepository.findByIdWithFactura(outboxId).orElseThrow();
+        LocalDateTime ahora = LocalDateTime.now();
+        int intentos = outbox.getIntentos() + 1;
+        Long numero = outbox.getFactura().getNumeroIntentado();
+
+        outbox.setIntentos(intentos);
+        outbox.setActualizadoEn(ahora);
+        if (intentos >= maxIntentos) {
+            revisar(outbox, "Sin respuesta de AFIP para el comprobante " + numero + " después de "
+                    + intentos + " intentos: " + e.getMessage());
+            return;
+        }
+
+        outbox.setEstado(FacturaOutbox.PENDIENTE);
+        outbox.setUltimoError("Sin respuesta de AFIP: se consulta el comprobante " + numero + " antes de reenviar");
+        outbox.setProximoIntento(ahora.plusSeconds(verificarDespuesSegundos));
+        log.warn("Pedido {}: FECAESolicitar sin respuesta para el comprobante {}, se verifica a las {}",
+                outboxId, numero, outbox.getProximoIntento());
+    }
+
+    private void revisar(Long outboxId, String motivo) {
+        revisar(facturaOutboxRepository.findById(outboxId).orElseThrow(), motivo);
+    }
+
+    // Resultado en AFIP desconocido o inconsistente: ni se reintenta ni se vuelve a numerar solo
+    private void revisar(FacturaOutbox outbox, String motivo) {
+        outbox.setEstado(FacturaOutbox.REVISION);
+        outbox.setUltimoError(motivo);
+        outbox.setActualizadoEn(LocalDateTime.now());
+        log.error("Pedido {}: requiere revisión manual. {}", outbox.getId(), motivo);
+    }
+
+    private void reprogramar(Long outboxId, String error) {
+        FacturaOutbox outbox = facturaOutboxRepository.findByIdWithFactura(outboxId).orElseThrow();
+        LocalDateTime ahora = LocalDateTime.now();
+        int intentos = outbox.getIntentos() + 1;
+
+        outbox.setIntentos(intentos);
+        outbox.setUltimoError(error);
+        outbox.setActualizadoEn(ahora);
+
+        if (intentos >= maxIntentos && outbox.getFactura().getNumeroIntentado() != null) {
+            // Nunca se pudo confirmar qué pasó con el número enviado: no se deja para reenviar
+            revisar(outbox, "No se pudo verificar el comprobante " + outbox.getFactura().getNumeroIntentado()
+                    + " en AFIP después de " + intentos + " intentos: " + error);
+        } else if (intentos >= maxIntentos) {
+            outbox.setEstado(FacturaOutbox.FALLIDA);
+            log.warn("Pedido {}: emisión en AFIP abandonada después de {} intentos: {}",
+                    outboxId, intentos, error);
+        } else {
+            outbox.setEstado(FacturaOutbox.PENDIENTE);
+            outbox.setProximoIntento(ahora.plus(backoff(intentos)));
+            log.info("Pedido {}: AFIP falló (intento {}), se reintenta a las {}",
+                    outboxId, intentos, outbox.getProximoIntento());
+        }
+    }
+
+    // 30s, 1m, 2m, 4m... con tope
+    private Duration backoff(int intentos) {
+        Duration espera = Duration.ofSeconds(backoffInicialSegundos).multipliedBy(1L << Math.min(intentos - 1, 20));
+        Duration tope = Duration.ofMinutes(backoffMaxMinutos);
+        return espera.compareTo(tope) > 0 ? tope : espera;
+    }
+}
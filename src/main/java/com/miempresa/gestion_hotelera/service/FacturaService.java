@@ -1,18 +1,25 @@
 package com.miempresa.gestion_hotelera.service;
 
+import com.miempresa.gestion_hotelera.dto.AfipEstadisticasResponse;
+import com.miempresa.gestion_hotelera.dto.FacturaEstadoResponse;
 import com.miempresa.gestion_hotelera.dto.FacturaRequest;
 
 import com.miempresa.gestion_hotelera.entity.Cliente;
 import com.miempresa.gestion_hotelera.entity.Factura;
+import com.miempresa.gestion_hotelera.entity.FacturaOutbox;
 import com.miempresa.gestion_hotelera.entity.Reserva;
 import com.miempresa.gestion_hotelera.entity.Usuario;
+import com.miempresa.gestion_hotelera.repository.FacturaOutboxRepository;
 import com.miempresa.gestion_hotelera.repository.FacturaRepository;
 import com.miempresa.gestion_hotelera.repository.ReservaRepository;
 import com.miempresa.gestion_hotelera.repository.UsuarioRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
@@ -20,105 +27,153 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class FacturaService {
 
     private final FacturaRepository facturaRepository;
+    private final FacturaOutboxRepository facturaOutboxRepository;
     private final ReservaRepository reservaRepository;
     private final UsuarioRepository usuarioRepository;
     private final AfipService afipService;
+    private final CaeaService caeaService;
+    private final TransactionTemplate transactionTemplate;
 
+    public static final String ESTADO_PENDIENTE = "PENDIENTE";
+    public static final String ESTADO_PROCESANDO = "PROCESANDO";
+    public static final String ESTADO_APROBADA = "APROBADA";
+    public static final String ESTADO_RECHAZADA = "RECHAZADA";
+
+    // Rechazos que no dependen de la factura: queda PENDIENTE para reenviarla
+    private static final Set<Integer> ERRORES_REINTENTABLES = Set.of(SecuenciaComprobanteService.ERROR_NUMERO_DESFASADO);
+
+    // Mismo plazo que usa la cola antes de consultar un envío sin respuesta
+    @Value("${afip.outbox.verificar-despues-segundos:60}")
+    private long verificarDespuesSegundos;
+
+    /** Facturas del lote (con su estado final) y los errores de las que no se pudieron procesar. */
+    public record ResultadoLote(List<Factura> facturas, List<String> errores) {}
+
+    /** (punto de venta, tipo de comprobante): un lote AFIP no mezcla secuencias. */
+    private record Secuencia(Integer puntoVenta, String tipoComprobante) {}
+
+    /**
+     * Guarda la factura como PENDIENTE y la encola en factura_outbox, en la misma
+     * transacción y sin llamar a AFIP. FacturaOutboxJob la emite después; el
+     * estado se consulta con obtenerEstado. Si corresponde CAEA (ver CaeaService)
+     * se aprueba en el momento y no pasa por la cola.
+     */
     @Transactional
     public Factura emitirFacturaDesdeReserva(FacturaRequest request, String usernameActual) {
 
-        // 1) Usuario actual (para saber cliente / tenant)
-        Usuario usuario = usuarioRepository.findByUsuario(usernameActual)
-                .orElseThrow(() -> new ResponseStatusException(
-                        HttpStatus.UNAUTHORIZED, "Usuario no encontrado"));
-
-        Cliente cliente = usuario.getCliente();
-        if (cliente == null) {
-            throw new ResponseStatusException(
-                    HttpStatus.BAD_REQUEST, "El usuario no tiene cliente asociado");
-        }
+        // 1) Usuario actual (para saber cliente / tenant) con CUIT configurado
+        Cliente cliente = clienteConCuit(usernameActual);
 
-        // 2) Reserva
-        Reserva reserva = reservaRepository.findById(request.getReservaId())
-                .orElseThrow(() -> new ResponseStatusException(
-                        HttpStatus.NOT_FOUND, "Reserva no encontrada"));
+        // 2) Factura pendiente (valida reserva, tenant y que no esté ya facturada)
+        Factura factura = facturaRepository.save(facturaPendiente(request, cliente));
 
-        if (facturaRepository.existsByReservaId(reserva.getId())) {
-            throw new ResponseStatusException(
-                    HttpStatus.BAD_REQUEST,
-                    "La reserva " + reserva.getId() + " ya tiene una factura emitida"
-            );
+        // 3) Con CAEA (modo SIEMPRE o AFIP no disponible) queda aprobada acá mismo, sin AFIP
+        if (caeaService.usarAhora() && caeaService.autorizarLocal(factura)) {
+            return factura;
         }
 
-        // 2.1) Importe: desde el request o desde la reserva
-        BigDecimal importe = request.getImporte() != null
-                ? request.getImporte()
-                : reserva.getPrecioTotal(); // ya es BigDecimal
+        // 4) Si no, pedido de emisión: el job lo toma apenas se commitea
+        encolar(factura, LocalDateTime.now());
 
-        // 3) Validar que el cliente tenga CUIT configurado
-        if (cliente.getCuit() == null || cliente.getCuit().trim().isEmpty()) {
-            throw new ResponseStatusException(
-                    HttpStatus.BAD_REQUEST, 
-                    "Para emitir facturas, debes configurar el CUIT de tu empresa en el perfil del cliente. Contactá al administrador."
-            );
-        }
+        return factura;
+    }
 
-        // 3.1) Armamos el "request AFIP" (para futuro AFIP real)
-        AfipService.AfipFacturaRequest afipReq = AfipService.AfipFacturaRequest.builder()
-                .cuitEmisor(cliente.getCuit())
-                .puntoVenta(request.getPuntoVenta())
-                .tipoComprobante(request.getTipoComprobante())          // "B", "C", etc.
-                .fecha(LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE)) // yyyyMMdd
-                .moneda("PES")                                          // código AFIP para pesos
-                .importe(importe)
-                .tipoDocReceptor(mapTipoDoc(request.getTipoDocumento())) // "80"/"96"/"99"
-                .nombreReceptor(request.getClienteNombre()) // 👈 AGREGAR ESTA LÍNEA
-                .nroDocReceptor(request.getDocumento())
+    /**
+     * Estado de emisión de una factura: el de la factura más el de su pedido en
+     * factura_outbox (intentos, próximo reintento, último error).
+     */
+    @Transactional(readOnly = true)
+    public FacturaEstadoResponse obtenerEstado(Long facturaId, String usernameActual) {
+        Factura factura = obtenerFacturaPorId(facturaId, usernameActual);
+        FacturaOutbox outbox = facturaOutboxRepository.findFirstByFacturaIdOrderByIdDesc(facturaId).orElse(null);
+
+        return FacturaEstadoResponse.builder()
+                .facturaId(factura.getId())
+                .estado(factura.getEstado())
+                .numeroComprobante(factura.getNumeroComprobante())
+                .cae(factura.getCae())
+                .caeVencimiento(factura.getCaeVencimiento())
+                .detalle(factura.getDetalle())
+                .estadoEmision(outbox != null ? outbox.getEstado() : null)
+                .intentos(outbox != null ? outbox.getIntentos() : 0)
+                .proximoIntento(outbox != null && FacturaOutbox.PENDIENTE.equals(outbox.getEstado())
+                        ? outbox.getProximoIntento() : null)
+                .ultimoError(outbox != null ? outbox.getUltimoError() : null)
                 .build();
+    }
 
-        // 3.1) Llamar al "AFIP service"
-        // AHORA: Demo (CAE y número ficticio)
-        //AfipService.AfipFacturaResponse afipResp = afipService.emitirFacturaDemo(afipReq);
-
-        // FUTURO (AFIP real):
-        AfipService.AfipFacturaResponse afipResp;
-        try {
-            afipResp = afipService.emitirFacturaAfip(afipReq);
-        } catch (Exception e) {
-            // Logueamos el error y caemos en DEMO para no romper la facturación
-            System.err.println("Error emitiendo factura en AFIP real: " + e.getMessage());
-            e.printStackTrace();
-            afipResp = afipService.emitirFacturaDemo(afipReq);
+    /**
+     * Emisión masiva: guarda todas las facturas como PENDIENTE y las manda a AFIP
+     * agrupadas por punto de venta y tipo, un FECAESolicitar multi-registro por
+     * grupo (AfipService parte en tramos de afip.lote.max-registros).
+     *
+     * Sin @Transactional a propósito: las facturas se commitean (PROCESANDO) antes
+     * de llamar a AFIP y cada grupo se actualiza en su propia transacción, así un
+     * grupo que falla no deshace lo que AFIP ya aprobó en otro.
+     */
+    public ResultadoLote emitirLote(List<FacturaRequest> requests, String usernameActual) {
+        if (requests == null || requests.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El lote no tiene facturas");
         }
 
-        // 4) Guardar factura local
-        Factura factura = Factura.builder()
-                .cliente(cliente)
-                .reserva(reserva)
-                .tipoComprobante(request.getTipoComprobante())
-                .puntoVenta(request.getPuntoVenta())
-                .numeroComprobante(afipResp.getNumeroComprobante())
-                .cuitEmisor(cliente.getCuit())
-                .tipoDocumentoReceptor(request.getTipoDocumento())
-                .documentoReceptor(request.getDocumento())
-                .receptorNombre(request.getClienteNombre()) // 👈 Nuevo campo
-                .fechaEmision(LocalDateTime.now())
-                .importeTotal(importe)
-                .moneda("ARS")
-                .cae(afipResp.getCae())
-                .caeVencimiento(afipResp.getCaeVencimiento())
-                .estado("APROBADA") // cuando AFIP diga OK
-                .detalle("Factura generada para reserva " + reserva.getId())
-                .build();
+        List<String> errores = new ArrayList<>();
+
+        List<Factura> pendientes = transactionTemplate.execute(status -> {
+            Cliente cliente = clienteConCuit(usernameActual);
+            List<Factura> nuevas = new ArrayList<>();
+            Set<Long> reservasDelLote = new HashSet<>();
+            for (FacturaRequest request : requests) {
+                try {
+                    if (!reservasDelLote.add(request.getReservaId())) {
+                        throw new ResponseStatusException(
+                                HttpStatus.BAD_REQUEST, "Reserva repetida en el lote");
+                    }
+                    Factura factura = facturaPendiente(request, cliente);
+                    // Tomada por este lote desde ya: emitirPendientes no la ve hasta que se resuelva
+                    factura.setEstado(ESTADO_PROCESANDO);
+                    factura.setProcesandoDesde(LocalDateTime.now());
+                    nuevas.add(facturaRepository.save(factura));
+                } catch (ResponseStatusException e) {
+                    errores.add("Reserva " + request.getReservaId() + ": " + e.getReason());
+                }
+            }
+            return nuevas;
+        });
+
+        return enviarAAfip(pendientes, errores);
+    }
 
-        return facturaRepository.save(factura);
+    /**
+     * Reenvía a AFIP las facturas del cliente que quedaron PENDIENTE (por ejemplo,
+     * porque AFIP no respondió durante un lote anterior). Las que todavía están en
+     * la cola de emisión se dejan al job. Las que toma quedan PROCESANDO mientras
+     * tanto: dos llamadas simultáneas no mandan la misma factura.
+     */
+    public ResultadoLote emitirPendientes(String usernameActual) {
+        List<Factura> pendientes = transactionTemplate.execute(status -> {
+            List<Long> ids = facturaRepository.findIdsPendientesSinEncolar(clienteConCuit(usernameActual).getId());
+            if (ids.isEmpty()) return List.<Factura>of();
+
+            facturaRepository.marcarProcesando(ids, LocalDateTime.now());
+            return facturaRepository.findAllById(ids).stream()
+                    .sorted(Comparator.comparing(Factura::getId))
+                    .toList();
+        });
+        return enviarAAfip(pendientes, new ArrayList<>());
     }
 
     @Transactional(readOnly = true)
@@ -164,6 +219,11 @@ public class FacturaService {
         return facturas;
     }
 
+    /** Circuito, llamadas en curso y latencias de AfipCliente. */
+    public AfipEstadisticasResponse estadisticasAfip() {
+        return afipService.estadisticas();
+    }
+
     /**
      * Obtener factura por reserva, respetando el cliente del usuario logueado.
      */
@@ -219,6 +279,258 @@ public class FacturaService {
         return factura;
     }
 
+    /**
+     * Informa a AFIP (FECAEARegInformativo) las facturas autorizadas con CAEA que
+     * falten, agrupadas por punto de venta y tipo. Las que AFIP rechaza quedan
+     * RECHAZADA con los códigos en detalle. Devuelve cuántas se informaron.
+     */
+    public int informarCaeaPendientes() throws Exception {
+        List<Factura> pendientes = transactionTemplate.execute(status -> facturaRepository.findCaeaSinInformar());
+
+        Map<Secuencia, List<Factura>> grupos = new LinkedHashMap<>();
+        for (Factura f : pendientes) {
+            grupos.computeIfAbsent(new Secuencia(f.getPuntoVenta(), f.getTipoComprobante()),
+                    k -> new ArrayList<>()).add(f);
+        }
+
+        int informadas = 0;
+        for (List<Factura> facturas : grupos.values()) {
+            List<AfipService.ComprobanteCaea> comprobantes = new ArrayList<>();
+            for (Factura f : facturas) {
+                AfipService.AfipFacturaRequest req = requestAfip(f);
+                // CAEA: la fecha del comprobante es la de emisión, no la del informe
+                req.setFecha(f.getFechaEmision().toLocalDate().format(DateTimeFormatter.BASIC_ISO_DATE));
+                comprobantes.add(new AfipService.ComprobanteCaea(req, f.getNumeroComprobante(), f.getCae()));
+            }
+
+            List<AfipService.AfipFacturaResponse> respuestas = afipService.informarCaea(comprobantes);
+
+            LocalDateTime ahora = LocalDateTime.now();
+            for (int i = 0; i < facturas.size(); i++) {
+                Factura f = facturas.get(i);
+                AfipService.AfipFacturaResponse r = respuestas.get(i);
+                if (r.getCae() != null) {
+                    f.setCaeaInformadaEn(ahora);
+                    informadas++;
+                } else {
+                    log.error("Factura CAEA {} rechazada al informar. Códigos: {}", f.getId(), r.getCodigosError());
+                    f.setEstado(ESTADO_RECHAZADA);
+                    f.setDetalle("CAEA rechazado al informar a AFIP. Códigos: " + r.getCodigosError());
+                }
+            }
+            transactionTemplate.executeWithoutResult(status -> facturaRepository.saveAll(facturas));
+        }
+        return informadas;
+    }
+
+    // ========= LOTE =========
+
+    private ResultadoLote enviarAAfip(List<Factura> pendientes, List<String> errores) {
+        Map<Secuencia, List<Factura>> grupos = new LinkedHashMap<>();
+        for (Factura f : pendientes) {
+            grupos.computeIfAbsent(new Secuencia(f.getPuntoVenta(), f.getTipoComprobante()),
+                    k -> new ArrayList<>()).add(f);
+        }
+
+        for (Map.Entry<Secuencia, List<Factura>> grupo : grupos.entrySet()) {
+            List<Factura> facturas = grupo.getValue();
+
+            List<AfipService.AfipFacturaRequest> reqs = facturas.stream().map(this::requestAfip).toList();
+            List<AfipService.AfipFacturaResponse> respuestas;
+            try {
+                respuestas = afipService.emitirLoteAfip(reqs, registrarIntento(facturas, reqs));
+            } catch (Exception e) {
+                // Sin respuesta de AFIP el grupo queda PENDIENTE: no se inventan CAE para un lote
+                log.error("Error emitiendo lote en AFIP (punto de venta {}, tipo {})",
+                        grupo.getKey().puntoVenta(), grupo.getKey().tipoComprobante(), e);
+                int aVerificar = devolverSinRespuesta(facturas);
+                errores.add("Punto de venta " + grupo.getKey().puntoVenta() + " tipo "
+                        + grupo.getKey().tipoComprobante() + ": AFIP no respondió, "
+                        + facturas.size() + " facturas quedan pendientes"
+                        + (aVerificar > 0 ? " (" + aVerificar + " se verifican en AFIP antes de reenviar)" : ""));
+                continue;
+            }
+
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = 0; i < facturas.size(); i++) {
+                    aplicarRespuesta(facturas.get(i), respuestas.get(i));
+                    facturas.get(i).setProcesandoDesde(null);
+                    facturaRepository.save(facturas.get(i));
+                }
+            });
+        }
+
+        // Releídas con sus relaciones para poder mapearlas fuera de la transacción
+        List<Long> ids = pendientes.stream().map(Factura::getId).toList();
+        List<Factura> facturas = ids.isEmpty()
+                ? List.of()
+                : transactionTemplate.execute(status -> facturaRepository.findByIdInWithFetch(ids));
+        return new ResultadoLote(facturas, errores);
+    }
+
+    /**
+     * Facturas que quedaron PROCESANDO desde antes del límite porque la emisión de
+     * pendientes o por lote se cortó a mitad (caída de la instancia). Vuelven a
+     * PENDIENTE; las que llegaron a tener número asignado pasan por la cola, que
+     * consulta ese número en AFIP antes de reenviarlas.
+     */
+    @Transactional
+    public int liberarInterrumpidas(LocalDateTime limite) {
+        List<Factura> facturas = facturaRepository.findProcesandoInterrumpidas(limite);
+        LocalDateTime ahora = LocalDateTime.now();
+        for (Factura f : facturas) {
+            f.setEstado(ESTADO_PENDIENTE);
+            f.setProcesandoDesde(null);
+            if (f.getNumeroIntentado() != null) {
+                encolar(f, ahora);
+            }
+        }
+        return facturas.size();
+    }
+
+    // ========= HELPERS =========
+
+    private void encolar(Factura factura, LocalDateTime proximoIntento) {
+        LocalDateTime ahora = LocalDateTime.now();
+        facturaOutboxRepository.save(FacturaOutbox.builder()
+                .factura(factura)
+                .estado(FacturaOutbox.PENDIENTE)
+                .intentos(0)
+                .proximoIntento(proximoIntento)
+                .creadoEn(ahora)
+                .actualizadoEn(ahora)
+                .build());
+    }
+
+    /**
+     * Grupo sin respuesta de AFIP: las facturas vuelven a PENDIENTE. Las que tienen
+     * número intentado pudieron haber llegado a AFIP (o salir aprobadas en un tramo
+     * anterior del mismo lote) y se encolan para que la cola consulte ese número
+     * antes de reenviar. Devuelve cuántas se encolaron.
+     */
+    private int devolverSinRespuesta(List<Factura> facturas) {
+        List<Long> ids = facturas.stream().map(Factura::getId).toList();
+        return transactionTemplate.execute(status -> {
+            LocalDateTime verificarDesde = LocalDateTime.now().plusSeconds(verificarDespuesSegundos);
+            int aVerificar = 0;
+            for (Factura f : facturaRepository.findAllById(ids)) {
+                f.setEstado(ESTADO_PENDIENTE);
+                f.setProcesandoDesde(null);
+                if (f.getNumeroIntentado() != null) {
+                    encolar(f, verificarDesde);
+                    aVerificar++;
+                }
+            }
+            return aVerificar;
+        });
+    }
+
+    private Factura facturaPendiente(FacturaRequest request, Cliente cliente) {
+        Reserva reserva = reservaRepository.findById(request.getReservaId())
+                .orElseThrow(() -> new ResponseStatusException(
+                        HttpStatus.NOT_FOUND, "Reserva no encontrada"));
+
+        if (reserva.getHotel() == null || reserva.getHotel().getCliente() == null
+                || !reserva.getHotel().getCliente().getId().equals(cliente.getId())) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Reserva no encontrada");
+        }
+        if (facturaRepository.existsByReservaId(reserva.getId())) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, "La reserva ya tiene una factura emitida");
+        }
+        if (request.getPuntoVenta() == null || request.getTipoComprobante() == null) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, "Falta punto de venta o tipo de comprobante");
+        }
+
+        BigDecimal importe = request.getImporte() != null ? request.getImporte() : reserva.getPrecioTotal();
+
+        return Factura.builder()
+                .cliente(cliente)
+                .reserva(reserva)
+                .tipoComprobante(request.getTipoComprobante())
+                .puntoVenta(request.getPuntoVenta())
+                .numeroComprobante(0L) // lo asigna la secuencia al aprobar
+                .cuitEmisor(cliente.getCuit())
+                .tipoDocumentoReceptor(request.getTipoDocumento())
+                .documentoReceptor(request.getDocumento())
+                .receptorNombre(request.getClienteNombre())
+                .fechaEmision(LocalDateTime.now())
+                .importeTotal(importe)
+                .moneda("ARS")
+                .estado(ESTADO_PENDIENTE)
+                .detalle("Factura generada para reserva " + reserva.getId())
+                .build();
+    }
+
+    AfipService.AfipFacturaRequest requestAfip(Factura factura) {
+        return AfipService.AfipFacturaRequest.builder()
+                .cuitEmisor(factura.getCuitEmisor())
+                .puntoVenta(factura.getPuntoVenta())
+                .tipoComprobante(factura.getTipoComprobante())
+                .fecha(LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE)) // AFIP: fecha del envío
+                .moneda("PES")
+                .importe(factura.getImporteTotal())
+                .tipoDocReceptor(mapTipoDoc(factura.getTipoDocumentoReceptor()))
+                .nombreReceptor(factura.getReceptorNombre())
+                .nroDocReceptor(factura.getDocumentoReceptor())
+                .build();
+    }
+
+    /** Guarda en cada factura el número y la fecha con que va a salir (reqs en el mismo orden). */
+    SecuenciaComprobanteService.Intento registrarIntento(List<Factura> facturas,
+                                                        List<AfipService.AfipFacturaRequest> reqs) {
+        return (primerNumero, posiciones) -> {
+            for (int i = 0; i < posiciones.size(); i++) {
+                int p = posiciones.get(i);
+                facturaRepository.registrarIntento(facturas.get(p).getId(), primerNumero + i,
+                        LocalDate.parse(reqs.get(p).getFecha(), DateTimeFormatter.BASIC_ISO_DATE));
+            }
+        };
+    }
+
+    void aplicarRespuesta(Factura factura, AfipService.AfipFacturaResponse respuesta) {
+        // Respuesta definitiva de AFIP: ya no hay un envío de resultado desconocido
+        factura.setNumeroIntentado(null);
+        factura.setFechaIntentada(null);
+        if (respuesta.getCae() != null) {
+            factura.setEstado(ESTADO_APROBADA);
+            factura.setNumeroComprobante(respuesta.getNumeroComprobante());
+            factura.setCae(respuesta.getCae());
+            factura.setCaeVencimiento(respuesta.getCaeVencimiento());
+            factura.setFechaEmision(LocalDateTime.now());
+        } else if (!respuesta.getCodigosError().isEmpty()
+                && ERRORES_REINTENTABLES.containsAll(respuesta.getCodigosError())) {
+            // Rechazo por la numeración, no por la factura: se puede volver a mandar tal cual
+            factura.setEstado(ESTADO_PENDIENTE);
+            factura.setDetalle("AFIP no aceptó el número, queda pendiente para reenviar. Códigos: "
+                    + respuesta.getCodigosError());
+        } else {
+            // El número no se consumió: la factura rechazada queda sin número
+            factura.setEstado(ESTADO_RECHAZADA);
+            factura.setDetalle("Rechazada por AFIP. Códigos: " + respuesta.getCodigosError());
+        }
+    }
+
+    private Cliente clienteConCuit(String usernameActual) {
+        Usuario usuario = usuarioRepository.findByUsuario(usernameActual)
+                .orElseThrow(() -> new ResponseStatusException(
+                        HttpStatus.UNAUTHORIZED, "Usuario no encontrado"));
+
+        Cliente cliente = usuario.getCliente();
+        if (cliente == null) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, "El usuario no tiene cliente asociado");
+        }
+        if (cliente.getCuit() == null || cliente.getCuit().trim().isEmpty()) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "Para emitir facturas, debes configurar el CUIT de tu empresa en el perfil del cliente. Contactá al administrador."
+            );
+        }
+        return cliente;
+    }
+
     /**
      * Mapea el tipo de documento de tu request ("DNI", "CUIT", etc.)
      * al código que usa AFIP (por ej: 96 = DNI, 80 = CUIT).
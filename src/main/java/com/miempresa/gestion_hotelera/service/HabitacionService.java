@@ -29,6 +29,8 @@ public class HabitacionService {
     private final TipoHabitacionRepository tipoHabitacionRepository;
     private final HabitacionMapper habitacionMapper;
     private final TenantUtil tenantUtil;
+    private final DisponibilidadIndex disponibilidadIndex;
+    private final DisponibilidadCache disponibilidadCache;
 
     // ===== HELPERS =====
 
@@ -73,6 +75,8 @@ public class HabitacionService {
 
         Habitacion habitacion = habitacionMapper.toEntity(request, hotel, tipo);
         Habitacion guardada = habitacionRepository.save(habitacion);
+        disponibilidadIndex.invalidar(hotel.getId());
+        disponibilidadCache.invalidar(hotel.getId());
 
         return habitacionMapper.toResponse(guardada);
     }
@@ -113,6 +117,11 @@ public class HabitacionService {
                     "El tipo de habitación no pertenece al hotel indicado");
         }
 
+        disponibilidadIndex.invalidar(habitacion.getHotel().getId());
+        disponibilidadCache.invalidar(habitacion.getHotel().getId());
+        disponibilidadIndex.invalidar(hotel.getId());
+        disponibilidadCache.invalidar(hotel.getId());
+
         habitacion.setHotel(hotel);
         habitacion.setTipoHabitacion(tipo);
         habitacion.setCodigo(request.getCodigo());
@@ -129,5 +138,7 @@ public class HabitacionService {
     public void eliminar(Long id) {
         Habitacion habitacion = getHabitacionDelClienteActual(id);
         habitacionRepository.delete(habitacion);
+        disponibilidadIndex.invalidar(habitacion.getHotel().getId());
+        disponibilidadCache.invalidar(habitacion.getHotel().getId());
     }
 }
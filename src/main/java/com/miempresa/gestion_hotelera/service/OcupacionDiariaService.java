@@ -0,0 +1,274 @@
+package com.miempresa.gestion_hotelera.service;
+
+import com.miempresa.gestion_hotelera.dto.OcupacionDiaResponse;
+import com.miempresa.gestion_hotelera.dto.OcupacionDiferenciaResponse;
+import com.miempresa.gestion_hotelera.dto.OcupacionReconstruccionResponse;
+import com.miempresa.gestion_hotelera.dto.OcupacionVerificacionResponse;
+import com.miempresa.gestion_hotelera.entity.Cliente;
+import com.miempresa.gestion_hotelera.entity.EstadoReserva;
+import com.miempresa.gestion_hotelera.entity.OcupacionDiaria;
+import com.miempresa.gestion_hotelera.entity.Pago;
+import com.miempresa.gestion_hotelera.entity.Reserva;
+import com.miempresa.gestion_hotelera.repository.HotelRepository;
+import com.miempresa.gestion_hotelera.repository.OcupacionDiariaRepository;
+import com.miempresa.gestion_hotelera.security.TenantUtil;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Mantiene la tabla ocupacion_diaria (ver V16__create_ocupacion_diaria.sql).
+ *
+ * Los métodos registrar* se llaman desde ReservaService dentro de su transacción:
+ * si el upsert falla, se cae también el cambio de la reserva. Además hay una
+ * reconstrucción completa por hotel y un verificador que compara la tabla con
+ * lo que sale de reserva y pago.
+ */
+@Service
+@RequiredArgsConstructor
+public class OcupacionDiariaService {
+
+    // Espacio de claves de pg_advisory_xact_lock para esta tabla (la segunda clave es el hotel)
+    private static final int CLAVE_LOCK = 16;
+    private static final int MAX_DIAS_VERIFICACION = 3660;
+
+    private final OcupacionDiariaRepository ocupacionDiariaRepository;
+    private final HotelRepository hotelRepository;
+    private final TenantUtil tenantUtil;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    @Qualifier("reportesExecutor")
+    private final Executor reportesExecutor;
+
+    @Value("${app.ocupacion.reconstruccion.dias-por-tramo:90}")
+    private int diasPorTramo;
+
+    // ========= MANTENIMIENTO INCREMENTAL =========
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarAlta(Reserva reserva) {
+        if (cuenta(reserva.getEstado())) {
+            sumar(reserva, 1);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarCambioEstado(Reserva reserva, EstadoReserva anterior) {
+        boolean antes = cuenta(anterior);
+        boolean despues = cuenta(reserva.getEstado());
+        if (antes != despues) {
+            sumar(reserva, despues ? 1 : -1);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarPago(Pago pago) {
+        if (pago.getMonto() == null || pago.getFechaPago() == null) return;
+        Long hotelId = pago.getReserva().getHotel().getId();
+        ocupacionDiariaRepository.bloquearCompartido(CLAVE_LOCK, hotelId);
+        ocupacionDiariaRepository.sumarIngresos(hotelId, pago.getFechaPago().toLocalDate(), pago.getMonto());
+    }
+
+    private void sumar(Reserva reserva, int delta) {
+        Long hotelId = reserva.getHotel().getId();
+        ocupacionDiariaRepository.bloquearCompartido(CLAVE_LOCK, hotelId);
+        ocupacionDiariaRepository.sumarEstadia(hotelId, reserva.getCheckIn(), reserva.getCheckOut(), delta);
+    }
+
+    // Las canceladas no ocupan; el resto (incluidas las ya finalizadas) sí
+    private static boolean cuenta(EstadoReserva estado) {
+        return estado != EstadoReserva.CANCELADA;
+    }
+
+    // ========= LECTURA =========
+
+    @Transactional(readOnly = true)
+    public List<OcupacionDiaResponse> listar(Long hotelId, LocalDate desde, LocalDate hasta) {
+        validarHotel(hotelId);
+        validarRango(desde, hasta);
+
+        Map<LocalDate, OcupacionDiaria> filas = ocupacionDiariaRepository
+                .findByHotelIdAndFechaGreaterThanEqualAndFechaLessThanOrderByFecha(hotelId, desde, hasta).stream()
+                .collect(Collectors.toMap(OcupacionDiaria::getFecha, Function.identity()));
+
+        // Días sin fila = todo en cero, así el cliente recibe la serie completa
+        List<OcupacionDiaResponse> dias = new ArrayList<>();
+        for (LocalDate d = desde; d.isBefore(hasta); d = d.plusDays(1)) {
+            OcupacionDiaria f = filas.get(d);
+            dias.add(OcupacionDiaResponse.builder()
+                    .fecha(d)
+                    .habitacionesOcupadas(f != null ? f.getHabitacionesOcupadas() : 0)
+                    .llegadas(f != null ? f.getLlegadas() : 0)
+                    .salidas(f != null ? f.getSalidas() : 0)
+                    .ingresos(f != null ? f.getIngresos() : BigDecimal.ZERO)
+                    .build());
+        }
+        return dias;
+    }
+
+    // ========= RECONSTRUCCIÓN =========
+
+    /**
+     * Recalcula de cero la proyección de un hotel. Los tramos de fechas se calculan
+     * en paralelo mientras esta transacción tiene el lock exclusivo del hotel: como
+     * cada alta/cambio de reserva necesita el lock compartido antes de commitear,
+     * lo que leen los tramos no puede cambiar hasta que se escriba el resultado.
+     */
+    public OcupacionReconstruccionResponse reconstruir(Long hotelId) {
+        validarHotel(hotelId);
+        long inicio = System.currentTimeMillis();
+        boolean enParalelo = !TransactionSynchronizationManager.isActualTransactionActive();
+
+        return transactionTemplate.execute(status -> {
+            ocupacionDiariaRepository.bloquearExclusivo(CLAVE_LOCK, hotelId);
+
+            OcupacionDiariaRepository.RangoView rango = ocupacionDiariaRepository.findRangoByHotel(hotelId);
+            List<OcupacionDiariaRepository.OcupacionCalculadaView> filas = rango.getDesde() == null
+                    ? List.of()
+                    : calcularEnTramos(hotelId, rango.getDesde(), rango.getHasta().plusDays(1), enParalelo);
+
+            ocupacionDiariaRepository.deleteByHotel(hotelId);
+            for (OcupacionDiariaRepository.OcupacionCalculadaView f : filas) {
+                entityManager.persist(OcupacionDiaria.builder()
+                        .hotelId(hotelId)
+                        .fecha(f.getFecha())
+                        .habitacionesOcupadas(f.getHabitacionesOcupadas())
+                        .llegadas(f.getLlegadas())
+                        .salidas(f.getSalidas())
+                        .ingresos(f.getIngresos())
+                        .build());
+            }
+            entityManager.flush();
+            entityManager.clear();
+
+            return OcupacionReconstruccionResponse.builder()
+                    .hotelId(hotelId)
+                    .desde(rango.getDesde())
+                    .hasta(rango.getHasta())
+                    .dias(filas.size())
+                    .milisegundos(System.currentTimeMillis() - inicio)
+                    .build();
+        });
+    }
+
+    /**
+     * Si el llamador ya venía con una transacción abierta, los tramos corren en su hilo:
+     * los del pool no verían lo que esa transacción todavía no commiteó.
+     */
+    private List<OcupacionDiariaRepository.OcupacionCalculadaView> calcularEnTramos(Long hotelId,
+                                                                                    LocalDate desde,
+                                                                                    LocalDate hasta,
+                                                                                    boolean enParalelo) {
+        Executor ejecutor = enParalelo ? reportesExecutor : Runnable::run;
+        List<CompletableFuture<List<OcupacionDiariaRepository.OcupacionCalculadaView>>> tramos = new ArrayList<>();
+        for (LocalDate d = desde; d.isBefore(hasta); d = d.plusDays(diasPorTramo)) {
+            LocalDate inicioTramo = d;
+            LocalDate finTramo = d.plusDays(diasPorTramo).isBefore(hasta) ? d.plusDays(diasPorTramo) : hasta;
+            tramos.add(CompletableFuture.supplyAsync(
+                    () -> ocupacionDiariaRepository.calcular(hotelId, inicioTramo, finTramo), ejecutor));
+        }
+
+        List<OcupacionDiariaRepository.OcupacionCalculadaView> filas = new ArrayList<>();
+        try {
+            tramos.forEach(t -> filas.addAll(t.join()));
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : e;
+        }
+        return filas;
+    }
+
+    // ========= VERIFICACIÓN =========
+
+    /**
+     * Compara la proyección con el cálculo desde cero y devuelve los días que no coinciden.
+     * No toma el lock del hotel: con reservas entrando en ese momento puede marcar
+     * diferencias transitorias, que desaparecen al volver a correrlo.
+     */
+    public OcupacionVerificacionResponse verificar(Long hotelId, LocalDate desde, LocalDate hasta) {
+        validarHotel(hotelId);
+        validarRango(desde, hasta);
+
+        Map<LocalDate, OcupacionDiariaRepository.OcupacionCalculadaView> esperado =
+                calcularEnTramos(hotelId, desde, hasta,
+                        !TransactionSynchronizationManager.isActualTransactionActive()).stream()
+                        .collect(Collectors.toMap(OcupacionDiariaRepository.OcupacionCalculadaView::getFecha,
+                                Function.identity()));
+        Map<LocalDate, OcupacionDiaria> actual = ocupacionDiariaRepository
+                .findByHotelIdAndFechaGreaterThanEqualAndFechaLessThanOrderByFecha(hotelId, desde, hasta).stream()
+                .collect(Collectors.toMap(OcupacionDiaria::getFecha, Function.identity()));
+
+        List<OcupacionDiferenciaResponse> diferencias = new ArrayList<>();
+        for (LocalDate d = desde; d.isBefore(hasta); d = d.plusDays(1)) {
+            OcupacionDiariaRepository.OcupacionCalculadaView e = esperado.get(d);
+            OcupacionDiaria a = actual.get(d);
+
+            comparar(diferencias, d, "habitacionesOcupadas",
+                    e != null ? e.getHabitacionesOcupadas() : 0, a != null ? a.getHabitacionesOcupadas() : 0);
+            comparar(diferencias, d, "llegadas",
+                    e != null ? e.getLlegadas() : 0, a != null ? a.getLlegadas() : 0);
+            comparar(diferencias, d, "salidas",
+                    e != null ? e.getSalidas() : 0, a != null ? a.getSalidas() : 0);
+            comparar(diferencias, d, "ingresos",
+                    e != null ? e.getIngresos() : BigDecimal.ZERO, a != null ? a.getIngresos() : BigDecimal.ZERO);
+        }
+
+        return OcupacionVerificacionResponse.builder()
+                .hotelId(hotelId)
+                .desde(desde)
+                .hasta(hasta)
+                .consistente(diferencias.isEmpty())
+                .diferencias(diferencias)
+                .build();
+    }
+
+    private static void comparar(List<OcupacionDiferenciaResponse> diferencias,
+                                 LocalDate fecha, String campo, Object esperado, Object actual) {
+        boolean iguales = esperado instanceof BigDecimal e && actual instanceof BigDecimal a
+                ? e.compareTo(a) == 0
+                : Objects.equals(esperado, actual);
+        if (!iguales) {
+            diferencias.add(new OcupacionDiferenciaResponse(fecha, campo, esperado.toString(), actual.toString()));
+        }
+    }
+
+    // ========= HELPERS =========
+
+    private void validarHotel(Long hotelId) {
+        Cliente cliente = tenantUtil.getClienteActual();
+        if (!hotelRepository.existsByIdAndCliente_Id(hotelId, cliente.getId())) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Hotel no encontrado");
+        }
+    }
+
+    private static void validarRango(LocalDate desde, LocalDate hasta) {
+        if (desde == null || hasta == null || !desde.isBefore(hasta)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Rango de fechas inválido");
+        }
+        if (ChronoUnit.DAYS.between(desde, hasta) > MAX_DIAS_VERIFICACION) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "El rango no puede superar " + MAX_DIAS_VERIFICACION + " días");
+        }
+    }
+}
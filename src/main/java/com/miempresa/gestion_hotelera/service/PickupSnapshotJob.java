@@ -0,0 +1,33 @@
+package com.miempresa.gestion_hotelera.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Foto nocturna de lo reservado para el reporte de pickup. Corre antes que la
+ * asignación nocturna para que la foto no dependa de esa corrida.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.pickup.snapshot.habilitado", havingValue = "true", matchIfMissing = true)
+public class PickupSnapshotJob {
+
+    private final PickupSnapshotService pickupSnapshotService;
+
+    @Scheduled(cron = "${app.pickup.snapshot.cron:0 5 0 * * *}")
+    public void ejecutar() {
+        LocalDate hoy = LocalDate.now();
+        try {
+            int filas = pickupSnapshotService.tomarSnapshot(hoy);
+            log.info("Snapshot de pickup {}: {} filas", hoy, filas);
+        } catch (RuntimeException e) {
+            log.warn("Snapshot de pickup {} falló: {}", hoy, e.getMessage());
+        }
+    }
+}
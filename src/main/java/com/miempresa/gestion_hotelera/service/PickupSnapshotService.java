@@ -0,0 +1,154 @@
+package com.miempresa.gestion_hotelera.service;
+
+import com.miempresa.gestion_hotelera.dto.PickupDiaResponse;
+import com.miempresa.gestion_hotelera.dto.PickupReporteResponse;
+import com.miempresa.gestion_hotelera.entity.Cliente;
+import com.miempresa.gestion_hotelera.entity.PickupSnapshot;
+import com.miempresa.gestion_hotelera.repository.HotelRepository;
+import com.miempresa.gestion_hotelera.repository.PickupSnapshotRepository;
+import com.miempresa.gestion_hotelera.security.TenantUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fotos diarias de lo reservado por noche (tabla pickup_snapshot) y el reporte
+ * de ritmo de reservas que las compara.
+ *
+ * Reconstruir "qué había reservado para tal noche hace un año" desde reserva no
+ * es posible sin historial de cambios; con las fotos, el pickup de los últimos
+ * N días es la resta entre la foto de hoy y la de hace N días, y el año anterior
+ * es el mismo par de fotos corrido 52 semanas.
+ */
+@Service
+@RequiredArgsConstructor
+public class PickupSnapshotService {
+
+    // 52 semanas: la noche comparada cae el mismo día de la semana
+    private static final int DIAS_ANIO_ANTERIOR = 364;
+    private static final int MAX_DIAS_REPORTE = 366;
+    private static final int MAX_DIAS_PICKUP = 90;
+
+    private final PickupSnapshotRepository pickupSnapshotRepository;
+    private final HotelRepository hotelRepository;
+    private final TenantUtil tenantUtil;
+
+    @Value("${app.pickup.horizonte-dias:365}")
+    private int horizonteDias;
+
+    // ========= FOTO =========
+
+    /**
+     * Toma (o rehace) la foto del día para todos los hoteles: noches de
+     * [fecha, fecha + horizonte). Es idempotente dentro del mismo día.
+     */
+    @Transactional
+    public int tomarSnapshot(LocalDate fecha) {
+        pickupSnapshotRepository.deleteBySnapshot(fecha);
+        return pickupSnapshotRepository.insertarSnapshot(fecha, fecha.plusDays(horizonteDias));
+    }
+
+    // ========= REPORTE =========
+
+    @Transactional(readOnly = true)
+    public PickupReporteResponse reporte(Long hotelId,
+                                         LocalDate desde,
+                                         LocalDate hasta,
+                                         LocalDate fechaSnapshot,
+                                         Integer diasPickup) {
+
+        if (desde == null || hasta == null || !desde.isBefore(hasta)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Rango de fechas inválido");
+        }
+        if (ChronoUnit.DAYS.between(desde, hasta) > MAX_DIAS_REPORTE) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, "El rango no puede superar " + MAX_DIAS_REPORTE + " días");
+        }
+        int pickup = diasPickup != null ? diasPickup : 7;
+        if (pickup < 1 || pickup > MAX_DIAS_PICKUP) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, "diasPickup debe estar entre 1 y " + MAX_DIAS_PICKUP);
+        }
+
+        Cliente cliente = tenantUtil.getClienteActual();
+        if (!hotelRepository.existsByIdAndCliente_Id(hotelId, cliente.getId())) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Hotel no encontrado");
+        }
+
+        LocalDate snapshot = fechaSnapshot != null ? fechaSnapshot : LocalDate.now();
+        LocalDate snapshotPickup = snapshot.minusDays(pickup);
+        LocalDate snapshotAnterior = snapshot.minusDays(DIAS_ANIO_ANTERIOR);
+        LocalDate snapshotPickupAnterior = snapshotPickup.minusDays(DIAS_ANIO_ANTERIOR);
+
+        // Una sola lectura; se indexa por (foto, noche) para armar cada día sin volver a la base
+        Map<LocalDate, Map<LocalDate, PickupSnapshot>> fotos = new HashMap<>();
+        for (PickupSnapshot p : pickupSnapshotRepository.findParaReporte(hotelId,
+                snapshot, snapshotPickup, desde, hasta,
+                snapshotAnterior, snapshotPickupAnterior,
+                desde.minusDays(DIAS_ANIO_ANTERIOR), hasta.minusDays(DIAS_ANIO_ANTERIOR))) {
+            fotos.computeIfAbsent(p.getFechaSnapshot(), f -> new HashMap<>()).put(p.getFechaEstadia(), p);
+        }
+
+        List<PickupDiaResponse> dias = new ArrayList<>();
+        for (LocalDate d = desde; d.isBefore(hasta); d = d.plusDays(1)) {
+            LocalDate dAnterior = d.minusDays(DIAS_ANIO_ANTERIOR);
+
+            PickupSnapshot actual = fila(fotos, snapshot, d);
+            PickupSnapshot previa = fila(fotos, snapshotPickup, d);
+            PickupSnapshot anterior = fila(fotos, snapshotAnterior, dAnterior);
+            PickupSnapshot anteriorPrevia = fila(fotos, snapshotPickupAnterior, dAnterior);
+
+            dias.add(PickupDiaResponse.builder()
+                    .fechaEstadia(d)
+                    .diasAnticipacion(ChronoUnit.DAYS.between(snapshot, d))
+                    .habitaciones(habitaciones(actual))
+                    .ingresos(ingresos(actual))
+                    .pickupHabitaciones(habitaciones(actual) - habitaciones(previa))
+                    .pickupIngresos(ingresos(actual).subtract(ingresos(previa)))
+                    .habitacionesAnioAnterior(habitaciones(anterior))
+                    .ingresosAnioAnterior(ingresos(anterior))
+                    .pickupHabitacionesAnioAnterior(habitaciones(anterior) - habitaciones(anteriorPrevia))
+                    .pickupIngresosAnioAnterior(ingresos(anterior).subtract(ingresos(anteriorPrevia)))
+                    .build());
+        }
+
+        return PickupReporteResponse.builder()
+                .hotelId(hotelId)
+                .fechaSnapshot(snapshot)
+                .fechaSnapshotAnioAnterior(snapshotAnterior)
+                .diasPickup(pickup)
+                .snapshotDisponible(pickupSnapshotRepository.existsByFechaSnapshot(snapshot))
+                .pickupDisponible(pickupSnapshotRepository.existsByFechaSnapshot(snapshotPickup))
+                .anioAnteriorDisponible(pickupSnapshotRepository.existsByFechaSnapshot(snapshotAnterior))
+                .dias(dias)
+                .build();
+    }
+
+    // ========= HELPERS =========
+
+    private static PickupSnapshot fila(Map<LocalDate, Map<LocalDate, PickupSnapshot>> fotos,
+                                       LocalDate fechaSnapshot,
+                                       LocalDate fechaEstadia) {
+        Map<LocalDate, PickupSnapshot> foto = fotos.get(fechaSnapshot);
+        return foto != null ? foto.get(fechaEstadia) : null;
+    }
+
+    private static int habitaciones(PickupSnapshot p) {
+        return p != null ? p.getHabitaciones() : 0;
+    }
+
+    private static BigDecimal ingresos(PickupSnapshot p) {
+        return p != null && p.getIngresos() != null ? p.getIngresos() : BigDecimal.ZERO;
+    }
+}
@@ -1,28 +1,65 @@
 package com.miempresa.gestion_hotelera.service;
 
+import com.miempresa.gestion_hotelera.dto.CacheEstadisticasResponse;
 import com.miempresa.gestion_hotelera.dto.DisponibilidadHotelResponse;
 import com.miempresa.gestion_hotelera.dto.HabitacionResponse;
+import com.miempresa.gestion_hotelera.dto.HuespedRequest;
+import com.miempresa.gestion_hotelera.dto.InventarioHotelResponse;
+import com.miempresa.gestion_hotelera.dto.InventarioTipoResponse;
 import com.miempresa.gestion_hotelera.dto.PagoResponse;
 import com.miempresa.gestion_hotelera.dto.PagoSeniaRequest;
 import com.miempresa.gestion_hotelera.dto.PagosReservaResponse;
+import com.miempresa.gestion_hotelera.dto.ReservaBusquedaRequest;
 import com.miempresa.gestion_hotelera.dto.ReservaCreateRequest;
+import com.miempresa.gestion_hotelera.dto.ReservaFiltroRequest;
+import com.miempresa.gestion_hotelera.dto.ReservaGrupoErrorResponse;
+import com.miempresa.gestion_hotelera.dto.ReservaGrupoItemRequest;
+import com.miempresa.gestion_hotelera.dto.ReservaGrupoRequest;
+import com.miempresa.gestion_hotelera.dto.ReservaGrupoResponse;
+import com.miempresa.gestion_hotelera.dto.ReservaPaginaResponse;
 import com.miempresa.gestion_hotelera.dto.ReservaResponse;
 import com.miempresa.gestion_hotelera.entity.*;
-import com.miempresa.gestion_hotelera.mapper.HabitacionMapper;
+import com.miempresa.gestion_hotelera.event.ReservaModificadaEvent;
+import com.miempresa.gestion_hotelera.mapper.HuespedMapper;
 import com.miempresa.gestion_hotelera.mapper.ReservaMapper;
 import com.miempresa.gestion_hotelera.repository.*;
 import com.miempresa.gestion_hotelera.security.TenantUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -35,9 +72,19 @@ public class ReservaService {
     private final HuespedRepository huespedRepository;
     private final ReservaHuespedRepository reservaHuespedRepository;
     private final ReservaMapper reservaMapper;
-    private final HabitacionMapper habitacionMapper;
+    private final HuespedMapper huespedMapper;
     private final PagoRepository pagoRepository;
     private final TenantUtil tenantUtil;
+    private final DisponibilidadIndex disponibilidadIndex;
+    private final DisponibilidadCache disponibilidadCache;
+    private final OcupacionDiariaService ocupacionDiariaService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+
+    // false = resolver la disponibilidad con una consulta SQL en lugar del índice en memoria
+    @Value("${app.disponibilidad.index.habilitado:true}")
+    private boolean indiceHabilitado;
 
     // ======== HELPERS MULTI-TENANT =========
 
@@ -145,7 +192,17 @@ public class ReservaService {
         reserva.setCreadoEn(LocalDateTime.now());
         reserva.setActualizadoEn(LocalDateTime.now());
 
-        Reserva guardada = reservaRepository.save(reserva);
+        // El chequeo de arriba da un error rápido; la garantía real es la constraint
+        // reserva_habitacion_sin_superposicion, que frena reservas concurrentes
+        Reserva guardada;
+        try {
+            guardada = reservaRepository.saveAndFlush(reserva);
+        } catch (DataIntegrityViolationException e) {
+            if (esSuperposicion(e)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "La habitación ya está reservada en ese rango");
+            }
+            throw e;
+        }
 
         // vincular huésped titular + acompañantes
         ReservaHuesped rhTitular = ReservaHuesped.builder()
@@ -168,68 +225,552 @@ public class ReservaService {
                 .map(Huesped::getId)
                 .collect(Collectors.toList());
 
+        ocupacionDiariaService.registrarAlta(guardada);
+        eventPublisher.publishEvent(ReservaModificadaEvent.de(guardada));
+
         return reservaMapper.toResponse(guardada, titular.getId(), acompanianteIds);
     }
 
+    // ========= CREAR RESERVAS EN LOTE (grupos) =========
+
+    private static final int MAX_RESERVAS_GRUPO = 500;
+
+    /**
+     * Crea todas las reservas de un grupo o ninguna. Valida el lote completo
+     * (incluida la disponibilidad contra la base y entre las filas del propio lote)
+     * con un puñado de consultas, y después inserta huéspedes, reservas y vínculos
+     * con batching JDBC. Si alguna fila falla, devuelve los errores por índice sin guardar nada.
+     */
+    @Transactional
+    public ReservaGrupoResponse crearGrupo(ReservaGrupoRequest req) {
+
+        List<ReservaGrupoItemRequest> items = req.getReservas() == null ? List.of() : req.getReservas();
+        if (items.isEmpty() || items.size() > MAX_RESERVAS_GRUPO) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "El grupo debe tener entre 1 y " + MAX_RESERVAS_GRUPO + " reservas");
+        }
+
+        Cliente cliente = getClienteActual();
+        Hotel hotel = getHotelDelClienteActual(req.getHotelId());
+
+        // ---- Datos de referencia: una consulta por tabla ----
+        Map<Long, TipoHabitacion> tipos = tipoHabitacionRepository.findByHotel_Id(hotel.getId()).stream()
+                .collect(Collectors.toMap(TipoHabitacion::getId, t -> t));
+        Map<Long, Habitacion> habitaciones = habitacionRepository.findByHotel_Id(hotel.getId()).stream()
+                .collect(Collectors.toMap(Habitacion::getId, h -> h));
+
+        Set<Long> huespedIds = new HashSet<>();
+        for (ReservaGrupoItemRequest item : items) {
+            if (item.getHuespedTitularId() != null) huespedIds.add(item.getHuespedTitularId());
+            if (item.getAcompanianteIds() != null) huespedIds.addAll(item.getAcompanianteIds());
+        }
+        Map<Long, Huesped> huespedes = huespedRepository.findAllById(huespedIds).stream()
+                .collect(Collectors.toMap(Huesped::getId, h -> h));
+
+        // ---- Validación por fila ----
+        List<ReservaGrupoErrorResponse> errores = new ArrayList<>();
+        LocalDate desde = null;
+        LocalDate hasta = null;
+
+        for (int i = 0; i < items.size(); i++) {
+            ReservaGrupoItemRequest item = items.get(i);
+            String error = validarItemGrupo(item, tipos, habitaciones, huespedes);
+            if (error != null) {
+                errores.add(new ReservaGrupoErrorResponse(i, error));
+                continue;
+            }
+            if (item.getHabitacionId() != null) {
+                desde = desde == null || item.getCheckIn().isBefore(desde) ? item.getCheckIn() : desde;
+                hasta = hasta == null || item.getCheckOut().isAfter(hasta) ? item.getCheckOut() : hasta;
+            }
+        }
+
+        // ---- Disponibilidad: ocupación existente + filas anteriores del mismo lote ----
+        if (desde != null) {
+            Map<Long, List<LocalDate[]>> ocupadas = new HashMap<>();
+            for (ReservaRepository.OcupacionView o : reservaRepository.findOcupacionByHotelEnRango(
+                    hotel.getId(), EstadoReserva.ACTIVOS, desde, hasta)) {
+                ocupadas.computeIfAbsent(o.getHabitacionId(), k -> new ArrayList<>())
+                        .add(new LocalDate[]{o.getCheckIn(), o.getCheckOut()});
+            }
+
+            Set<Integer> conError = errores.stream().map(ReservaGrupoErrorResponse::getIndice).collect(Collectors.toSet());
+            for (int i = 0; i < items.size(); i++) {
+                ReservaGrupoItemRequest item = items.get(i);
+                if (item.getHabitacionId() == null || conError.contains(i)) continue;
+
+                List<LocalDate[]> rangos = ocupadas.computeIfAbsent(item.getHabitacionId(), k -> new ArrayList<>());
+                boolean superpuesta = rangos.stream().anyMatch(r ->
+                        r[1].isAfter(item.getCheckIn()) && r[0].isBefore(item.getCheckOut()));
+                if (superpuesta) {
+                    errores.add(new ReservaGrupoErrorResponse(i, "La habitación ya está reservada en ese rango"));
+                } else {
+                    rangos.add(new LocalDate[]{item.getCheckIn(), item.getCheckOut()});
+                }
+            }
+        }
+
+        if (!errores.isEmpty()) {
+            errores.sort(Comparator.comparingInt(ReservaGrupoErrorResponse::getIndice));
+            return ReservaGrupoResponse.builder()
+                    .creado(false)
+                    .cantidad(0)
+                    .reservas(List.of())
+                    .errores(errores)
+                    .build();
+        }
+
+        // ---- Inserción en batch ----
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Reserva> reservas = new ArrayList<>(items.size());
+        List<Long> titularIds = new ArrayList<>(items.size());
+        List<List<Long>> acompIdsPorReserva = new ArrayList<>(items.size());
+
+        for (ReservaGrupoItemRequest item : items) {
+            Huesped titular = item.getHuespedTitularId() != null
+                    ? huespedes.get(item.getHuespedTitularId())
+                    : nuevoHuesped(item.getTitular(), cliente, ahora);
+
+            List<Huesped> acompanantes = new ArrayList<>();
+            if (item.getAcompanianteIds() != null) {
+                item.getAcompanianteIds().forEach(id -> acompanantes.add(huespedes.get(id)));
+            }
+            if (item.getAcompaniantes() != null) {
+                item.getAcompaniantes().forEach(h -> acompanantes.add(nuevoHuesped(h, cliente, ahora)));
+            }
+
+            ReservaCreateRequest datos = new ReservaCreateRequest();
+            datos.setCheckIn(item.getCheckIn());
+            datos.setCheckOut(item.getCheckOut());
+            datos.setAdultos(item.getAdultos());
+            datos.setNinos(item.getNinos());
+            datos.setCanal(item.getCanal());
+            datos.setPrecioTotal(item.getPrecioTotal());
+            datos.setMoneda(item.getMoneda());
+            datos.setComentariosCliente(item.getComentariosCliente());
+
+            Reserva reserva = reservaMapper.toEntity(
+                    datos,
+                    hotel,
+                    tipos.get(item.getTipoHabitacionId()),
+                    item.getHabitacionId() != null ? habitaciones.get(item.getHabitacionId()) : null);
+            reserva.setCreadoEn(ahora);
+            reserva.setActualizadoEn(ahora);
+            entityManager.persist(reserva);
+
+            entityManager.persist(ReservaHuesped.builder().reserva(reserva).huesped(titular).esTitular(true).build());
+            for (Huesped acomp : acompanantes) {
+                entityManager.persist(ReservaHuesped.builder().reserva(reserva).huesped(acomp).esTitular(false).build());
+            }
+
+            reservas.add(reserva);
+            titularIds.add(titular.getId());
+            acompIdsPorReserva.add(acompanantes.stream().map(Huesped::getId).collect(Collectors.toList()));
+        }
+
+        try {
+            entityManager.flush();
+        } catch (PersistenceException | DataIntegrityViolationException e) {
+            // Otra reserva entró entre la validación y el insert
+            if (esSuperposicion(e)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Alguna habitación del grupo fue reservada mientras se procesaba el lote");
+            }
+            throw e;
+        }
+
+        List<ReservaResponse> respuestas = new ArrayList<>(reservas.size());
+        for (int i = 0; i < reservas.size(); i++) {
+            ocupacionDiariaService.registrarAlta(reservas.get(i));
+            eventPublisher.publishEvent(ReservaModificadaEvent.de(reservas.get(i)));
+            respuestas.add(reservaMapper.toResponse(reservas.get(i), titularIds.get(i), acompIdsPorReserva.get(i)));
+        }
+
+        return ReservaGrupoResponse.builder()
+                .creado(true)
+                .cantidad(respuestas.size())
+                .reservas(respuestas)
+                .errores(List.of())
+                .build();
+    }
+
+    private String validarItemGrupo(ReservaGrupoItemRequest item,
+                                    Map<Long, TipoHabitacion> tipos,
+                                    Map<Long, Habitacion> habitaciones,
+                                    Map<Long, Huesped> huespedes) {
+
+        if (item.getCheckIn() == null || item.getCheckOut() == null ||
+                !item.getCheckIn().isBefore(item.getCheckOut())) {
+            return "Fechas de check-in/out inválidas";
+        }
+        if (item.getTipoHabitacionId() == null || !tipos.containsKey(item.getTipoHabitacionId())) {
+            return "El tipo de habitación no pertenece al hotel indicado";
+        }
+        if (item.getHabitacionId() != null && !habitaciones.containsKey(item.getHabitacionId())) {
+            return "La habitación no pertenece al hotel indicado";
+        }
+        if (item.getHuespedTitularId() == null && item.getTitular() == null) {
+            return "Falta el huésped titular";
+        }
+        if (item.getHuespedTitularId() != null && !huespedes.containsKey(item.getHuespedTitularId())) {
+            return "Huésped titular no encontrado";
+        }
+        if (item.getTitular() != null && item.getHuespedTitularId() == null &&
+                (item.getTitular().getNombre() == null || item.getTitular().getApellido() == null)) {
+            return "El huésped titular nuevo necesita nombre y apellido";
+        }
+        if (item.getAcompanianteIds() != null) {
+            for (Long id : item.getAcompanianteIds()) {
+                if (!huespedes.containsKey(id)) {
+                    return "Huésped acompañante no encontrado: " + id;
+                }
+            }
+        }
+        return null;
+    }
+
+    private Huesped nuevoHuesped(HuespedRequest datos, Cliente cliente, LocalDateTime ahora) {
+        Huesped huesped = huespedMapper.toEntity(datos);
+        huesped.setCliente(cliente);
+        huesped.setCreadoEn(ahora);
+        entityManager.persist(huesped);
+        return huesped;
+    }
+
+    private static final String CONSTRAINT_SUPERPOSICION = "reserva_habitacion_sin_superposicion";
+    private static final String SQLSTATE_EXCLUSION_VIOLATION = "23P01";
+
+    private boolean esSuperposicion(RuntimeException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ConstraintViolationException cve
+                    && CONSTRAINT_SUPERPOSICION.equalsIgnoreCase(cve.getConstraintName())) {
+                return true;
+            }
+            if (t instanceof SQLException sql
+                    && SQLSTATE_EXCLUSION_VIOLATION.equals(sql.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     // ========= LISTAR / OBTENER =========
 
     public List<ReservaResponse> listar() {
         Cliente cliente = getClienteActual();
 
-        return reservaRepository.findByHotel_Cliente_Id(cliente.getId()).stream()
-                .map(reserva -> {
-                    List<ReservaHuesped> vinculos = reservaHuespedRepository.findAll()
-                            .stream()
-                            .filter(rh -> rh.getReserva().getId().equals(reserva.getId()))
-                            .collect(Collectors.toList());
-
-                    Long titularId = vinculos.stream()
-                            .filter(ReservaHuesped::getEsTitular)
-                            .map(rh -> rh.getHuesped().getId())
-                            .findFirst()
-                            .orElse(null);
-
-                    List<Long> acompIds = vinculos.stream()
-                            .filter(rh -> Boolean.FALSE.equals(rh.getEsTitular()))
-                            .map(rh -> rh.getHuesped().getId())
-                            .collect(Collectors.toList());
-
-                    return reservaMapper.toResponse(reserva, titularId, acompIds);
-                })
-                .collect(Collectors.toList());
+        List<Reserva> reservas = reservaRepository.findByHotel_Cliente_Id(cliente.getId());
+        return toResponses(reservas);
     }
 
     public ReservaResponse obtener(Long id) {
         Reserva reserva = getReservaDelClienteActual(id);
+        return toResponses(List.of(reserva)).get(0);
+    }
 
-        List<ReservaHuesped> vinculos = reservaHuespedRepository.findAll()
-                .stream()
-                .filter(rh -> rh.getReserva().getId().equals(reserva.getId()))
+    // ========= ETAGS (GET condicional) =========
+
+    /**
+     * ETag débil de una reserva sin cargar la entidad ni sus vínculos: sale de
+     * actualizadoEn más una huella del set de huéspedes (cantidad, suma de ids
+     * y titular). Valida también que la reserva sea del cliente actual.
+     */
+    public String etagReserva(Long id) {
+        Cliente cliente = getClienteActual();
+        ReservaRepository.VersionReservaView version = reservaRepository.findVersion(id)
+                .filter(v -> cliente.getId().equals(v.getClienteId()))
+                .orElseThrow(() -> new ResponseStatusException(
+                        HttpStatus.NOT_FOUND, "Reserva no encontrada"));
+
+        return "W/\"r" + version.getId()
+                + "-" + marca(version.getActualizadoEn())
+                + "-" + version.getVinculos()
+                + "-" + version.getSumaHuespedes()
+                + "-" + version.getTitular() + "\"";
+    }
+
+    /** ETag débil del listado completo del cliente: última actualización y cantidad de reservas. */
+    public String etagListado() {
+        Cliente cliente = getClienteActual();
+        ReservaRepository.MarcaAguaView marca = reservaRepository.findMarcaAguaByCliente(cliente.getId());
+
+        return "W/\"c" + cliente.getId()
+                + "-" + marca(marca.getActualizadoEn())
+                + "-" + marca.getCantidad() + "\"";
+    }
+
+    private static String marca(LocalDateTime actualizadoEn) {
+        if (actualizadoEn == null) return "0";
+        return Long.toString(actualizadoEn.toEpochSecond(ZoneOffset.UTC), 36)
+                + "." + Integer.toString(actualizadoEn.getNano(), 36);
+    }
+
+    // ========= VÍNCULOS HUÉSPED-RESERVA =========
+
+    private static final int TAMANIO_LOTE_VINCULOS = 1000;
+
+    /**
+     * Mapea un lote de reservas cargando titular y acompañantes de todas juntas
+     * (una consulta cada TAMANIO_LOTE_VINCULOS reservas, no una por reserva).
+     */
+    private List<ReservaResponse> toResponses(List<Reserva> reservas) {
+        Map<Long, List<ReservaHuespedRepository.VinculoView>> vinculosPorReserva =
+                cargarVinculos(reservas.stream().map(Reserva::getId).toList());
+
+        return reservas.stream()
+                .map(reserva -> {
+                    List<ReservaHuespedRepository.VinculoView> vinculos =
+                            vinculosPorReserva.getOrDefault(reserva.getId(), List.of());
+                    return reservaMapper.toResponse(reserva, titularId(vinculos), acompanianteIds(vinculos));
+                })
                 .collect(Collectors.toList());
+    }
+
+    private Map<Long, List<ReservaHuespedRepository.VinculoView>> cargarVinculos(List<Long> reservaIds) {
+        Map<Long, List<ReservaHuespedRepository.VinculoView>> vinculosPorReserva = new HashMap<>();
 
-        Long titularId = vinculos.stream()
-                .filter(ReservaHuesped::getEsTitular)
-                .map(rh -> rh.getHuesped().getId())
+        for (int i = 0; i < reservaIds.size(); i += TAMANIO_LOTE_VINCULOS) {
+            List<Long> lote = reservaIds.subList(i, Math.min(i + TAMANIO_LOTE_VINCULOS, reservaIds.size()));
+            for (ReservaHuespedRepository.VinculoView v : reservaHuespedRepository.findVinculosByReservaIds(lote)) {
+                vinculosPorReserva.computeIfAbsent(v.getReservaId(), k -> new ArrayList<>()).add(v);
+            }
+        }
+        return vinculosPorReserva;
+    }
+
+    private Long titularId(List<ReservaHuespedRepository.VinculoView> vinculos) {
+        return vinculos.stream()
+                .filter(v -> Boolean.TRUE.equals(v.getEsTitular()))
+                .map(ReservaHuespedRepository.VinculoView::getHuespedId)
                 .findFirst()
                 .orElse(null);
+    }
 
-        List<Long> acompIds = vinculos.stream()
-                .filter(rh -> Boolean.FALSE.equals(rh.getEsTitular()))
-                .map(rh -> rh.getHuesped().getId())
+    private List<Long> acompanianteIds(List<ReservaHuespedRepository.VinculoView> vinculos) {
+        return vinculos.stream()
+                .filter(v -> Boolean.FALSE.equals(v.getEsTitular()))
+                .map(ReservaHuespedRepository.VinculoView::getHuespedId)
                 .collect(Collectors.toList());
+    }
 
-        return reservaMapper.toResponse(reserva, titularId, acompIds);
+    // ========= LISTADO PAGINADO (keyset) / STREAMING =========
+
+    private static final int LIMITE_DEFAULT = 50;
+    private static final int LIMITE_MAXIMO = 500;
+
+    /**
+     * Página de reservas ordenada por (checkIn, id). El cursor es la última
+     * fila de la página anterior, así que cada página cuesta lo mismo sin
+     * importar cuánta historia tenga el cliente.
+     */
+    public ReservaPaginaResponse listarPagina(ReservaFiltroRequest filtro) {
+        Cliente cliente = getClienteActual();
+
+        int limite = filtro.getLimite() != null ? filtro.getLimite() : LIMITE_DEFAULT;
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, "El límite debe estar entre 1 y " + LIMITE_MAXIMO);
+        }
+
+        LocalDate cursorCheckIn = null;
+        Long cursorId = null;
+        if (filtro.getCursor() != null && !filtro.getCursor().isBlank()) {
+            try {
+                String[] partes = new String(Base64.getUrlDecoder().decode(filtro.getCursor()),
+                        StandardCharsets.UTF_8).split("\\|");
+                cursorCheckIn = LocalDate.parse(partes[0]);
+                cursorId = Long.parseLong(partes[1]);
+            } catch (RuntimeException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor inválido");
+            }
+        }
+
+        // Pedimos una fila de más para saber si hay otra página
+        List<Reserva> reservas = reservaRepository.findPaginaByCliente(
+                cliente.getId(),
+                filtro.getHotelId(),
+                parseEstado(filtro.getEstado()),
+                filtro.getDesde(),
+                filtro.getHasta(),
+                cursorCheckIn,
+                cursorId,
+                PageRequest.of(0, limite + 1)
+        );
+
+        String siguienteCursor = null;
+        if (reservas.size() > limite) {
+            reservas = reservas.subList(0, limite);
+            Reserva ultima = reservas.get(limite - 1);
+            siguienteCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    (ultima.getCheckIn() + "|" + ultima.getId()).getBytes(StandardCharsets.UTF_8));
+        }
+
+        return ReservaPaginaResponse.builder()
+                .items(toResponses(reservas))
+                .siguienteCursor(siguienteCursor)
+                .build();
+    }
+
+    // ========= BÚSQUEDA =========
+
+    private static final Set<String> ORDENES_BUSQUEDA = Set.of("checkIn", "checkOut", "creadoEn");
+
+    /**
+     * Búsqueda con filtros combinables, orden elegible y paginado keyset sobre
+     * (campo de orden, id). El cursor lleva también el orden con el que se generó
+     * para no mezclar páginas de órdenes distintos.
+     */
+    @Transactional(readOnly = true)
+    public ReservaPaginaResponse buscar(ReservaBusquedaRequest filtro) {
+        Cliente cliente = getClienteActual();
+
+        int limite = filtro.getLimite() != null ? filtro.getLimite() : LIMITE_DEFAULT;
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, "El límite debe estar entre 1 y " + LIMITE_MAXIMO);
+        }
+        if (filtro.getDesde() != null && filtro.getHasta() != null && !filtro.getDesde().isBefore(filtro.getHasta())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Rango de fechas inválido");
+        }
+
+        String orden = filtro.getOrden() == null || filtro.getOrden().isBlank() ? "checkIn" : filtro.getOrden();
+        if (!ORDENES_BUSQUEDA.contains(orden)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Orden inválido: " + orden);
+        }
+        boolean descendente = "desc".equalsIgnoreCase(filtro.getDireccion());
+        String sentido = descendente ? "desc" : "asc";
+
+        Specification<Reserva> despuesDelCursor = null;
+        if (filtro.getCursor() != null && !filtro.getCursor().isBlank()) {
+            String[] partes;
+            try {
+                partes = new String(Base64.getUrlDecoder().decode(filtro.getCursor()),
+                        StandardCharsets.UTF_8).split("\\|");
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor inválido");
+            }
+            if (partes.length != 4 || !partes[0].equals(orden) || !partes[1].equals(sentido)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor inválido para este orden");
+            }
+            try {
+                Long cursorId = Long.parseLong(partes[3]);
+                despuesDelCursor = "creadoEn".equals(orden)
+                        ? ReservaSpecifications.despuesDe(orden, LocalDateTime.parse(partes[2]), cursorId, descendente)
+                        : ReservaSpecifications.despuesDe(orden, LocalDate.parse(partes[2]), cursorId, descendente);
+            } catch (RuntimeException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor inválido");
+            }
+        }
+
+        Specification<Reserva> spec = Specification.allOf(
+                ReservaSpecifications.delCliente(cliente.getId()),
+                ReservaSpecifications.delHotel(filtro.getHotelId()),
+                ReservaSpecifications.enRango(filtro.getDesde(), filtro.getHasta()),
+                ReservaSpecifications.conEstado(parseEstado(filtro.getEstado())),
+                ReservaSpecifications.conCanal(filtro.getCanal()),
+                ReservaSpecifications.conEstadoPago(parseEstadoPago(filtro.getEstadoPago())),
+                ReservaSpecifications.conHuesped(filtro.getHuespedId()),
+                ReservaSpecifications.conHuespedTexto(filtro.getHuesped()),
+                despuesDelCursor);
+
+        Sort.Direction direccion = descendente ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort sort = Sort.by(direccion, orden).and(Sort.by(direccion, "id"));
+
+        // Una fila de más para saber si hay otra página
+        List<Reserva> reservas = reservaRepository.findBy(spec, q -> q.sortBy(sort).limit(limite + 1).all());
+
+        String siguienteCursor = null;
+        if (reservas.size() > limite) {
+            reservas = reservas.subList(0, limite);
+            Reserva ultima = reservas.get(limite - 1);
+            Object valor = switch (orden) {
+                case "checkOut" -> ultima.getCheckOut();
+                case "creadoEn" -> ultima.getCreadoEn();
+                default -> ultima.getCheckIn();
+            };
+            siguienteCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    (orden + "|" + sentido + "|" + valor + "|" + ultima.getId()).getBytes(StandardCharsets.UTF_8));
+        }
+
+        return ReservaPaginaResponse.builder()
+                .items(toResponses(reservas))
+                .siguienteCursor(siguienteCursor)
+                .build();
+    }
+
+    private EstadoPago parseEstadoPago(String estadoPago) {
+        if (estadoPago == null || estadoPago.isBlank()) return null;
+        try {
+            return EstadoPago.valueOf(estadoPago.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Estado de pago inválido: " + estadoPago);
+        }
+    }
+
+    /**
+     * Escribe todas las reservas que cumplen el filtro como NDJSON (una por línea),
+     * leyendo de un cursor de solo avance. Los vínculos de huéspedes se cargan
+     * por lotes a medida que se escribe, así que la memoria no depende del total.
+     */
+    @Transactional(readOnly = true)
+    public void streamNdjson(ReservaFiltroRequest filtro, OutputStream out) throws IOException {
+        Cliente cliente = getClienteActual();
+
+        try (Stream<ReservaRepository.ReservaFilaView> filas = reservaRepository.streamByCliente(
+                cliente.getId(),
+                filtro.getHotelId(),
+                parseEstado(filtro.getEstado()),
+                filtro.getDesde(),
+                filtro.getHasta())) {
+
+            List<ReservaRepository.ReservaFilaView> lote = new ArrayList<>(TAMANIO_LOTE_VINCULOS);
+            Iterator<ReservaRepository.ReservaFilaView> it = filas.iterator();
+            while (it.hasNext()) {
+                lote.add(it.next());
+                if (lote.size() == TAMANIO_LOTE_VINCULOS || !it.hasNext()) {
+                    escribirLote(lote, out);
+                    lote.clear();
+                }
+            }
+        }
+        out.flush();
+    }
+
+    private void escribirLote(List<ReservaRepository.ReservaFilaView> lote, OutputStream out) throws IOException {
+        Map<Long, List<ReservaHuespedRepository.VinculoView>> vinculosPorReserva =
+                cargarVinculos(lote.stream().map(ReservaRepository.ReservaFilaView::getId).toList());
+
+        for (ReservaRepository.ReservaFilaView fila : lote) {
+            List<ReservaHuespedRepository.VinculoView> vinculos =
+                    vinculosPorReserva.getOrDefault(fila.getId(), List.of());
+            out.write(objectMapper.writeValueAsBytes(
+                    reservaMapper.toResponse(fila, titularId(vinculos), acompanianteIds(vinculos))));
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    private EstadoReserva parseEstado(String estado) {
+        if (estado == null || estado.isBlank()) return null;
+        try {
+            return EstadoReserva.valueOf(estado.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Estado de reserva inválido: " + estado);
+        }
     }
 
     // ========= CAMBIOS DE ESTADO =========
     @Transactional
     public ReservaResponse cancelar(Long id) {
         Reserva reserva = getReservaDelClienteActual(id);
+        EstadoReserva anterior = reserva.getEstado();
 
         reserva.setEstado(EstadoReserva.CANCELADA);
         reserva.setActualizadoEn(LocalDateTime.now());
 
         Reserva guardada = reservaRepository.save(reserva);
+        ocupacionDiariaService.registrarCambioEstado(guardada, anterior);
+        eventPublisher.publishEvent(ReservaModificadaEvent.de(guardada));
         return obtener(guardada.getId());
     }
     @Transactional
@@ -243,10 +784,13 @@ public class ReservaService {
             );
         }
 
+        EstadoReserva anterior = reserva.getEstado();
         reserva.setEstado(EstadoReserva.CHECKIN);
         reserva.setActualizadoEn(LocalDateTime.now());
 
         Reserva guardada = reservaRepository.save(reserva);
+        ocupacionDiariaService.registrarCambioEstado(guardada, anterior);
+        eventPublisher.publishEvent(ReservaModificadaEvent.de(guardada));
         return obtener(guardada.getId());
     }
     @Transactional
@@ -260,10 +804,13 @@ public class ReservaService {
             );
         }
 
+        EstadoReserva anterior = reserva.getEstado();
         reserva.setEstado(EstadoReserva.CHECKOUT);
         reserva.setActualizadoEn(LocalDateTime.now());
 
         Reserva guardada = reservaRepository.save(reserva);
+        ocupacionDiariaService.registrarCambioEstado(guardada, anterior);
+        eventPublisher.publishEvent(ReservaModificadaEvent.de(guardada));
         return obtener(guardada.getId());
     }
 
@@ -272,6 +819,15 @@ public class ReservaService {
     public boolean habitacionDisponible(Long habitacionId, LocalDate checkIn, LocalDate checkOut) {
         Habitacion habitacion = getHabitacionDelClienteActual(habitacionId);
 
+        if (indiceHabilitado) {
+            return disponibilidadIndex.habitacionLibre(
+                    habitacion.getHotel().getId(),
+                    habitacion.getId(),
+                    checkIn,
+                    checkOut
+            );
+        }
+
         List<String> estadosActivos = List.of(
                 EstadoReserva.PENDIENTE.name(),
                 EstadoReserva.CONFIRMADA.name(),
@@ -296,40 +852,115 @@ public class ReservaService {
 
         Hotel hotel = getHotelDelClienteActual(hotelId);
 
-        // Traer todas las habitaciones del hotel
-        List<Habitacion> habitaciones = habitacionRepository.findByHotel_Id(hotel.getId());
-
-        List<String> estadosActivos = List.of(
-                EstadoReserva.PENDIENTE.name(),
-                EstadoReserva.CONFIRMADA.name(),
-                EstadoReserva.CHECKIN.name()
-        );
-
-        // Filtrar solo las que NO tienen superposición
-        List<Habitacion> disponibles = habitaciones.stream()
-                .filter(h -> !reservaRepository.existeSuperposicionReserva(
-                        h.getId(),
-                        estadosActivos,
-                        checkIn,
-                        checkOut
-                ))
-                .collect(Collectors.toList());
+        // Se resuelve contra el índice en memoria (bitset de noches por habitación)
+        if (indiceHabilitado) {
+            return disponibilidadIndex.habitacionesLibres(hotel.getId(), checkIn, checkOut);
+        }
 
-        // Mapear a DTO
-        return disponibles.stream()
-                .map(habitacionMapper::toResponse)
-                .collect(Collectors.toList());
+        // Sin índice: una sola consulta que ya devuelve los DTO
+        return reservaRepository.findHabitacionesLibres(
+                hotel.getId(), EstadoReserva.ACTIVOS, checkIn, checkOut);
     }
 
     public DisponibilidadHotelResponse disponibilidadHotelResumen(Long hotelId,
                                                                   LocalDate checkIn,
                                                                   LocalDate checkOut) {
-        List<HabitacionResponse> libres = disponibilidadHotel(hotelId, checkIn, checkOut);
+        if (checkIn == null || checkOut == null || !checkIn.isBefore(checkOut)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Fechas de check-in/out inválidas");
+        }
+
+        // El chequeo de tenant va siempre antes de la caché
+        Hotel hotel = getHotelDelClienteActual(hotelId);
+
+        return disponibilidadCache.obtener(hotel.getId(), checkIn, checkOut, () -> {
+            List<HabitacionResponse> libres = indiceHabilitado
+                    ? disponibilidadIndex.habitacionesLibres(hotel.getId(), checkIn, checkOut)
+                    : reservaRepository.findHabitacionesLibres(hotel.getId(), EstadoReserva.ACTIVOS, checkIn, checkOut);
+
+            return DisponibilidadHotelResponse.builder()
+                    .tieneDisponibilidad(!libres.isEmpty())
+                    .cantidadDisponibles(libres.size())
+                    .habitaciones(libres)
+                    .build();
+        });
+    }
+
+    public CacheEstadisticasResponse estadisticasCacheDisponibilidad() {
+        return disponibilidadCache.estadisticas();
+    }
+
+    // ========= INVENTARIO POR TIPO Y NOCHE =========
+
+    private static final int MAX_NOCHES_INVENTARIO = 366;
+
+    /**
+     * Habitaciones libres por tipo para cada noche de [desde, hasta), en una pasada:
+     * cada reserva suma +1 en su noche de entrada y -1 en la de salida (arreglo de
+     * diferencias por tipo) y la suma acumulada da la ocupación de cada noche.
+     * Cuenta también las reservas sin habitación asignada, porque consumen cupo del tipo.
+     */
+    @Transactional(readOnly = true)
+    public InventarioHotelResponse inventarioPorTipo(Long hotelId, LocalDate desde, LocalDate hasta) {
+
+        if (desde == null || hasta == null || !desde.isBefore(hasta)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Rango de fechas inválido");
+        }
+        int noches = (int) ChronoUnit.DAYS.between(desde, hasta);
+        if (noches > MAX_NOCHES_INVENTARIO) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, "El rango no puede superar " + MAX_NOCHES_INVENTARIO + " noches");
+        }
+
+        Hotel hotel = getHotelDelClienteActual(hotelId);
+
+        List<TipoHabitacion> tipos = tipoHabitacionRepository.findByHotel_Id(hotel.getId());
+        Map<Long, Integer> posicion = new HashMap<>();
+        for (int i = 0; i < tipos.size(); i++) {
+            posicion.put(tipos.get(i).getId(), i);
+        }
+
+        // Habitaciones vendibles por tipo (las desactivadas no cuentan)
+        int[] totales = new int[tipos.size()];
+        for (Habitacion h : habitacionRepository.findByHotel_Id(hotel.getId())) {
+            Integer p = posicion.get(h.getTipoHabitacion().getId());
+            if (p != null && !Boolean.FALSE.equals(h.getActivo())) {
+                totales[p]++;
+            }
+        }
+
+        // Arreglo de diferencias: una posición extra para las salidas en "hasta"
+        int[][] delta = new int[tipos.size()][noches + 1];
+        for (ReservaRepository.EstadiaTipoView e : reservaRepository.findEstadiasPorTipo(
+                hotel.getId(), EstadoReserva.ACTIVOS, desde, hasta)) {
+            Integer p = posicion.get(e.getTipoHabitacionId());
+            if (p == null) continue;
+            int entrada = (int) Math.max(0, ChronoUnit.DAYS.between(desde, e.getCheckIn()));
+            int salida = (int) Math.min(noches, ChronoUnit.DAYS.between(desde, e.getCheckOut()));
+            delta[p][entrada]++;
+            delta[p][salida]--;
+        }
+
+        List<InventarioTipoResponse> resultado = new ArrayList<>(tipos.size());
+        for (int p = 0; p < tipos.size(); p++) {
+            int[] libres = new int[noches];
+            int ocupadas = 0;
+            for (int n = 0; n < noches; n++) {
+                ocupadas += delta[p][n];
+                libres[n] = totales[p] - ocupadas;
+            }
+            resultado.add(InventarioTipoResponse.builder()
+                    .tipoHabitacionId(tipos.get(p).getId())
+                    .nombre(tipos.get(p).getNombre())
+                    .habitacionesTotales(totales[p])
+                    .libres(libres)
+                    .build());
+        }
 
-        return DisponibilidadHotelResponse.builder()
-                .tieneDisponibilidad(!libres.isEmpty())
-                .cantidadDisponibles(libres.size())
-                .habitaciones(libres)
+        return InventarioHotelResponse.builder()
+                .hotelId(hotel.getId())
+                .desde(desde)
+                .noches(noches)
+                .tipos(resultado)
                 .build();
     }
 
@@ -359,6 +990,7 @@ public class ReservaService {
                 .build();
 
         pagoRepository.save(pago);
+        ocupacionDiariaService.registrarPago(pago);
 
         // Calcular total pagado
         List<Pago> pagos = pagoRepository.findByReserva_Id(reservaId);
@@ -385,6 +1017,7 @@ public class ReservaService {
 
         // ===== ACTUALIZAR ESTADO DE RESERVA =====
         // Regla de negocio: si hay seña (totalPagado > 0), la reserva queda CONFIRMADA
+        EstadoReserva anterior = reserva.getEstado();
         if (totalPagado.compareTo(BigDecimal.ZERO) > 0 &&
                 reserva.getEstado() == EstadoReserva.PENDIENTE) {
             reserva.setEstado(EstadoReserva.CONFIRMADA);
@@ -392,6 +1025,8 @@ public class ReservaService {
 
         reserva.setActualizadoEn(LocalDateTime.now());
         reservaRepository.save(reserva);
+        ocupacionDiariaService.registrarCambioEstado(reserva, anterior);
+        eventPublisher.publishEvent(ReservaModificadaEvent.de(reserva));
 
         return obtener(reserva.getId());
     }
@@ -0,0 +1,349 @@
+package com.miempresa.gestion_hotelera.service;
+
+import com.miempresa.gestion_hotelera.entity.SecuenciaComprobante;
+import com.miempresa.gestion_hotelera.entity.SecuenciaComprobanteId;
+import com.miempresa.gestion_hotelera.repository.SecuenciaComprobanteRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Numeración local de comprobantes AFIP (tabla secuencia_comprobante).
+ *
+ * Quien emite "reserva" la secuencia en una transacción corta (la fila queda
+ * marcada con reservada_por / reservada_hasta), llama a FECAESolicitar sin
+ * ninguna transacción abierta y al terminar guarda el último número aprobado y
+ * libera la reserva. Dos facturas del mismo punto de venta y tipo nunca piden el
+ * mismo número, y la espera de AFIP no tiene tomados ni el bloqueo de la fila ni
+ * una conexión del pool.
+ *
+ * Antes de cada envío se llama a Intento en su propia transacción, para que el
+ * número con que sale cada comprobante quede guardado aunque la respuesta no
+ * llegue nunca.
+ *
+ * FECompUltimoAutorizado se usa para crear la secuencia, al arrancar la
+ * aplicación, cuando AFIP rechaza por número desfasado (por ejemplo, si se
+ * facturó desde otro sistema con el mismo punto de venta) y después de una
+ * emisión de resultado desconocido.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SecuenciaComprobanteService {
+
+    // FECAESolicitar: "El número o fecha del comprobante no se corresponde con el próximo a autorizar"
+    public static final int ERROR_NUMERO_DESFASADO = 10016;
+
+    // Cada cuánto se vuelve a mirar una secuencia reservada por otra emisión
+    private static final long ESPERA_ENTRE_INTENTOS_MS = 50;
+
+    @FunctionalInterface
+    public interface UltimoAutorizado {
+        long consultar() throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface Emision {
+        AfipService.AfipFacturaResponse emitir(long numero) throws Exception;
+    }
+
+    /**
+     * Un FECAESolicitar con varios registros: el de la posición i lleva el número
+     * primerNumero + i y corresponde al comprobante posiciones.get(i) del lote.
+     * Devuelve una respuesta por registro, en el mismo orden.
+     */
+    @FunctionalInterface
+    public interface EmisionLote {
+        List<AfipService.AfipFacturaResponse> emitir(long primerNumero, List<Integer> posiciones) throws Exception;
+    }
+
+    /**
+     * Se llama justo antes de cada envío, dentro de una transacción, con los mismos
+     * argumentos que EmisionLote (para emitir, posiciones es [0]).
+     */
+    @FunctionalInterface
+    public interface Intento {
+        void registrar(long primerNumero, List<Integer> posiciones);
+    }
+
+    /** La secuencia siguió reservada por otra emisión más de afip.secuencia.espera-max-ms. */
+    public static class SecuenciaOcupadaException extends RuntimeException {
+        public SecuenciaOcupadaException(String message) {
+            super(message);
+        }
+    }
+
+    private record Reserva(String token, long ultimoNumero, boolean requiereSincronizar) {}
+
+    private final SecuenciaComprobanteRepository secuenciaComprobanteRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Tiempo máximo de una emisión; pasado este, otra instancia puede tomar la secuencia
+    @Value("${afip.secuencia.reserva-segundos:300}")
+    private long reservaSegundos;
+
+    // Cuánto espera una emisión a que se libere la secuencia antes de rendirse
+    @Value("${afip.secuencia.espera-max-ms:30000}")
+    private long esperaMaxMs;
+
+    /**
+     * Emite con el próximo número de la secuencia. Si AFIP responde que el número
+     * no es el próximo, se resincroniza y se reintenta una vez.
+     */
+    public AfipService.AfipFacturaResponse emitir(String cuit,
+                                                  int puntoVenta,
+                                                  int cbteTipo,
+                                                  UltimoAutorizado ultimoAutorizado,
+                                                  Intento intento,
+                                                  Emision emision) throws Exception {
+
+        return procesar(cuit, puntoVenta, cbteTipo, 1, ultimoAutorizado, intento,
+                (primerNumero, posiciones) -> List.of(emision.emitir(primerNumero))).get(0);
+    }
+
+    /**
+     * Igual que emitir, para varios comprobantes de la misma secuencia en un solo
+     * FECAESolicitar. Los rechazados por número desfasado (incluidos los que
+     * quedaron corridos detrás de un rechazo en el medio del lote) se reenvían
+     * una vez, después de resincronizar, con números nuevos.
+     */
+    public List<AfipService.AfipFacturaResponse> emitirLote(String cuit,
+                                                            int puntoVenta,
+                                                            int cbteTipo,
+                                                            int cantidad,
+                                                            UltimoAutorizado ultimoAutorizado,
+                                                            Intento intento,
+                                                            EmisionLote emision) throws Exception {
+        return procesar(cuit, puntoVenta, cbteTipo, cantidad, ultimoAutorizado, intento, emision);
+    }
+
+    /**
+     * Próximo número sin llamar a AFIP, para comprobantes autorizados con CAEA.
+     * Corre en la transacción del que llama: si la factura no se guarda, el número
+     * no se consume. Vacío si la secuencia todavía no existe (la crea asegurar).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public OptionalLong siguienteLocal(String cuit, int puntoVenta, int cbteTipo) {
+        SecuenciaComprobante secuencia = secuenciaComprobanteRepository.findParaEmitir(cuit, puntoVenta, cbteTipo)
+                .orElse(null);
+        if (secuencia == null) {
+            return OptionalLong.empty();
+        }
+        actualizar(secuencia, secuencia.getUltimoNumero() + 1, false);
+        return OptionalLong.of(secuencia.getUltimoNumero());
+    }
+
+    /** Crea la secuencia desde AFIP si no existe (para poder numerar después sin AFIP). */
+    public void asegurar(String cuit,
+                         int puntoVenta,
+                         int cbteTipo,
+                         UltimoAutorizado ultimoAutorizado) throws Exception {
+        sinTransaccion();
+        crearSiFalta(cuit, puntoVenta, cbteTipo, ultimoAutorizado);
+    }
+
+    /** Vuelve a leer el último autorizado de AFIP para una secuencia existente. */
+    public void sincronizar(String cuit,
+                            int puntoVenta,
+                            int cbteTipo,
+                            UltimoAutorizado ultimoAutorizado) throws Exception {
+        sinTransaccion();
+        if (!secuenciaComprobanteRepository.existsById(new SecuenciaComprobanteId(cuit, puntoVenta, cbteTipo))) {
+            return;
+        }
+
+        Reserva reserva = reservar(cuit, puntoVenta, cbteTipo);
+        long ultimo;
+        try {
+            ultimo = ultimoAutorizado.consultar();
+        } catch (Exception e) {
+            liberar(cuit, puntoVenta, cbteTipo, reserva, reserva.ultimoNumero(), false, reserva.requiereSincronizar());
+            throw e;
+        }
+        liberar(cuit, puntoVenta, cbteTipo, reserva, ultimo, true, false);
+    }
+
+    @Transactional(readOnly = true)
+    public List<SecuenciaComprobante> listar() {
+        return secuenciaComprobanteRepository.findAll();
+    }
+
+    // ========= HELPERS =========
+
+    private List<AfipService.AfipFacturaResponse> procesar(String cuit,
+                                                           int puntoVenta,
+                                                           int cbteTipo,
+                                                           int cantidad,
+                                                           UltimoAutorizado ultimoAutorizado,
+                                                           Intento intento,
+                                                           EmisionLote emision) throws Exception {
+        sinTransaccion();
+        crearSiFalta(cuit, puntoVenta, cbteTipo, ultimoAutorizado);
+        Reserva reserva = reservar(cuit, puntoVenta, cbteTipo);
+
+        long ultimo = reserva.ultimoNumero();
+        boolean sincronizado = false;
+        try {
+            if (reserva.requiereSincronizar()) {
+                ultimo = ultimoAutorizado.consultar();
+                sincronizado = true;
+            }
+
+            AfipService.AfipFacturaResponse[] resultados = new AfipService.AfipFacturaResponse[cantidad];
+            List<Integer> pendientes = new ArrayList<>();
+            for (int i = 0; i < cantidad; i++) {
+                pendientes.add(i);
+            }
+
+            for (int vuelta = 0; vuelta < 2 && !pendientes.isEmpty(); vuelta++) {
+                if (vuelta > 0) {
+                    ultimo = ultimoAutorizado.consultar();
+                    sincronizado = true;
+                }
+
+                long primerNumero = ultimo + 1;
+                List<Integer> enviados = pendientes;
+                transactionTemplate.executeWithoutResult(status -> intento.registrar(primerNumero, enviados));
+
+                List<AfipService.AfipFacturaResponse> respuestas = emision.emitir(primerNumero, enviados);
+
+                List<Integer> desfasados = new ArrayList<>();
+                for (int i = 0; i < enviados.size(); i++) {
+                    AfipService.AfipFacturaResponse r = respuestas.get(i);
+                    resultados[enviados.get(i)] = r;
+                    if (r.getCae() != null) {
+                        ultimo = Math.max(ultimo, r.getNumeroComprobante());
+                    } else if (r.getCodigosError().contains(ERROR_NUMERO_DESFASADO)) {
+                        desfasados.add(enviados.get(i));
+                    }
+                }
+                pendientes = desfasados;
+            }
+
+            liberar(cuit, puntoVenta, cbteTipo, reserva, ultimo, sincronizado, false);
+            return Arrays.asList(resultados);
+
+        } catch (Exception | Error e) {
+            // No se sabe qué autorizó AFIP (pudo haber llegado el pedido): la próxima emisión relee el último
+            try {
+                liberar(cuit, puntoVenta, cbteTipo, reserva, ultimo, sincronizado, true);
+            } catch (RuntimeException ex) {
+                log.error("No se pudo liberar la secuencia {}-{}; se libera sola al vencer la reserva",
+                        puntoVenta, cbteTipo, ex);
+            }
+            throw e;
+        }
+    }
+
+    // Las llamadas a AFIP de este servicio no pueden quedar dentro de una transacción del que llama
+    private static void sinTransaccion() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("La emisión en AFIP no puede correr dentro de una transacción");
+        }
+    }
+
+    private void crearSiFalta(String cuit,
+                              int puntoVenta,
+                              int cbteTipo,
+                              UltimoAutorizado ultimoAutorizado) throws Exception {
+        if (secuenciaComprobanteRepository.existsById(new SecuenciaComprobanteId(cuit, puntoVenta, cbteTipo))) {
+            return;
+        }
+
+        // Primera emisión de la secuencia: se arranca desde lo que tiene AFIP
+        long ultimo = ultimoAutorizado.consultar();
+        transactionTemplate.executeWithoutResult(status ->
+                secuenciaComprobanteRepository.crearSiNoExiste(cuit, puntoVenta, cbteTipo, ultimo));
+    }
+
+    /**
+     * Toma la secuencia para una emisión, esperando si la tiene otra. Una reserva
+     * vencida es de una emisión que no terminó (la instancia se cayó a mitad): se
+     * toma igual, marcando que hay que releer el último número de AFIP.
+     */
+    private Reserva reservar(String cuit, int puntoVenta, int cbteTipo) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaMaxMs);
+        while (true) {
+            Reserva reserva = transactionTemplate.execute(status -> {
+                SecuenciaComprobante secuencia = secuenciaComprobanteRepository
+                        .findParaEmitir(cuit, puntoVenta, cbteTipo)
+                        .orElseThrow(() -> new IllegalStateException("No se pudo crear la secuencia de comprobantes"));
+
+                LocalDateTime ahora = LocalDateTime.now();
+                if (secuencia.getReservadaPor() != null) {
+                    if (secuencia.getReservadaHasta().isAfter(ahora)) {
+                        return null;
+                    }
+                    log.warn("Reserva vencida en la secuencia {}-{}: se relee el último autorizado de AFIP",
+                            puntoVenta, cbteTipo);
+                    secuencia.setRequiereSincronizar(true);
+                }
+
+                secuencia.setReservadaPor(UUID.randomUUID().toString());
+                secuencia.setReservadaHasta(ahora.plusSeconds(reservaSegundos));
+                return new Reserva(secuencia.getReservadaPor(), secuencia.getUltimoNumero(),
+                        Boolean.TRUE.equals(secuencia.getRequiereSincronizar()));
+            });
+            if (reserva != null) {
+                return reserva;
+            }
+            if (System.nanoTime() - limite > 0) {
+                throw new SecuenciaOcupadaException("La secuencia " + puntoVenta + "-" + cbteTipo
+                        + " está ocupada por otra emisión");
+            }
+            Thread.sleep(ESPERA_ENTRE_INTENTOS_MS);
+        }
+    }
+
+    /**
+     * Guarda el último número y suelta la reserva. Nunca se retrocede: en el punto
+     * de venta CAEA lo numerado localmente va por delante de AFIP hasta informarlo.
+     */
+    private void liberar(String cuit,
+                         int puntoVenta,
+                         int cbteTipo,
+                         Reserva reserva,
+                         long ultimoNumero,
+                         boolean sincronizado,
+                         boolean requiereSincronizar) {
+        transactionTemplate.executeWithoutResult(status -> {
+            SecuenciaComprobante secuencia = secuenciaComprobanteRepository
+                    .findParaEmitir(cuit, puntoVenta, cbteTipo)
+                    .orElseThrow(() -> new IllegalStateException("Secuencia de comprobantes inexistente"));
+            if (!reserva.token().equals(secuencia.getReservadaPor())) {
+                // Se venció y la tomó otro: lo que sabe esta emisión ya no sirve para la secuencia
+                log.warn("La reserva de la secuencia {}-{} venció durante la emisión", puntoVenta, cbteTipo);
+                return;
+            }
+
+            secuencia.setReservadaPor(null);
+            secuencia.setReservadaHasta(null);
+            secuencia.setRequiereSincronizar(requiereSincronizar);
+            if (sincronizado || ultimoNumero > secuencia.getUltimoNumero()) {
+                actualizar(secuencia, Math.max(ultimoNumero, secuencia.getUltimoNumero()), sincronizado);
+            }
+        });
+    }
+
+    private void actualizar(SecuenciaComprobante secuencia, long ultimoNumero, boolean sincronizado) {
+        LocalDateTime ahora = LocalDateTime.now();
+        secuencia.setUltimoNumero(ultimoNumero);
+        secuencia.setActualizadoEn(ahora);
+        if (sincronizado) {
+            secuencia.setSincronizadoEn(ahora);
+        }
+    }
+}
@@ -25,6 +25,8 @@ public class TipoHabitacionService {
     private final HotelRepository hotelRepository;
     private final TipoHabitacionMapper mapper;
     private final TenantUtil tenantUtil;
+    private final DisponibilidadIndex disponibilidadIndex;
+    private final DisponibilidadCache disponibilidadCache;
 
     // ===== HELPERS MULTI-TENANT =====
 
@@ -86,6 +88,12 @@ public class TipoHabitacionService {
         // Hotel nuevo (si lo cambia) también debe ser del cliente actual
         Hotel hotel = getHotelDelClienteActual(request.getHotelId());
 
+        // precioNoche se muestra en la disponibilidad: descartar el índice de ambos hoteles
+        disponibilidadIndex.invalidar(entity.getHotel().getId());
+        disponibilidadCache.invalidar(entity.getHotel().getId());
+        disponibilidadIndex.invalidar(hotel.getId());
+        disponibilidadCache.invalidar(hotel.getId());
+
         entity.setHotel(hotel);
         entity.setNombre(request.getNombre());
         entity.setDescripcion(request.getDescripcion());
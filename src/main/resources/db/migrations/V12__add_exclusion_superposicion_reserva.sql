@@ -0,0 +1,22 @@
+-- Impide a nivel base de datos que dos reservas activas ocupen la misma
+-- habitación en noches superpuestas (rango [check_in, check_out)).
+-- Complementa el chequeo previo de ReservaService.crear, que no alcanza
+-- cuando dos reservas concurrentes pasan la validación al mismo tiempo.
+--
+-- Si esta migración falla es porque ya hay reservas superpuestas. Se pueden ver con:
+--   SELECT a.id, b.id, a.habitacion_id
+--   FROM reserva a JOIN reserva b
+--     ON a.habitacion_id = b.habitacion_id AND a.id < b.id
+--    AND daterange(a.check_in, a.check_out) && daterange(b.check_in, b.check_out)
+--   WHERE a.estado IN ('PENDIENTE', 'CONFIRMADA', 'CHECKIN')
+--     AND b.estado IN ('PENDIENTE', 'CONFIRMADA', 'CHECKIN');
+
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+ALTER TABLE public.reserva
+    ADD CONSTRAINT reserva_habitacion_sin_superposicion
+    EXCLUDE USING gist (
+        habitacion_id WITH =,
+        daterange(check_in, check_out, '[)') WITH &&
+    )
+    WHERE (habitacion_id IS NOT NULL AND estado IN ('PENDIENTE', 'CONFIRMADA', 'CHECKIN'));
@@ -0,0 +1,13 @@
+-- Reserva y Huesped pasan de IDENTITY a secuencia con optimizador "pooled"
+-- (allocationSize = 50 en las entidades), para que Hibernate pueda agrupar
+-- los INSERT en batches JDBC.
+--
+-- Con pooled, cada nextval es el tope de un bloque de 50 ids, así que la
+-- secuencia se deja al menos 50 por encima del máximo actual para que el
+-- primer bloque no pise ids existentes.
+
+ALTER SEQUENCE public.reserva_id_seq INCREMENT BY 50;
+SELECT setval('public.reserva_id_seq', COALESCE(MAX(id), 0) + 50) FROM public.reserva;
+
+ALTER SEQUENCE public.huesped_id_seq INCREMENT BY 50;
+SELECT setval('public.huesped_id_seq', COALESCE(MAX(id), 0) + 50) FROM public.huesped;
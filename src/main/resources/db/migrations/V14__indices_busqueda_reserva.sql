@@ -0,0 +1,33 @@
+-- Índices para los caminos de acceso de la búsqueda y los listados de reservas.
+-- Hasta ahora reserva solo tenía índice por id_externo y todo filtro por hotel
+-- terminaba en un seq scan de la tabla completa.
+
+-- Listado/búsqueda por fecha de entrada y paginado keyset (check_in, id)
+CREATE INDEX IF NOT EXISTS idx_reserva_hotel_check_in
+    ON public.reserva (hotel_id, check_in, id);
+
+-- Reservas activas de un hotel que siguen vigentes (disponibilidad, check-outs del día)
+CREATE INDEX IF NOT EXISTS idx_reserva_hotel_estado_check_out
+    ON public.reserva (hotel_id, estado, check_out);
+
+-- Orden por fecha de alta (últimas reservas, pickup)
+CREATE INDEX IF NOT EXISTS idx_reserva_hotel_creado_en
+    ON public.reserva (hotel_id, creado_en, id);
+
+-- Orden por fecha de salida
+CREATE INDEX IF NOT EXISTS idx_reserva_hotel_check_out
+    ON public.reserva (hotel_id, check_out, id);
+
+-- Búsqueda por huésped: titular y vínculos (la PK de reserva_huesped empieza por reserva_id)
+CREATE INDEX IF NOT EXISTS idx_reserva_huesped_titular
+    ON public.reserva (huesped_titular_id);
+
+CREATE INDEX IF NOT EXISTS idx_reserva_huesped_huesped
+    ON public.reserva_huesped (huesped_id);
+
+-- Prefijo de apellido sin distinguir mayúsculas, y documento exacto
+CREATE INDEX IF NOT EXISTS idx_huesped_apellido_lower
+    ON public.huesped (lower(apellido) text_pattern_ops);
+
+CREATE INDEX IF NOT EXISTS idx_huesped_numero_documento
+    ON public.huesped (numero_documento);
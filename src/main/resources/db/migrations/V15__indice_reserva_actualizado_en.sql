@@ -0,0 +1,4 @@
+-- Marca de agua para el ETag del listado de reservas (MAX(actualizado_en) por cliente):
+-- con este índice se resuelve por hotel leyendo solo el índice.
+CREATE INDEX IF NOT EXISTS idx_reserva_hotel_actualizado_en
+    ON public.reserva (hotel_id, actualizado_en);
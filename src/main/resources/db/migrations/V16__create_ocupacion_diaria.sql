@@ -0,0 +1,43 @@
+-- Proyección diaria por hotel, mantenida por ReservaService en la misma
+-- transacción que cada alta, cambio de estado o pago.
+--
+--   habitaciones_ocupadas: reservas no canceladas que pasan la noche (check_in <= fecha < check_out)
+--   llegadas / salidas:    reservas no canceladas con check_in / check_out = fecha
+--   ingresos:              suma de pagos registrados ese día
+--
+-- Un día sin fila equivale a todo en cero. Se puede recalcular de cero con
+-- POST /api/dashboard/ocupacion/reconstruir.
+CREATE TABLE public.ocupacion_diaria (
+    hotel_id INT NOT NULL,
+    fecha DATE NOT NULL,
+    habitaciones_ocupadas INT NOT NULL DEFAULT 0,
+    llegadas INT NOT NULL DEFAULT 0,
+    salidas INT NOT NULL DEFAULT 0,
+    ingresos NUMERIC(14,2) NOT NULL DEFAULT 0,
+    CONSTRAINT ocupacion_diaria_pkey PRIMARY KEY (hotel_id, fecha),
+    CONSTRAINT ocupacion_diaria_hotel_id_fkey FOREIGN KEY (hotel_id) REFERENCES public.hotel(id)
+);
+
+-- Carga inicial desde los datos existentes
+INSERT INTO public.ocupacion_diaria (hotel_id, fecha, habitaciones_ocupadas, llegadas, salidas, ingresos)
+SELECT hotel_id, fecha, SUM(ocupadas), SUM(llegadas), SUM(salidas), SUM(ingresos)
+FROM (
+    SELECT r.hotel_id, CAST(g AS date) AS fecha, 1 AS ocupadas, 0 AS llegadas, 0 AS salidas, 0 AS ingresos
+    FROM public.reserva r,
+         generate_series(CAST(r.check_in AS timestamp), CAST(r.check_out AS timestamp) - interval '1 day', interval '1 day') g
+    WHERE r.estado IS DISTINCT FROM 'CANCELADA'
+    UNION ALL
+    SELECT r.hotel_id, r.check_in, 0, 1, 0, 0
+    FROM public.reserva r
+    WHERE r.estado IS DISTINCT FROM 'CANCELADA'
+    UNION ALL
+    SELECT r.hotel_id, r.check_out, 0, 0, 1, 0
+    FROM public.reserva r
+    WHERE r.estado IS DISTINCT FROM 'CANCELADA'
+    UNION ALL
+    SELECT r.hotel_id, CAST(p.fecha_pago AS date), 0, 0, 0, p.monto
+    FROM public.pago p
+    JOIN public.reserva r ON r.id = p.reserva_id
+    WHERE p.fecha_pago IS NOT NULL
+) t
+GROUP BY hotel_id, fecha;
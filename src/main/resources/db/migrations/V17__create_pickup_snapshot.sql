@@ -0,0 +1,21 @@
+-- Foto diaria de lo reservado ("on the books") por hotel y noche de estadía.
+--
+--   fecha_snapshot: día en que se tomó la foto (job nocturno)
+--   fecha_estadia:  noche futura, desde fecha_snapshot hasta el horizonte configurado
+--   habitaciones:   reservas no canceladas que pasan esa noche
+--   ingresos:       precio_total de esas reservas prorrateado por noche
+--
+-- Una noche sin fila equivale a cero. El reporte de pickup compara fotos entre
+-- sí y nunca vuelve a leer reserva, así que su costo depende de los días pedidos.
+CREATE TABLE public.pickup_snapshot (
+    hotel_id INT NOT NULL,
+    fecha_snapshot DATE NOT NULL,
+    fecha_estadia DATE NOT NULL,
+    habitaciones INT NOT NULL DEFAULT 0,
+    ingresos NUMERIC(14,2) NOT NULL DEFAULT 0,
+    CONSTRAINT pickup_snapshot_pkey PRIMARY KEY (hotel_id, fecha_snapshot, fecha_estadia),
+    CONSTRAINT pickup_snapshot_hotel_id_fkey FOREIGN KEY (hotel_id) REFERENCES public.hotel(id)
+);
+
+-- Para borrar/rehacer la foto de un día de todos los hoteles
+CREATE INDEX idx_pickup_snapshot_fecha ON public.pickup_snapshot (fecha_snapshot);
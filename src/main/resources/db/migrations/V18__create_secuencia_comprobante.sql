@@ -0,0 +1,22 @@
+-- Último número autorizado por AFIP para cada (CUIT, punto de venta, tipo de comprobante).
+--
+-- Evita consultar FECompUltimoAutorizado antes de cada factura: quien emite
+-- "reserva" la fila en una transacción corta (reservada_por / reservada_hasta),
+-- usa ultimo_numero + 1 para llamar a FECAESolicitar sin transacción abierta y,
+-- en otra transacción corta, guarda el número si AFIP aprueba y libera la
+-- reserva. Las demás emisiones de la misma secuencia esperan sin conexión
+-- tomada. Una reserva vencida es de una instancia que se cayó a mitad de una
+-- emisión: el que la toma relee el último número de AFIP (requiere_sincronizar).
+-- También se relee de AFIP al arrancar o cuando AFIP rechaza por número desfasado.
+CREATE TABLE public.secuencia_comprobante (
+    cuit VARCHAR(11) NOT NULL,
+    punto_venta INT NOT NULL,
+    cbte_tipo INT NOT NULL,
+    ultimo_numero BIGINT NOT NULL,
+    sincronizado_en TIMESTAMP NOT NULL,
+    actualizado_en TIMESTAMP NOT NULL,
+    reservada_por VARCHAR(36),
+    reservada_hasta TIMESTAMP,
+    requiere_sincronizar BOOLEAN NOT NULL DEFAULT FALSE,
+    CONSTRAINT secuencia_comprobante_pkey PRIMARY KEY (cuit, punto_venta, cbte_tipo)
+);
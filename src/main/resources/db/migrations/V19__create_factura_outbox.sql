@@ -0,0 +1,28 @@
+-- Cola de emisión de facturas (outbox transaccional).
+--
+-- La factura PENDIENTE y su fila en factura_outbox se guardan en la misma
+-- transacción, sin llamar a AFIP; el request responde 202 enseguida. Un job
+-- reclama filas listas con FOR UPDATE SKIP LOCKED (varias instancias no toman
+-- la misma), llama a AFIP fuera de toda transacción y guarda el resultado.
+--
+--   estado:          PENDIENTE, PROCESANDO, COMPLETADA, FALLIDA, REVISION
+--                    (REVISION: AFIP pudo haber autorizado el comprobante y no se
+--                    pudo confirmar; la emisión de pendientes no lo reenvía)
+--   intentos:        llamadas a AFIP hechas para esta fila
+--   proximo_intento: backoff exponencial después de cada error
+CREATE TABLE public.factura_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    factura_id BIGINT NOT NULL,
+    estado VARCHAR(20) NOT NULL,
+    intentos INT NOT NULL DEFAULT 0,
+    proximo_intento TIMESTAMP NOT NULL,
+    ultimo_error TEXT,
+    creado_en TIMESTAMP NOT NULL,
+    actualizado_en TIMESTAMP NOT NULL,
+    CONSTRAINT factura_outbox_factura_id_fkey FOREIGN KEY (factura_id) REFERENCES public.factura(id) ON DELETE CASCADE
+);
+
+-- Lo que mira el job en cada pasada: solo las filas pendientes
+CREATE INDEX idx_factura_outbox_listas ON public.factura_outbox (proximo_intento) WHERE estado = 'PENDIENTE';
+
+CREATE INDEX idx_factura_outbox_factura ON public.factura_outbox (factura_id);
@@ -0,0 +1,30 @@
+-- CAEA (Código de Autorización Electrónico Anticipado) por CUIT y quincena.
+--
+-- Se pide a AFIP por adelantado (FECAEASolicitar) y con él se autorizan
+-- facturas localmente, sin llamar a AFIP en el momento. Los comprobantes
+-- emitidos así se informan después en lotes (FECAEARegInformativo), antes de
+-- fch_tope_inf.
+--
+--   periodo: yyyyMM
+--   orden:   1 = días 1 a 15, 2 = del 16 a fin de mes
+CREATE TABLE public.caea (
+    cuit VARCHAR(11) NOT NULL,
+    periodo INT NOT NULL,
+    orden SMALLINT NOT NULL,
+    caea VARCHAR(14) NOT NULL,
+    fch_vig_desde DATE NOT NULL,
+    fch_vig_hasta DATE NOT NULL,
+    fch_tope_inf DATE NOT NULL,
+    obtenido_en TIMESTAMP NOT NULL,
+    CONSTRAINT caea_pkey PRIMARY KEY (cuit, periodo, orden)
+);
+
+-- CAE: autorizada por AFIP en el momento. CAEA: autorizada localmente con el CAEA
+-- de la quincena (el código queda en cae) y pendiente de informar hasta caea_informada_en.
+ALTER TABLE public.factura ADD COLUMN modo_autorizacion VARCHAR(4) NOT NULL DEFAULT 'CAE';
+ALTER TABLE public.factura ADD COLUMN caea_informada_en TIMESTAMP;
+
+-- Lo que levanta el job de informe: solo las CAEA aprobadas sin informar
+CREATE INDEX idx_factura_caea_sin_informar
+    ON public.factura (punto_venta, tipo_comprobante, numero_comprobante)
+    WHERE modo_autorizacion = 'CAEA' AND caea_informada_en IS NULL AND estado = 'APROBADA';
@@ -0,0 +1,6 @@
+-- factura: número y fecha con que se mandó a AFIP, guardados antes del envío.
+-- Quedan cargados mientras no se sepa qué pasó con ese envío; si AFIP no
+-- respondió, con ellos se consulta el comprobante (FECompConsultar) antes de
+-- volver a numerar.
+ALTER TABLE public.factura ADD COLUMN numero_intentado BIGINT;
+ALTER TABLE public.factura ADD COLUMN fecha_intentada DATE;
@@ -0,0 +1,7 @@
+-- Emisión de pendientes y por lote: las facturas que se toman para mandar a AFIP
+-- quedan en estado PROCESANDO (desde procesando_desde), así otra emisión
+-- simultánea no las vuelve a mandar. Si la emisión se corta a mitad, el job de
+-- la cola las libera pasado afip.lote.procesando-timeout-minutos.
+ALTER TABLE public.factura ADD COLUMN procesando_desde TIMESTAMP;
+
+CREATE INDEX idx_factura_procesando ON public.factura (procesando_desde) WHERE estado = 'PROCESANDO';
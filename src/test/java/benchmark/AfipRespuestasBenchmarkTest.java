@@ -0,0 +1,159 @@
+package benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.miempresa.gestion_hotelera.service.AfipRespuestas;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tiempo y bytes asignados por parseo de respuestas de FECAESolicitar:
+ * AfipRespuestas (JsonReader, solo los campos usados) contra el árbol de
+ * Map de Gson con casts que usaba AfipService antes. Muestras capturadas en
+ * src/test/resources/afip más un lote sintético de 250 registros (el tope de
+ * FECompTotXRequest).
+ *
+ * No corre con el build normal: mvn test -Dbenchmark=true -Dtest=AfipRespuestasBenchmarkTest
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class AfipRespuestasBenchmarkTest {
+
+    private static final int ITERACIONES = 50_000;
+
+    private static final Type MAPA = new TypeToken<Map<String, Object>>() {}.getType();
+    private final Gson gson = new Gson();
+
+    @Test
+    void streamingContraArbolDeMapas() throws IOException {
+        String[][] muestras = {
+                {"aprobada (1 registro)", muestra("fecaesolicitar-aprobada.json")},
+                {"lote (4 registros)   ", muestra("fecaesolicitar-lote.json")},
+                {"error de cabecera    ", muestra("fecaesolicitar-error-cabecera.json")},
+                {"lote (250 registros) ", loteSintetico(250)},
+        };
+
+        for (String[] m : muestras) {
+            String json = m[1];
+            // Los dos tienen que leer lo mismo para que la comparación valga
+            assertThat(codigosYCaes(AfipRespuestas.solicitud(json, "FECAESolicitarResult")))
+                    .isEqualTo(conMapas(json));
+
+            int iteraciones = json.length() > 10_000 ? ITERACIONES / 50 : ITERACIONES;
+            medir(m[0] + " mapas    ", json, iteraciones, this::conMapas);
+            medir(m[0] + " streaming", json, iteraciones,
+                    j -> codigosYCaes(AfipRespuestas.solicitud(j, "FECAESolicitarResult")));
+        }
+    }
+
+    // ========= LECTURAS =========
+
+    private static List<Object> codigosYCaes(AfipRespuestas.Solicitud s) {
+        List<Object> salida = new ArrayList<>(s.errores());
+        for (AfipRespuestas.Detalle d : s.detalles()) {
+            salida.add(d.cbteDesde());
+            salida.add(d.resultado());
+            salida.add(d.cae());
+            salida.add(d.caeFchVto());
+            salida.addAll(d.observaciones());
+        }
+        return salida;
+    }
+
+    // Lo que hacía AfipService.crearLoteAfip antes
+    @SuppressWarnings("unchecked")
+    private List<Object> conMapas(String json) {
+        Map<String, Object> data = gson.fromJson(json, MAPA);
+        Map<String, Object> result = (Map<String, Object>) data.get("FECAESolicitarResult");
+
+        List<Object> salida = new ArrayList<>(codigos(result.get("Errors"), "Err"));
+        Object feDetResp = result.get("FeDetResp");
+        Object items = feDetResp instanceof Map<?, ?> m ? m.get("FECAEDetResponse") : null;
+        List<?> detResp = items instanceof List<?> l ? l : items != null ? List.of(items) : List.of();
+        for (Object item : detResp) {
+            Map<String, Object> det = (Map<String, Object>) item;
+            Object cbteDesde = det.get("CbteDesde");
+            salida.add(cbteDesde instanceof Number n ? n.longValue() : Long.valueOf(String.valueOf(cbteDesde)));
+            salida.add(det.get("Resultado"));
+            salida.add(det.get("CAE"));
+            salida.add(det.get("CAEFchVto"));
+            salida.addAll(codigos(det.get("Observaciones"), "Obs"));
+        }
+        return salida;
+    }
+
+    private static List<Integer> codigos(Object nodo, String hijo) {
+        if (!(nodo instanceof Map<?, ?> mapa)) return List.of();
+        Object items = mapa.get(hijo);
+        List<?> lista = items instanceof List<?> l ? l : items != null ? List.of(items) : List.of();
+        List<Integer> codigos = new ArrayList<>();
+        for (Object item : lista) {
+            if (item instanceof Map<?, ?> m && m.get("Code") instanceof Number code) {
+                codigos.add(code.intValue());
+            }
+        }
+        return codigos;
+    }
+
+    // ========= MEDICIÓN =========
+
+    private static void medir(String nombre, String json, int iteraciones, Function<String, List<Object>> lectura) {
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long hilo = Thread.currentThread().getId();
+
+        // Calentamiento: mismas iteraciones sin medir, para que el JIT compile las dos lecturas
+        long control = 0;
+        for (int i = 0; i < iteraciones; i++) {
+            control += lectura.apply(json).size();
+        }
+
+        long bytesAntes = mx.getThreadAllocatedBytes(hilo);
+        long inicio = System.nanoTime();
+        for (int i = 0; i < iteraciones; i++) {
+            control += lectura.apply(json).size();
+        }
+        long nanos = System.nanoTime() - inicio;
+        long bytes = mx.getThreadAllocatedBytes(hilo) - bytesAntes;
+
+        System.out.printf("%s: %8.2f us/op  %10d B/op  (control %d)%n",
+                nombre, nanos / 1_000.0 / iteraciones, bytes / iteraciones, control);
+    }
+
+    // ========= MUESTRAS =========
+
+    private static String muestra(String nombre) throws IOException {
+        try (InputStream in = AfipRespuestasBenchmarkTest.class.getResourceAsStream("/afip/" + nombre)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String loteSintetico(int registros) {
+        StringBuilder sb = new StringBuilder("""
+                {"FECAESolicitarResult":{"FeCabResp":{"Cuit":20409378472,"PtoVta":1,"CbteTipo":6,\
+                "FchProceso":"20240312103544","CantReg":%d,"Resultado":"P","Reproceso":"N"},\
+                "FeDetResp":{"FECAEDetResponse":[""".formatted(registros));
+        for (int i = 0; i < registros; i++) {
+            if (i > 0) sb.append(',');
+            long numero = 2000 + i;
+            boolean rechazado = i % 10 == 9;
+            sb.append("""
+                    {"Concepto":1,"DocTipo":96,"DocNro":%d,"CbteDesde":%d,"CbteHasta":%d,"CbteFch":"20240312",\
+                    "Resultado":"%s","Observaciones":%s,"CAE":"%s","CAEFchVto":"%s"}""".formatted(
+                    30_000_000L + i, numero, numero, rechazado ? "R" : "A",
+                    rechazado ? "{\"Obs\":{\"Code\":10015,\"Msg\":\"El campo DocNro no se corresponde con un documento válido.\"}}" : "null",
+                    rechazado ? "" : "7411345678" + String.format("%04d", i), rechazado ? "" : "20240322"));
+        }
+        return sb.append("]},\"Events\":null}}").toString();
+    }
+}
@@ -0,0 +1,133 @@
+package benchmark;
+
+import com.miempresa.gestion_hotelera.GestionHoteleraApplication;
+import com.miempresa.gestion_hotelera.dto.DashboardDiaResponse;
+import com.miempresa.gestion_hotelera.entity.*;
+import com.miempresa.gestion_hotelera.repository.*;
+import com.miempresa.gestion_hotelera.service.DashboardService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Latencia de DashboardService.resumenDia a medida que crece la historia del hotel
+ * (10k, 100k y 1M reservas ya cerradas, con la misma cartera futura).
+ * El loop original (cargar todas las reservas y filtrar en memoria) solo se mide
+ * hasta 100k: con 1M no entra en un heap razonable.
+ *
+ * No corre con el build normal: mvn test -Dbenchmark=true -Dtest=DashboardBenchmarkTest
+ */
+@SpringBootTest(classes = GestionHoteleraApplication.class)
+@Transactional
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class DashboardBenchmarkTest {
+
+    private static final int ITERACIONES = 5;
+    private static final int HABITACIONES = 100;
+    private static final LocalDate HOY = LocalDate.of(2030, 6, 15);
+
+    @Autowired private DashboardService dashboardService;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private EntityManager entityManager;
+
+    @Autowired private ClienteRepository clienteRepository;
+    @Autowired private HotelRepository hotelRepository;
+    @Autowired private TipoHabitacionRepository tipoHabitacionRepository;
+    @Autowired private HabitacionRepository habitacionRepository;
+    @Autowired private ReservaRepository reservaRepository;
+
+    @Test
+    void latenciaConstanteAlCrecerLaHistoria() {
+        Hotel hotel = crearHotel();
+        int cargadas = 0;
+
+        for (int historia : new int[]{10_000, 100_000, 1_000_000}) {
+            insertarHistoria(hotel, historia - cargadas);
+            cargadas = historia;
+
+            DashboardDiaResponse agregado = medir("agregado " + historia,
+                    () -> dashboardService.calcularResumenDia(hotel.getId(), HOY));
+            assertThat(agregado.getHabitacionesOcupadas()).isEqualTo(HABITACIONES / 2);
+
+            if (historia <= 100_000) {
+                long ocupadasLoop = medir("loop     " + historia, () -> ocupadasLoop(hotel.getId()));
+                assertThat(ocupadasLoop).isEqualTo(agregado.getHabitacionesOcupadas());
+            }
+        }
+    }
+
+    // Lo que hacía resumenDia antes: toda la historia a memoria
+    private long ocupadasLoop(Long hotelId) {
+        long ocupadas = reservaRepository.findByHotel_Id(hotelId).stream()
+                .filter(r -> r.getEstado() != null && r.getEstado().esActivo())
+                .filter(r -> !HOY.isBefore(r.getCheckIn()) && HOY.isBefore(r.getCheckOut()))
+                .filter(r -> r.getHabitacion() != null)
+                .map(r -> r.getHabitacion().getId())
+                .distinct()
+                .count();
+        entityManager.clear();
+        return ocupadas;
+    }
+
+    private <T> T medir(String nombre, Supplier<T> tarea) {
+        T resultado = tarea.get(); // warm-up
+        long inicio = System.nanoTime();
+        for (int i = 0; i < ITERACIONES; i++) {
+            resultado = tarea.get();
+        }
+        long promedioMs = (System.nanoTime() - inicio) / ITERACIONES / 1_000_000;
+        System.out.println("[benchmark] " + nombre + " reservas: " + promedioMs + " ms");
+        return resultado;
+    }
+
+    /** Hotel con la mitad de las habitaciones ocupadas HOY. */
+    private Hotel crearHotel() {
+        Cliente cliente = clienteRepository.save(Cliente.builder().nombre("Cliente bench dashboard").activo(true).build());
+        Hotel hotel = hotelRepository.save(Hotel.builder().nombre("Hotel bench dashboard").activo(true).cliente(cliente).build());
+        TipoHabitacion tipo = tipoHabitacionRepository.save(TipoHabitacion.builder()
+                .hotel(hotel).nombre("Doble").activo(true).build());
+
+        List<Habitacion> habitaciones = new ArrayList<>();
+        for (int i = 0; i < HABITACIONES; i++) {
+            habitaciones.add(Habitacion.builder().hotel(hotel).tipoHabitacion(tipo).codigo("D-" + i).activo(true).build());
+        }
+        habitaciones = habitacionRepository.saveAll(habitaciones);
+
+        List<Reserva> actuales = new ArrayList<>();
+        for (int i = 0; i < HABITACIONES; i += 2) {
+            actuales.add(Reserva.builder()
+                    .hotel(hotel)
+                    .tipoHabitacion(tipo)
+                    .habitacion(habitaciones.get(i))
+                    .checkIn(HOY.minusDays(1))
+                    .checkOut(HOY.plusDays(2))
+                    .estado(EstadoReserva.CONFIRMADA)
+                    .build());
+        }
+        reservaRepository.saveAll(actuales);
+        reservaRepository.flush();
+        return hotel;
+    }
+
+    // Reservas cerradas repartidas en los 10 años previos, sin habitación (no chocan con la exclusión)
+    private void insertarHistoria(Hotel hotel, int cantidad) {
+        Long tipoId = tipoHabitacionRepository.findByHotel_Id(hotel.getId()).get(0).getId();
+        jdbcTemplate.update("""
+                INSERT INTO reserva (hotel_id, tipo_habitacion_id, check_in, check_out, estado, creado_en, actualizado_en)
+                SELECT ?, ?, d, d + 3, 'CHECKOUT', d - 30, d + 3
+                FROM (SELECT CAST(? AS date) - 10 - (g % 3650) AS d FROM generate_series(1, ?) g) s
+                """, hotel.getId(), tipoId, HOY, cantidad);
+        jdbcTemplate.execute("ANALYZE reserva");
+    }
+}
@@ -0,0 +1,137 @@
+package benchmark;
+
+import com.miempresa.gestion_hotelera.GestionHoteleraApplication;
+import com.miempresa.gestion_hotelera.dto.HabitacionResponse;
+import com.miempresa.gestion_hotelera.entity.*;
+import com.miempresa.gestion_hotelera.mapper.HabitacionMapper;
+import com.miempresa.gestion_hotelera.repository.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compara la disponibilidad por hotel con el loop original (una consulta por
+ * habitación) contra la consulta única con anti-join.
+ *
+ * No corre con el build normal: mvn test -Dbenchmark=true -Dtest=DisponibilidadBenchmarkTest
+ */
+@SpringBootTest(classes = GestionHoteleraApplication.class)
+@Transactional
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class DisponibilidadBenchmarkTest {
+
+    private static final int ITERACIONES = 5;
+
+    @Autowired private ClienteRepository clienteRepository;
+    @Autowired private HotelRepository hotelRepository;
+    @Autowired private TipoHabitacionRepository tipoHabitacionRepository;
+    @Autowired private HabitacionRepository habitacionRepository;
+    @Autowired private ReservaRepository reservaRepository;
+    @Autowired private HabitacionMapper habitacionMapper;
+
+    private final LocalDate checkIn = LocalDate.of(2030, 3, 10);
+    private final LocalDate checkOut = LocalDate.of(2030, 3, 14);
+
+    @Test
+    void compararLoopContraConsultaUnica() {
+        for (int habitaciones : new int[]{50, 500, 5_000}) {
+            Hotel hotel = crearHotel(habitaciones);
+
+            List<HabitacionResponse> loop = medir("loop     " + habitaciones, () -> disponibilidadLoop(hotel.getId()));
+            List<HabitacionResponse> unica = medir("anti-join " + habitaciones, () -> reservaRepository
+                    .findHabitacionesLibres(hotel.getId(), EstadoReserva.ACTIVOS, checkIn, checkOut));
+
+            assertThat(unica).extracting(HabitacionResponse::getId)
+                    .containsExactlyElementsOf(loop.stream().map(HabitacionResponse::getId).toList());
+        }
+    }
+
+    // Implementación previa de ReservaService.disponibilidadHotel
+    private List<HabitacionResponse> disponibilidadLoop(Long hotelId) {
+        List<String> estadosActivos = List.of(
+                EstadoReserva.PENDIENTE.name(),
+                EstadoReserva.CONFIRMADA.name(),
+                EstadoReserva.CHECKIN.name()
+        );
+
+        return habitacionRepository.findByHotel_Id(hotelId).stream()
+                .filter(h -> !reservaRepository.existeSuperposicionReserva(
+                        h.getId(), estadosActivos, checkIn, checkOut))
+                .map(habitacionMapper::toResponse)
+                .collect(Collectors.toList());
+    }
+
+    private <T> T medir(String nombre, Supplier<T> tarea) {
+        T resultado = tarea.get(); // warm-up
+        long inicio = System.nanoTime();
+        for (int i = 0; i < ITERACIONES; i++) {
+            resultado = tarea.get();
+        }
+        long promedioMs = (System.nanoTime() - inicio) / ITERACIONES / 1_000_000;
+        System.out.println("[benchmark] " + nombre + " habitaciones: " + promedioMs + " ms");
+        return resultado;
+    }
+
+    /** Hotel con la mitad de las habitaciones ocupadas en el rango consultado. */
+    private Hotel crearHotel(int cantidadHabitaciones) {
+        Cliente cliente = clienteRepository.save(Cliente.builder()
+                .nombre("Cliente bench " + cantidadHabitaciones)
+                .activo(true)
+                .build());
+
+        Hotel hotel = hotelRepository.save(Hotel.builder()
+                .nombre("Hotel bench " + cantidadHabitaciones)
+                .activo(true)
+                .cliente(cliente)
+                .build());
+
+        TipoHabitacion tipo = tipoHabitacionRepository.save(TipoHabitacion.builder()
+                .hotel(hotel)
+                .nombre("Doble")
+                .capacidadBase(2)
+                .capacidadMax(2)
+                .activo(true)
+                .precioNoche(BigDecimal.valueOf(50000))
+                .build());
+
+        List<Habitacion> habitaciones = new ArrayList<>();
+        for (int i = 0; i < cantidadHabitaciones; i++) {
+            habitaciones.add(Habitacion.builder()
+                    .hotel(hotel)
+                    .tipoHabitacion(tipo)
+                    .codigo("H-" + i)
+                    .estado("DISPONIBLE")
+                    .activo(true)
+                    .build());
+        }
+        habitaciones = habitacionRepository.saveAll(habitaciones);
+
+        List<Reserva> reservas = new ArrayList<>();
+        for (int i = 0; i < habitaciones.size(); i += 2) {
+            reservas.add(Reserva.builder()
+                    .hotel(hotel)
+                    .tipoHabitacion(tipo)
+                    .habitacion(habitaciones.get(i))
+                    .checkIn(checkIn.minusDays(1))
+                    .checkOut(checkIn.plusDays(1))
+                    .estado(EstadoReserva.CONFIRMADA)
+                    .creadoEn(LocalDateTime.now())
+                    .build());
+        }
+        reservaRepository.saveAll(reservas);
+        reservaRepository.flush();
+        return hotel;
+    }
+}
@@ -0,0 +1,120 @@
+package servicetest;
+
+import com.miempresa.gestion_hotelera.service.AfipCliente;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AfipClienteTest {
+
+    private static final String JSON = "{\"method\":\"FECompUltimoAutorizado\",\"params\":{\"PtoVta\":1,\"CbteTipo\":6}}";
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final AfipStub afip = iniciarStub();
+
+    @AfterEach
+    void tearDown() {
+        afip.close();
+    }
+
+    @Test
+    void circuitoAbiertoFallaSinLlamar() {
+        AfipCliente cliente = cliente(4, 2, 0);
+        afip.fallarCon(503);
+
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> llamar(cliente, AfipCliente.Reintento.SIEMPRE))
+                    .hasMessageContaining("Error AFIP");
+        }
+        assertThat(cliente.estadoCircuito()).isEqualTo(AfipCliente.EstadoCircuito.ABIERTO);
+
+        assertThatThrownBy(() -> llamar(cliente, AfipCliente.Reintento.SIEMPRE))
+                .isInstanceOf(AfipCliente.AfipNoDisponibleException.class);
+        assertThat(afip.pedidos()).isEqualTo(2);
+        assertThat(cliente.estadisticas().getOperaciones().get(0).getRechazadas()).isEqualTo(1);
+    }
+
+    @Test
+    void soloLasLecturasSeReintentan() {
+        AfipCliente cliente = cliente(4, 100, 2);
+        afip.fallarCon(503);
+
+        assertThatThrownBy(() -> llamar(cliente, AfipCliente.Reintento.SIEMPRE));
+        assertThat(afip.pedidos()).isEqualTo(3);
+
+        // Un 5xx de FECAESolicitar llegó a AFIP: no se repite
+        assertThatThrownBy(() -> llamar(cliente, AfipCliente.Reintento.SOLO_SIN_ENVIAR));
+        assertThat(afip.pedidos()).isEqualTo(4);
+    }
+
+    @Test
+    void timeoutDeUnaAutorizacionEsIncierto() {
+        AfipCliente cliente = cliente(4, 100, 2);
+        afip.demorar(1_000);
+
+        assertThatThrownBy(() -> cliente.post("FECAESolicitar", "/requests", JSON,
+                Duration.ofMillis(100), AfipCliente.Reintento.SOLO_SIN_ENVIAR).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(AfipCliente.AfipResultadoInciertoException.class);
+        assertThat(afip.pedidos()).isEqualTo(1);
+    }
+
+    @Test
+    void bulkheadLlenoFallaEnseguida() {
+        AfipCliente cliente = cliente(1, 100, 0);
+        afip.demorar(500);
+
+        CompletableFuture<String> enCurso = cliente.post("FECompUltimoAutorizado", "/requests", JSON,
+                TIMEOUT, AfipCliente.Reintento.SIEMPRE);
+
+        assertThatThrownBy(() -> llamar(cliente, AfipCliente.Reintento.SIEMPRE))
+                .isInstanceOf(AfipCliente.AfipNoDisponibleException.class);
+        assertThat(enCurso.join()).contains("FECompUltimoAutorizadoResult");
+        assertThat(cliente.estadisticas().getLlamadasEnCurso()).isZero();
+    }
+
+    @Test
+    void pedidoMalArmadoNoSeQuedaConElLugar() {
+        AfipCliente cliente = cliente(1, 100, 0);
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> cliente.post("FECompUltimoAutorizado", "/requests con espacios", JSON,
+                    TIMEOUT, AfipCliente.Reintento.SIEMPRE).join())
+                    .hasCauseInstanceOf(IllegalArgumentException.class);
+        }
+        assertThat(cliente.estadisticas().getLlamadasEnCurso()).isZero();
+        assertThat(llamar(cliente, AfipCliente.Reintento.SIEMPRE)).contains("FECompUltimoAutorizadoResult");
+    }
+
+    private AfipCliente cliente(int maxConcurrentes, int fallasParaAbrir, int reintentos) {
+        AfipCliente cliente = new AfipCliente(maxConcurrentes, fallasParaAbrir, 60, reintentos, 1);
+        ReflectionTestUtils.setField(cliente, "baseUrl", afip.baseUrl());
+        ReflectionTestUtils.setField(cliente, "accessToken", "token-test");
+        return cliente;
+    }
+
+    private static String llamar(AfipCliente cliente, AfipCliente.Reintento reintento) {
+        try {
+            return cliente.post("FECompUltimoAutorizado", "/requests", JSON, TIMEOUT, reintento).join();
+        } catch (CompletionException e) {
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    private static AfipStub iniciarStub() {
+        try {
+            return new AfipStub();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package servicetest;
+
+import com.google.gson.JsonSyntaxException;
+import com.miempresa.gestion_hotelera.service.AfipRespuestas;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AfipRespuestasTest {
+
+    @Test
+    void unSoloDetalleVieneComoObjeto() throws IOException {
+        AfipRespuestas.Solicitud s = AfipRespuestas.solicitud(muestra("fecaesolicitar-aprobada.json"),
+                "FECAESolicitarResult");
+
+        assertThat(s.errores()).isEmpty();
+        assertThat(s.detalles()).containsExactly(
+                new AfipRespuestas.Detalle("A", "74113456789012", "20240322", 1532L, List.of()));
+    }
+
+    @Test
+    void loteConObservacionesUnicasYMultiplesYNumerosComoTexto() throws IOException {
+        AfipRespuestas.Solicitud s = AfipRespuestas.solicitud(muestra("fecaesolicitar-lote.json"),
+                "FECAESolicitarResult");
+
+        assertThat(s.detalles()).extracting(AfipRespuestas.Detalle::cbteDesde)
+                .containsExactly(1533L, 1534L, 1535L, 1536L);
+        assertThat(s.detalles().get(1).resultado()).isEqualTo("R");
+        assertThat(s.detalles().get(1).observaciones()).containsExactly(10015, 10063);
+        assertThat(s.detalles().get(2).observaciones()).containsExactly(10217);
+        assertThat(s.detalles().get(3).cae()).isEqualTo("74113456789016");
+    }
+
+    @Test
+    void erroresDeCabecera() throws IOException {
+        AfipRespuestas.Solicitud s = AfipRespuestas.solicitud(muestra("fecaesolicitar-error-cabecera.json"),
+                "FECAESolicitarResult");
+
+        assertThat(s.errores()).containsExactly(10016);
+        assertThat(s.detalles()).singleElement().extracting(AfipRespuestas.Detalle::cae).isEqualTo("");
+    }
+
+    @Test
+    void sinElNodoDeResultadoDevuelveNull() {
+        assertThat(AfipRespuestas.solicitud("{\"message\":\"Unauthorized\"}", "FECAESolicitarResult")).isNull();
+        assertThat(AfipRespuestas.ultimoAutorizado("{\"otro\":1}")).isNull();
+        assertThat(AfipRespuestas.ultimoAutorizado(
+                "{\"FECompUltimoAutorizadoResult\":{\"PtoVta\":1,\"CbteTipo\":6,\"CbteNro\":1531}}")).isEqualTo(1531L);
+    }
+
+    @Test
+    void consultaYAuth() {
+        AfipRespuestas.Comprobante c = AfipRespuestas.comprobante("""
+                {"FECompConsultarResult":{"ResultGet":{"Concepto":1,"DocTipo":96,"DocNro":30111222,
+                 "CbteFch":20240312,"ImpTotal":15000.5,"Resultado":"A","CodAutorizacion":"74113456789013",
+                 "FchVto":"20240322"},"Events":null}}""");
+        assertThat(c).isEqualTo(new AfipRespuestas.Comprobante(
+                "A", "74113456789013", "20240322", "30111222", "15000.5", "20240312"));
+
+        String inexistente = """
+                {"FECompConsultarResult":{"Errors":{"Err":{"Code":602,"Msg":"No existen datos"}}}}""";
+        assertThat(AfipRespuestas.comprobante(inexistente)).isNull();
+        assertThat(AfipRespuestas.errores(inexistente, "FECompConsultarResult")).containsExactly(602);
+        assertThat(AfipRespuestas.errores("{\"message\":\"Unauthorized\"}", "FECompConsultarResult")).isNull();
+
+        assertThat(AfipRespuestas.auth("{\"token\":\"t\",\"sign\":\"s\",\"expiration\":null}"))
+                .isEqualTo(new AfipRespuestas.Auth("t", "s", null));
+    }
+
+    @Test
+    void jsonMalFormadoEsJsonSyntaxException() {
+        assertThatThrownBy(() -> AfipRespuestas.solicitud("{\"FECAESolicitarResult\": {", "FECAESolicitarResult"))
+                .isInstanceOf(JsonSyntaxException.class);
+    }
+
+    static String muestra(String nombre) throws IOException {
+        try (InputStream in = AfipRespuestasTest.class.getResourceAsStream("/afip/" + nombre)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
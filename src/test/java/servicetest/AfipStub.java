@@ -0,0 +1,220 @@
+package servicetest;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AfipSDK de mentira para tests: POST /auth, y en POST /requests los métodos
+ * FECompUltimoAutorizado, FECAESolicitar (aprueba todos los registros) y
+ * FECompConsultar (de lo aprobado por FECAESolicitar o cargado con autorizar).
+ * Con fallarCon(status) responde ese status a todo y con demorar(ms) tarda en
+ * responder, hasta que se llame a reset() (que también olvida lo autorizado).
+ */
+class AfipStub implements AutoCloseable {
+
+    private final HttpServer server;
+    private final Gson gson = new Gson();
+
+    private final Map<String, Long> ultimos = new ConcurrentHashMap<>();
+    private final Map<String, JsonObject> comprobantes = new ConcurrentHashMap<>();
+    private final AtomicInteger solicitudes = new AtomicInteger();
+    private final AtomicInteger pedidos = new AtomicInteger();
+    private volatile int statusError;
+    private volatile long demoraMs;
+
+    AfipStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/auth", this::auth);
+        server.createContext("/requests", this::requests);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    void fallarCon(int status) {
+        statusError = status;
+    }
+
+    /** Demora cada respuesta (para provocar timeouts del cliente). */
+    void demorar(long ms) {
+        demoraMs = ms;
+    }
+
+    void reset() {
+        statusError = 0;
+        demoraMs = 0;
+        ultimos.clear();
+        comprobantes.clear();
+        solicitudes.set(0);
+        pedidos.set(0);
+    }
+
+    /** Comprobante que AFIP autorizó sin que la respuesta llegara a la aplicación. */
+    void autorizar(int puntoVenta, int cbteTipo, long numero, String docNro, String importe, String fecha) {
+        String clave = puntoVenta + "-" + cbteTipo;
+        ultimos.merge(clave, numero, Math::max);
+        comprobantes.put(clave + "-" + numero, comprobante(numero, docNro, importe, fecha));
+    }
+
+    /** Cantidad de pedidos recibidos, de cualquier tipo. */
+    int pedidos() {
+        return pedidos.get();
+    }
+
+    /** Cantidad de FECAESolicitar recibidos. */
+    int solicitudes() {
+        return solicitudes.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    // ========= HANDLERS =========
+
+    private void auth(HttpExchange exchange) throws IOException {
+        if (fallo(exchange)) return;
+
+        JsonObject body = new JsonObject();
+        body.addProperty("token", "token-stub");
+        body.addProperty("sign", "sign-stub");
+        body.addProperty("expiration", OffsetDateTime.now().plusHours(12).toString());
+        responder(exchange, 200, body);
+    }
+
+    private void requests(HttpExchange exchange) throws IOException {
+        if (fallo(exchange)) return;
+
+        JsonObject pedido = gson.fromJson(
+                new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8), JsonObject.class);
+        JsonObject params = pedido.getAsJsonObject("params");
+
+        switch (pedido.get("method").getAsString()) {
+            case "FECompUltimoAutorizado" -> {
+                String clave = params.get("PtoVta").getAsInt() + "-" + params.get("CbteTipo").getAsInt();
+                JsonObject result = new JsonObject();
+                result.addProperty("CbteNro", ultimos.getOrDefault(clave, 0L));
+
+                JsonObject body = new JsonObject();
+                body.add("FECompUltimoAutorizadoResult", result);
+                responder(exchange, 200, body);
+            }
+            case "FECAESolicitar" -> {
+                solicitudes.incrementAndGet();
+                JsonObject feCAEReq = params.getAsJsonObject("FeCAEReq");
+                JsonObject cab = feCAEReq.getAsJsonObject("FeCabReq");
+                String clave = cab.get("PtoVta").getAsInt() + "-" + cab.get("CbteTipo").getAsInt();
+
+                JsonElement dets = feCAEReq.getAsJsonObject("FeDetReq").get("FECAEDetRequest");
+                List<JsonObject> registros = new ArrayList<>();
+                if (dets.isJsonArray()) {
+                    dets.getAsJsonArray().forEach(d -> registros.add(d.getAsJsonObject()));
+                } else {
+                    registros.add(dets.getAsJsonObject());
+                }
+
+                JsonArray respuestas = new JsonArray();
+                for (JsonObject det : registros) {
+                    long numero = det.get("CbteDesde").getAsLong();
+                    ultimos.merge(clave, numero, Math::max);
+                    comprobantes.put(clave + "-" + numero, comprobante(numero, det.get("DocNro").getAsString(),
+                            det.get("ImpTotal").getAsString(), det.get("CbteFch").getAsString()));
+
+                    JsonObject r = new JsonObject();
+                    r.addProperty("CbteDesde", numero);
+                    r.addProperty("CbteHasta", numero);
+                    r.addProperty("Resultado", "A");
+                    r.addProperty("CAE", String.valueOf(70_000_000_000_000L + numero));
+                    r.addProperty("CAEFchVto", "20991231");
+                    respuestas.add(r);
+                }
+
+                JsonObject feDetResp = new JsonObject();
+                feDetResp.add("FECAEDetResponse", respuestas);
+                JsonObject result = new JsonObject();
+                result.add("FeDetResp", feDetResp);
+                JsonObject body = new JsonObject();
+                body.add("FECAESolicitarResult", result);
+                responder(exchange, 200, body);
+            }
+            case "FECompConsultar" -> {
+                JsonObject req = params.getAsJsonObject("FeCompConsReq");
+                JsonObject get = comprobantes.get(req.get("PtoVta").getAsInt() + "-"
+                        + req.get("CbteTipo").getAsInt() + "-" + req.get("CbteNro").getAsLong());
+
+                JsonObject result = new JsonObject();
+                if (get != null) {
+                    result.add("ResultGet", get);
+                } else {
+                    JsonObject err = new JsonObject();
+                    err.addProperty("Code", 602);
+                    err.addProperty("Msg", "No existen datos en nuestros registros para los parametros ingresados.");
+                    JsonObject errors = new JsonObject();
+                    errors.add("Err", err);
+                    result.add("Errors", errors);
+                }
+                JsonObject body = new JsonObject();
+                body.add("FECompConsultarResult", result);
+                responder(exchange, 200, body);
+            }
+            default -> responder(exchange, 400, new JsonObject());
+        }
+    }
+
+    private static JsonObject comprobante(long numero, String docNro, String importe, String fecha) {
+        JsonObject get = new JsonObject();
+        get.addProperty("CbteDesde", numero);
+        get.addProperty("DocNro", docNro);
+        get.addProperty("ImpTotal", importe);
+        get.addProperty("CbteFch", fecha);
+        get.addProperty("Resultado", "A");
+        get.addProperty("CodAutorizacion", String.valueOf(70_000_000_000_000L + numero));
+        get.addProperty("FchVto", "20991231");
+        return get;
+    }
+
+    private boolean fallo(HttpExchange exchange) throws IOException {
+        pedidos.incrementAndGet();
+        if (demoraMs > 0) {
+            try {
+                Thread.sleep(demoraMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (statusError == 0) return false;
+        JsonObject body = new JsonObject();
+        body.addProperty("message", "AFIP no disponible (stub)");
+        responder(exchange, statusError, body);
+        return true;
+    }
+
+    private void responder(HttpExchange exchange, int status, JsonObject body) throws IOException {
+        byte[] bytes = gson.toJson(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package servicetest;
+
+import com.miempresa.gestion_hotelera.service.AfipTicketCache;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AfipTicketCacheTest {
+
+    private static final AfipTicketCache.Clave CLAVE = new AfipTicketCache.Clave("dev", "20409378472", "wsfe");
+
+    private final AtomicInteger pedidos = new AtomicInteger();
+
+    private AfipTicketCache.Ticket ticket(Duration vigencia) {
+        int n = pedidos.incrementAndGet();
+        return new AfipTicketCache.Ticket("token-" + n, "sign-" + n, Instant.now().plus(vigencia));
+    }
+
+    @Test
+    void reusaElTicketVigente() throws Exception {
+        AfipTicketCache cache = new AfipTicketCache(30, Runnable::run);
+
+        AfipTicketCache.Ticket primero = cache.obtener(CLAVE, () -> ticket(Duration.ofHours(12)));
+        AfipTicketCache.Ticket segundo = cache.obtener(CLAVE, () -> ticket(Duration.ofHours(12)));
+
+        assertThat(segundo).isSameAs(primero);
+        assertThat(pedidos.get()).isEqualTo(1);
+    }
+
+    @Test
+    void porVencerDevuelveElActualYRenuevaEnSegundoPlano() throws Exception {
+        List<Runnable> segundoPlano = new ArrayList<>();
+        AfipTicketCache cache = new AfipTicketCache(30, segundoPlano::add);
+
+        // Vence en 10 minutos: dentro del margen de 30
+        AfipTicketCache.Ticket viejo = cache.obtener(CLAVE, () -> ticket(Duration.ofMinutes(10)));
+        assertThat(cache.obtener(CLAVE, () -> ticket(Duration.ofHours(12)))).isSameAs(viejo);
+        assertThat(cache.obtener(CLAVE, () -> ticket(Duration.ofHours(12)))).isSameAs(viejo);
+
+        // Dos lecturas por vencer, una sola renovación agendada
+        assertThat(segundoPlano).hasSize(1);
+        segundoPlano.get(0).run();
+
+        assertThat(cache.obtener(CLAVE, () -> ticket(Duration.ofHours(12))).token()).isEqualTo("token-2");
+        assertThat(pedidos.get()).isEqualTo(2);
+    }
+
+    @Test
+    void unaRafagaConTicketVencidoHaceUnSoloPedido() throws Exception {
+        AfipTicketCache cache = new AfipTicketCache(30, Runnable::run);
+        int hilos = 16;
+        CountDownLatch largada = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<AfipTicketCache.Ticket>> tareas = new ArrayList<>();
+            for (int i = 0; i < hilos; i++) {
+                tareas.add(executor.submit(() -> {
+                    largada.await();
+                    return cache.obtener(CLAVE, () -> {
+                        Thread.sleep(200); // POST /auth lento: el resto se suma al mismo pedido
+                        return ticket(Duration.ofHours(12));
+                    });
+                }));
+            }
+            largada.countDown();
+
+            for (Future<AfipTicketCache.Ticket> tarea : tareas) {
+                assertThat(tarea.get(10, TimeUnit.SECONDS).token()).isEqualTo("token-1");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(pedidos.get()).isEqualTo(1);
+        assertThat(cache.pedidos()).isEqualTo(1);
+    }
+}
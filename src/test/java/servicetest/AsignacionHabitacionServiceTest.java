@@ -0,0 +1,140 @@
+package servicetest;
+
+import com.miempresa.gestion_hotelera.GestionHoteleraApplication;
+import com.miempresa.gestion_hotelera.dto.AsignacionHabitacionesResponse;
+import com.miempresa.gestion_hotelera.dto.ReservaCreateRequest;
+import com.miempresa.gestion_hotelera.entity.*;
+import com.miempresa.gestion_hotelera.repository.*;
+import com.miempresa.gestion_hotelera.service.AsignacionHabitacionService;
+import com.miempresa.gestion_hotelera.service.ReservaService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(classes = GestionHoteleraApplication.class)
+@Transactional
+class AsignacionHabitacionServiceTest {
+
+    @Autowired private AsignacionHabitacionService asignacionHabitacionService;
+    @Autowired private ReservaService reservaService;
+
+    @Autowired private ClienteRepository clienteRepository;
+    @Autowired private UsuarioRepository usuarioRepository;
+    @Autowired private RolRepository rolRepository;
+    @Autowired private HotelRepository hotelRepository;
+    @Autowired private TipoHabitacionRepository tipoHabitacionRepository;
+    @Autowired private HabitacionRepository habitacionRepository;
+    @Autowired private HuespedRepository huespedRepository;
+
+    private Hotel hotel;
+    private TipoHabitacion tipo;
+    private Habitacion habitacion;
+    private Huesped titular;
+
+    @BeforeEach
+    void setUp() {
+        Cliente cliente = clienteRepository.save(Cliente.builder()
+                .nombre("Cliente Asignación")
+                .activo(true)
+                .build());
+
+        Rol rolRecepcion = rolRepository.findByNombre("RECEPCION")
+                .orElseGet(() -> rolRepository.save(Rol.builder().nombre("RECEPCION").build()));
+
+        Usuario usuario = usuarioRepository.save(Usuario.builder()
+                .usuario("asignacion")
+                .passwordHash("dummy")
+                .activo(true)
+                .cliente(cliente)
+                .roles(Set.of(rolRecepcion))
+                .build());
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(usuario.getUsuario(), null, List.of()));
+
+        hotel = hotelRepository.save(Hotel.builder()
+                .nombre("Hotel Asignación")
+                .activo(true)
+                .cliente(cliente)
+                .build());
+
+        tipo = tipoHabitacionRepository.save(TipoHabitacion.builder()
+                .hotel(hotel)
+                .nombre("Cabaña")
+                .capacidadBase(2)
+                .capacidadMax(4)
+                .activo(true)
+                .build());
+
+        habitacion = habitacionRepository.save(Habitacion.builder()
+                .hotel(hotel)
+                .tipoHabitacion(tipo)
+                .codigo("CAB-1")
+                .estado("DISPONIBLE")
+                .activo(true)
+                .build());
+
+        titular = huespedRepository.save(Huesped.builder().nombre("Juan").apellido("Pérez").build());
+    }
+
+    private ReservaCreateRequest reserva(LocalDate checkIn, LocalDate checkOut) {
+        ReservaCreateRequest req = new ReservaCreateRequest();
+        req.setHotelId(hotel.getId());
+        req.setTipoHabitacionId(tipo.getId());
+        req.setHabitacionId(habitacion.getId());
+        req.setHuespedTitularId(titular.getId());
+        req.setAcompanianteIds(List.of());
+        req.setCheckIn(checkIn);
+        req.setCheckOut(checkOut);
+        req.setAdultos(2);
+        req.setPrecioTotal(BigDecimal.valueOf(100000));
+        req.setMoneda("ARS");
+        return req;
+    }
+
+    @Test
+    void asignarHabitacionesEvitaNochesHuerfanas() {
+        Habitacion otra = habitacionRepository.save(Habitacion.builder()
+                .hotel(hotel)
+                .tipoHabitacion(tipo)
+                .codigo("CAB-2")
+                .estado("DISPONIBLE")
+                .activo(true)
+                .build());
+
+        reservaService.crear(reserva(LocalDate.of(2025, 6, 10), LocalDate.of(2025, 6, 13)));
+
+        ReservaCreateRequest solapada = reserva(LocalDate.of(2025, 6, 11), LocalDate.of(2025, 6, 12));
+        solapada.setHabitacionId(null);
+        Long idSolapada = reservaService.crear(solapada).getId();
+
+        // Pegada a la reserva de CAB-1: en CAB-2 dejaría una noche suelta el 12
+        ReservaCreateRequest pegada = reserva(LocalDate.of(2025, 6, 13), LocalDate.of(2025, 6, 15));
+        pegada.setHabitacionId(null);
+        Long idPegada = reservaService.crear(pegada).getId();
+
+        AsignacionHabitacionesResponse resultado = asignacionHabitacionService.asignar(
+                hotel.getId(), LocalDate.of(2025, 6, 1), LocalDate.of(2025, 6, 30));
+
+        assertThat(resultado.getPendientes()).isEqualTo(2);
+        assertThat(resultado.getAsignadas()).isEqualTo(2);
+        assertThat(resultado.getSinAsignar()).isEmpty();
+        assertThat(resultado.getAsignaciones())
+                .extracting("reservaId", "habitacionId")
+                .containsExactly(
+                        tuple(idSolapada, otra.getId()),
+                        tuple(idPegada, habitacion.getId()));
+    }
+}
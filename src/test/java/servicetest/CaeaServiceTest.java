@@ -0,0 +1,116 @@
+package servicetest;
+
+import com.miempresa.gestion_hotelera.entity.Caea;
+import com.miempresa.gestion_hotelera.entity.Factura;
+import com.miempresa.gestion_hotelera.repository.CaeaRepository;
+import com.miempresa.gestion_hotelera.service.AfipCliente;
+import com.miempresa.gestion_hotelera.service.AfipService;
+import com.miempresa.gestion_hotelera.service.CaeaService;
+import com.miempresa.gestion_hotelera.service.FacturaService;
+import com.miempresa.gestion_hotelera.service.SecuenciaComprobanteService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CaeaServiceTest {
+
+    private static final String CUIT = "20111111112";
+    private static final int PV_CAEA = 9;
+
+    private final CaeaRepository caeaRepository = mock(CaeaRepository.class);
+    private final AfipService afipService = mock(AfipService.class);
+    private final AfipCliente afipCliente = mock(AfipCliente.class);
+    private final SecuenciaComprobanteService secuencias = mock(SecuenciaComprobanteService.class);
+
+    private CaeaService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new CaeaService(caeaRepository, afipService, afipCliente, secuencias);
+        ReflectionTestUtils.setField(service, "habilitado", true);
+        ReflectionTestUtils.setField(service, "modo", "CONTINGENCIA");
+        ReflectionTestUtils.setField(service, "puntoVenta", PV_CAEA);
+        ReflectionTestUtils.setField(service, "tiposComprobante", List.of("B"));
+
+        when(afipService.cuitEmisor()).thenReturn(CUIT);
+        when(afipService.mapTipoComprobanteToCbteTipo("B")).thenReturn(6);
+    }
+
+    @Test
+    void quincenaCortaEl15YTerminaAFinDeMes() {
+        assertThat(CaeaService.quincena(LocalDate.of(2024, 3, 15)))
+                .isEqualTo(new CaeaService.Quincena(202403, 1, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 15)));
+        assertThat(CaeaService.quincena(LocalDate.of(2024, 3, 16)).orden()).isEqualTo(2);
+        assertThat(CaeaService.quincena(LocalDate.of(2024, 2, 20)).hasta()).isEqualTo(LocalDate.of(2024, 2, 29));
+    }
+
+    @Test
+    void conCaeaVigenteLaFacturaQuedaAprobadaConNumeroLocal() {
+        LocalDate hoy = LocalDate.now();
+        CaeaService.Quincena q = CaeaService.quincena(hoy);
+        when(caeaRepository.findById(any())).thenReturn(Optional.of(Caea.builder()
+                .cuit(CUIT).periodo(q.periodo()).orden(q.orden()).caea("31234567890123")
+                .fchVigDesde(q.desde()).fchVigHasta(q.hasta()).fchTopeInf(q.hasta().plusDays(8))
+                .build()));
+        when(secuencias.siguienteLocal(CUIT, PV_CAEA, 6)).thenReturn(OptionalLong.of(41));
+
+        Factura factura = Factura.builder().tipoComprobante("B").estado(FacturaService.ESTADO_PENDIENTE).build();
+
+        assertThat(service.autorizarLocal(factura)).isTrue();
+        assertThat(factura.getEstado()).isEqualTo(FacturaService.ESTADO_APROBADA);
+        assertThat(factura.getModoAutorizacion()).isEqualTo(CaeaService.MODO_CAEA);
+        assertThat(factura.getCae()).isEqualTo("31234567890123");
+        assertThat(factura.getPuntoVenta()).isEqualTo(PV_CAEA);
+        assertThat(factura.getNumeroComprobante()).isEqualTo(41L);
+    }
+
+    @Test
+    void sinCaeaLaFacturaNoSeTocaNiSeConsumeNumero() {
+        when(caeaRepository.findById(any())).thenReturn(Optional.empty());
+        Factura factura = Factura.builder().tipoComprobante("B").estado(FacturaService.ESTADO_PENDIENTE).build();
+
+        assertThat(service.autorizarLocal(factura)).isFalse();
+        assertThat(factura.getEstado()).isEqualTo(FacturaService.ESTADO_PENDIENTE);
+        assertThat(factura.getModoAutorizacion()).isEqualTo(CaeaService.MODO_CAE);
+        verify(secuencias, never()).siguienteLocal(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void enContingenciaSoloSeUsaConAfipNoDisponible() {
+        when(afipCliente.disponible()).thenReturn(true);
+        assertThat(service.usarAhora()).isFalse();
+
+        when(afipCliente.disponible()).thenReturn(false);
+        assertThat(service.usarAhora()).isTrue();
+
+        ReflectionTestUtils.setField(service, "modo", "SIEMPRE");
+        when(afipCliente.disponible()).thenReturn(true);
+        assertThat(service.usarAhora()).isTrue();
+    }
+
+    @Test
+    void pideElCaeaDeLaQuincenaSiguienteCuandoSeAcerca() throws Exception {
+        when(caeaRepository.existsById(any())).thenReturn(false);
+        when(afipService.obtenerCaea(anyInt(), anyInt())).thenAnswer(inv -> new AfipService.CaeaAutorizado(
+                "3" + inv.getArgument(0) + inv.getArgument(1), LocalDate.of(2024, 3, 1),
+                LocalDate.of(2024, 3, 31), LocalDate.of(2024, 4, 8)));
+
+        service.asegurarCaeas(LocalDate.of(2024, 3, 12));
+
+        verify(afipService).obtenerCaea(202403, 1);
+        verify(afipService).obtenerCaea(202403, 2);
+        verify(caeaRepository, times(2)).save(any(Caea.class));
+        verify(secuencias).asegurar(eq(CUIT), eq(PV_CAEA), eq(6), any());
+    }
+}
@@ -0,0 +1,165 @@
+package servicetest;
+
+import com.miempresa.gestion_hotelera.GestionHoteleraApplication;
+import com.miempresa.gestion_hotelera.dto.DashboardDiaResponse;
+import com.miempresa.gestion_hotelera.dto.DashboardPortfolioResponse;
+import com.miempresa.gestion_hotelera.dto.KpiHotelResponse;
+import com.miempresa.gestion_hotelera.dto.KpiSerieResponse;
+import com.miempresa.gestion_hotelera.dto.ReservaCreateRequest;
+import com.miempresa.gestion_hotelera.entity.*;
+import com.miempresa.gestion_hotelera.repository.*;
+import com.miempresa.gestion_hotelera.service.DashboardService;
+import com.miempresa.gestion_hotelera.service.ReservaService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(classes = GestionHoteleraApplication.class)
+@Transactional
+class DashboardServiceTest {
+
+    @Autowired private DashboardService dashboardService;
+    @Autowired private ReservaService reservaService;
+
+    @Autowired private ClienteRepository clienteRepository;
+    @Autowired private UsuarioRepository usuarioRepository;
+    @Autowired private RolRepository rolRepository;
+    @Autowired private HotelRepository hotelRepository;
+    @Autowired private TipoHabitacionRepository tipoHabitacionRepository;
+    @Autowired private HabitacionRepository habitacionRepository;
+    @Autowired private HuespedRepository huespedRepository;
+
+    private Hotel hotel;
+    private TipoHabitacion tipo;
+    private Habitacion habitacion;
+    private Huesped titular;
+
+    @BeforeEach
+    void setUp() {
+        Cliente cliente = clienteRepository.save(Cliente.builder()
+                .nombre("Cliente Dashboard")
+                .activo(true)
+                .build());
+
+        Rol rolRecepcion = rolRepository.findByNombre("RECEPCION")
+                .orElseGet(() -> rolRepository.save(Rol.builder().nombre("RECEPCION").build()));
+
+        Usuario usuario = usuarioRepository.save(Usuario.builder()
+                .usuario("dashboard")
+                .passwordHash("dummy")
+                .activo(true)
+                .cliente(cliente)
+                .roles(Set.of(rolRecepcion))
+                .build());
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(usuario.getUsuario(), null, List.of()));
+
+        hotel = hotelRepository.save(Hotel.builder()
+                .nombre("Hotel Dashboard")
+                .activo(true)
+                .cliente(cliente)
+                .build());
+
+        tipo = tipoHabitacionRepository.save(TipoHabitacion.builder()
+                .hotel(hotel)
+                .nombre("Cabaña")
+                .capacidadBase(2)
+                .capacidadMax(4)
+                .activo(true)
+                .build());
+
+        habitacion = habitacionRepository.save(Habitacion.builder()
+                .hotel(hotel)
+                .tipoHabitacion(tipo)
+                .codigo("CAB-1")
+                .estado("DISPONIBLE")
+                .activo(true)
+                .build());
+
+        titular = huespedRepository.save(Huesped.builder().nombre("Juan").apellido("Pérez").build());
+    }
+
+    private ReservaCreateRequest reserva(LocalDate checkIn, LocalDate checkOut) {
+        ReservaCreateRequest req = new ReservaCreateRequest();
+        req.setHotelId(hotel.getId());
+        req.setTipoHabitacionId(tipo.getId());
+        req.setHabitacionId(habitacion.getId());
+        req.setHuespedTitularId(titular.getId());
+        req.setAcompanianteIds(List.of());
+        req.setCheckIn(checkIn);
+        req.setCheckOut(checkOut);
+        req.setAdultos(2);
+        req.setPrecioTotal(BigDecimal.valueOf(100000));
+        req.setMoneda("ARS");
+        return req;
+    }
+
+    @Test
+    void kpisProrrateanIngresosPorNocheYExcluyenCanceladas() {
+        habitacionRepository.save(Habitacion.builder()
+                .hotel(hotel).tipoHabitacion(tipo).codigo("CAB-2").estado("DISPONIBLE").activo(true).build());
+
+        LocalDate desde = LocalDate.of(2030, 5, 1);
+        reservaService.crear(reserva(desde.plusDays(1), desde.plusDays(3))); // 100000 / 2 noches
+        Long cancelada = reservaService.crear(reserva(desde.plusDays(3), desde.plusDays(5))).getId();
+        reservaService.cancelar(cancelada);
+
+        KpiHotelResponse kpis = dashboardService.kpis(hotel.getId(), desde, desde.plusDays(4));
+        KpiSerieResponse total = kpis.getTotal();
+
+        assertThat(kpis.getDias()).isEqualTo(4);
+        assertThat(total.getHabitaciones()).isEqualTo(2);
+        assertThat(total.getOcupadas()).containsExactly(0, 1, 1, 0);
+        assertThat(total.getOcupacionPorcentaje()).containsExactly(0.0, 50.0, 50.0, 0.0);
+        assertThat(total.getIngresos()[1]).isEqualByComparingTo("50000");
+        assertThat(total.getAdr()[2]).isEqualByComparingTo("50000");
+        assertThat(total.getRevpar()[2]).isEqualByComparingTo("25000");
+        assertThat(total.getRevpar()[3]).isEqualByComparingTo("0");
+
+        assertThat(total.getOcupacionPeriodo()).isEqualTo(25.0);
+        assertThat(total.getIngresosPeriodo()).isEqualByComparingTo("100000");
+        assertThat(total.getAdrPeriodo()).isEqualByComparingTo("50000");
+        assertThat(total.getRevparPeriodo()).isEqualByComparingTo("12500");
+
+        assertThat(kpis.getTipos()).singleElement()
+                .satisfies(t -> assertThat(t.getOcupadas()).containsExactly(total.getOcupadas()));
+    }
+
+    @Test
+    void dashboardPortfolioSoloIncluyeHotelesDelCliente() {
+        LocalDate hoy = LocalDate.now();
+        reservaService.crear(reserva(hoy, hoy.plusDays(2)));
+
+        Hotel otroDelCliente = hotelRepository.save(Hotel.builder()
+                .nombre("Hotel Dashboard Anexo").activo(true).cliente(hotel.getCliente()).build());
+
+        Cliente ajeno = clienteRepository.save(Cliente.builder().nombre("Cliente Ajeno").activo(true).build());
+        Hotel hotelAjeno = hotelRepository.save(Hotel.builder().nombre("Hotel Ajeno").activo(true).cliente(ajeno).build());
+
+        DashboardPortfolioResponse portfolio = dashboardService.resumenPortfolio(hoy);
+
+        assertThat(portfolio.getHoteles()).extracting(DashboardDiaResponse::getHotelId)
+                .containsExactlyInAnyOrder(hotel.getId(), otroDelCliente.getId());
+        DashboardDiaResponse propio = portfolio.getHoteles().stream()
+                .filter(h -> h.getHotelId().equals(hotel.getId())).findFirst().orElseThrow();
+        assertThat(propio).usingRecursiveComparison().isEqualTo(dashboardService.resumenDia(hotel.getId(), hoy));
+        assertThat(propio.getCheckinsHoy()).isEqualTo(1);
+        assertThat(portfolio.getHabitacionesOcupadas()).isEqualTo(1);
+
+        assertThrows(ResponseStatusException.class, () -> dashboardService.resumenDia(hotelAjeno.getId(), hoy));
+    }
+}
@@ -0,0 +1,76 @@
+package servicetest;
+
+import com.miempresa.gestion_hotelera.dto.DashboardDiaResponse;
+import com.miempresa.gestion_hotelera.entity.Cliente;
+import com.miempresa.gestion_hotelera.entity.EstadoReserva;
+import com.miempresa.gestion_hotelera.event.ReservaModificadaEvent;
+import com.miempresa.gestion_hotelera.repository.HotelRepository;
+import com.miempresa.gestion_hotelera.security.TenantUtil;
+import com.miempresa.gestion_hotelera.service.DashboardService;
+import com.miempresa.gestion_hotelera.service.DashboardStreamService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class DashboardStreamServiceTest {
+
+    private static final long HOTEL = 7L;
+
+    private final DashboardService dashboardService = mock(DashboardService.class);
+    private final HotelRepository hotelRepository = mock(HotelRepository.class);
+    private final TenantUtil tenantUtil = mock(TenantUtil.class);
+    private final TaskScheduler taskScheduler = mock(TaskScheduler.class);
+
+    private DashboardStreamService service;
+
+    @BeforeEach
+    void setUp() {
+        when(tenantUtil.getClienteActual()).thenReturn(Cliente.builder().id(1L).build());
+        when(hotelRepository.existsByIdAndCliente_Id(HOTEL, 1L)).thenReturn(true);
+        when(dashboardService.calcularResumenDia(eq(HOTEL), any()))
+                .thenReturn(DashboardDiaResponse.builder().hotelId(HOTEL).build());
+        service = new DashboardStreamService(dashboardService, hotelRepository, tenantUtil, taskScheduler);
+    }
+
+    @Test
+    void unaRafagaDeCambiosEsUnSoloRecalculo() {
+        service.suscribir(HOTEL);
+        service.suscribir(HOTEL);
+        assertThat(service.cantidadSuscriptores(HOTEL)).isEqualTo(2);
+        clearInvocations(dashboardService);
+
+        for (long i = 0; i < 5; i++) {
+            service.onReservaModificada(evento(i));
+        }
+
+        ArgumentCaptor<Runnable> tarea = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler, times(1)).schedule(tarea.capture(), any(Instant.class));
+
+        tarea.getValue().run();
+        verify(dashboardService, times(1)).calcularResumenDia(eq(HOTEL), any());
+
+        // Pasada la ventana, el próximo cambio vuelve a agendar
+        service.onReservaModificada(evento(9));
+        verify(taskScheduler, times(2)).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void sinSuscriptoresNoSeAgendaNada() {
+        service.onReservaModificada(evento(1));
+        verifyNoInteractions(taskScheduler, dashboardService);
+    }
+
+    private static ReservaModificadaEvent evento(long reservaId) {
+        LocalDate hoy = LocalDate.now();
+        return new ReservaModificadaEvent(HOTEL, reservaId, 3L, hoy, hoy.plusDays(1), EstadoReserva.CHECKIN);
+    }
+}
@@ -0,0 +1,100 @@
+package servicetest;
+
+import com.miempresa.gestion_hotelera.dto.DisponibilidadHotelResponse;
+import com.miempresa.gestion_hotelera.event.ReservaModificadaEvent;
+import com.miempresa.gestion_hotelera.service.DisponibilidadCache;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DisponibilidadCacheTest {
+
+    private static final LocalDate IN = LocalDate.of(2030, 1, 10);
+    private static final LocalDate OUT = LocalDate.of(2030, 1, 12);
+
+    private final AtomicInteger calculos = new AtomicInteger();
+
+    private DisponibilidadHotelResponse calcular() {
+        calculos.incrementAndGet();
+        return DisponibilidadHotelResponse.builder().cantidadDisponibles(3).habitaciones(List.of()).build();
+    }
+
+    @Test
+    void invalidaSoloElHotelQueCambio() {
+        DisponibilidadCache cache = new DisponibilidadCache(true, 60, 100);
+
+        cache.obtener(1L, IN, OUT, this::calcular);
+        cache.obtener(1L, IN, OUT, this::calcular);
+        cache.obtener(2L, IN, OUT, this::calcular);
+        assertThat(calculos.get()).isEqualTo(2);
+
+        cache.onReservaModificada(new ReservaModificadaEvent(1L, 10L, 5L, IN, OUT, null));
+        cache.obtener(1L, IN, OUT, this::calcular);
+        cache.obtener(2L, IN, OUT, this::calcular);
+
+        assertThat(calculos.get()).isEqualTo(3);
+        assertThat(cache.estadisticas().getAciertos()).isEqualTo(2);
+        assertThat(cache.estadisticas().getFallos()).isEqualTo(3);
+    }
+
+    @Test
+    void desalojaPorTamanio() {
+        DisponibilidadCache cache = new DisponibilidadCache(true, 60, 2);
+
+        for (int i = 0; i < 3; i++) {
+            cache.obtener(1L, IN.plusDays(i), OUT.plusDays(i), this::calcular);
+        }
+
+        assertThat(cache.estadisticas().getEntradas()).isEqualTo(2);
+        assertThat(cache.estadisticas().getDesalojosPorTamanio()).isEqualTo(1);
+    }
+
+    @Test
+    void pedidosIgualesConcurrentesCalculanUnaSolaVez() throws Exception {
+        DisponibilidadCache cache = new DisponibilidadCache(true, 60, 100);
+        CountDownLatch calculando = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<?> primero = executor.submit(() -> cache.obtener(1L, IN, OUT, () -> {
+                calculando.countDown();
+                try {
+                    liberar.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return calcular();
+            }));
+            calculando.await();
+
+            Future<?>[] resto = new Future<?>[7];
+            for (int i = 0; i < resto.length; i++) {
+                resto[i] = executor.submit(() -> cache.obtener(1L, IN, OUT, this::calcular));
+            }
+            // Los siete quedan esperando el cálculo en curso
+            while (cache.estadisticas().getColapsados() < resto.length) {
+                Thread.onSpinWait();
+            }
+            liberar.countDown();
+
+            primero.get(5, TimeUnit.SECONDS);
+            for (Future<?> f : resto) {
+                f.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(calculos.get()).isEqualTo(1);
+    }
+}
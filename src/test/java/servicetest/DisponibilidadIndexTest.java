@@ -0,0 +1,81 @@
+package servicetest;
+
+import com.miempresa.gestion_hotelera.dto.HabitacionResponse;
+import com.miempresa.gestion_hotelera.entity.EstadoReserva;
+import com.miempresa.gestion_hotelera.entity.Habitacion;
+import com.miempresa.gestion_hotelera.entity.Hotel;
+import com.miempresa.gestion_hotelera.entity.TipoHabitacion;
+import com.miempresa.gestion_hotelera.event.ReservaModificadaEvent;
+import com.miempresa.gestion_hotelera.mapper.HabitacionMapper;
+import com.miempresa.gestion_hotelera.repository.HabitacionRepository;
+import com.miempresa.gestion_hotelera.repository.ReservaRepository;
+import com.miempresa.gestion_hotelera.service.DisponibilidadIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class DisponibilidadIndexTest {
+
+    private static final long HOTEL = 1L;
+    private static final LocalDate IN = LocalDate.now().plusDays(10);
+    private static final LocalDate OUT = IN.plusDays(2);
+
+    private final ReservaRepository reservaRepository = mock(ReservaRepository.class);
+    private final HabitacionRepository habitacionRepository = mock(HabitacionRepository.class);
+
+    private DisponibilidadIndex index;
+
+    @BeforeEach
+    void setUp() {
+        Hotel hotel = Hotel.builder().id(HOTEL).build();
+        TipoHabitacion tipo = TipoHabitacion.builder().id(3L).build();
+        when(habitacionRepository.findByHotelIdWithFetch(HOTEL)).thenReturn(List.of(
+                Habitacion.builder().id(10L).hotel(hotel).tipoHabitacion(tipo).codigo("101").activo(true).build(),
+                Habitacion.builder().id(11L).hotel(hotel).tipoHabitacion(tipo).codigo("102").activo(false).build()));
+        when(reservaRepository.findOcupacionByHotel(eq(HOTEL), any())).thenReturn(List.of());
+
+        index = new DisponibilidadIndex(reservaRepository, habitacionRepository, new HabitacionMapper());
+        ReflectionTestUtils.setField(index, "ttlMinutos", 30L);
+    }
+
+    @Test
+    void noOfreceDesactivadasNiCompartePorReferencia() {
+        List<HabitacionResponse> libres = index.habitacionesLibres(HOTEL, IN, OUT);
+        assertThat(libres).extracting(HabitacionResponse::getId).containsExactly(10L);
+
+        libres.get(0).setCodigo("cambiado");
+        assertThat(index.habitacionesLibres(HOTEL, IN, OUT).get(0).getCodigo()).isEqualTo("101");
+        verify(habitacionRepository, times(1)).findByHotelIdWithFetch(HOTEL);
+    }
+
+    @Test
+    void unCambioDuranteLaConstruccionNoQuedaGuardado() {
+        // La reserva se commitea mientras el índice lee: lo leído no la incluye
+        when(reservaRepository.findOcupacionByHotel(eq(HOTEL), any())).thenAnswer(inv -> {
+            index.onReservaModificada(new ReservaModificadaEvent(HOTEL, 50L, 10L, IN, OUT, EstadoReserva.CONFIRMADA));
+            return List.of();
+        }).thenReturn(List.of(ocupacion(50L, 10L)));
+
+        index.habitacionesLibres(HOTEL, IN, OUT);
+
+        assertThat(index.habitacionesLibres(HOTEL, IN, OUT)).isEmpty();
+        verify(habitacionRepository, times(2)).findByHotelIdWithFetch(HOTEL);
+    }
+
+    private static ReservaRepository.OcupacionView ocupacion(Long reservaId, Long habitacionId) {
+        return new ReservaRepository.OcupacionView() {
+            public Long getId() { return reservaId; }
+            public Long getHabitacionId() { return habitacionId; }
+            public LocalDate getCheckIn() { return IN; }
+            public LocalDate getCheckOut() { return OUT; }
+        };
+    }
+}
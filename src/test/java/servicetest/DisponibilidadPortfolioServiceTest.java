@@ -0,0 +1,124 @@
+package servicetest;
+
+import com.miempresa.gestion_hotelera.GestionHoteleraApplication;
+import com.miempresa.gestion_hotelera.dto.DisponibilidadPortfolioResponse;
+import com.miempresa.gestion_hotelera.dto.ReservaCreateRequest;
+import com.miempresa.gestion_hotelera.entity.*;
+import com.miempresa.gestion_hotelera.repository.*;
+import com.miempresa.gestion_hotelera.service.DisponibilidadPortfolioService;
+import com.miempresa.gestion_hotelera.service.ReservaService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = GestionHoteleraApplication.class)
+@Transactional
+class DisponibilidadPortfolioServiceTest {
+
+    @Autowired private DisponibilidadPortfolioService disponibilidadPortfolioService;
+    @Autowired private ReservaService reservaService;
+
+    @Autowired private ClienteRepository clienteRepository;
+    @Autowired private UsuarioRepository usuarioRepository;
+    @Autowired private RolRepository rolRepository;
+    @Autowired private HotelRepository hotelRepository;
+    @Autowired private TipoHabitacionRepository tipoHabitacionRepository;
+    @Autowired private HabitacionRepository habitacionRepository;
+    @Autowired private HuespedRepository huespedRepository;
+
+    private Hotel hotel;
+    private TipoHabitacion tipo;
+    private Habitacion habitacion;
+    private Huesped titular;
+
+    @BeforeEach
+    void setUp() {
+        Cliente cliente = clienteRepository.save(Cliente.builder()
+                .nombre("Cliente Portfolio")
+                .activo(true)
+                .build());
+
+        Rol rolRecepcion = rolRepository.findByNombre("RECEPCION")
+                .orElseGet(() -> rolRepository.save(Rol.builder().nombre("RECEPCION").build()));
+
+        Usuario usuario = usuarioRepository.save(Usuario.builder()
+                .usuario("portfolio")
+                .passwordHash("dummy")
+                .activo(true)
+                .cliente(cliente)
+                .roles(Set.of(rolRecepcion))
+                .build());
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(usuario.getUsuario(), null, List.of()));
+
+        hotel = hotelRepository.save(Hotel.builder()
+                .nombre("Hotel Portfolio")
+                .activo(true)
+                .cliente(cliente)
+                .build());
+
+        tipo = tipoHabitacionRepository.save(TipoHabitacion.builder()
+                .hotel(hotel)
+                .nombre("Cabaña")
+                .capacidadBase(2)
+                .capacidadMax(4)
+                .activo(true)
+                .build());
+
+        habitacion = habitacionRepository.save(Habitacion.builder()
+                .hotel(hotel)
+                .tipoHabitacion(tipo)
+                .codigo("CAB-1")
+                .estado("DISPONIBLE")
+                .activo(true)
+                .build());
+
+        titular = huespedRepository.save(Huesped.builder().nombre("Juan").apellido("Pérez").build());
+    }
+
+    private ReservaCreateRequest reserva(LocalDate checkIn, LocalDate checkOut) {
+        ReservaCreateRequest req = new ReservaCreateRequest();
+        req.setHotelId(hotel.getId());
+        req.setTipoHabitacionId(tipo.getId());
+        req.setHabitacionId(habitacion.getId());
+        req.setHuespedTitularId(titular.getId());
+        req.setAcompanianteIds(List.of());
+        req.setCheckIn(checkIn);
+        req.setCheckOut(checkOut);
+        req.setAdultos(2);
+        req.setPrecioTotal(BigDecimal.valueOf(100000));
+        req.setMoneda("ARS");
+        return req;
+    }
+
+    @Test
+    void disponibilidadPortfolioAgrupaPorHotelYTipo() {
+        reservaService.crear(reserva(LocalDate.of(2025, 5, 1), LocalDate.of(2025, 5, 4)));
+
+        DisponibilidadPortfolioResponse ocupado = disponibilidadPortfolioService.disponibilidad(
+                LocalDate.of(2025, 5, 2), LocalDate.of(2025, 5, 3), null);
+        assertThat(ocupado.getHoteles()).extracting("hotelId").containsExactly(hotel.getId());
+        assertThat(ocupado.getCantidadDisponibles()).isZero();
+
+        DisponibilidadPortfolioResponse libre = disponibilidadPortfolioService.disponibilidad(
+                LocalDate.of(2025, 5, 4), LocalDate.of(2025, 5, 6), 2);
+        assertThat(libre.getCantidadDisponibles()).isEqualTo(1);
+        assertThat(libre.getHoteles().get(0).getTipos()).extracting("tipoHabitacionId").containsExactly(tipo.getId());
+
+        // Más huéspedes que la capacidad máxima del tipo
+        assertThat(disponibilidadPortfolioService.disponibilidad(
+                LocalDate.of(2025, 5, 4), LocalDate.of(2025, 5, 6), 5).getCantidadDisponibles()).isZero();
+    }
+}
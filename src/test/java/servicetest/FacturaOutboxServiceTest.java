@@ -0,0 +1,222 @@
+package servicetest;
+
+import com.miempresa.gestion_hotelera.GestionHoteleraApplication;
+import com.miempresa.gestion_hotelera.entity.Cliente;
+import com.miempresa.gestion_hotelera.entity.Factura;
+import com.miempresa.gestion_hotelera.entity.FacturaOutbox;
+import com.miempresa.gestion_hotelera.repository.ClienteRepository;
+import com.miempresa.gestion_hotelera.repository.FacturaOutboxRepository;
+import com.miempresa.gestion_hotelera.repository.FacturaRepository;
+import com.miempresa.gestion_hotelera.repository.SecuenciaComprobanteRepository;
+import com.miempresa.gestion_hotelera.service.FacturaOutboxService;
+import com.miempresa.gestion_hotelera.service.FacturaService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cola de emisión contra AfipStub. Sin @Transactional: el servicio abre sus
+ * propias transacciones y tiene que ver lo que el test commiteó. El job de la
+ * cola está apagado en los tests (config/application.properties): los pedidos
+ * se reclaman y procesan a mano.
+ */
+@SpringBootTest(classes = GestionHoteleraApplication.class)
+class FacturaOutboxServiceTest {
+
+    private static final AfipStub AFIP = iniciarStub();
+    private static final String CUIT = String.valueOf(27_000_000_000L + System.nanoTime() % 1_000_000_000L);
+
+    @DynamicPropertySource
+    static void afip(DynamicPropertyRegistry registry) {
+        registry.add("afip.api.base-url", AFIP::baseUrl);
+        registry.add("afip.api.tax-id", () -> CUIT);
+    }
+
+    @Autowired private FacturaOutboxService facturaOutboxService;
+    @Autowired private FacturaOutboxRepository facturaOutboxRepository;
+    @Autowired private FacturaRepository facturaRepository;
+    @Autowired private ClienteRepository clienteRepository;
+    @Autowired private SecuenciaComprobanteRepository secuenciaComprobanteRepository;
+
+    private Cliente cliente;
+
+    @BeforeEach
+    void setUp() {
+        AFIP.reset();
+        cliente = clienteRepository.save(Cliente.builder().nombre("Cliente outbox").activo(true).cuit(CUIT).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        facturaRepository.deleteAll(facturaRepository.findByClienteId(cliente.getId())); // outbox cae en cascada
+        clienteRepository.delete(cliente);
+        secuenciaComprobanteRepository.deleteAll(secuenciaComprobanteRepository.findAll().stream()
+                .filter(s -> CUIT.equals(s.getCuit())).toList());
+    }
+
+    @AfterAll
+    static void apagarStub() {
+        AFIP.close();
+    }
+
+    @Test
+    void pedidoAprobadoCompletaLaFactura() {
+        FacturaOutbox pedido = encolar();
+
+        assertThat(facturaOutboxService.reclamar(100)).contains(pedido.getId());
+        facturaOutboxService.procesar(pedido.getId());
+
+        Factura factura = facturaRepository.findById(pedido.getFactura().getId()).orElseThrow();
+        assertThat(factura.getEstado()).isEqualTo(FacturaService.ESTADO_APROBADA);
+        assertThat(factura.getNumeroComprobante()).isEqualTo(1L);
+        assertThat(factura.getCae()).isNotBlank();
+        assertThat(facturaOutboxRepository.findById(pedido.getId())).get()
+                .extracting(FacturaOutbox::getEstado).isEqualTo(FacturaOutbox.COMPLETADA);
+
+        // Ya completado: otra pasada no lo vuelve a mandar
+        assertThat(facturaOutboxService.reclamar(100)).doesNotContain(pedido.getId());
+        assertThat(AFIP.solicitudes()).isEqualTo(1);
+    }
+
+    @Test
+    void afipCaidaReprogramaConBackoff() {
+        AFIP.fallarCon(503);
+        FacturaOutbox pedido = encolar();
+
+        facturaOutboxService.reclamar(100);
+        facturaOutboxService.procesar(pedido.getId());
+
+        FacturaOutbox reprogramado = facturaOutboxRepository.findById(pedido.getId()).orElseThrow();
+        assertThat(reprogramado.getEstado()).isEqualTo(FacturaOutbox.PENDIENTE);
+        assertThat(reprogramado.getIntentos()).isEqualTo(1);
+        assertThat(reprogramado.getProximoIntento()).isAfter(LocalDateTime.now());
+        assertThat(reprogramado.getUltimoError()).isNotBlank();
+
+        // Todavía en espera: no se reclama hasta que pase el backoff
+        assertThat(facturaOutboxService.reclamar(100)).doesNotContain(pedido.getId());
+        assertThat(facturaRepository.findById(pedido.getFactura().getId())).get()
+                .extracting(Factura::getEstado).isEqualTo(FacturaService.ESTADO_PENDIENTE);
+    }
+
+    @Test
+    void envioSinRespuestaAutorizadoAdoptaElCaeSinReenviar() {
+        // El FECAESolicitar anterior llegó a AFIP con el número 1 pero la respuesta no
+        LocalDate fechaEnvio = LocalDate.now().minusDays(1);
+        AFIP.autorizar(1, 6, 1, "30111222", "1500.00", fechaEnvio.format(DateTimeFormatter.BASIC_ISO_DATE));
+        FacturaOutbox pedido = encolar(1L, fechaEnvio);
+
+        facturaOutboxService.reclamar(100);
+        facturaOutboxService.procesar(pedido.getId());
+
+        Factura factura = facturaRepository.findById(pedido.getFactura().getId()).orElseThrow();
+        assertThat(factura.getEstado()).isEqualTo(FacturaService.ESTADO_APROBADA);
+        assertThat(factura.getNumeroComprobante()).isEqualTo(1L);
+        assertThat(factura.getCae()).isEqualTo("70000000000001");
+        assertThat(factura.getNumeroIntentado()).isNull();
+        assertThat(AFIP.solicitudes()).isZero();
+    }
+
+    @Test
+    void envioSinRespuestaQueAfipNoTieneSeVuelveAEmitir() {
+        FacturaOutbox pedido = encolar(1L, LocalDate.now());
+
+        facturaOutboxService.reclamar(100);
+        facturaOutboxService.procesar(pedido.getId());
+
+        Factura factura = facturaRepository.findById(pedido.getFactura().getId()).orElseThrow();
+        assertThat(factura.getEstado()).isEqualTo(FacturaService.ESTADO_APROBADA);
+        assertThat(factura.getNumeroComprobante()).isEqualTo(1L);
+        assertThat(factura.getNumeroIntentado()).isNull();
+        assertThat(AFIP.solicitudes()).isEqualTo(1);
+    }
+
+    @Test
+    void numeroConOtroComprobanteQuedaParaRevisar() {
+        AFIP.autorizar(1, 6, 1, "20999888", "99.00", LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE));
+        FacturaOutbox pedido = encolar(1L, LocalDate.now());
+
+        facturaOutboxService.reclamar(100);
+        facturaOutboxService.procesar(pedido.getId());
+
+        assertThat(facturaOutboxRepository.findById(pedido.getId())).get()
+                .extracting(FacturaOutbox::getEstado).isEqualTo(FacturaOutbox.REVISION);
+        assertThat(facturaRepository.findById(pedido.getFactura().getId())).get()
+                .extracting(Factura::getEstado).isEqualTo(FacturaService.ESTADO_PENDIENTE);
+        assertThat(AFIP.solicitudes()).isZero();
+    }
+
+    @Test
+    void pedidoInterrumpidoVuelveALaColaYSeVerificaAntesDeReenviar() {
+        // La instancia se cayó después de mandar el número 1, que AFIP autorizó
+        AFIP.autorizar(1, 6, 1, "30111222", "1500.00", LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE));
+        FacturaOutbox pedido = encolar(1L, LocalDate.now());
+        facturaOutboxService.reclamar(100);
+        FacturaOutbox colgado = facturaOutboxRepository.findById(pedido.getId()).orElseThrow();
+        colgado.setActualizadoEn(LocalDateTime.now().minusHours(1));
+        facturaOutboxRepository.save(colgado);
+
+        assertThat(facturaOutboxService.cerrarInterrumpidas()).isGreaterThanOrEqualTo(1);
+        assertThat(facturaOutboxService.reclamar(100)).contains(pedido.getId());
+        facturaOutboxService.procesar(pedido.getId());
+
+        assertThat(facturaRepository.findById(pedido.getFactura().getId())).get()
+                .extracting(Factura::getNumeroComprobante, Factura::getEstado)
+                .containsExactly(1L, FacturaService.ESTADO_APROBADA);
+        assertThat(AFIP.solicitudes()).isZero();
+    }
+
+    private FacturaOutbox encolar() {
+        return encolar(null, null);
+    }
+
+    private FacturaOutbox encolar(Long numeroIntentado, LocalDate fechaIntentada) {
+        LocalDateTime ahora = LocalDateTime.now();
+        Factura factura = facturaRepository.save(Factura.builder()
+                .cliente(cliente)
+                .tipoComprobante("B")
+                .puntoVenta(1)
+                .numeroComprobante(0L)
+                .cuitEmisor(CUIT)
+                .tipoDocumentoReceptor("DNI")
+                .documentoReceptor("30111222")
+                .receptorNombre("Huésped de prueba")
+                .fechaEmision(ahora)
+                .importeTotal(new BigDecimal("1500.00"))
+                .moneda("ARS")
+                .estado(FacturaService.ESTADO_PENDIENTE)
+                .numeroIntentado(numeroIntentado)
+                .fechaIntentada(fechaIntentada)
+                .build());
+
+        return facturaOutboxRepository.save(FacturaOutbox.builder()
+                .factura(factura)
+                .estado(FacturaOutbox.PENDIENTE)
+                .intentos(0)
+                .proximoIntento(ahora.minusSeconds(1))
+                .creadoEn(ahora)
+                .actualizadoEn(ahora)
+                .build());
+    }
+
+    private static AfipStub iniciarStub() {
+        try {
+            return new AfipStub();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
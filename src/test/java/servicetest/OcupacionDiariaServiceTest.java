@@ -0,0 +1,131 @@
+package servicetest;
+
+import com.miempresa.gestion_hotelera.GestionHoteleraApplication;
+import com.miempresa.gestion_hotelera.dto.OcupacionDiaResponse;
+import com.miempresa.gestion_hotelera.dto.PagoSeniaRequest;
+import com.miempresa.gestion_hotelera.dto.ReservaCreateRequest;
+import com.miempresa.gestion_hotelera.entity.*;
+import com.miempresa.gestion_hotelera.repository.*;
+import com.miempresa.gestion_hotelera.service.OcupacionDiariaService;
+import com.miempresa.gestion_hotelera.service.ReservaService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = GestionHoteleraApplication.class)
+@Transactional
+class OcupacionDiariaServiceTest {
+
+    @Autowired private OcupacionDiariaService ocupacionDiariaService;
+    @Autowired private ReservaService reservaService;
+
+    @Autowired private ClienteRepository clienteRepository;
+    @Autowired private UsuarioRepository usuarioRepository;
+    @Autowired private RolRepository rolRepository;
+    @Autowired private HotelRepository hotelRepository;
+    @Autowired private TipoHabitacionRepository tipoHabitacionRepository;
+    @Autowired private HabitacionRepository habitacionRepository;
+    @Autowired private HuespedRepository huespedRepository;
+
+    private Hotel hotel;
+    private TipoHabitacion tipo;
+    private Habitacion habitacion;
+    private Huesped titular;
+
+    @BeforeEach
+    void setUp() {
+        Cliente cliente = clienteRepository.save(Cliente.builder()
+                .nombre("Cliente Ocupación")
+                .activo(true)
+                .build());
+
+        Rol rolRecepcion = rolRepository.findByNombre("RECEPCION")
+                .orElseGet(() -> rolRepository.save(Rol.builder().nombre("RECEPCION").build()));
+
+        Usuario usuario = usuarioRepository.save(Usuario.builder()
+                .usuario("ocupacion")
+                .passwordHash("dummy")
+                .activo(true)
+                .cliente(cliente)
+                .roles(Set.of(rolRecepcion))
+                .build());
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(usuario.getUsuario(), null, List.of()));
+
+        hotel = hotelRepository.save(Hotel.builder()
+                .nombre("Hotel Ocupación")
+                .activo(true)
+                .cliente(cliente)
+                .build());
+
+        tipo = tipoHabitacionRepository.save(TipoHabitacion.builder()
+                .hotel(hotel)
+                .nombre("Cabaña")
+                .capacidadBase(2)
+                .capacidadMax(4)
+                .activo(true)
+                .build());
+
+        habitacion = habitacionRepository.save(Habitacion.builder()
+                .hotel(hotel)
+                .tipoHabitacion(tipo)
+                .codigo("CAB-1")
+                .estado("DISPONIBLE")
+                .activo(true)
+                .build());
+
+        titular = huespedRepository.save(Huesped.builder().nombre("Juan").apellido("Pérez").build());
+    }
+
+    private ReservaCreateRequest reserva(LocalDate checkIn, LocalDate checkOut) {
+        ReservaCreateRequest req = new ReservaCreateRequest();
+        req.setHotelId(hotel.getId());
+        req.setTipoHabitacionId(tipo.getId());
+        req.setHabitacionId(habitacion.getId());
+        req.setHuespedTitularId(titular.getId());
+        req.setAcompanianteIds(List.of());
+        req.setCheckIn(checkIn);
+        req.setCheckOut(checkOut);
+        req.setAdultos(2);
+        req.setPrecioTotal(BigDecimal.valueOf(100000));
+        req.setMoneda("ARS");
+        return req;
+    }
+
+    @Test
+    void ocupacionDiariaAcompaniaAltasCancelacionesYPagos() {
+        LocalDate hoy = LocalDate.now();
+        Long id = reservaService.crear(reserva(hoy.plusDays(1), hoy.plusDays(3))).getId();
+        Long cancelada = reservaService.crear(reserva(hoy.plusDays(3), hoy.plusDays(4))).getId();
+        reservaService.cancelar(cancelada);
+
+        PagoSeniaRequest senia = new PagoSeniaRequest();
+        senia.setMonto(BigDecimal.valueOf(30000));
+        reservaService.registrarSenia(id, senia);
+
+        List<OcupacionDiaResponse> dias = ocupacionDiariaService.listar(hotel.getId(), hoy, hoy.plusDays(4));
+        assertThat(dias).extracting(OcupacionDiaResponse::getHabitacionesOcupadas).containsExactly(0, 1, 1, 0);
+        assertThat(dias).extracting(OcupacionDiaResponse::getLlegadas).containsExactly(0, 1, 0, 0);
+        assertThat(dias).extracting(OcupacionDiaResponse::getSalidas).containsExactly(0, 0, 0, 1);
+        assertThat(dias.get(0).getIngresos()).isEqualByComparingTo("30000");
+
+        assertThat(ocupacionDiariaService.verificar(hotel.getId(), hoy, hoy.plusDays(4)).isConsistente()).isTrue();
+
+        ocupacionDiariaService.reconstruir(hotel.getId());
+        assertThat(ocupacionDiariaService.listar(hotel.getId(), hoy, hoy.plusDays(4)))
+                .extracting(OcupacionDiaResponse::getHabitacionesOcupadas).containsExactly(0, 1, 1, 0);
+        assertThat(ocupacionDiariaService.verificar(hotel.getId(), hoy, hoy.plusDays(4)).isConsistente()).isTrue();
+    }
+}
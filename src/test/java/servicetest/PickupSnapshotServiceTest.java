@@ -0,0 +1,134 @@
+package servicetest;
+
+import com.miempresa.gestion_hotelera.GestionHoteleraApplication;
+import com.miempresa.gestion_hotelera.dto.PickupDiaResponse;
+import com.miempresa.gestion_hotelera.dto.PickupReporteResponse;
+import com.miempresa.gestion_hotelera.dto.ReservaCreateRequest;
+import com.miempresa.gestion_hotelera.entity.*;
+import com.miempresa.gestion_hotelera.repository.*;
+import com.miempresa.gestion_hotelera.service.PickupSnapshotService;
+import com.miempresa.gestion_hotelera.service.ReservaService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = GestionHoteleraApplication.class)
+@Transactional
+class PickupSnapshotServiceTest {
+
+    @Autowired private PickupSnapshotService pickupSnapshotService;
+    @Autowired private ReservaService reservaService;
+
+    @Autowired private ClienteRepository clienteRepository;
+    @Autowired private UsuarioRepository usuarioRepository;
+    @Autowired private RolRepository rolRepository;
+    @Autowired private HotelRepository hotelRepository;
+    @Autowired private TipoHabitacionRepository tipoHabitacionRepository;
+    @Autowired private HabitacionRepository habitacionRepository;
+    @Autowired private HuespedRepository huespedRepository;
+
+    private Hotel hotel;
+    private TipoHabitacion tipo;
+    private Habitacion habitacion;
+    private Huesped titular;
+
+    @BeforeEach
+    void setUp() {
+        Cliente cliente = clienteRepository.save(Cliente.builder()
+                .nombre("Cliente Pickup")
+                .activo(true)
+                .build());
+
+        Rol rolRecepcion = rolRepository.findByNombre("RECEPCION")
+                .orElseGet(() -> rolRepository.save(Rol.builder().nombre("RECEPCION").build()));
+
+        Usuario usuario = usuarioRepository.save(Usuario.builder()
+                .usuario("pickup")
+                .passwordHash("dummy")
+                .activo(true)
+                .cliente(cliente)
+                .roles(Set.of(rolRecepcion))
+                .build());
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(usuario.getUsuario(), null, List.of()));
+
+        hotel = hotelRepository.save(Hotel.builder()
+                .nombre("Hotel Pickup")
+                .activo(true)
+                .cliente(cliente)
+                .build());
+
+        tipo = tipoHabitacionRepository.save(TipoHabitacion.builder()
+                .hotel(hotel)
+                .nombre("Cabaña")
+                .capacidadBase(2)
+                .capacidadMax(4)
+                .activo(true)
+                .build());
+
+        habitacion = habitacionRepository.save(Habitacion.builder()
+                .hotel(hotel)
+                .tipoHabitacion(tipo)
+                .codigo("CAB-1")
+                .estado("DISPONIBLE")
+                .activo(true)
+                .build());
+
+        titular = huespedRepository.save(Huesped.builder().nombre("Juan").apellido("Pérez").build());
+    }
+
+    private ReservaCreateRequest reserva(LocalDate checkIn, LocalDate checkOut) {
+        ReservaCreateRequest req = new ReservaCreateRequest();
+        req.setHotelId(hotel.getId());
+        req.setTipoHabitacionId(tipo.getId());
+        req.setHabitacionId(habitacion.getId());
+        req.setHuespedTitularId(titular.getId());
+        req.setAcompanianteIds(List.of());
+        req.setCheckIn(checkIn);
+        req.setCheckOut(checkOut);
+        req.setAdultos(2);
+        req.setPrecioTotal(BigDecimal.valueOf(100000));
+        req.setMoneda("ARS");
+        return req;
+    }
+
+    @Test
+    void pickupRestaFotosDeDistintosDias() {
+        LocalDate hoy = LocalDate.now();
+        LocalDate estadia = hoy.plusDays(30);
+
+        // Foto de hace una semana con una reserva; hoy hay dos y una cancelada
+        reservaService.crear(reserva(estadia, estadia.plusDays(2)));
+        pickupSnapshotService.tomarSnapshot(hoy.minusDays(7));
+
+        ReservaCreateRequest otra = reserva(estadia.plusDays(1), estadia.plusDays(3));
+        otra.setHabitacionId(null);
+        reservaService.crear(otra);
+        Long cancelada = reservaService.crear(reserva(estadia.plusDays(5), estadia.plusDays(6))).getId();
+        reservaService.cancelar(cancelada);
+        pickupSnapshotService.tomarSnapshot(hoy);
+
+        PickupReporteResponse reporte = pickupSnapshotService.reporte(hotel.getId(), estadia, estadia.plusDays(3), hoy, 7);
+
+        assertThat(reporte.isSnapshotDisponible()).isTrue();
+        assertThat(reporte.isPickupDisponible()).isTrue();
+        assertThat(reporte.getDias()).extracting(PickupDiaResponse::getHabitaciones).containsExactly(1, 2, 1);
+        assertThat(reporte.getDias()).extracting(PickupDiaResponse::getPickupHabitaciones).containsExactly(0, 1, 1);
+        assertThat(reporte.getDias()).extracting(PickupDiaResponse::getDiasAnticipacion).containsExactly(30L, 31L, 32L);
+        assertThat(reporte.getDias().get(1).getIngresos()).isEqualByComparingTo("100000");
+        assertThat(reporte.getDias().get(1).getPickupIngresos()).isEqualByComparingTo("50000");
+        assertThat(reporte.getDias()).allSatisfy(d -> assertThat(d.getHabitacionesAnioAnterior()).isZero());
+    }
+}
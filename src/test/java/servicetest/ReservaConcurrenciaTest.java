@@ -0,0 +1,180 @@
+package servicetest;
+
+import com.miempresa.gestion_hotelera.GestionHoteleraApplication;
+import com.miempresa.gestion_hotelera.dto.ReservaCreateRequest;
+import com.miempresa.gestion_hotelera.entity.*;
+import com.miempresa.gestion_hotelera.repository.*;
+import com.miempresa.gestion_hotelera.service.ReservaService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Estrés de reservas concurrentes sobre la misma habitación: la constraint de
+ * exclusión tiene que dejar pasar una sola y las demás tienen que terminar en 409.
+ *
+ * Sin @Transactional a propósito: cada crear() necesita su propia transacción.
+ */
+@SpringBootTest(classes = GestionHoteleraApplication.class)
+class ReservaConcurrenciaTest {
+
+    private static final int HILOS = 16;
+    private static final int RONDAS = 5;
+
+    @Autowired private ReservaService reservaService;
+
+    @Autowired private ClienteRepository clienteRepository;
+    @Autowired private UsuarioRepository usuarioRepository;
+    @Autowired private RolRepository rolRepository;
+    @Autowired private HotelRepository hotelRepository;
+    @Autowired private TipoHabitacionRepository tipoHabitacionRepository;
+    @Autowired private HabitacionRepository habitacionRepository;
+    @Autowired private HuespedRepository huespedRepository;
+    @Autowired private ReservaRepository reservaRepository;
+    @Autowired private ReservaHuespedRepository reservaHuespedRepository;
+    @Autowired private OcupacionDiariaRepository ocupacionDiariaRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    private Cliente cliente;
+    private Usuario usuario;
+    private Hotel hotel;
+    private TipoHabitacion tipo;
+    private Habitacion habitacion;
+    private Huesped titular;
+
+    @BeforeEach
+    void setUp() {
+        cliente = clienteRepository.save(Cliente.builder().nombre("Cliente Concurrencia").activo(true).build());
+
+        Rol rolRecepcion = rolRepository.findByNombre("RECEPCION")
+                .orElseGet(() -> rolRepository.save(Rol.builder().nombre("RECEPCION").build()));
+
+        usuario = usuarioRepository.save(Usuario.builder()
+                .usuario("concurrencia-" + System.nanoTime())
+                .passwordHash("dummy")
+                .activo(true)
+                .cliente(cliente)
+                .roles(Set.of(rolRecepcion))
+                .build());
+
+        hotel = hotelRepository.save(Hotel.builder().nombre("Hotel Concurrencia").activo(true).cliente(cliente).build());
+        tipo = tipoHabitacionRepository.save(TipoHabitacion.builder().hotel(hotel).nombre("Doble").activo(true).build());
+        habitacion = habitacionRepository.save(Habitacion.builder()
+                .hotel(hotel)
+                .tipoHabitacion(tipo)
+                .codigo("C-1")
+                .activo(true)
+                .build());
+        titular = huespedRepository.save(Huesped.builder().nombre("Eva").apellido("Concurrente").build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        List<Reserva> reservas = reservaRepository.findByHotel_Id(hotel.getId());
+        reservas.forEach(r -> reservaHuespedRepository.deleteAll(reservaHuespedRepository.findByReserva_Id(r.getId())));
+        reservaRepository.deleteAll(reservas);
+        habitacionRepository.delete(habitacion);
+        tipoHabitacionRepository.delete(tipo);
+        // Proyección que mantiene crear(): tiene FK a hotel
+        transactionTemplate.executeWithoutResult(status -> ocupacionDiariaRepository.deleteByHotel(hotel.getId()));
+        hotelRepository.delete(hotel);
+        huespedRepository.delete(titular);
+        usuarioRepository.delete(usuario);
+        clienteRepository.delete(cliente);
+    }
+
+    @Test
+    void reservasConcurrentesNuncaSobrevendenLaHabitacion() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+        try {
+            for (int ronda = 0; ronda < RONDAS; ronda++) {
+                // Rangos distintos por ronda, todos superpuestos entre sí dentro de la ronda
+                LocalDate checkIn = LocalDate.of(2031, 1, 1).plusDays(ronda * 10L);
+
+                CountDownLatch largada = new CountDownLatch(1);
+                AtomicInteger exitos = new AtomicInteger();
+                AtomicInteger conflictos = new AtomicInteger();
+                List<Future<?>> tareas = new ArrayList<>();
+
+                for (int i = 0; i < HILOS; i++) {
+                    int desfase = i % 3; // mismas fechas o corridas un día, siempre solapadas
+                    tareas.add(executor.submit(() -> {
+                        SecurityContextHolder.getContext().setAuthentication(
+                                new UsernamePasswordAuthenticationToken(usuario.getUsuario(), null, List.of()));
+                        try {
+                            largada.await();
+                            reservaService.crear(request(checkIn.plusDays(desfase), checkIn.plusDays(desfase + 4)));
+                            exitos.incrementAndGet();
+                        } catch (ResponseStatusException e) {
+                            if (e.getStatusCode().value() == 409) {
+                                conflictos.incrementAndGet();
+                            } else {
+                                throw e;
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } finally {
+                            SecurityContextHolder.clearContext();
+                        }
+                        return null;
+                    }));
+                }
+
+                largada.countDown();
+                for (Future<?> tarea : tareas) {
+                    tarea.get(30, TimeUnit.SECONDS);
+                }
+
+                assertThat(exitos.get()).isEqualTo(1);
+                assertThat(conflictos.get()).isEqualTo(HILOS - 1);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Ninguna noche de la habitación quedó con más de una reserva activa
+        List<Reserva> activas = reservaRepository.findByHotel_Id(hotel.getId()).stream()
+                .filter(r -> r.getEstado().esActivo())
+                .toList();
+        assertThat(activas).hasSize(RONDAS);
+        for (Reserva a : activas) {
+            for (Reserva b : activas) {
+                if (a != b) {
+                    assertThat(a.getCheckOut().isAfter(b.getCheckIn()) && a.getCheckIn().isBefore(b.getCheckOut()))
+                            .isFalse();
+                }
+            }
+        }
+    }
+
+    private ReservaCreateRequest request(LocalDate checkIn, LocalDate checkOut) {
+        ReservaCreateRequest req = new ReservaCreateRequest();
+        req.setHotelId(hotel.getId());
+        req.setTipoHabitacionId(tipo.getId());
+        req.setHabitacionId(habitacion.getId());
+        req.setHuespedTitularId(titular.getId());
+        req.setAcompanianteIds(List.of());
+        req.setCheckIn(checkIn);
+        req.setCheckOut(checkOut);
+        req.setAdultos(2);
+        req.setPrecioTotal(BigDecimal.valueOf(1000));
+        req.setMoneda("ARS");
+        return req;
+    }
+}
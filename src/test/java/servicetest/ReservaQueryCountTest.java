@@ -0,0 +1,138 @@
+package servicetest;
+
+import com.miempresa.gestion_hotelera.GestionHoteleraApplication;
+import com.miempresa.gestion_hotelera.dto.ReservaCreateRequest;
+import com.miempresa.gestion_hotelera.dto.ReservaResponse;
+import com.miempresa.gestion_hotelera.entity.*;
+import com.miempresa.gestion_hotelera.repository.*;
+import com.miempresa.gestion_hotelera.service.ReservaService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Regresión de N+1: listar reservas tiene que emitir una cantidad de
+ * sentencias que no dependa de cuántas reservas hay.
+ */
+@SpringBootTest(
+        classes = GestionHoteleraApplication.class,
+        properties = "spring.jpa.properties.hibernate.generate_statistics=true"
+)
+@Transactional
+class ReservaQueryCountTest {
+
+    // usuario + roles, reservas del cliente, vínculos huésped-reserva
+    private static final long MAX_SENTENCIAS_LISTAR = 4;
+
+    @Autowired private ReservaService reservaService;
+    @Autowired private EntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    @Autowired private ClienteRepository clienteRepository;
+    @Autowired private UsuarioRepository usuarioRepository;
+    @Autowired private RolRepository rolRepository;
+    @Autowired private HotelRepository hotelRepository;
+    @Autowired private TipoHabitacionRepository tipoHabitacionRepository;
+    @Autowired private HuespedRepository huespedRepository;
+
+    private Hotel hotel;
+    private TipoHabitacion tipo;
+    private Huesped titular;
+    private Huesped acompaniante;
+
+    @BeforeEach
+    void setUp() {
+        Cliente cliente = clienteRepository.save(Cliente.builder()
+                .nombre("Cliente Query Count")
+                .activo(true)
+                .build());
+
+        Rol rolRecepcion = rolRepository.findByNombre("RECEPCION")
+                .orElseGet(() -> rolRepository.save(Rol.builder().nombre("RECEPCION").build()));
+
+        Usuario usuario = usuarioRepository.save(Usuario.builder()
+                .usuario("querycount")
+                .passwordHash("dummy")
+                .activo(true)
+                .cliente(cliente)
+                .roles(Set.of(rolRecepcion))
+                .build());
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(usuario.getUsuario(), null, List.of()));
+
+        hotel = hotelRepository.save(Hotel.builder()
+                .nombre("Hotel Query Count")
+                .activo(true)
+                .cliente(cliente)
+                .build());
+
+        tipo = tipoHabitacionRepository.save(TipoHabitacion.builder()
+                .hotel(hotel)
+                .nombre("Doble")
+                .activo(true)
+                .build());
+
+        titular = huespedRepository.save(Huesped.builder().nombre("Ana").apellido("Titular").build());
+        acompaniante = huespedRepository.save(Huesped.builder().nombre("Luis").apellido("Acomp").build());
+    }
+
+    private void crearReservas(int cantidad) {
+        for (int i = 0; i < cantidad; i++) {
+            ReservaCreateRequest req = new ReservaCreateRequest();
+            req.setHotelId(hotel.getId());
+            req.setTipoHabitacionId(tipo.getId());
+            req.setHuespedTitularId(titular.getId());
+            req.setAcompanianteIds(List.of(acompaniante.getId()));
+            req.setCheckIn(LocalDate.of(2025, 2, 1).plusDays(i));
+            req.setCheckOut(LocalDate.of(2025, 2, 3).plusDays(i));
+            req.setAdultos(2);
+            req.setPrecioTotal(BigDecimal.valueOf(1000));
+            req.setMoneda("ARS");
+            reservaService.crear(req);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private long sentenciasAlListar(int esperadas) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<ReservaResponse> reservas = reservaService.listar();
+
+        assertThat(reservas).hasSize(esperadas);
+        assertThat(reservas).allSatisfy(r -> {
+            assertThat(r.getHuespedTitularId()).isEqualTo(titular.getId());
+            assertThat(r.getAcompanianteIds()).containsExactly(acompaniante.getId());
+        });
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void listarEmiteCantidadConstanteDeSentencias() {
+        crearReservas(5);
+        long conPocas = sentenciasAlListar(5);
+
+        crearReservas(45);
+        long conMuchas = sentenciasAlListar(50);
+
+        assertThat(conMuchas).isEqualTo(conPocas);
+        assertThat(conMuchas).isLessThanOrEqualTo(MAX_SENTENCIAS_LISTAR);
+    }
+}
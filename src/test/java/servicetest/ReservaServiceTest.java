@@ -1,6 +1,15 @@
 package servicetest;
 
+import com.miempresa.gestion_hotelera.GestionHoteleraApplication;
+import com.miempresa.gestion_hotelera.dto.HuespedRequest;
+import com.miempresa.gestion_hotelera.dto.InventarioHotelResponse;
+import com.miempresa.gestion_hotelera.dto.ReservaBusquedaRequest;
 import com.miempresa.gestion_hotelera.dto.ReservaCreateRequest;
+import com.miempresa.gestion_hotelera.dto.ReservaFiltroRequest;
+import com.miempresa.gestion_hotelera.dto.ReservaGrupoItemRequest;
+import com.miempresa.gestion_hotelera.dto.ReservaGrupoRequest;
+import com.miempresa.gestion_hotelera.dto.ReservaGrupoResponse;
+import com.miempresa.gestion_hotelera.dto.ReservaPaginaResponse;
 import com.miempresa.gestion_hotelera.entity.*;
 import com.miempresa.gestion_hotelera.repository.*;
 import com.miempresa.gestion_hotelera.service.ReservaService;
@@ -21,7 +30,7 @@ import java.util.Set;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
-@SpringBootTest
+@SpringBootTest(classes = GestionHoteleraApplication.class)
 @Transactional
 class ReservaServiceTest {
 
@@ -189,4 +198,149 @@ class ReservaServiceTest {
 
         assertThat(disponible).isTrue();
     }
+
+    @Test
+    void disponibilidadHotelExcluyeHabitacionesOcupadas() {
+        ReservaCreateRequest req = buildReservaRequest(
+                LocalDate.of(2025, 1, 10),
+                LocalDate.of(2025, 1, 15)
+        );
+        reservaService.crear(req);
+
+        // Se superpone en la noche del 14
+        assertThat(reservaService.disponibilidadHotel(
+                hotel.getId(),
+                LocalDate.of(2025, 1, 14),
+                LocalDate.of(2025, 1, 16)
+        )).isEmpty();
+
+        // El check-out del 15 libera esa noche
+        assertThat(reservaService.disponibilidadHotel(
+                hotel.getId(),
+                LocalDate.of(2025, 1, 15),
+                LocalDate.of(2025, 1, 17)
+        )).extracting("id").containsExactly(habitacion.getId());
+    }
+
+    @Test
+    void listarPaginaRecorreTodasLasReservasConCursor() {
+        reservaService.crear(buildReservaRequest(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 3)));
+        reservaService.crear(buildReservaRequest(LocalDate.of(2025, 3, 5), LocalDate.of(2025, 3, 7)));
+        reservaService.crear(buildReservaRequest(LocalDate.of(2025, 3, 9), LocalDate.of(2025, 3, 11)));
+
+        ReservaFiltroRequest filtro = new ReservaFiltroRequest();
+        filtro.setHotelId(hotel.getId());
+        filtro.setLimite(2);
+
+        ReservaPaginaResponse primera = reservaService.listarPagina(filtro);
+        assertThat(primera.getItems()).extracting("checkIn")
+                .containsExactly(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 5));
+        assertThat(primera.getSiguienteCursor()).isNotNull();
+
+        filtro.setCursor(primera.getSiguienteCursor());
+        ReservaPaginaResponse segunda = reservaService.listarPagina(filtro);
+        assertThat(segunda.getItems()).extracting("checkIn")
+                .containsExactly(LocalDate.of(2025, 3, 9));
+        assertThat(segunda.getSiguienteCursor()).isNull();
+    }
+
+    @Test
+    void inventarioPorTipoDescuentaNochesOcupadas() {
+        reservaService.crear(buildReservaRequest(LocalDate.of(2025, 1, 10), LocalDate.of(2025, 1, 13)));
+
+        InventarioHotelResponse inventario = reservaService.inventarioPorTipo(
+                hotel.getId(),
+                LocalDate.of(2025, 1, 9),
+                LocalDate.of(2025, 1, 14)
+        );
+
+        assertThat(inventario.getNoches()).isEqualTo(5);
+        assertThat(inventario.getTipos()).hasSize(1);
+        assertThat(inventario.getTipos().get(0).getLibres()).containsExactly(1, 0, 0, 0, 1);
+    }
+
+    @Test
+    void crearGrupoEsTodoONadaYReportaErroresPorFila() {
+        ReservaGrupoItemRequest libre = new ReservaGrupoItemRequest();
+        libre.setTipoHabitacionId(tipo.getId());
+        libre.setHuespedTitularId(huespedTitular.getId());
+        libre.setCheckIn(LocalDate.of(2025, 4, 1));
+        libre.setCheckOut(LocalDate.of(2025, 4, 3));
+
+        ReservaGrupoItemRequest conHabitacion = new ReservaGrupoItemRequest();
+        conHabitacion.setTipoHabitacionId(tipo.getId());
+        conHabitacion.setHabitacionId(habitacion.getId());
+        conHabitacion.setTitular(new HuespedRequest());
+        conHabitacion.getTitular().setNombre("Nuevo");
+        conHabitacion.getTitular().setApellido("Huésped");
+        conHabitacion.setCheckIn(LocalDate.of(2025, 4, 1));
+        conHabitacion.setCheckOut(LocalDate.of(2025, 4, 5));
+
+        // Misma habitación que la fila anterior, rango solapado
+        ReservaGrupoItemRequest solapada = new ReservaGrupoItemRequest();
+        solapada.setTipoHabitacionId(tipo.getId());
+        solapada.setHabitacionId(habitacion.getId());
+        solapada.setHuespedTitularId(huespedTitular.getId());
+        solapada.setCheckIn(LocalDate.of(2025, 4, 4));
+        solapada.setCheckOut(LocalDate.of(2025, 4, 6));
+
+        ReservaGrupoRequest grupo = new ReservaGrupoRequest();
+        grupo.setHotelId(hotel.getId());
+        grupo.setReservas(List.of(libre, conHabitacion, solapada));
+
+        ReservaGrupoResponse conError = reservaService.crearGrupo(grupo);
+        assertThat(conError.isCreado()).isFalse();
+        assertThat(conError.getErrores()).extracting("indice").containsExactly(2);
+        assertThat(reservaService.listar()).isEmpty();
+
+        grupo.setReservas(List.of(libre, conHabitacion));
+        ReservaGrupoResponse ok = reservaService.crearGrupo(grupo);
+        assertThat(ok.isCreado()).isTrue();
+        assertThat(ok.getReservas()).hasSize(2);
+        assertThat(ok.getReservas().get(1).getHuespedTitularId()).isNotNull();
+    }
+
+    @Test
+    void buscarFiltraPorEstadoYHuespedConOrdenDescendente() {
+        reservaService.crear(buildReservaRequest(LocalDate.of(2025, 7, 1), LocalDate.of(2025, 7, 3)));
+        reservaService.crear(buildReservaRequest(LocalDate.of(2025, 7, 5), LocalDate.of(2025, 7, 7)));
+        Long cancelada = reservaService.crear(
+                buildReservaRequest(LocalDate.of(2025, 7, 9), LocalDate.of(2025, 7, 11))).getId();
+        reservaService.cancelar(cancelada);
+
+        ReservaBusquedaRequest filtro = new ReservaBusquedaRequest();
+        filtro.setHotelId(hotel.getId());
+        filtro.setEstado("PENDIENTE");
+        filtro.setHuesped("pér");
+        filtro.setOrden("checkIn");
+        filtro.setDireccion("desc");
+        filtro.setLimite(1);
+
+        ReservaPaginaResponse primera = reservaService.buscar(filtro);
+        assertThat(primera.getItems()).extracting("checkIn").containsExactly(LocalDate.of(2025, 7, 5));
+
+        filtro.setCursor(primera.getSiguienteCursor());
+        ReservaPaginaResponse segunda = reservaService.buscar(filtro);
+        assertThat(segunda.getItems()).extracting("checkIn").containsExactly(LocalDate.of(2025, 7, 1));
+        assertThat(segunda.getSiguienteCursor()).isNull();
+
+        // Un cursor generado con otro orden no se acepta
+        filtro.setOrden("creadoEn");
+        assertThrows(ResponseStatusException.class, () -> reservaService.buscar(filtro));
+    }
+
+    @Test
+    void etagCambiaSoloCuandoCambiaLaReserva() {
+        Long id = reservaService.crear(buildReservaRequest(LocalDate.of(2025, 8, 1), LocalDate.of(2025, 8, 3))).getId();
+
+        String etag = reservaService.etagReserva(id);
+        String etagListado = reservaService.etagListado();
+        assertThat(etag).startsWith("W/");
+        assertThat(reservaService.etagReserva(id)).isEqualTo(etag);
+
+        reservaService.cancelar(id);
+
+        assertThat(reservaService.etagReserva(id)).isNotEqualTo(etag);
+        assertThat(reservaService.etagListado()).isNotEqualTo(etagListado);
+    }
 }
@@ -0,0 +1,188 @@
+package servicetest;
+
+import com.miempresa.gestion_hotelera.GestionHoteleraApplication;
+import com.miempresa.gestion_hotelera.entity.SecuenciaComprobanteId;
+import com.miempresa.gestion_hotelera.repository.SecuenciaComprobanteRepository;
+import com.miempresa.gestion_hotelera.service.AfipCliente;
+import com.miempresa.gestion_hotelera.service.AfipService;
+import com.miempresa.gestion_hotelera.service.SecuenciaComprobanteService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Sin @Transactional a propósito: la emisión no puede correr dentro de una
+ * transacción (reserva la secuencia y guarda el resultado en transacciones cortas).
+ */
+@SpringBootTest(classes = GestionHoteleraApplication.class)
+class SecuenciaComprobanteServiceTest {
+
+    private static final int PUNTO_VENTA = 3;
+    private static final int FACTURA_B = 6;
+
+    @Autowired private SecuenciaComprobanteService secuenciaComprobanteService;
+    @Autowired private SecuenciaComprobanteRepository secuenciaComprobanteRepository;
+
+    private final String cuit = String.valueOf(20_000_000_000L + System.nanoTime() % 1_000_000_000L);
+    private final AtomicInteger consultasUltimo = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        secuenciaComprobanteRepository.deleteById(new SecuenciaComprobanteId(cuit, PUNTO_VENTA, FACTURA_B));
+    }
+
+    private long ultimoEnAfip(long ultimo) {
+        consultasUltimo.incrementAndGet();
+        return ultimo;
+    }
+
+    private static final SecuenciaComprobanteService.Intento SIN_REGISTRO = (primerNumero, posiciones) -> {};
+
+    private static AfipService.AfipFacturaResponse aprobada(long numero) {
+        return AfipService.AfipFacturaResponse.builder().cae("7" + numero).numeroComprobante(numero).build();
+    }
+
+    @Test
+    void consultaAfipSoloAlCrearLaSecuencia() throws Exception {
+        long primero = secuenciaComprobanteService.emitir(cuit, PUNTO_VENTA, FACTURA_B,
+                () -> ultimoEnAfip(41), SIN_REGISTRO, SecuenciaComprobanteServiceTest::aprobada).getNumeroComprobante();
+        long segundo = secuenciaComprobanteService.emitir(cuit, PUNTO_VENTA, FACTURA_B,
+                () -> ultimoEnAfip(41), SIN_REGISTRO, SecuenciaComprobanteServiceTest::aprobada).getNumeroComprobante();
+
+        assertThat(primero).isEqualTo(42);
+        assertThat(segundo).isEqualTo(43);
+        assertThat(consultasUltimo.get()).isEqualTo(1);
+    }
+
+    @Test
+    void rechazoNoAvanzaYDesfaseResincroniza() throws Exception {
+        secuenciaComprobanteService.emitir(cuit, PUNTO_VENTA, FACTURA_B,
+                () -> ultimoEnAfip(10), SIN_REGISTRO, SecuenciaComprobanteServiceTest::aprobada);
+
+        // Rechazo común: el número no se consume
+        secuenciaComprobanteService.emitir(cuit, PUNTO_VENTA, FACTURA_B, () -> ultimoEnAfip(10), SIN_REGISTRO,
+                n -> AfipService.AfipFacturaResponse.builder().numeroComprobante(n).codigosError(List.of(10015)).build());
+
+        // Otro sistema emitió hasta el 20: AFIP rechaza el 12, se resincroniza y sale el 21
+        List<Long> intentos = new ArrayList<>();
+        AfipService.AfipFacturaResponse respuesta = secuenciaComprobanteService.emitir(cuit, PUNTO_VENTA, FACTURA_B,
+                () -> ultimoEnAfip(20), SIN_REGISTRO,
+                n -> {
+                    intentos.add(n);
+                    return n == 21 ? aprobada(n) : AfipService.AfipFacturaResponse.builder()
+                            .numeroComprobante(n)
+                            .codigosError(List.of(SecuenciaComprobanteService.ERROR_NUMERO_DESFASADO))
+                            .build();
+                });
+
+        assertThat(intentos).containsExactly(12L, 21L);
+        assertThat(respuesta.getNumeroComprobante()).isEqualTo(21);
+        assertThat(secuenciaComprobanteRepository.findById(new SecuenciaComprobanteId(cuit, PUNTO_VENTA, FACTURA_B)))
+                .get().extracting(s -> s.getUltimoNumero()).isEqualTo(21L);
+    }
+
+    @Test
+    void registraElNumeroAntesDeEnviarYReleeDespuesDeUnaFalla() throws Exception {
+        List<Long> registrados = new ArrayList<>();
+        assertThatThrownBy(() -> secuenciaComprobanteService.emitir(cuit, PUNTO_VENTA, FACTURA_B,
+                () -> ultimoEnAfip(5), (primerNumero, posiciones) -> registrados.add(primerNumero),
+                n -> {
+                    throw new AfipCliente.AfipResultadoInciertoException("FECAESolicitar", new IOException("timeout"));
+                }))
+                .isInstanceOf(AfipCliente.AfipResultadoInciertoException.class);
+        assertThat(registrados).containsExactly(6L);
+
+        // AFIP autorizó el 6 aunque no llegó la respuesta: la próxima emisión relee y sale el 7
+        long numero = secuenciaComprobanteService.emitir(cuit, PUNTO_VENTA, FACTURA_B,
+                () -> ultimoEnAfip(6), SIN_REGISTRO, SecuenciaComprobanteServiceTest::aprobada).getNumeroComprobante();
+
+        assertThat(numero).isEqualTo(7);
+        assertThat(consultasUltimo.get()).isEqualTo(2);
+        assertThat(secuenciaComprobanteRepository.findById(new SecuenciaComprobanteId(cuit, PUNTO_VENTA, FACTURA_B)))
+                .get().satisfies(s -> {
+                    assertThat(s.getReservadaPor()).isNull();
+                    assertThat(s.getRequiereSincronizar()).isFalse();
+                });
+    }
+
+    @Test
+    void loteConRechazoEnElMedioReenviaLosCorridos() throws Exception {
+        // AFIP rechaza el 2do (10015); el 3ro y 4to quedan corridos (10016) porque el 2 no se autorizó
+        List<List<Integer>> envios = new ArrayList<>();
+        List<AfipService.AfipFacturaResponse> respuestas = secuenciaComprobanteService.emitirLote(
+                cuit, PUNTO_VENTA, FACTURA_B, 4, () -> ultimoEnAfip(consultasUltimo.get() == 0 ? 0 : 1),
+                SIN_REGISTRO, (primerNumero, posiciones) -> {
+                    envios.add(posiciones);
+                    List<AfipService.AfipFacturaResponse> lote = new ArrayList<>();
+                    boolean corrido = false;
+                    for (int i = 0; i < posiciones.size(); i++) {
+                        long numero = primerNumero + i;
+                        if (posiciones.get(i) == 1) {
+                            corrido = true;
+                            lote.add(AfipService.AfipFacturaResponse.builder()
+                                    .numeroComprobante(numero).codigosError(List.of(10015)).build());
+                        } else if (corrido) {
+                            lote.add(AfipService.AfipFacturaResponse.builder().numeroComprobante(numero)
+                                    .codigosError(List.of(SecuenciaComprobanteService.ERROR_NUMERO_DESFASADO)).build());
+                        } else {
+                            lote.add(aprobada(numero));
+                        }
+                    }
+                    return lote;
+                });
+
+        assertThat(envios).containsExactly(List.of(0, 1, 2, 3), List.of(2, 3));
+        assertThat(respuestas).extracting(AfipService.AfipFacturaResponse::getCae)
+                .containsExactly("71", null, "72", "73");
+        assertThat(secuenciaComprobanteRepository.findById(new SecuenciaComprobanteId(cuit, PUNTO_VENTA, FACTURA_B)))
+                .get().extracting(s -> s.getUltimoNumero()).isEqualTo(3L);
+    }
+
+    @Test
+    void emisionesConcurrentesNoRepitenNumero() throws Exception {
+        int hilos = 8;
+        int porHilo = 5;
+        Set<Long> numeros = ConcurrentHashMap.newKeySet();
+        CountDownLatch largada = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int i = 0; i < hilos; i++) {
+                tareas.add(executor.submit(() -> {
+                    largada.await();
+                    for (int j = 0; j < porHilo; j++) {
+                        numeros.add(secuenciaComprobanteService.emitir(cuit, PUNTO_VENTA, FACTURA_B,
+                                () -> ultimoEnAfip(0), SIN_REGISTRO, SecuenciaComprobanteServiceTest::aprobada).getNumeroComprobante());
+                    }
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> tarea : tareas) {
+                tarea.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(numeros).hasSize(hilos * porHilo);
+        assertThat(numeros).allSatisfy(n -> assertThat(n).isBetween(1L, (long) hilos * porHilo));
+    }
+}